@@ -2,23 +2,43 @@ package com.mcp.server;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.AdmissionController;
+import io.modelcontextprotocol.server.transport.BroadcastFanout;
+import io.modelcontextprotocol.server.transport.HeartbeatWheel;
+import io.modelcontextprotocol.server.transport.OutboundMessageQueue;
+import io.modelcontextprotocol.server.transport.SseReplayBuffer;
 import io.modelcontextprotocol.spec.*;
 import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.function.RouterFunction;
 import org.springframework.web.servlet.function.RouterFunctions;
 import org.springframework.web.servlet.function.ServerRequest;
 import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WebMvcSseServerTransportProvider implements McpServerTransportProvider {
 
@@ -44,7 +64,20 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
      */
     public static final String DEFAULT_SSE_ENDPOINT = "/sse";
 
-    private final ObjectMapper objectMapper;
+    /**
+     * Header a reconnecting client uses to report the last event it received.
+     */
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    /**
+     * Default limit on the size of a POSTed message, in bytes.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Codec used for message serialization/deserialization.
+     */
+    private final McpJsonCodec jsonCodec;
 
     private final String messageEndpoint;
 
@@ -54,6 +87,60 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
 
     private final RouterFunction<ServerResponse> routerFunction;
 
+    /**
+     * Executor used to dispatch incoming messages when async dispatch is enabled, or
+     * {@code null} to handle messages on the servlet thread.
+     */
+    private final Executor messageExecutor;
+
+    /**
+     * Whether the message executor was created by this transport and must be shut down
+     * with it.
+     */
+    private final boolean ownsMessageExecutor;
+
+    /**
+     * Fan-out engine used for broadcasts and heartbeats.
+     */
+    private final BroadcastFanout broadcastFanout;
+
+    /**
+     * Capacity and overflow policy of the per-session outbound queues.
+     */
+    private final OutboundMessageQueue.Settings outboundQueueSettings;
+
+    /**
+     * Heartbeat engine pinging idle sessions, or {@code null} if heartbeats are left to
+     * the application.
+     */
+    private final HeartbeatWheel heartbeatWheel;
+
+    /**
+     * Number of recent events kept per session for replay, or 0 if sessions end with
+     * their SSE connection.
+     */
+    private final int replayBufferSize;
+
+    /**
+     * How long a session whose SSE connection dropped waits for the client to reconnect.
+     */
+    private final Duration resumeWindow;
+
+    /**
+     * Limits on sessions and in-flight messages.
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * Maximum size of a POSTed message, in bytes.
+     */
+    private final long maxBodySize;
+
+    /**
+     * Codecs of the binary wire formats clients may negotiate.
+     */
+    private final Map<McpWireFormat, McpJsonCodec> wireCodecs;
+
     private McpServerSession.Factory sessionFactory;
 
     /**
@@ -61,6 +148,11 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
      */
     private volatile ConcurrentHashMap<String, McpServerSession> sessions = new ConcurrentHashMap<>();
 
+    /**
+     * Transports of the active sessions, keyed by session ID.
+     */
+    private final ConcurrentHashMap<String, WebMvcMcpSessionTransport> transports = new ConcurrentHashMap<>();
+
     /**
      * Flag indicating if the transport is shutting down.
      */
@@ -111,21 +203,76 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
      */
     public WebMvcSseServerTransportProvider(ObjectMapper objectMapper, String baseUrl, String messageEndpoint,
                                             String sseEndpoint) {
-        Assert.notNull(objectMapper, "ObjectMapper must not be null");
-        Assert.notNull(baseUrl, "Message base URL must not be null");
-        Assert.notNull(messageEndpoint, "Message endpoint must not be null");
-        Assert.notNull(sseEndpoint, "SSE endpoint must not be null");
-
-        this.objectMapper = objectMapper;
-        this.baseUrl = baseUrl;
-        this.messageEndpoint = messageEndpoint;
-        this.sseEndpoint = sseEndpoint;
+        this(new Builder().objectMapper(objectMapper)
+                .baseUrl(baseUrl)
+                .messageEndpoint(messageEndpoint)
+                .sseEndpoint(sseEndpoint));
+    }
+
+    private WebMvcSseServerTransportProvider(Builder builder) {
+        this.jsonCodec = builder.jsonCodec != null ? builder.jsonCodec : McpJsonCodec.jackson(builder.objectMapper);
+        this.baseUrl = builder.baseUrl;
+        this.messageEndpoint = builder.messageEndpoint;
+        this.sseEndpoint = builder.sseEndpoint;
+        if (builder.messageExecutor != null) {
+            this.messageExecutor = builder.messageExecutor;
+            this.ownsMessageExecutor = false;
+        } else if (builder.dispatchPoolSize > 0) {
+            this.messageExecutor = newBoundedMessageExecutor(builder.dispatchPoolSize, builder.dispatchQueueCapacity);
+            this.ownsMessageExecutor = true;
+        } else {
+            this.messageExecutor = null;
+            this.ownsMessageExecutor = false;
+        }
+        this.broadcastFanout = new BroadcastFanout(builder.broadcastConcurrency, builder.broadcastWriteDeadline,
+                builder.maxConsecutiveTimeouts);
+        this.outboundQueueSettings = new OutboundMessageQueue.Settings(builder.outboundQueueCapacity,
+                builder.overflowPolicy, builder.outboundBlockTimeout);
+        this.admissionController = builder.admissionController;
+        this.maxBodySize = builder.maxBodySize;
+        this.wireCodecs = new EnumMap<>(McpWireFormat.class);
+        for (McpWireFormat format : builder.wireFormats) {
+            this.wireCodecs.put(format, format.codec(builder.objectMapper));
+        }
+        this.replayBufferSize = builder.replayBufferSize;
+        this.resumeWindow = builder.resumeWindow;
+        if (builder.heartbeatInterval != null) {
+            this.heartbeatWheel = new HeartbeatWheel(this.jsonCodec, builder.heartbeatInterval,
+                    builder.maxMissedHeartbeats);
+            this.heartbeatWheel.start();
+        } else {
+            this.heartbeatWheel = null;
+        }
         this.routerFunction = RouterFunctions.route()
                 .GET(this.sseEndpoint, this::handleSseConnection)
                 .POST(this.messageEndpoint, this::handleMessage)
                 .build();
     }
 
+    /**
+     * Creates a bounded executor suitable for asynchronous message dispatch. The
+     * executor runs at most {@code poolSize} messages concurrently and queues at most
+     * {@code queueCapacity} more; further submissions are rejected so the transport can
+     * answer with 503 instead of piling up work.
+     *
+     * @param poolSize      The number of dispatch threads
+     * @param queueCapacity The number of messages that may wait for a free thread
+     * @return A new bounded executor using daemon threads
+     */
+    public static ExecutorService newBoundedMessageExecutor(int poolSize, int queueCapacity) {
+        Assert.isTrue(poolSize > 0, "Pool size must be positive");
+        Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-message-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     public void setSessionFactory(McpServerSession.Factory sessionFactory) {
         this.sessionFactory = sessionFactory;
@@ -133,31 +280,63 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
 
     /**
      * Broadcasts a notification to all connected clients through their SSE connections.
-     * The message is serialized to JSON and sent as an SSE event with type "message". If
-     * any errors occur during sending to a particular client, they are logged but don't
-     * prevent sending to other clients.
+     * The notification is serialized to JSON once and the same encoded text is sent to
+     * every session as an SSE event with type "message". A client whose send fails is
+     * evicted, without holding up sending to the other clients.
      *
      * @param method The method name for the notification
      * @param params The parameters for the notification
      * @return A Mono that completes when the broadcast attempt is finished
+     * @see #broadcast(String, Object)
      */
     @Override
     public Mono<Void> notifyClients(String method, Object params) {
+        return broadcast(method, params).then();
+    }
+
+    /**
+     * Broadcasts a notification to all connected clients and reports the outcome. Writes
+     * run with bounded parallelism and a per-session deadline, so a stalled client cannot
+     * hold up the broadcast; clients whose send fails, or that keep missing the deadline,
+     * are evicted. A send only queues the message on the session's outbound queue and
+     * fails once that queue has given up on the client, so it never blocks on the
+     * connection itself.
+     *
+     * @param method The method name for the notification
+     * @param params The parameters for the notification
+     * @return A Mono emitting the delivery report once every session has been attempted
+     */
+    public Mono<BroadcastFanout.DeliveryReport> broadcast(String method, Object params) {
         if (sessions.isEmpty()) {
             logger.debug("No active sessions to broadcast message to");
-            return Mono.empty();
+            return Mono.just(new BroadcastFanout.DeliveryReport(0, 0, 0, 0));
         }
 
         logger.debug("Attempting to broadcast message to {} active sessions", sessions.size());
 
-        return Flux.fromIterable(sessions.values())
-                .flatMap(session -> session.sendNotification(method, params)
-                        .doOnError(
-                                e -> logger.error("Failed to send message({}:{}) to session {}: {}", method, params, session.getId(), e.getMessage()))
-                        .onErrorResume(e -> Mono.empty()))
-                .then();
+        McpEncodedMessage notification;
+        try {
+            notification = McpEncodedMessage.encode(jsonCodec,
+                    new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, params));
+        } catch (IOException e) {
+            logger.error("Failed to serialize message({}:{}): {}", method, params, e.getMessage());
+            return Mono.error(e);
+        }
+
+        return this.broadcastFanout
+                .broadcast(sessions.values(), session -> session.sendEncodedMessage(notification), this::evictSession)
+                .doOnNext(report -> logger.debug("Broadcast of {} finished: {}", method, report));
     }
 
+    /**
+     * Sends a heartbeat to every session at once.
+     *
+     * @return A Mono that completes when every session has been attempted
+     * @deprecated configure {@link Builder#heartbeatInterval(Duration)} instead, which
+     * only pings idle sessions, spreads the pings over the interval and reaps sessions
+     * that stop responding
+     */
+    @Deprecated
     public Mono<Void> heartbeat() {
         if (sessions.isEmpty()) {
             logger.debug("No active sessions to broadcast message to");
@@ -166,14 +345,143 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
 
         logger.debug("Attempting to broadcast message to {} active sessions", sessions.size());
 
-        return Flux.fromIterable(sessions.values())
-                .flatMap(session -> session.sendNotification(HEARTBEAT_EVENT_TYPE, "pong @" + System.currentTimeMillis())
-                        .doOnError(
-                                e -> logger.error("Failed to send heartbeat to session {}: {}", session.getId(), e.getMessage()))
-                        .onErrorResume(e -> Mono.empty()))
+        McpEncodedMessage heartbeat;
+        try {
+            heartbeat = McpEncodedMessage.encode(jsonCodec, new McpSchema.JSONRPCNotification(
+                    McpSchema.JSONRPC_VERSION, HEARTBEAT_EVENT_TYPE, "pong @" + System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.error("Failed to serialize heartbeat: {}", e.getMessage());
+            return Mono.error(e);
+        }
+
+        return this.broadcastFanout
+                .broadcast(sessions.values(), session -> session.sendEncodedMessage(heartbeat), this::evictSession)
+                .doOnNext(report -> logger.debug("Heartbeat finished: {}", report))
                 .then();
     }
 
+    /**
+     * Removes a session that no longer keeps up with its writes and closes its SSE
+     * connection.
+     *
+     * @param session The session to evict
+     */
+    private void evictSession(McpServerSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            session.close();
+        }
+    }
+
+    /**
+     * Drops every record of a session whose SSE connection has gone away.
+     *
+     * @param sessionId The ID of the session
+     */
+    private void removeSession(String sessionId) {
+        McpServerSession session = sessions.remove(sessionId);
+        if (session != null) {
+            session.release();
+        }
+        broadcastFanout.forget(sessionId);
+        admissionController.forget(sessionId);
+        WebMvcMcpSessionTransport transport = transports.remove(sessionId);
+        if (transport != null) {
+            transport.release();
+            admissionController.sessionClosed();
+        }
+    }
+
+    /**
+     * Returns the admission controller, whose accepted and shed counters tell how close
+     * this instance is to its limits.
+     *
+     * @return The admission controller
+     */
+    public AdmissionController getAdmissionController() {
+        return this.admissionController;
+    }
+
+    /**
+     * Builds the response for a request refused by admission control.
+     *
+     * @param reason The error message
+     * @return 503 Service Unavailable with a Retry-After header
+     */
+    private ServerResponse overloaded(String reason) {
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionController.retryAfterSeconds()))
+                .body(new McpError(reason));
+    }
+
+    /**
+     * Builds the response for a message larger than the configured limit.
+     *
+     * @return 413 Payload Too Large
+     */
+    private ServerResponse payloadTooLarge() {
+        return ServerResponse.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new McpError("Message exceeds the limit of " + maxBodySize + " bytes"));
+    }
+
+    /**
+     * Builds the response for a message in a wire format this server has not enabled.
+     *
+     * @param contentType The content type of the message
+     * @return 415 Unsupported Media Type
+     */
+    private ServerResponse unsupportedMediaType(String contentType) {
+        return ServerResponse.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .body(new McpError("Unsupported message format: " + contentType));
+    }
+
+    /**
+     * Returns the codec of a wire format.
+     *
+     * @param wireFormat The wire format
+     * @return The codec, or {@code null} if the format is binary and not enabled
+     */
+    private McpJsonCodec codecFor(McpWireFormat wireFormat) {
+        return wireFormat.isBinary() ? this.wireCodecs.get(wireFormat) : this.jsonCodec;
+    }
+
+    /**
+     * Returns the number of messages waiting to be written to a session.
+     *
+     * @param sessionId The ID of the session
+     * @return The outbound queue depth, or 0 if the session is unknown
+     */
+    public int getOutboundQueueDepth(String sessionId) {
+        WebMvcMcpSessionTransport transport = transports.get(sessionId);
+        return transport != null ? transport.outboundQueue.depth() : 0;
+    }
+
+    /**
+     * Returns the number of messages waiting to be written across all sessions.
+     *
+     * @return The total outbound queue depth
+     */
+    public int getTotalOutboundQueueDepth() {
+        int depth = 0;
+        for (WebMvcMcpSessionTransport transport : transports.values()) {
+            depth += transport.outboundQueue.depth();
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the number of notifications dropped across all sessions because their
+     * outbound queue was full.
+     *
+     * @return The number of dropped notifications of the active sessions
+     */
+    public long getDroppedNotificationCount() {
+        long dropped = 0;
+        for (WebMvcMcpSessionTransport transport : transports.values()) {
+            dropped += transport.outboundQueue.dropped();
+        }
+        return dropped;
+    }
+
     /**
      * Initiates a graceful shutdown of the transport. This method:
      * <ul>
@@ -192,7 +500,15 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
                 })
                 .flatMap(McpServerSession::closeGracefully)
                 .then()
-                .doOnSuccess(v -> logger.debug("Graceful shutdown completed"));
+                .doOnSuccess(v -> {
+                    if (this.heartbeatWheel != null) {
+                        this.heartbeatWheel.stop();
+                    }
+                    if (this.ownsMessageExecutor) {
+                        ((ExecutorService) this.messageExecutor).shutdown();
+                    }
+                    logger.debug("Graceful shutdown completed");
+                });
     }
 
     /**
@@ -219,6 +535,9 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
      * messages</li>
      * <li>Maintains the session in the sessions map</li>
      * </ul>
+     * When resumability is enabled and the request carries a {@code Last-Event-ID}
+     * header of a session that is still waiting for its client, the stream is attached
+     * to that session instead and the missed events are replayed.
      *
      * @param request The incoming server request
      * @return A ServerResponse configured for SSE communication, or an error response if
@@ -229,52 +548,117 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
             return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is shutting down");
         }
 
+        if (this.replayBufferSize > 0) {
+            ServerResponse resumed = resumeSession(request.headers().firstHeader(LAST_EVENT_ID_HEADER));
+            if (resumed != null) {
+                return resumed;
+            }
+        }
+
+        if (!admissionController.tryOpenSession()) {
+            return overloaded("Too many sessions");
+        }
+
         String sessionId = UUID.randomUUID().toString();
         logger.debug("Creating new SSE connection for session: {}", sessionId);
+        McpWireFormat wireFormat = McpWireFormat.negotiate(request.headers().firstHeader(McpWireFormat.HEADER),
+                this.wireCodecs.keySet());
 
         // Send initial endpoint event
         try {
             return ServerResponse.sse(sseBuilder -> {
+                WebMvcMcpSessionTransport sessionTransport = new WebMvcMcpSessionTransport(sessionId, sseBuilder,
+                        wireFormat);
                 sseBuilder.onComplete(() -> {
                     logger.debug("SSE connection completed for session: {}", sessionId);
-                    sessions.remove(sessionId);
+                    sessionTransport.detach(sseBuilder);
                 });
                 sseBuilder.onTimeout(() -> {
                     logger.debug("SSE connection timed out for session: {}", sessionId);
-                    sessions.remove(sessionId);
+                    sessionTransport.detach(sseBuilder);
                 });
 
-                WebMvcMcpSessionTransport sessionTransport = new WebMvcMcpSessionTransport(sessionId, sseBuilder);
                 McpServerSession session = sessionFactory.create(sessionTransport);
-                this.sessions.put(sessionId, session);
-
                 try {
-                    sseBuilder.id(sessionId)
-                            .event(ENDPOINT_EVENT_TYPE)
-                            .data(this.baseUrl + this.messageEndpoint + "?sessionId=" + sessionId);
+                    sessionTransport.open(session);
                 } catch (Exception e) {
                     logger.error("Failed to send initial endpoint event: {}", e.getMessage());
+                    removeSession(sessionId);
                     sseBuilder.error(e);
                 }
             }, Duration.ZERO);
         } catch (Exception e) {
             logger.error("Failed to send initial endpoint event to session {}: {}", sessionId, e.getMessage());
-            sessions.remove(sessionId);
+            if (transports.containsKey(sessionId)) {
+                removeSession(sessionId);
+            } else {
+                admissionController.sessionClosed();
+            }
             return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Attaches a reconnecting client to the session named in its {@code Last-Event-ID}.
+     *
+     * @param lastEventId The value of the Last-Event-ID header, may be {@code null}
+     * @return The resumed SSE stream, or {@code null} if the session cannot be resumed
+     * and a new one has to be created
+     */
+    private ServerResponse resumeSession(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+        String sessionId = lastEventId.substring(0, separator);
+        long lastSequence;
+        try {
+            lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring malformed Last-Event-ID: {}", lastEventId);
+            return null;
+        }
+
+        WebMvcMcpSessionTransport transport = transports.get(sessionId);
+        if (transport == null || !transport.canResume(lastSequence)) {
+            logger.debug("Session {} cannot be resumed from event {}, starting a new one", sessionId, lastSequence);
+            return null;
+        }
+
+        logger.debug("Resuming session {} after event {}", sessionId, lastSequence);
+        return ServerResponse.sse(sseBuilder -> {
+            sseBuilder.onComplete(() -> transport.detach(sseBuilder));
+            sseBuilder.onTimeout(() -> transport.detach(sseBuilder));
+            transport.reattach(sseBuilder, lastSequence);
+        }, Duration.ZERO);
+    }
+
+    private String endpointUrl(String sessionId, McpWireFormat wireFormat) {
+        String endpoint = this.baseUrl + this.messageEndpoint + "?sessionId=" + sessionId;
+        return wireFormat.isBinary() ? endpoint + "&" + McpWireFormat.ENDPOINT_PARAM + "=" + wireFormat.id()
+                : endpoint;
+    }
+
+    private static String eventId(String sessionId, long sequence) {
+        return sessionId + ":" + sequence;
+    }
+
     /**
      * Handles incoming JSON-RPC messages from clients. This method:
      * <ul>
      * <li>Deserializes the request body into a JSON-RPC message</li>
-     * <li>Processes the message through the session's handle method</li>
+     * <li>Processes the message through the session's handle method, either inline or on
+     * the message executor when async dispatch is enabled</li>
      * <li>Returns appropriate HTTP responses based on the processing result</li>
      * </ul>
      *
      * @param request The incoming server request containing the JSON-RPC message
-     * @return A ServerResponse indicating success (200 OK) or appropriate error status
-     * with error details in case of failures
+     * @return A ServerResponse indicating success (200 OK, or 202 Accepted when the
+     * message was dispatched asynchronously) or appropriate error status with error
+     * details in case of failures
      */
     private ServerResponse handleMessage(ServerRequest request) {
         if (this.isClosing) {
@@ -292,77 +676,405 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
             return ServerResponse.status(HttpStatus.NOT_FOUND).body(new McpError("Session not found: " + sessionId));
         }
 
+        if (request.headers().contentLength().orElse(-1L) > maxBodySize) {
+            return payloadTooLarge();
+        }
+
+        String contentType = request.servletRequest().getContentType();
+        McpJsonCodec bodyCodec = codecFor(McpWireFormat.fromContentType(contentType));
+        if (bodyCodec == null) {
+            return unsupportedMediaType(contentType);
+        }
+
+        WebMvcMcpSessionTransport transport = transports.get(sessionId);
+        if (transport != null) {
+            transport.markActive();
+        }
+
+        AdmissionController.Permit permit = admissionController.tryAcquire(sessionId);
+        if (permit == null) {
+            return overloaded("Server is busy");
+        }
+
+        boolean dispatched = false;
         try {
-            String body = request.body(String.class);
-            McpSchema.JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, body);
+            McpSchema.JSONRPCMessage message = bodyCodec.decodeMessage(request.servletRequest().getInputStream(),
+                    maxBodySize);
+
+            if (this.messageExecutor != null) {
+                dispatched = true;
+                return dispatchAsync(session, message, permit);
+            }
 
             // Process the message through the session's handle method
+            permit.started();
             session.handle(message).block(); // Block for WebMVC compatibility
 
             return ServerResponse.ok().build();
+        } catch (BoundedInputStream.LimitExceededException e) {
+            logger.warn("Rejecting message for session {}: {}", sessionId, e.getMessage());
+            return payloadTooLarge();
         } catch (IllegalArgumentException | IOException e) {
             logger.error("Failed to deserialize message: {}", e.getMessage());
             return ServerResponse.badRequest().body(new McpError("Invalid message format"));
         } catch (Exception e) {
             logger.error("Error handling message: {}", e.getMessage());
             return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new McpError(e.getMessage()));
+        } finally {
+            if (!dispatched) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Hands the message over to the message executor and releases the servlet thread
+     * straight away. The response to a request still reaches the client through the
+     * session's SSE stream.
+     *
+     * @param session The session the message belongs to
+     * @param message The deserialized JSON-RPC message
+     * @param permit  The admission of the message, released once it has been handled
+     * @return 202 Accepted, or 503 if the executor has no capacity left
+     */
+    private ServerResponse dispatchAsync(McpServerSession session, McpSchema.JSONRPCMessage message,
+                                         AdmissionController.Permit permit) {
+        try {
+            this.messageExecutor.execute(() -> {
+                permit.started();
+                try {
+                    session.handle(message).block();
+                } catch (Exception e) {
+                    logger.error("Error handling message for session {}: {}", session.getId(), e.getMessage());
+                } finally {
+                    permit.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Message executor saturated, rejecting message for session {}", session.getId());
+            permit.release();
+            return overloaded("Server is busy");
         }
+        return ServerResponse.status(HttpStatus.ACCEPTED).build();
     }
 
     /**
      * Implementation of McpServerTransport for WebMVC SSE sessions. This class handles
-     * the transport-level communication for a specific client session.
+     * the transport-level communication for a specific client session. Messages are put
+     * on a bounded outbound queue and written to the SSE connection by a writer task, so
+     * a slow client never blocks the thread that produced the message.
+     *
+     * <p>
+     * Every message event carries an ID of the form {@code sessionId:sequence} with a
+     * monotonically increasing sequence. With resumability enabled the transport keeps
+     * the most recent events in a replay buffer and survives the loss of its SSE
+     * connection for the resume window: events sent in the meantime are buffered and
+     * replayed once the client reconnects with a matching {@code Last-Event-ID}.
      */
-    private class WebMvcMcpSessionTransport implements McpServerTransport {
+    private class WebMvcMcpSessionTransport implements McpServerTransport, HeartbeatWheel.Target {
 
         private final String sessionId;
 
-        private final ServerResponse.SseBuilder sseBuilder;
+        private final OutboundMessageQueue outboundQueue;
+
+        private final HeartbeatWheel.Registration heartbeat;
+
+        /** Recent events for replay, {@code null} if resumability is disabled */
+        private final SseReplayBuffer replayBuffer;
+
+        /** Wire format negotiated for the session's message events */
+        private final McpWireFormat wireFormat;
+
+        /** Current SSE connection, {@code null} while waiting for the client to reconnect */
+        private ServerResponse.SseBuilder sseBuilder;
+
+        /** Sequence number of the last message event */
+        private long lastEventSequence;
+
+        /** Pending removal of a detached session */
+        private Disposable expiry;
 
         /**
          * Creates a new session transport with the specified ID and SSE builder.
          *
          * @param sessionId  The unique identifier for this session
          * @param sseBuilder The SSE builder for sending server events to the client
+         * @param wireFormat The wire format of the message events
          */
-        WebMvcMcpSessionTransport(String sessionId, ServerResponse.SseBuilder sseBuilder) {
+        WebMvcMcpSessionTransport(String sessionId, ServerResponse.SseBuilder sseBuilder, McpWireFormat wireFormat) {
             this.sessionId = sessionId;
             this.sseBuilder = sseBuilder;
+            this.wireFormat = wireFormat;
+            this.replayBuffer = replayBufferSize > 0 ? new SseReplayBuffer(replayBufferSize) : null;
+            this.outboundQueue = new OutboundMessageQueue(outboundQueueSettings, this::writeFrame, this::disconnect);
+            this.heartbeat = heartbeatWheel != null ? heartbeatWheel.register(sessionId, this) : null;
+            transports.put(sessionId, this);
             logger.debug("Session transport {} initialized with SSE builder", sessionId);
         }
 
         /**
-         * Sends a JSON-RPC message to the client through the SSE connection.
+         * Writes the endpoint event and only then publishes the session. Both happen under
+         * the lock every event write takes, so no message or heartbeat can reach the
+         * client ahead of the endpoint event.
+         *
+         * @param session The session to publish
+         * @throws IOException if the endpoint event could not be written
+         */
+        synchronized void open(McpServerSession session) throws IOException {
+            if (this.sseBuilder == null) {
+                throw new IOException("SSE connection of session " + sessionId + " closed before it was opened");
+            }
+            this.sseBuilder.id(eventId(sessionId, 0))
+                    .event(ENDPOINT_EVENT_TYPE)
+                    .data(endpointUrl(sessionId, wireFormat));
+            sessions.put(sessionId, session);
+        }
+
+        /**
+         * Queues a JSON-RPC message for the client's SSE connection.
          *
          * @param message The JSON-RPC message to send
-         * @return A Mono that completes when the message has been sent
+         * @return A Mono that completes when the message has been queued
          */
         @Override
         public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
-            return Mono.fromRunnable(() -> {
+            return this.outboundQueue.enqueue(OutboundMessageQueue.Frame.of(message));
+        }
+
+        /**
+         * Queues a pre-encoded JSON-RPC message for the client's SSE connection. The
+         * writer task sends the encoded text without serializing it again.
+         *
+         * @param message The encoded message to send
+         * @return A Mono that completes when the message has been queued
+         */
+        @Override
+        public Mono<Void> sendEncodedMessage(McpEncodedMessage message) {
+            return this.outboundQueue.enqueue(OutboundMessageQueue.Frame.of(message));
+        }
+
+        private void writeFrame(OutboundMessageQueue.Frame frame) throws IOException {
+            McpEncodedMessage encoded = frame.encoded();
+            String data;
+            if (isHeartbeat(frame.message())) {
+                data = null;
+            } else if (wireFormat.isBinary()) {
+                // Shared JSON text does not apply; each binary session encodes its own
+                data = wireFormat.encodeEventData(wireCodecs.get(wireFormat), frame.message());
+            } else if (encoded != null) {
+                data = encoded.json();
+            } else {
+                // Encoded by the transport's codec, never by whichever message converter
+                // the application registered, so the codec's settings always apply
+                data = jsonCodec.encodeToString(frame.message());
+            }
+            if (writeEvent(frame.message(), data)) {
+                markActive();
+            }
+        }
+
+        private boolean isHeartbeat(McpSchema.JSONRPCMessage message) {
+            return message instanceof McpSchema.JSONRPCNotification
+                    && HeartbeatWheel.HEARTBEAT_METHOD.equals(((McpSchema.JSONRPCNotification) message).getMethod());
+        }
+
+        /**
+         * Records traffic with the client so the heartbeat engine leaves the session
+         * alone.
+         */
+        void markActive() {
+            if (this.heartbeat != null) {
+                this.heartbeat.touch();
+            }
+        }
+
+        @Override
+        public Mono<Void> sendHeartbeat(McpEncodedMessage heartbeat) {
+            return sendEncodedMessage(heartbeat);
+        }
+
+        @Override
+        public void reap() {
+            disconnect();
+        }
+
+        /**
+         * Releases the outbound queue and takes the session off the heartbeat wheel.
+         */
+        synchronized void release() {
+            this.outboundQueue.close();
+            if (this.heartbeat != null) {
+                this.heartbeat.cancel();
+            }
+            if (this.expiry != null) {
+                this.expiry.dispose();
+                this.expiry = null;
+            }
+        }
+
+        /**
+         * Gives up on a client that cannot keep up or whose connection failed.
+         */
+        private void disconnect() {
+            logger.warn("Disconnecting session {}", sessionId);
+            removeSession(sessionId);
+            ServerResponse.SseBuilder connection = takeConnection();
+            if (connection != null) {
                 try {
-                    String jsonText = objectMapper.writeValueAsString(message);
-
-                    if (message instanceof McpSchema.JSONRPCNotification) {
-                        McpSchema.JSONRPCNotification notification = (McpSchema.JSONRPCNotification) message;
-                        if (HEARTBEAT_EVENT_TYPE.equals(notification.getMethod())) {
-                            sseBuilder.id(sessionId).event(HEARTBEAT_EVENT_TYPE).data(notification.getParams());
-                        } else {
-                            sseBuilder.id(sessionId).event(MESSAGE_EVENT_TYPE).data(jsonText);
-                        }
-                    } else {
-                        sseBuilder.id(sessionId).event(MESSAGE_EVENT_TYPE).data(jsonText);
-                    }
-                    logger.debug("Message sent to session {}", sessionId);
+                    connection.error(new IOException("Session " + sessionId + " disconnected"));
                 } catch (Exception e) {
-                    logger.error("Failed to send message to session {}: {}", sessionId, e.getMessage());
-                    sseBuilder.error(e);
+                    logger.warn("Failed to terminate SSE connection for session {}: {}", sessionId, e.getMessage());
                 }
-            });
+            }
+        }
+
+        /**
+         * Writes an event to the SSE connection, recording message events in the replay
+         * buffer first.
+         *
+         * @param message The message
+         * @param data    The encoded event data, unused for heartbeats
+         * @return {@code true} if the event reached the connection, {@code false} if it
+         * was only buffered
+         */
+        private synchronized boolean writeEvent(McpSchema.JSONRPCMessage message, String data)
+                throws IOException {
+            if (isHeartbeat(message)) {
+                if (sseBuilder == null) {
+                    return false;
+                }
+                try {
+                    sseBuilder.event(HEARTBEAT_EVENT_TYPE).data(((McpSchema.JSONRPCNotification) message).getParams());
+                } catch (IOException e) {
+                    return connectionFailed(e);
+                }
+                return true;
+            }
+
+            long sequence = ++this.lastEventSequence;
+            if (replayBuffer != null) {
+                replayBuffer.add(sequence, MESSAGE_EVENT_TYPE, data);
+            }
+            if (sseBuilder == null) {
+                logger.debug("Session {} is reconnecting, buffered event {}", sessionId, sequence);
+                return false;
+            }
+            try {
+                sseBuilder.id(eventId(sessionId, sequence)).event(MESSAGE_EVENT_TYPE).data(data);
+            } catch (IOException e) {
+                return connectionFailed(e);
+            }
+            logger.debug("Message sent to session {}", sessionId);
+            return true;
+        }
+
+        /**
+         * Handles a failed write to the SSE connection. A resumable session detaches and
+         * waits for its client to reconnect; any other session fails with the error.
+         *
+         * @param e The write failure
+         * @return {@code false}, the event did not reach the connection
+         * @throws IOException the write failure, if the session cannot be resumed
+         */
+        private boolean connectionFailed(IOException e) throws IOException {
+            if (replayBuffer == null) {
+                throw e;
+            }
+            logger.debug("SSE connection of session {} failed, buffering until it reconnects", sessionId);
+            detach(sseBuilder);
+            return false;
+        }
+
+        /**
+         * Called when an SSE connection of this session ends. Without resumability the
+         * session ends with it; otherwise it waits for the client to reconnect.
+         *
+         * @param connection The connection that ended
+         */
+        synchronized void detach(ServerResponse.SseBuilder connection) {
+            if (this.sseBuilder != connection) {
+                return;
+            }
+            this.sseBuilder = null;
+            if (replayBuffer == null) {
+                removeSession(sessionId);
+                return;
+            }
+            logger.debug("Session {} lost its SSE connection, waiting {} for it to reconnect", sessionId,
+                    resumeWindow);
+            // Heartbeats cannot be delivered while detached; the resume window decides
+            // the session's fate instead of the missed heartbeat limit
+            if (this.heartbeat != null) {
+                this.heartbeat.suspend();
+            }
+            this.expiry = Mono.delay(resumeWindow).subscribe(v -> expire());
+        }
+
+        private synchronized void expire() {
+            if (this.sseBuilder == null) {
+                logger.debug("Session {} did not reconnect within {}, removing it", sessionId, resumeWindow);
+                removeSession(sessionId);
+            }
+        }
+
+        /**
+         * @param lastSequence The sequence number of the last event the client received
+         * @return whether every event after it is still in the replay buffer
+         */
+        boolean canResume(long lastSequence) {
+            return replayBuffer != null && replayBuffer.since(lastSequence) != null;
+        }
+
+        /**
+         * Attaches a new SSE connection and replays the events the client missed.
+         *
+         * @param connection   The new SSE connection
+         * @param lastSequence The sequence number of the last event the client received
+         */
+        synchronized void reattach(ServerResponse.SseBuilder connection, long lastSequence) {
+            List<SseReplayBuffer.Event> missed = replayBuffer.since(lastSequence);
+            if (missed == null) {
+                logger.warn("Events of session {} after {} are no longer buffered", sessionId, lastSequence);
+                connection.complete();
+                return;
+            }
+            if (this.expiry != null) {
+                this.expiry.dispose();
+                this.expiry = null;
+            }
+            ServerResponse.SseBuilder previous = this.sseBuilder;
+            this.sseBuilder = connection;
+            if (previous != null) {
+                try {
+                    previous.complete();
+                } catch (Exception e) {
+                    logger.debug("Failed to complete superseded SSE connection of session {}", sessionId);
+                }
+            }
+            try {
+                connection.event(ENDPOINT_EVENT_TYPE).data(endpointUrl(sessionId, wireFormat));
+                for (SseReplayBuffer.Event event : missed) {
+                    connection.id(eventId(sessionId, event.sequence())).event(event.eventType()).data(event.data());
+                }
+            } catch (IOException e) {
+                logger.debug("Replay to session {} failed: {}", sessionId, e.getMessage());
+                detach(connection);
+                return;
+            }
+            logger.debug("Session {} resumed, replayed {} events", sessionId, missed.size());
+            if (this.heartbeat != null) {
+                this.heartbeat.resume();
+            }
+        }
+
+        private synchronized ServerResponse.SseBuilder takeConnection() {
+            ServerResponse.SseBuilder connection = this.sseBuilder;
+            this.sseBuilder = null;
+            return connection;
         }
 
         /**
-         * Converts data from one type to another using the configured ObjectMapper.
+         * Converts data from one type to another using the configured JSON codec.
          *
          * @param data    The source data object to convert
          * @param typeRef The target type reference
@@ -371,7 +1083,7 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
          */
         @Override
         public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-            return objectMapper.convertValue(data, typeRef);
+            return jsonCodec.convert(data, typeRef);
         }
 
         /**
@@ -381,15 +1093,11 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
          */
         @Override
         public Mono<Void> closeGracefully() {
-            return Mono.fromRunnable(() -> {
+            return this.outboundQueue.closeGracefully().then(Mono.fromRunnable(() -> {
                 logger.debug("Closing session transport: {}", sessionId);
-                try {
-                    sseBuilder.complete();
-                    logger.debug("Successfully completed SSE builder for session {}", sessionId);
-                } catch (Exception e) {
-                    logger.warn("Failed to complete SSE builder for session {}: {}", sessionId, e.getMessage());
-                }
-            });
+                removeSession(sessionId);
+                complete(takeConnection());
+            }));
         }
 
         /**
@@ -397,8 +1105,16 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
          */
         @Override
         public void close() {
+            removeSession(sessionId);
+            complete(takeConnection());
+        }
+
+        private void complete(ServerResponse.SseBuilder connection) {
+            if (connection == null) {
+                return;
+            }
             try {
-                sseBuilder.complete();
+                connection.complete();
                 logger.debug("Successfully completed SSE builder for session {}", sessionId);
             } catch (Exception e) {
                 logger.warn("Failed to complete SSE builder for session {}: {}", sessionId, e.getMessage());
@@ -407,4 +1123,328 @@ public class WebMvcSseServerTransportProvider implements McpServerTransportProvi
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Creates a new Builder instance for configuring and creating instances of
+     * WebMvcSseServerTransportProvider.
+     *
+     * @return A new Builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for creating instances of WebMvcSseServerTransportProvider.
+     */
+    public static class Builder {
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private McpJsonCodec jsonCodec;
+
+        private String baseUrl = "";
+
+        private String messageEndpoint;
+
+        private String sseEndpoint = DEFAULT_SSE_ENDPOINT;
+
+        private Executor messageExecutor;
+
+        private int dispatchPoolSize;
+
+        private int dispatchQueueCapacity;
+
+        private int broadcastConcurrency = BroadcastFanout.DEFAULT_CONCURRENCY;
+
+        private Duration broadcastWriteDeadline = BroadcastFanout.DEFAULT_WRITE_DEADLINE;
+
+        private int maxConsecutiveTimeouts = BroadcastFanout.DEFAULT_MAX_CONSECUTIVE_TIMEOUTS;
+
+        private int outboundQueueCapacity = OutboundMessageQueue.Settings.DEFAULT_CAPACITY;
+
+        private OutboundMessageQueue.OverflowPolicy overflowPolicy = OutboundMessageQueue.OverflowPolicy.BLOCK;
+
+        private Duration outboundBlockTimeout = OutboundMessageQueue.Settings.DEFAULT_BLOCK_TIMEOUT;
+
+        private Duration heartbeatInterval;
+
+        private int maxMissedHeartbeats = HeartbeatWheel.DEFAULT_MAX_MISSED;
+
+        private int replayBufferSize;
+
+        private Set<McpWireFormat> wireFormats = EnumSet.noneOf(McpWireFormat.class);
+
+        private Duration resumeWindow = Duration.ofSeconds(30);
+
+        private AdmissionController admissionController = AdmissionController.unlimited();
+
+        private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+        /**
+         * Sets the JSON object mapper to use for message serialization/deserialization.
+         *
+         * @param objectMapper The object mapper to use
+         * @return This builder instance for method chaining
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "ObjectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * Sets the JSON codec to use for message serialization/deserialization, taking
+         * precedence over {@link #objectMapper(ObjectMapper)}.
+         *
+         * @param jsonCodec The codec to use
+         * @return This builder instance for method chaining
+         */
+        public Builder jsonCodec(McpJsonCodec jsonCodec) {
+            Assert.notNull(jsonCodec, "JSON codec must not be null");
+            this.jsonCodec = jsonCodec;
+            return this;
+        }
+
+        /**
+         * Sets the base URL used to build the message endpoint advertised to clients.
+         *
+         * @param baseUrl The base URL to use
+         * @return This builder instance for method chaining
+         */
+        public Builder baseUrl(String baseUrl) {
+            Assert.notNull(baseUrl, "Message base URL must not be null");
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Sets the endpoint path where clients will send their messages.
+         *
+         * @param messageEndpoint The message endpoint path
+         * @return This builder instance for method chaining
+         */
+        public Builder messageEndpoint(String messageEndpoint) {
+            Assert.notNull(messageEndpoint, "Message endpoint must not be null");
+            this.messageEndpoint = messageEndpoint;
+            return this;
+        }
+
+        /**
+         * Sets the endpoint path where clients will establish SSE connections.
+         *
+         * @param sseEndpoint The SSE endpoint path
+         * @return This builder instance for method chaining
+         */
+        public Builder sseEndpoint(String sseEndpoint) {
+            Assert.notNull(sseEndpoint, "SSE endpoint must not be null");
+            this.sseEndpoint = sseEndpoint;
+            return this;
+        }
+
+        /**
+         * Enables async dispatch using the given executor. POST requests are answered
+         * with 202 Accepted as soon as the message is handed to the executor. The
+         * executor should be bounded; a {@link RejectedExecutionException} is turned into
+         * a 503 response. The caller remains responsible for shutting it down.
+         *
+         * @param messageExecutor The executor that runs {@link McpServerSession#handle}
+         * @return This builder instance for method chaining
+         */
+        public Builder messageExecutor(Executor messageExecutor) {
+            Assert.notNull(messageExecutor, "Message executor must not be null");
+            this.messageExecutor = messageExecutor;
+            return this;
+        }
+
+        /**
+         * Enables async dispatch on an executor owned by the transport, created with
+         * {@link #newBoundedMessageExecutor(int, int)} and shut down on close.
+         *
+         * @param poolSize      The number of dispatch threads
+         * @param queueCapacity The number of messages that may wait for a free thread
+         * @return This builder instance for method chaining
+         */
+        public Builder asyncDispatch(int poolSize, int queueCapacity) {
+            Assert.isTrue(poolSize > 0, "Pool size must be positive");
+            Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+            this.dispatchPoolSize = poolSize;
+            this.dispatchQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how many session writes a broadcast or heartbeat keeps in flight at once.
+         *
+         * @param broadcastConcurrency The maximum number of concurrent session writes
+         * @return This builder instance for method chaining
+         */
+        public Builder broadcastConcurrency(int broadcastConcurrency) {
+            Assert.isTrue(broadcastConcurrency > 0, "Broadcast concurrency must be positive");
+            this.broadcastConcurrency = broadcastConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets how long a single session write may take during a broadcast before it is
+         * counted as timed out.
+         *
+         * @param broadcastWriteDeadline The per-session write deadline
+         * @return This builder instance for method chaining
+         */
+        public Builder broadcastWriteDeadline(Duration broadcastWriteDeadline) {
+            Assert.notNull(broadcastWriteDeadline, "Broadcast write deadline must not be null");
+            this.broadcastWriteDeadline = broadcastWriteDeadline;
+            return this;
+        }
+
+        /**
+         * Sets after how many consecutive broadcast timeouts a session is evicted.
+         *
+         * @param maxConsecutiveTimeouts The consecutive timeout limit
+         * @return This builder instance for method chaining
+         */
+        public Builder maxConsecutiveTimeouts(int maxConsecutiveTimeouts) {
+            Assert.isTrue(maxConsecutiveTimeouts > 0, "Max consecutive timeouts must be positive");
+            this.maxConsecutiveTimeouts = maxConsecutiveTimeouts;
+            return this;
+        }
+
+        /**
+         * Sets the size of each session's outbound queue and what happens when a slow
+         * client lets it fill up.
+         *
+         * @param capacity       The number of messages a session may have waiting
+         * @param overflowPolicy The policy applied when the queue is full
+         * @return This builder instance for method chaining
+         */
+        public Builder outboundQueue(int capacity, OutboundMessageQueue.OverflowPolicy overflowPolicy) {
+            Assert.isTrue(capacity > 0, "Outbound queue capacity must be positive");
+            Assert.notNull(overflowPolicy, "Overflow policy must not be null");
+            this.outboundQueueCapacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets how long a producer waits for room in a full outbound queue under
+         * {@link OutboundMessageQueue.OverflowPolicy#BLOCK}.
+         *
+         * @param outboundBlockTimeout The maximum wait
+         * @return This builder instance for method chaining
+         */
+        public Builder outboundBlockTimeout(Duration outboundBlockTimeout) {
+            Assert.notNull(outboundBlockTimeout, "Outbound block timeout must not be null");
+            this.outboundBlockTimeout = outboundBlockTimeout;
+            return this;
+        }
+
+        /**
+         * Enables the built-in heartbeat. Sessions that exchanged nothing with the server
+         * for the given interval receive a heartbeat event; the pings are spread over the
+         * interval rather than sent all at once.
+         *
+         * @param heartbeatInterval The idle time after which a session is pinged
+         * @return This builder instance for method chaining
+         */
+        public Builder heartbeatInterval(Duration heartbeatInterval) {
+            Assert.notNull(heartbeatInterval, "Heartbeat interval must not be null");
+            this.heartbeatInterval = heartbeatInterval;
+            return this;
+        }
+
+        /**
+         * Sets after how many missed heartbeats in a row a session is removed. Only used
+         * together with {@link #heartbeatInterval(Duration)}.
+         *
+         * @param maxMissedHeartbeats The missed heartbeat limit
+         * @return This builder instance for method chaining
+         */
+        public Builder maxMissedHeartbeats(int maxMissedHeartbeats) {
+            Assert.isTrue(maxMissedHeartbeats > 0, "Max missed heartbeats must be positive");
+            this.maxMissedHeartbeats = maxMissedHeartbeats;
+            return this;
+        }
+
+        /**
+         * Enables resumable sessions. A session whose SSE connection drops is kept for the
+         * resume window together with its most recent events; a client reconnecting with
+         * a {@code Last-Event-ID} header within that window gets the same session back
+         * and the events it missed are replayed. Heartbeats are paused while a session
+         * waits, so the missed heartbeat limit cannot remove it before the window ends.
+         *
+         * @param replayBufferSize The number of recent events kept per session
+         * @param resumeWindow     How long a disconnected session waits for its client
+         * @return This builder instance for method chaining
+         */
+        public Builder resumability(int replayBufferSize, Duration resumeWindow) {
+            Assert.isTrue(replayBufferSize > 0, "Replay buffer size must be positive");
+            Assert.notNull(resumeWindow, "Resume window must not be null");
+            this.replayBufferSize = replayBufferSize;
+            this.resumeWindow = resumeWindow;
+            return this;
+        }
+
+        /**
+         * Sets the limits on concurrent sessions and in-flight messages. Connections and
+         * messages over the limits are refused with 503 and a Retry-After header.
+         *
+         * @param admissionController The admission controller to use
+         * @return This builder instance for method chaining
+         */
+        public Builder admissionController(AdmissionController admissionController) {
+            Assert.notNull(admissionController, "Admission controller must not be null");
+            this.admissionController = admissionController;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a POSTed message. Messages are parsed straight from
+         * the request stream and refused with 413 as soon as they cross the limit.
+         *
+         * @param maxBodySize The limit in bytes
+         * @return This builder instance for method chaining
+         */
+        public Builder maxBodySize(long maxBodySize) {
+            Assert.isTrue(maxBodySize > 0, "Max body size must be positive");
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * Enables binary wire formats that clients may negotiate instead of JSON. Clients
+         * that do not ask for one keep using JSON.
+         *
+         * @param wireFormats The binary formats to accept
+         * @return This builder instance for method chaining
+         * @throws IllegalArgumentException if a format is JSON or its Jackson module is not
+         *                                  on the classpath
+         */
+        public Builder wireFormats(McpWireFormat... wireFormats) {
+            Assert.notNull(wireFormats, "Wire formats must not be null");
+            Set<McpWireFormat> formats = EnumSet.noneOf(McpWireFormat.class);
+            for (McpWireFormat format : wireFormats) {
+                Assert.isTrue(format != null && format.isBinary(), "Wire formats must be binary formats");
+                Assert.isTrue(format.isAvailable(), "The Jackson " + format.id() + " module is not on the classpath");
+                formats.add(format);
+            }
+            this.wireFormats = formats;
+            return this;
+        }
+
+        /**
+         * Builds a new instance of WebMvcSseServerTransportProvider with the configured
+         * settings.
+         *
+         * @return A new WebMvcSseServerTransportProvider instance
+         * @throws IllegalStateException if messageEndpoint is not set
+         */
+        public WebMvcSseServerTransportProvider build() {
+            if (messageEndpoint == null) {
+                throw new IllegalStateException("MessageEndpoint must be set");
+            }
+            return new WebMvcSseServerTransportProvider(this);
+        }
+
+    }
+
+}
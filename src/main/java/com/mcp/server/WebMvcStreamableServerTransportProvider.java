@@ -0,0 +1,958 @@
+package com.mcp.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.BroadcastFanout;
+import io.modelcontextprotocol.server.transport.OutboundMessageQueue;
+import io.modelcontextprotocol.spec.*;
+import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Server transport provider following the MCP Streamable HTTP style: a single endpoint
+ * on which the client POSTs its messages and receives the answers directly.
+ *
+ * <p>
+ * A POSTed request is answered in the body of the same HTTP response. As long as the
+ * handler emits nothing but the result, that body is a plain {@code application/json}
+ * JSON-RPC response, so a simple tool call needs a single round trip. If the handler
+ * sends notifications (e.g. progress) or requests to the client while it is running, the
+ * response is upgraded to a short {@code text/event-stream} that carries those messages
+ * followed by the final response, after which the stream is closed.
+ *
+ * <p>
+ * The session is created by the {@code initialize} request and identified by the
+ * {@value #SESSION_ID_HEADER} header on every later request. A client may additionally
+ * open a long-lived stream with GET to receive messages that are not tied to one of its
+ * requests, such as broadcast notifications, and end the session with DELETE. Sessions
+ * the client abandons without a DELETE are removed once they have been idle for the
+ * configured timeout.
+ *
+ * @see WebMvcSseServerTransportProvider
+ */
+public class WebMvcStreamableServerTransportProvider implements McpServerTransportProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebMvcStreamableServerTransportProvider.class);
+
+    /**
+     * Header carrying the session ID, assigned by the server in the response to
+     * {@code initialize}.
+     */
+    public static final String SESSION_ID_HEADER = "Mcp-Session-Id";
+
+    /**
+     * Event type for JSON-RPC messages sent through an SSE stream.
+     */
+    public static final String MESSAGE_EVENT_TYPE = "message";
+
+    /**
+     * Default path of the MCP endpoint.
+     */
+    public static final String DEFAULT_MCP_ENDPOINT = "/mcp";
+
+    /**
+     * Default limit on the size of a POSTed message, in bytes.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Default time a POSTed request may take to be answered.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * Default time after which a session without any traffic or open stream is removed.
+     */
+    public static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    /**
+     * Reactor context key under which the stream of the POST being handled is stored, so
+     * that messages emitted by its handler are routed back to it.
+     */
+    private static final String REQUEST_STREAM_KEY = WebMvcStreamableServerTransportProvider.class.getName()
+            + ".requestStream";
+
+    /**
+     * Codec used for message serialization/deserialization.
+     */
+    private final McpJsonCodec jsonCodec;
+
+    private final String mcpEndpoint;
+
+    private final RouterFunction<ServerResponse> routerFunction;
+
+    /**
+     * Fan-out engine used for broadcasts to the standalone streams.
+     */
+    private final BroadcastFanout broadcastFanout = new BroadcastFanout();
+
+    /**
+     * Capacity and overflow policy of the standalone stream queues.
+     */
+    private final OutboundMessageQueue.Settings outboundQueueSettings;
+
+    /**
+     * Maximum size of a POSTed message, in bytes.
+     */
+    private final long maxBodySize;
+
+    /**
+     * Time a POSTed request may take until its answer, streamed or not, is complete.
+     */
+    private final Duration requestTimeout;
+
+    /**
+     * Time after which an idle session is removed, {@code null} to keep sessions until
+     * the client deletes them.
+     */
+    private final Duration sessionIdleTimeout;
+
+    /**
+     * Periodic sweep removing idle sessions, {@code null} if sessions never expire.
+     */
+    private final Disposable idleSessionReaper;
+
+    private McpServerSession.Factory sessionFactory;
+
+    /**
+     * Transports of the active sessions, keyed by session ID.
+     */
+    private final ConcurrentHashMap<String, StreamableSessionTransport> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Flag indicating if the transport is shutting down.
+     */
+    private volatile boolean isClosing = false;
+
+    /**
+     * Constructs a new provider serving the default MCP endpoint.
+     *
+     * @param objectMapper The ObjectMapper to use for JSON serialization/deserialization
+     *                     of messages.
+     */
+    public WebMvcStreamableServerTransportProvider(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MCP_ENDPOINT);
+    }
+
+    /**
+     * Constructs a new provider.
+     *
+     * @param objectMapper The ObjectMapper to use for JSON serialization/deserialization
+     *                     of messages.
+     * @param mcpEndpoint  The endpoint URI serving POST, GET and DELETE requests.
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public WebMvcStreamableServerTransportProvider(ObjectMapper objectMapper, String mcpEndpoint) {
+        this(new Builder().objectMapper(objectMapper).mcpEndpoint(mcpEndpoint));
+    }
+
+    private WebMvcStreamableServerTransportProvider(Builder builder) {
+        this.jsonCodec = builder.jsonCodec != null ? builder.jsonCodec : McpJsonCodec.jackson(builder.objectMapper);
+        this.mcpEndpoint = builder.mcpEndpoint;
+        this.outboundQueueSettings = new OutboundMessageQueue.Settings(builder.outboundQueueCapacity,
+                builder.overflowPolicy, OutboundMessageQueue.Settings.DEFAULT_BLOCK_TIMEOUT);
+        this.maxBodySize = builder.maxBodySize;
+        this.requestTimeout = builder.requestTimeout;
+        this.sessionIdleTimeout = builder.sessionIdleTimeout;
+        if (this.sessionIdleTimeout != null) {
+            long period = Math.max(1L, this.sessionIdleTimeout.toMillis() / 2);
+            this.idleSessionReaper = Schedulers.parallel()
+                    .schedulePeriodically(this::reapIdleSessions, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.idleSessionReaper = null;
+        }
+        this.routerFunction = RouterFunctions.route()
+                .POST(this.mcpEndpoint, this::handlePost)
+                .GET(this.mcpEndpoint, this::handleGet)
+                .DELETE(this.mcpEndpoint, this::handleDelete)
+                .build();
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Broadcasts a notification to every session that has a standalone GET stream open.
+     * The notification is serialized once. Sessions without a standalone stream have no
+     * channel for unsolicited messages and are skipped.
+     *
+     * @param method The method name for the notification
+     * @param params The parameters for the notification
+     * @return A Mono that completes when the broadcast attempt is finished
+     */
+    @Override
+    public Mono<Void> notifyClients(String method, Object params) {
+        List<McpServerSession> targets = sessions.values()
+                .stream()
+                .filter(StreamableSessionTransport::hasStandaloneStream)
+                .map(transport -> transport.session)
+                .collect(Collectors.toList());
+        if (targets.isEmpty()) {
+            logger.debug("No sessions with an open stream to broadcast message to");
+            return Mono.empty();
+        }
+
+        McpEncodedMessage notification;
+        try {
+            notification = McpEncodedMessage.encode(jsonCodec,
+                    new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, params));
+        } catch (IOException e) {
+            logger.error("Failed to serialize message({}:{}): {}", method, params, e.getMessage());
+            return Mono.error(e);
+        }
+
+        return this.broadcastFanout
+                .broadcast(targets, session -> session.sendEncodedMessage(notification), McpServerSession::close)
+                .doOnNext(report -> logger.debug("Broadcast of {} finished: {}", method, report))
+                .then();
+    }
+
+    /**
+     * Initiates a graceful shutdown of the transport, closing every session.
+     *
+     * @return A Mono that completes when all cleanup operations are finished
+     */
+    @Override
+    public Mono<Void> closeGracefully() {
+        return Flux.fromIterable(sessions.values()).doFirst(() -> {
+                    this.isClosing = true;
+                    logger.debug("Initiating graceful shutdown with {} active sessions", sessions.size());
+                })
+                .flatMap(transport -> transport.session.closeGracefully())
+                .then()
+                .doOnSuccess(v -> logger.debug("Graceful shutdown completed"))
+                .doFinally(signal -> {
+                    if (this.idleSessionReaper != null) {
+                        this.idleSessionReaper.dispose();
+                    }
+                });
+    }
+
+    /**
+     * Closes the sessions that have neither an open stream nor any request in flight and
+     * saw no traffic for the idle timeout. Clients that vanish without a DELETE would
+     * otherwise keep their sessions forever.
+     */
+    private void reapIdleSessions() {
+        long now = System.nanoTime();
+        long timeoutNanos = this.sessionIdleTimeout.toNanos();
+        for (StreamableSessionTransport transport : sessions.values()) {
+            if (transport.isIdleSince(now, timeoutNanos)) {
+                logger.debug("Session {} idle for more than {}, removing it", transport.sessionId,
+                        this.sessionIdleTimeout);
+                try {
+                    transport.session.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close idle session {}: {}", transport.sessionId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the RouterFunction that defines the HTTP endpoint for this transport. The
+     * single MCP endpoint accepts:
+     * <ul>
+     * <li>POST - JSON-RPC messages from the client, answered inline</li>
+     * <li>GET - a standalone SSE stream for messages not tied to a request</li>
+     * <li>DELETE - termination of the session</li>
+     * </ul>
+     *
+     * @return The configured RouterFunction for handling HTTP requests
+     */
+    public RouterFunction<ServerResponse> getRouterFunction() {
+        return this.routerFunction;
+    }
+
+    /**
+     * Builds the response for a message larger than the configured limit.
+     *
+     * @return 413 Payload Too Large
+     */
+    private ServerResponse payloadTooLarge() {
+        return ServerResponse.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new McpError("Message exceeds the limit of " + maxBodySize + " bytes"));
+    }
+
+    /**
+     * Handles a POSTed JSON-RPC message. An {@code initialize} request opens a new
+     * session; every other message must carry the session header. Requests, and
+     * batches containing requests, are answered asynchronously in the response body;
+     * notifications and responses with 202 Accepted.
+     *
+     * @param request The incoming server request containing the JSON-RPC message
+     * @return The JSON-RPC response, an SSE stream ending with it, or an error status
+     */
+    private ServerResponse handlePost(ServerRequest request) {
+        if (this.isClosing) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is shutting down");
+        }
+
+        if (request.headers().contentLength().orElse(-1L) > maxBodySize) {
+            return payloadTooLarge();
+        }
+
+        McpSchema.JSONRPCMessage message;
+        try {
+            message = jsonCodec.decodeMessage(request.servletRequest().getInputStream(), maxBodySize);
+        } catch (BoundedInputStream.LimitExceededException e) {
+            logger.warn("Rejecting message: {}", e.getMessage());
+            return payloadTooLarge();
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error("Failed to deserialize message: {}", e.getMessage());
+            return ServerResponse.badRequest().body(new McpError("Invalid message format"));
+        } catch (Exception e) {
+            logger.error("Failed to read message: {}", e.getMessage());
+            return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new McpError(e.getMessage()));
+        }
+
+        StreamableSessionTransport transport;
+        if (isInitializeRequest(message)) {
+            transport = newSession();
+        } else {
+            String sessionId = request.headers().firstHeader(SESSION_ID_HEADER);
+            if (!StringUtils.hasText(sessionId)) {
+                return ServerResponse.badRequest().body(new McpError("Session ID missing in " + SESSION_ID_HEADER));
+            }
+            transport = sessions.get(sessionId);
+            if (transport == null) {
+                return ServerResponse.status(HttpStatus.NOT_FOUND).body(new McpError("Session not found: " + sessionId));
+            }
+        }
+        transport.markActive();
+
+        Object streamKey = streamKey(message);
+        if (streamKey == null) {
+            try {
+                transport.session.handle(message).block(); // Block for WebMVC compatibility
+                return ServerResponse.status(HttpStatus.ACCEPTED).header(SESSION_ID_HEADER, transport.sessionId).build();
+            } catch (Exception e) {
+                logger.error("Error handling message: {}", e.getMessage());
+                return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new McpError(e.getMessage()));
+            }
+        }
+
+        RequestStream stream = transport.openRequestStream(streamKey, isInitializeRequest(message));
+        if (stream == null) {
+            return ServerResponse.status(HttpStatus.CONFLICT)
+                    .body(new McpError("Request " + streamKey + " is already in flight"));
+        }
+        transport.session.handle(message)
+                .contextWrite(Context.of(REQUEST_STREAM_KEY, stream))
+                .subscribe(null, stream::fail);
+        return ServerResponse.async(stream.response, requestTimeout);
+    }
+
+    /**
+     * Opens the standalone SSE stream of a session.
+     *
+     * @param request The incoming server request
+     * @return The SSE stream, or an error status if the session is unknown or already has
+     * a standalone stream
+     */
+    private ServerResponse handleGet(ServerRequest request) {
+        if (this.isClosing) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is shutting down");
+        }
+
+        String sessionId = request.headers().firstHeader(SESSION_ID_HEADER);
+        if (!StringUtils.hasText(sessionId)) {
+            return ServerResponse.badRequest().body(new McpError("Session ID missing in " + SESSION_ID_HEADER));
+        }
+        StreamableSessionTransport transport = sessions.get(sessionId);
+        if (transport == null) {
+            return ServerResponse.status(HttpStatus.NOT_FOUND).body(new McpError("Session not found: " + sessionId));
+        }
+        if (transport.hasStandaloneStream()) {
+            return ServerResponse.status(HttpStatus.CONFLICT).body(new McpError("Stream already open: " + sessionId));
+        }
+        transport.markActive();
+
+        return ServerResponse.sse(transport::attachStandaloneStream, Duration.ZERO);
+    }
+
+    /**
+     * Terminates a session at the client's request.
+     *
+     * @param request The incoming server request
+     * @return 200 OK, or an error status if the session is unknown
+     */
+    private ServerResponse handleDelete(ServerRequest request) {
+        String sessionId = request.headers().firstHeader(SESSION_ID_HEADER);
+        if (!StringUtils.hasText(sessionId)) {
+            return ServerResponse.badRequest().body(new McpError("Session ID missing in " + SESSION_ID_HEADER));
+        }
+        StreamableSessionTransport transport = sessions.get(sessionId);
+        if (transport == null) {
+            return ServerResponse.status(HttpStatus.NOT_FOUND).body(new McpError("Session not found: " + sessionId));
+        }
+        logger.debug("Client terminated session {}", sessionId);
+        transport.session.close();
+        return ServerResponse.ok().build();
+    }
+
+    /**
+     * Returns the key under which the answer to a POSTed message is awaited: the ID of a
+     * request, or the batch itself for a batch containing at least one request or invalid
+     * element.
+     *
+     * @param message The POSTed message
+     * @return The stream key, or {@code null} if the message expects no answer
+     */
+    private Object streamKey(McpSchema.JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCRequest) {
+            return ((McpSchema.JSONRPCRequest) message).id();
+        }
+        if (message instanceof McpSchema.JSONRPCBatch) {
+            for (McpSchema.JSONRPCMessage element : ((McpSchema.JSONRPCBatch) message).messages()) {
+                if (element instanceof McpSchema.JSONRPCRequest
+                        || element instanceof McpSchema.JSONRPCInvalidMessage) {
+                    return message;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isInitializeRequest(McpSchema.JSONRPCMessage message) {
+        return message instanceof McpSchema.JSONRPCRequest
+                && McpSchema.METHOD_INITIALIZE.equals(((McpSchema.JSONRPCRequest) message).method());
+    }
+
+    private StreamableSessionTransport newSession() {
+        String sessionId = UUID.randomUUID().toString();
+        logger.debug("Creating new streamable session: {}", sessionId);
+        StreamableSessionTransport transport = new StreamableSessionTransport(sessionId);
+        transport.session = sessionFactory.create(transport);
+        sessions.put(sessionId, transport);
+        return transport;
+    }
+
+    /**
+     * The answer to a single POSTed request or batch. Starts out as a plain JSON response and is
+     * upgraded to an SSE stream on the first message other than the final response. An
+     * answer that is not complete within the request timeout is cut off.
+     */
+    private final class RequestStream {
+
+        private final StreamableSessionTransport transport;
+
+        private final Object requestId;
+
+        /** Whether the request is the session's initialize, which the session cannot outlive failing */
+        private final boolean initialize;
+
+        private final CompletableFuture<ServerResponse> response = new CompletableFuture<>();
+
+        /** Frames emitted before the SSE response started writing */
+        private final List<String> pending = new ArrayList<>();
+
+        private ServerResponse.SseBuilder sseBuilder;
+
+        private boolean streaming;
+
+        private boolean done;
+
+        private Disposable deadline;
+
+        RequestStream(StreamableSessionTransport transport, Object requestId, boolean initialize) {
+            this.transport = transport;
+            this.requestId = requestId;
+            this.initialize = initialize;
+        }
+
+        synchronized void startDeadline() {
+            if (!this.done) {
+                this.deadline = Mono.delay(requestTimeout).subscribe(v -> expire());
+            }
+        }
+
+        private synchronized void expire() {
+            if (this.done) {
+                return;
+            }
+            logger.warn("Request {} of session {} not answered within {}", requestId, transport.sessionId,
+                    requestTimeout);
+            finish(false);
+            if (!this.streaming) {
+                this.response.complete(ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new McpError("Request not answered within " + requestTimeout)));
+            } else if (this.sseBuilder != null) {
+                this.sseBuilder.complete();
+            }
+        }
+
+        /**
+         * Marks the answer complete and stops routing messages to it. A session whose
+         * initialize request did not succeed is closed, as the client cannot use it.
+         *
+         * @param succeeded whether the request was answered with a result
+         */
+        private void finish(boolean succeeded) {
+            this.done = true;
+            transport.requestStreams.remove(requestId, this);
+            if (this.deadline != null) {
+                this.deadline.dispose();
+            }
+            if (this.initialize && !succeeded) {
+                logger.debug("Initialization of session {} failed, removing it", transport.sessionId);
+                transport.close();
+            }
+        }
+
+        synchronized boolean isDone() {
+            return this.done;
+        }
+
+        synchronized void send(McpEncodedMessage message) {
+            if (this.done) {
+                logger.debug("Dropping message for completed request {} of session {}", requestId,
+                        transport.sessionId);
+                return;
+            }
+            if (message.message() instanceof McpSchema.JSONRPCResponse
+                    || message.message() instanceof McpSchema.JSONRPCBatch) {
+                boolean succeeded = !(message.message() instanceof McpSchema.JSONRPCResponse)
+                        || ((McpSchema.JSONRPCResponse) message.message()).error() == null;
+                finish(succeeded);
+                if (!this.streaming) {
+                    ServerResponse.BodyBuilder ok = ServerResponse.ok();
+                    if (succeeded || !this.initialize) {
+                        ok.header(SESSION_ID_HEADER, transport.sessionId);
+                    }
+                    this.response.complete(ok.contentType(MediaType.APPLICATION_JSON).body(message.json()));
+                    return;
+                }
+                write(message.json());
+                if (this.sseBuilder != null) {
+                    this.sseBuilder.complete();
+                }
+                return;
+            }
+            if (!this.streaming) {
+                this.streaming = true;
+                this.response.complete(ServerResponse.sse(this::attach, requestTimeout));
+            }
+            write(message.json());
+        }
+
+        synchronized void fail(Throwable error) {
+            if (this.done) {
+                return;
+            }
+            logger.error("Error handling request {} of session {}: {}", requestId, transport.sessionId,
+                    error.getMessage());
+            finish(false);
+            if (!this.streaming) {
+                this.response.complete(ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new McpError(error.getMessage())));
+            } else if (this.sseBuilder != null) {
+                this.sseBuilder.error(error);
+            }
+        }
+
+        private synchronized void attach(ServerResponse.SseBuilder sseBuilder) {
+            this.sseBuilder = sseBuilder;
+            sseBuilder.onTimeout(this::expire);
+            for (String json : this.pending) {
+                write(json);
+            }
+            this.pending.clear();
+            if (this.done) {
+                sseBuilder.complete();
+            }
+        }
+
+        private void write(String json) {
+            if (this.sseBuilder == null) {
+                this.pending.add(json);
+                return;
+            }
+            try {
+                this.sseBuilder.event(MESSAGE_EVENT_TYPE).data(json);
+            } catch (Exception e) {
+                logger.error("Failed to stream message for request {} of session {}: {}", requestId,
+                        transport.sessionId, e.getMessage());
+                finish(false);
+                this.sseBuilder.error(e);
+            }
+        }
+
+    }
+
+    /**
+     * Implementation of McpServerTransport for a streamable HTTP session. Responses are
+     * routed to the POST that carried the request; other messages go to the stream of the
+     * request whose handler emitted them, and otherwise to the session's standalone GET
+     * stream.
+     */
+    private class StreamableSessionTransport implements McpServerTransport {
+
+        private final String sessionId;
+
+        /** Streams of the requests currently being handled, keyed by JSON-RPC ID */
+        private final Map<Object, RequestStream> requestStreams = new ConcurrentHashMap<>();
+
+        private volatile McpServerSession session;
+
+        private volatile ServerResponse.SseBuilder standaloneStream;
+
+        private volatile OutboundMessageQueue standaloneQueue;
+
+        /** {@link System#nanoTime()} of the client's last request */
+        private volatile long lastActivity = System.nanoTime();
+
+        StreamableSessionTransport(String sessionId) {
+            this.sessionId = sessionId;
+            logger.debug("Streamable session transport {} initialized", sessionId);
+        }
+
+        /**
+         * Opens the stream answering a request.
+         *
+         * @param requestId  The JSON-RPC ID of the request, or the batch
+         * @param initialize Whether the request initializes the session
+         * @return The stream, or {@code null} if a request with the same ID is still in
+         * flight
+         */
+        RequestStream openRequestStream(Object requestId, boolean initialize) {
+            RequestStream stream = new RequestStream(this, requestId, initialize);
+            if (this.requestStreams.putIfAbsent(requestId, stream) != null) {
+                logger.warn("Rejecting duplicate request {} of session {}", requestId, sessionId);
+                return null;
+            }
+            stream.startDeadline();
+            return stream;
+        }
+
+        void markActive() {
+            this.lastActivity = System.nanoTime();
+        }
+
+        boolean isIdleSince(long now, long timeoutNanos) {
+            return this.standaloneStream == null && this.requestStreams.isEmpty()
+                    && now - this.lastActivity > timeoutNanos;
+        }
+
+        boolean hasStandaloneStream() {
+            return this.standaloneStream != null;
+        }
+
+        void attachStandaloneStream(ServerResponse.SseBuilder sseBuilder) {
+            OutboundMessageQueue queue = new OutboundMessageQueue(outboundQueueSettings,
+                    frame -> sseBuilder.event(MESSAGE_EVENT_TYPE).data(frame.encoded().json()),
+                    () -> detachStandaloneStream(sseBuilder));
+            sseBuilder.onComplete(() -> detachStandaloneStream(sseBuilder));
+            sseBuilder.onTimeout(() -> detachStandaloneStream(sseBuilder));
+            this.standaloneQueue = queue;
+            this.standaloneStream = sseBuilder;
+            logger.debug("Standalone stream opened for session {}", sessionId);
+        }
+
+        private synchronized void detachStandaloneStream(ServerResponse.SseBuilder sseBuilder) {
+            if (this.standaloneStream != sseBuilder) {
+                return;
+            }
+            logger.debug("Standalone stream closed for session {}", sessionId);
+            this.standaloneStream = null;
+            markActive();
+            OutboundMessageQueue queue = this.standaloneQueue;
+            this.standaloneQueue = null;
+            if (queue != null) {
+                queue.close();
+            }
+        }
+
+        /**
+         * Sends a JSON-RPC message to the client over the stream it belongs to.
+         *
+         * @param message The JSON-RPC message to send
+         * @return A Mono that completes when the message has been handed to its stream
+         */
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.deferContextual(context -> {
+                McpEncodedMessage encoded;
+                try {
+                    encoded = McpEncodedMessage.encode(jsonCodec, message);
+                } catch (IOException e) {
+                    logger.error("Failed to serialize message for session {}: {}", sessionId, e.getMessage());
+                    return Mono.error(e);
+                }
+                return route(encoded, context.getOrDefault(REQUEST_STREAM_KEY, null));
+            });
+        }
+
+        /**
+         * Sends a pre-encoded message, such as a broadcast, over the standalone stream.
+         *
+         * @param message The encoded message to send
+         * @return A Mono that completes when the message has been queued
+         */
+        @Override
+        public Mono<Void> sendEncodedMessage(McpEncodedMessage message) {
+            return route(message, null);
+        }
+
+        private Mono<Void> route(McpEncodedMessage message, RequestStream origin) {
+            if (message.message() instanceof McpSchema.JSONRPCResponse) {
+                RequestStream stream = this.requestStreams.get(((McpSchema.JSONRPCResponse) message.message()).id());
+                if (stream != null) {
+                    stream.send(message);
+                } else {
+                    logger.warn("No open request for response to session {}", sessionId);
+                }
+                return Mono.empty();
+            }
+            if (message.message() instanceof McpSchema.JSONRPCBatch) {
+                if (origin != null) {
+                    origin.send(message);
+                } else {
+                    logger.warn("No open request for batch response to session {}", sessionId);
+                }
+                return Mono.empty();
+            }
+            if (origin != null && !origin.isDone()) {
+                origin.send(message);
+                return Mono.empty();
+            }
+            OutboundMessageQueue queue = this.standaloneQueue;
+            if (queue != null) {
+                return queue.enqueue(OutboundMessageQueue.Frame.of(message));
+            }
+            Iterator<RequestStream> inFlight = this.requestStreams.values().iterator();
+            if (inFlight.hasNext()) {
+                RequestStream stream = inFlight.next();
+                if (!inFlight.hasNext()) {
+                    stream.send(message);
+                    return Mono.empty();
+                }
+            }
+            logger.debug("No stream to deliver message to session {}, dropping it", sessionId);
+            return Mono.empty();
+        }
+
+        /**
+         * Converts data from one type to another using the configured JSON codec.
+         *
+         * @param data    The source data object to convert
+         * @param typeRef The target type reference
+         * @param <T>     The target type
+         * @return The converted object of type T
+         */
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return jsonCodec.convert(data, typeRef);
+        }
+
+        /**
+         * Initiates a graceful shutdown of the transport, letting the standalone stream
+         * write what it has queued.
+         *
+         * @return A Mono that completes when the shutdown is complete
+         */
+        @Override
+        public Mono<Void> closeGracefully() {
+            OutboundMessageQueue queue = this.standaloneQueue;
+            Mono<Void> drained = queue != null ? queue.closeGracefully() : Mono.empty();
+            return drained.then(Mono.fromRunnable(this::close));
+        }
+
+        /**
+         * Closes the transport immediately.
+         */
+        @Override
+        public void close() {
+            if (sessions.remove(sessionId, this) && this.session != null) {
+                this.session.release();
+            }
+            broadcastFanout.forget(sessionId);
+            ServerResponse.SseBuilder stream = this.standaloneStream;
+            if (stream != null) {
+                detachStandaloneStream(stream);
+                try {
+                    stream.complete();
+                } catch (Exception e) {
+                    logger.warn("Failed to complete standalone stream for session {}: {}", sessionId,
+                            e.getMessage());
+                }
+            }
+            for (RequestStream requestStream : this.requestStreams.values()) {
+                requestStream.fail(new McpError("Session closed"));
+            }
+            logger.debug("Streamable session {} closed", sessionId);
+        }
+
+    }
+
+    /**
+     * Creates a new Builder instance for configuring and creating instances of
+     * WebMvcStreamableServerTransportProvider.
+     *
+     * @return A new Builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for creating instances of WebMvcStreamableServerTransportProvider.
+     */
+    public static class Builder {
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private McpJsonCodec jsonCodec;
+
+        private String mcpEndpoint = DEFAULT_MCP_ENDPOINT;
+
+        private int outboundQueueCapacity = OutboundMessageQueue.Settings.DEFAULT_CAPACITY;
+
+        private OutboundMessageQueue.OverflowPolicy overflowPolicy = OutboundMessageQueue.OverflowPolicy.BLOCK;
+
+        private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+        private Duration sessionIdleTimeout = DEFAULT_SESSION_IDLE_TIMEOUT;
+
+        /**
+         * Sets the JSON object mapper to use for message serialization/deserialization.
+         *
+         * @param objectMapper The object mapper to use
+         * @return This builder instance for method chaining
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "ObjectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * Sets the JSON codec to use for message serialization/deserialization, taking
+         * precedence over {@link #objectMapper(ObjectMapper)}.
+         *
+         * @param jsonCodec The codec to use
+         * @return This builder instance for method chaining
+         */
+        public Builder jsonCodec(McpJsonCodec jsonCodec) {
+            Assert.notNull(jsonCodec, "JSON codec must not be null");
+            this.jsonCodec = jsonCodec;
+            return this;
+        }
+
+        /**
+         * Sets the path of the MCP endpoint.
+         *
+         * @param mcpEndpoint The endpoint path
+         * @return This builder instance for method chaining
+         */
+        public Builder mcpEndpoint(String mcpEndpoint) {
+            Assert.hasText(mcpEndpoint, "MCP endpoint must not be empty");
+            this.mcpEndpoint = mcpEndpoint;
+            return this;
+        }
+
+        /**
+         * Sets the size of each standalone stream's outbound queue and what happens when
+         * a slow client lets it fill up.
+         *
+         * @param capacity       The number of messages a session may have waiting
+         * @param overflowPolicy The policy applied when the queue is full
+         * @return This builder instance for method chaining
+         */
+        public Builder outboundQueue(int capacity, OutboundMessageQueue.OverflowPolicy overflowPolicy) {
+            Assert.isTrue(capacity > 0, "Outbound queue capacity must be positive");
+            Assert.notNull(overflowPolicy, "Overflow policy must not be null");
+            this.outboundQueueCapacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a POSTed message. Messages are parsed straight from
+         * the request stream and refused with 413 as soon as they cross the limit.
+         *
+         * @param maxBodySize The limit in bytes
+         * @return This builder instance for method chaining
+         */
+        public Builder maxBodySize(long maxBodySize) {
+            Assert.isTrue(maxBodySize > 0, "Max body size must be positive");
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * Sets how long a POSTed request may take to be answered. A request still
+         * unanswered after that gets 503 Service Unavailable, or has its SSE stream ended
+         * if the answer was already streaming.
+         *
+         * @param requestTimeout The request timeout
+         * @return This builder instance for method chaining
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            Assert.notNull(requestTimeout, "Request timeout must not be null");
+            Assert.isTrue(!requestTimeout.isNegative() && !requestTimeout.isZero(),
+                    "Request timeout must be positive");
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Sets after how long without traffic a session is removed. A session is only
+         * idle while it has no standalone stream open and no request in flight; it is
+         * removed within about half the timeout after that.
+         *
+         * @param sessionIdleTimeout The idle timeout, or {@code null} to keep sessions
+         *                           until the client deletes them
+         * @return This builder instance for method chaining
+         */
+        public Builder sessionIdleTimeout(Duration sessionIdleTimeout) {
+            Assert.isTrue(sessionIdleTimeout == null
+                    || (!sessionIdleTimeout.isNegative() && !sessionIdleTimeout.isZero()),
+                    "Session idle timeout must be positive");
+            this.sessionIdleTimeout = sessionIdleTimeout;
+            return this;
+        }
+
+        /**
+         * Builds a new instance of WebMvcStreamableServerTransportProvider with the
+         * configured settings.
+         *
+         * @return A new WebMvcStreamableServerTransportProvider instance
+         */
+        public WebMvcStreamableServerTransportProvider build() {
+            return new WebMvcStreamableServerTransportProvider(this);
+        }
+
+    }
+
+}
@@ -8,6 +8,8 @@ import org.reactivestreams.Subscription;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
@@ -128,6 +130,19 @@ public class FlowSseClient {
 	 * notifications
 	 */
 	public void subscribe(String url, SseEventHandler eventHandler) {
+		subscribe(url, Collections.emptyMap(), eventHandler);
+	}
+
+	/**
+	 * Subscribes to an SSE endpoint, sending additional request headers, and processes
+	 * the event stream.
+	 * @param url the SSE endpoint URL to connect to
+	 * @param headers the headers to add to the request
+	 * @param eventHandler the handler that will receive SSE events and error
+	 * notifications
+	 * @see #subscribe(String, SseEventHandler)
+	 */
+	public void subscribe(String url, Map<String, String> headers, SseEventHandler eventHandler) {
 		StringBuilder eventBuilder = new StringBuilder();
 		AtomicReference<String> currentEventId = new AtomicReference<>();
 		AtomicReference<String> currentEventType = new AtomicReference<>("message");
@@ -135,6 +150,7 @@ public class FlowSseClient {
 		webClient.get()
 			.uri(url)
 			.accept(MediaType.TEXT_EVENT_STREAM)
+			.headers(httpHeaders -> headers.forEach(httpHeaders::set))
 			.retrieve()
 			.bodyToFlux(String.class)
 			.subscribe(new Subscriber<String>() {
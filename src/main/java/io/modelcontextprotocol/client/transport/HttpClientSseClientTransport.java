@@ -8,7 +8,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.client.transport.FlowSseClient.SseEvent;
 import io.modelcontextprotocol.spec.McpClientTransport;
 import io.modelcontextprotocol.spec.McpError;
-import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpWireFormat;
 import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
 import io.modelcontextprotocol.util.Assert;
 import io.modelcontextprotocol.util.Utils;
@@ -20,12 +21,18 @@ import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Server-Sent Events (SSE) implementation of the
@@ -50,6 +57,11 @@ import java.util.function.Function;
  * <li>'message' - Contains JSON-RPC message payload</li>
  * </ul>
  *
+ * <p>
+ * When the server is this library too, the transport can offer binary wire formats with
+ * {@link Builder#wireFormats(McpWireFormat...)}; see {@link McpWireFormat} for the
+ * negotiation. Servers that do not take up the offer are talked to in JSON.
+ *
  * @author Christian Tzolov
  * @see io.modelcontextprotocol.spec.McpTransport
  * @see io.modelcontextprotocol.spec.McpClientTransport
@@ -82,6 +94,18 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 	/** JSON object mapper for message serialization/deserialization */
 	protected ObjectMapper objectMapper;
 
+	/** Codec for message serialization/deserialization, built on the object mapper */
+	private final McpJsonCodec jsonCodec;
+
+	/** Binary wire formats offered to the server, in order of preference */
+	private final List<McpWireFormat> wireFormats;
+
+	/** Codecs of the offered binary wire formats */
+	private final Map<McpWireFormat, McpJsonCodec> wireCodecs;
+
+	/** Wire format the server chose, JSON until the endpoint has been discovered */
+	private volatile McpWireFormat wireFormat = McpWireFormat.JSON;
+
 	/** Flag indicating if the transport is in closing state */
 	private volatile boolean isClosing = false;
 
@@ -132,6 +156,11 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 	@Deprecated
 	public HttpClientSseClientTransport(WebClient webClient, String baseUri, String sseEndpoint,
 			ObjectMapper objectMapper) {
+		this(webClient, baseUri, sseEndpoint, objectMapper, Collections.emptyList());
+	}
+
+	private HttpClientSseClientTransport(WebClient webClient, String baseUri, String sseEndpoint,
+			ObjectMapper objectMapper, List<McpWireFormat> wireFormats) {
 		Assert.notNull(objectMapper, "ObjectMapper must not be null");
 		Assert.hasText(baseUri, "baseUri must not be empty");
 		Assert.hasText(sseEndpoint, "sseEndpoint must not be empty");
@@ -140,6 +169,12 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 		this.baseUri = URI.create(baseUri);
 		this.sseEndpoint = sseEndpoint;
 		this.objectMapper = objectMapper;
+		this.jsonCodec = McpJsonCodec.jackson(objectMapper);
+		this.wireFormats = wireFormats;
+		this.wireCodecs = new EnumMap<>(McpWireFormat.class);
+		for (McpWireFormat format : wireFormats) {
+			this.wireCodecs.put(format, format.codec(objectMapper));
+		}
 		this.webClient = webClient;
 		this.sseClient = new FlowSseClient(webClient);
 	}
@@ -162,10 +197,13 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 
 		private String sseEndpoint = DEFAULT_SSE_ENDPOINT;
 
-		private WebClient webClient = WebClient.create();
+		/** Created on build if none is set, so no default connector is needed otherwise */
+		private WebClient webClient;
 
 		private ObjectMapper objectMapper = new ObjectMapper();
 
+		private List<McpWireFormat> wireFormats = Collections.emptyList();
+
 		/**
 		 * Creates a new builder instance.
 		 */
@@ -243,12 +281,35 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 			return this;
 		}
 
+		/**
+		 * Offers binary wire formats to the server, in order of preference. The server
+		 * picks one it supports, or JSON if it supports none of them.
+		 * @param wireFormats the binary formats to offer
+		 * @return this builder
+		 * @throws IllegalArgumentException if a format is JSON or its Jackson module is
+		 * not on the classpath
+		 */
+		public Builder wireFormats(McpWireFormat... wireFormats) {
+			Assert.notNull(wireFormats, "wireFormats must not be null");
+			List<McpWireFormat> formats = new ArrayList<>();
+			for (McpWireFormat format : wireFormats) {
+				Assert.isTrue(format != null && format.isBinary(), "wireFormats must be binary formats");
+				Assert.isTrue(format.isAvailable(), "The Jackson " + format.id() + " module is not on the classpath");
+				if (!formats.contains(format)) {
+					formats.add(format);
+				}
+			}
+			this.wireFormats = formats;
+			return this;
+		}
+
 		/**
 		 * Builds a new {@link HttpClientSseClientTransport} instance.
 		 * @return a new transport instance
 		 */
 		public HttpClientSseClientTransport build() {
-			return new HttpClientSseClientTransport(webClient, baseUri, sseEndpoint, objectMapper);
+			return new HttpClientSseClientTransport(webClient != null ? webClient : WebClient.create(), baseUri,
+					sseEndpoint, objectMapper, wireFormats);
 		}
 	}
 
@@ -271,7 +332,10 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 		connectionFuture.set(future);
 
 		URI clientUri = Utils.resolveUri(this.baseUri, this.sseEndpoint);
-		sseClient.subscribe(clientUri.toString(), new FlowSseClient.SseEventHandler() {
+		Map<String, String> headers = this.wireFormats.isEmpty() ? Collections.emptyMap()
+				: Collections.singletonMap(McpWireFormat.HEADER,
+						this.wireFormats.stream().map(McpWireFormat::id).collect(Collectors.joining(",")));
+		sseClient.subscribe(clientUri.toString(), headers, new FlowSseClient.SseEventHandler() {
 			@Override
 			public void onEvent(SseEvent event) {
 				if (isClosing) {
@@ -281,12 +345,14 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 				try {
 					if (ENDPOINT_EVENT_TYPE.equals(event.getType())) {
 						String endpoint = event.getData();
+						wireFormat = negotiatedFormat(endpoint);
 						messageEndpoint.set(endpoint);
 						closeLatch.countDown();
 						future.complete(null);
 					}
 					else if (MESSAGE_EVENT_TYPE.equals(event.getType())) {
-						JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, event.getData());
+						McpWireFormat format = wireFormat;
+						JSONRPCMessage message = format.decodeEventData(codecFor(format), event.getData());
 						handler.apply(Mono.just(message)).subscribe();
 					}
 					else {
@@ -311,6 +377,19 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 		return Mono.fromFuture(future);
 	}
 
+	private McpWireFormat negotiatedFormat(String endpoint) {
+		McpWireFormat format = McpWireFormat.fromEndpoint(endpoint);
+		if (format.isBinary() && !this.wireCodecs.containsKey(format)) {
+			logger.warn("Server chose wire format {} which was not offered, using JSON", format.id());
+			return McpWireFormat.JSON;
+		}
+		return format;
+	}
+
+	private McpJsonCodec codecFor(McpWireFormat format) {
+		return format.isBinary() ? this.wireCodecs.get(format) : this.jsonCodec;
+	}
+
 	/**
 	 * Sends a JSON-RPC message to the server.
 	 *
@@ -342,9 +421,19 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 		}
 
 		try {
-			String jsonText = this.objectMapper.writeValueAsString(message);
 			URI requestUri = Utils.resolveUri(baseUri, endpoint);
-			
+			McpWireFormat format = this.wireFormat;
+			if (format.isBinary()) {
+				return webClient.post()
+					.uri(requestUri)
+					.contentType(MediaType.parseMediaType(format.mediaType()))
+					.bodyValue(codecFor(format).encode(message))
+					.retrieve()
+					.toBodilessEntity()
+					.then();
+			}
+
+			String jsonText = this.jsonCodec.encodeToString(message);
 			return webClient.post()
 				.uri(requestUri)
 				.contentType(MediaType.APPLICATION_JSON)
@@ -381,7 +470,7 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 	}
 
 	/**
-	 * Unmarshal data to the specified type using the configured object mapper.
+	 * Unmarshal data to the specified type using the configured JSON codec.
 	 * @param data the data to unmarshal
 	 * @param typeRef the type reference for the target type
 	 * @param <T> the target type
@@ -389,7 +478,7 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 	 */
 	@Override
 	public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-		return this.objectMapper.convertValue(data, typeRef);
+		return this.jsonCodec.convert(data, typeRef);
 	}
 
 }
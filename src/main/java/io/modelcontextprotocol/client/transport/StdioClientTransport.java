@@ -7,9 +7,10 @@ package io.modelcontextprotocol.client.transport;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.McpClientTransport;
-import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpJsonCodec;
 import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
 import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.SingleLineOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -21,7 +22,6 @@ import reactor.core.scheduler.Schedulers;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -50,6 +50,8 @@ public class StdioClientTransport implements McpClientTransport {
 
 	private ObjectMapper objectMapper;
 
+	private final McpJsonCodec jsonCodec;
+
 	/** Scheduler for handling inbound messages from the server process */
 	private Scheduler inboundScheduler;
 
@@ -93,6 +95,7 @@ public class StdioClientTransport implements McpClientTransport {
 		this.params = params;
 
 		this.objectMapper = objectMapper;
+		this.jsonCodec = McpJsonCodec.jackson(objectMapper);
 
 		this.errorSink = Sinks.many().unicast().onBackpressureBuffer();
 
@@ -257,7 +260,7 @@ public class StdioClientTransport implements McpClientTransport {
 				String line;
 				while (!isClosing && (line = processReader.readLine()) != null) {
 					try {
-						JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(this.objectMapper, line);
+						JSONRPCMessage message = this.jsonCodec.decodeMessage(line);
 						if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
 							if (!isClosing) {
 								logger.error("Failed to enqueue inbound message: {}", message);
@@ -287,7 +290,7 @@ public class StdioClientTransport implements McpClientTransport {
 
 	/**
 	 * Starts the outbound processing thread that writes JSON-RPC messages to the
-	 * process's output stream. Messages are serialized to JSON and written with a newline
+	 * process's output stream. Messages are streamed as JSON and written with a newline
 	 * delimiter.
 	 */
 	private void startOutboundProcessing() {
@@ -296,14 +299,16 @@ public class StdioClientTransport implements McpClientTransport {
 			.handle((message, s) -> {
 				if (message != null && !isClosing) {
 					try {
-						String jsonMessage = objectMapper.writeValueAsString(message);
-						jsonMessage = jsonMessage.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
-
+						// Streamed to the process as it is serialized, kept on one line
 						java.io.OutputStream os = this.process.getOutputStream();
 						synchronized (os) {
-							os.write(jsonMessage.getBytes(StandardCharsets.UTF_8));
-							os.write("\n".getBytes(StandardCharsets.UTF_8));
-							os.flush();
+							try {
+								jsonCodec.encode(message, new SingleLineOutputStream(os));
+							}
+							finally {
+								os.write('\n');
+								os.flush();
+							}
 						}
 						s.next(message);
 					}
@@ -381,7 +386,7 @@ public class StdioClientTransport implements McpClientTransport {
 
 	@Override
 	public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-		return this.objectMapper.convertValue(data, typeRef);
+		return this.jsonCodec.convert(data, typeRef);
 	}
 
 }
@@ -4,12 +4,11 @@
 
 package io.modelcontextprotocol.server;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.*;
 import io.modelcontextprotocol.spec.McpSchema.*;
 import io.modelcontextprotocol.util.DefaultMcpUriTemplateManagerFactory;
 import io.modelcontextprotocol.util.McpUriTemplateManagerFactory;
+import io.modelcontextprotocol.util.McpUriTemplateRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -77,7 +76,7 @@ public class McpAsyncServer {
 
 	private final McpServerTransportProvider mcpTransportProvider;
 
-	private final ObjectMapper objectMapper;
+	private final McpJsonCodec jsonCodec;
 
 	private final McpSchema.ServerCapabilities serverCapabilities;
 
@@ -85,12 +84,18 @@ public class McpAsyncServer {
 
 	private final String instructions;
 
-	private final CopyOnWriteArrayList<McpServerFeatures.AsyncToolSpecification> tools = new CopyOnWriteArrayList<>();
+	private final McpToolRegistry tools;
 
 	private final CopyOnWriteArrayList<McpSchema.ResourceTemplate> resourceTemplates = new CopyOnWriteArrayList<>();
 
 	private final ConcurrentHashMap<String, McpServerFeatures.AsyncResourceSpecification> resources = new ConcurrentHashMap<>();
 
+	/**
+	 * Resolves resources/read URIs, unless a custom URI template manager factory is
+	 * configured
+	 */
+	private final McpUriTemplateRouter<McpServerFeatures.AsyncResourceSpecification> resourceRouter;
+
 	private final ConcurrentHashMap<String, McpServerFeatures.AsyncPromptSpecification> prompts = new ConcurrentHashMap<>();
 
 	// FIXME: this field is deprecated and should be remvoed together with the
@@ -99,6 +104,14 @@ public class McpAsyncServer {
 
 	private final ConcurrentHashMap<McpSchema.CompleteReference, McpServerFeatures.AsyncCompletionSpecification> completions = new ConcurrentHashMap<>();
 
+	private final McpListResultCache<McpSchema.Tool> toolsListCache;
+
+	private final McpListResultCache<McpSchema.Resource> resourcesListCache;
+
+	private final McpListResultCache<McpSchema.ResourceTemplate> resourceTemplatesListCache;
+
+	private final McpListResultCache<McpSchema.Prompt> promptsListCache;
+
 	private List<String> protocolVersions = new ArrayList<String>() {
 		{
 			add(McpSchema.LATEST_PROTOCOL_VERSION);
@@ -114,23 +127,50 @@ public class McpAsyncServer {
 	 * @param mcpTransportProvider The transport layer implementation for MCP
 	 *                             communication.
 	 * @param features             The MCP server supported features.
-	 * @param objectMapper         The ObjectMapper to use for JSON
+	 * @param jsonCodec            The codec to use for JSON
 	 *                             serialization/deserialization
+	 * @param rateLimiter          The rate limits applied to client requests, or
+	 *                             null not to throttle them
+	 * @param pageSize             The maximum number of items per list result, or
+	 *                             0 to return every item at once
 	 */
-	McpAsyncServer(McpServerTransportProvider mcpTransportProvider, ObjectMapper objectMapper,
+	McpAsyncServer(McpServerTransportProvider mcpTransportProvider, McpJsonCodec jsonCodec,
 			McpServerFeatures.Async features, Duration requestTimeout,
-			McpUriTemplateManagerFactory uriTemplateManagerFactory) {
+			McpUriTemplateManagerFactory uriTemplateManagerFactory, McpRateLimiter rateLimiter, int pageSize) {
 		this.mcpTransportProvider = mcpTransportProvider;
-		this.objectMapper = objectMapper;
+		this.jsonCodec = jsonCodec;
 		this.serverInfo = features.getServerInfo();
 		this.serverCapabilities = features.getServerCapabilities();
 		this.instructions = features.getInstructions();
-		this.tools.addAll(features.getTools());
+		this.tools = new McpToolRegistry(features.getTools());
 		this.resources.putAll(features.getResources());
 		this.resourceTemplates.addAll(features.getResourceTemplates());
 		this.prompts.putAll(features.getPrompts());
 		this.completions.putAll(features.getCompletions());
 		this.uriTemplateManagerFactory = uriTemplateManagerFactory;
+		this.resourceRouter = uriTemplateManagerFactory.getClass() == DefaultMcpUriTemplateManagerFactory.class
+				? new McpUriTemplateRouter<>() : null;
+		if (this.resourceRouter != null) {
+			// Templates registered earlier take precedence, so keep the builder's order
+			features.getResources().forEach(this.resourceRouter::add);
+		}
+
+		this.toolsListCache = new McpListResultCache<>(jsonCodec, this::listTools,
+				(page, nextCursor) -> new McpSchema.ListToolsResult(page, nextCursor), pageSize);
+		this.resourcesListCache = new McpListResultCache<>(jsonCodec, this::listResources, (page, nextCursor) -> {
+			McpSchema.ListResourcesResult result = new McpSchema.ListResourcesResult();
+			result.setResources(page);
+			result.setNextCursor(nextCursor);
+			return result;
+		}, pageSize);
+		this.resourceTemplatesListCache = new McpListResultCache<>(jsonCodec, this::getResourceTemplates,
+				(page, nextCursor) -> new McpSchema.ListResourceTemplatesResult(page, nextCursor), pageSize);
+		this.promptsListCache = new McpListResultCache<>(jsonCodec, this::listPrompts, (page, nextCursor) -> {
+			McpSchema.ListPromptsResult result = new McpSchema.ListPromptsResult();
+			result.setPrompts(page);
+			result.setNextCursor(nextCursor);
+			return result;
+		}, pageSize);
 
 		Map<String, McpServerSession.RequestHandler<?>> requestHandlers = new HashMap<>();
 
@@ -199,7 +239,8 @@ public class McpAsyncServer {
 
 		mcpTransportProvider.setSessionFactory(
 				transport -> new McpServerSession(UUID.randomUUID().toString(), requestTimeout, transport,
-						this::asyncInitializeRequestHandler, Mono::empty, requestHandlers, notificationHandlers));
+						this::asyncInitializeRequestHandler, Mono::empty, requestHandlers, notificationHandlers,
+						rateLimiter));
 	}
 
 	// ---------------------------------------
@@ -295,28 +336,51 @@ public class McpAsyncServer {
 	 * @return Mono that completes when clients have been notified of the change
 	 */
 	public Mono<Void> addTool(McpServerFeatures.AsyncToolSpecification toolSpecification) {
-		if (toolSpecification == null) {
-			return Mono.error(new McpError("Tool specification must not be null"));
-		}
-		if (toolSpecification.tool() == null) {
-			return Mono.error(new McpError("Tool must not be null"));
+		return addTools(Collections.singletonList(toolSpecification));
+	}
+
+	/**
+	 * Add several tool specifications at runtime, either all of them or none. Clients
+	 * are notified once, and the tool index is copied once for the whole batch.
+	 * 
+	 * @param toolSpecifications The tool specifications to add
+	 * @return Mono that completes when clients have been notified of the change
+	 */
+	public Mono<Void> addTools(List<McpServerFeatures.AsyncToolSpecification> toolSpecifications) {
+		if (toolSpecifications == null) {
+			return Mono.error(new McpError("Tool specifications must not be null"));
 		}
-		if (toolSpecification.call() == null) {
-			return Mono.error(new McpError("Tool call handler must not be null"));
+		for (McpServerFeatures.AsyncToolSpecification toolSpecification : toolSpecifications) {
+			if (toolSpecification == null) {
+				return Mono.error(new McpError("Tool specification must not be null"));
+			}
+			if (toolSpecification.tool() == null) {
+				return Mono.error(new McpError("Tool must not be null"));
+			}
+			if (toolSpecification.call() == null) {
+				return Mono.error(new McpError("Tool call handler must not be null"));
+			}
 		}
 		if (this.serverCapabilities.getTools() == null) {
 			return Mono.error(new McpError("Server must be configured with tool capabilities"));
 		}
 
 		return Mono.defer(() -> {
-			// Check for duplicate tool names
-			if (this.tools.stream().anyMatch(th -> th.tool().name().equals(toolSpecification.tool().name()))) {
-				return Mono
-						.error(new McpError("Tool with name '" + toolSpecification.tool().name() + "' already exists"));
+			if (toolSpecifications.isEmpty()) {
+				return Mono.empty();
+			}
+
+			// Rejects duplicate tool names, adding nothing
+			String duplicate = this.tools.addAll(toolSpecifications);
+			if (duplicate != null) {
+				return Mono.error(new McpError("Tool with name '" + duplicate + "' already exists"));
 			}
 
-			this.tools.add(toolSpecification);
-			logger.debug("Added tool handler: {}", toolSpecification.tool().name());
+			// A cache may still hold results of an earlier tool of the same name
+			toolSpecifications.forEach(this::invalidateResultCache);
+			this.toolsListCache.invalidate();
+			logger.debug("Added {} tool handler(s), registry version {}", toolSpecifications.size(),
+					this.tools.version());
 
 			if (this.serverCapabilities.getTools().getListChanged()) {
 				return notifyToolsListChanged();
@@ -340,9 +404,10 @@ public class McpAsyncServer {
 		}
 
 		return Mono.defer(() -> {
-			boolean removed = this.tools
-					.removeIf(toolSpecification -> toolSpecification.tool().name().equals(toolName));
-			if (removed) {
+			McpServerFeatures.AsyncToolSpecification removed = this.tools.remove(toolName);
+			if (removed != null) {
+				invalidateResultCache(removed);
+				this.toolsListCache.invalidate();
 				logger.debug("Removed tool handler: {}", toolName);
 				if (this.serverCapabilities.getTools().getListChanged()) {
 					return notifyToolsListChanged();
@@ -353,6 +418,43 @@ public class McpAsyncServer {
 		});
 	}
 
+	/**
+	 * Remove several tool handlers at runtime. Names that are not registered are
+	 * ignored; clients are notified once if any tool was removed.
+	 * 
+	 * @param toolNames The names of the tool handlers to remove
+	 * @return Mono that completes when clients have been notified of the change
+	 */
+	public Mono<Void> removeTools(List<String> toolNames) {
+		if (toolNames == null) {
+			return Mono.error(new McpError("Tool names must not be null"));
+		}
+		if (this.serverCapabilities.getTools() == null) {
+			return Mono.error(new McpError("Server must be configured with tool capabilities"));
+		}
+
+		return Mono.defer(() -> {
+			List<McpServerFeatures.AsyncToolSpecification> removed = this.tools.removeAll(toolNames);
+			if (removed.isEmpty()) {
+				return Mono.empty();
+			}
+			removed.forEach(this::invalidateResultCache);
+			this.toolsListCache.invalidate();
+			logger.debug("Removed tool handlers: {}",
+					removed.stream().map(specification -> specification.tool().name()).collect(Collectors.toList()));
+			if (this.serverCapabilities.getTools().getListChanged()) {
+				return notifyToolsListChanged();
+			}
+			return Mono.empty();
+		});
+	}
+
+	private void invalidateResultCache(McpServerFeatures.AsyncToolSpecification toolSpecification) {
+		if (toolSpecification.resultCache() != null) {
+			toolSpecification.resultCache().invalidate(toolSpecification.tool().name());
+		}
+	}
+
 	/**
 	 * Notifies clients that the list of available tools has changed.
 	 * 
@@ -362,31 +464,42 @@ public class McpAsyncServer {
 		return this.mcpTransportProvider.notifyClients(McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED, null);
 	}
 
-	private McpServerSession.RequestHandler<McpSchema.ListToolsResult> toolsListRequestHandler() {
-		return (exchange, params) -> {
-			List<Tool> tools = this.tools.stream().map(McpServerFeatures.AsyncToolSpecification::tool)
-					.collect(Collectors.toList());
+	private McpServerSession.RequestHandler<McpEncodedResult> toolsListRequestHandler() {
+		return (exchange, params) -> this.toolsListCache.get(params);
+	}
 
-			return Mono.just(new McpSchema.ListToolsResult(tools, null));
-		};
+	private List<McpSchema.Tool> listTools() {
+		return this.tools.specifications().stream().map(McpServerFeatures.AsyncToolSpecification::tool)
+				.collect(Collectors.toList());
 	}
 
 	private McpServerSession.RequestHandler<CallToolResult> toolsCallRequestHandler() {
 		return (exchange, params) -> {
-			McpSchema.CallToolRequest callToolRequest = objectMapper.convertValue(params,
-					new TypeReference<McpSchema.CallToolRequest>() {
-					});
+			McpSchema.CallToolRequest callToolRequest = this.jsonCodec.convert(params, McpSchema.CallToolRequest.class);
 
-			Optional<McpServerFeatures.AsyncToolSpecification> toolSpecification = this.tools.stream()
-					.filter(tr -> callToolRequest.name().equals(tr.tool().name()))
-					.findAny();
+			McpServerFeatures.AsyncToolSpecification toolSpecification = callToolRequest.name() != null
+					? this.tools.get(callToolRequest.name()) : null;
 
-			if (!toolSpecification.isPresent()) {
+			if (toolSpecification == null) {
 				return Mono.error(new McpError("Tool not found: " + callToolRequest.name()));
 			}
 
-			return toolSpecification.map(tool -> tool.call().apply(exchange, callToolRequest.arguments()))
-					.orElse(Mono.error(new McpError("Tool not found: " + callToolRequest.name())));
+			McpToolResultCache resultCache = toolSpecification.resultCache();
+			if (resultCache == null) {
+				return toolSpecification.call().apply(exchange, callToolRequest.arguments());
+			}
+			McpSchema.CallToolResult cached = resultCache.get(callToolRequest.name(), callToolRequest.arguments());
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+			return toolSpecification.call()
+				.apply(exchange, callToolRequest.arguments())
+				.doOnNext(result -> {
+					// Unless the tool was removed or replaced during the call
+					if (this.tools.get(callToolRequest.name()) == toolSpecification) {
+						resultCache.put(callToolRequest.name(), callToolRequest.arguments(), result);
+					}
+				});
 		};
 	}
 
@@ -414,6 +527,16 @@ public class McpAsyncServer {
 				return Mono.error(new McpError(
 						"Resource with URI '" + resourceSpecification.resource().uri() + "' already exists"));
 			}
+			if (this.resourceRouter != null) {
+				try {
+					this.resourceRouter.add(resourceSpecification.resource().uri(), resourceSpecification);
+				}
+				catch (IllegalArgumentException e) {
+					this.resources.remove(resourceSpecification.resource().uri());
+					return Mono.error(new McpError(e.getMessage()));
+				}
+			}
+			invalidateResourceLists();
 			logger.debug("Added resource handler: {}", resourceSpecification.resource().uri());
 			if (this.serverCapabilities.getResources().getListChanged()) {
 				return notifyResourcesListChanged();
@@ -439,6 +562,10 @@ public class McpAsyncServer {
 		return Mono.defer(() -> {
 			McpServerFeatures.AsyncResourceSpecification removed = this.resources.remove(resourceUri);
 			if (removed != null) {
+				if (this.resourceRouter != null) {
+					this.resourceRouter.remove(resourceUri);
+				}
+				invalidateResourceLists();
 				logger.debug("Removed resource handler: {}", resourceUri);
 				if (this.serverCapabilities.getResources().getListChanged()) {
 					return notifyResourcesListChanged();
@@ -449,6 +576,14 @@ public class McpAsyncServer {
 		});
 	}
 
+	/**
+	 * Resources with a URI template are listed as resource templates as well.
+	 */
+	private void invalidateResourceLists() {
+		this.resourcesListCache.invalidate();
+		this.resourceTemplatesListCache.invalidate();
+	}
+
 	/**
 	 * Notifies clients that the list of available resources has changed.
 	 * 
@@ -458,22 +593,19 @@ public class McpAsyncServer {
 		return this.mcpTransportProvider.notifyClients(McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED, null);
 	}
 
-	private McpServerSession.RequestHandler<McpSchema.ListResourcesResult> resourcesListRequestHandler() {
-		return (exchange, params) -> {
-			List<McpSchema.Resource> resourceList = this.resources.values()
-					.stream()
-					.map(McpServerFeatures.AsyncResourceSpecification::resource)
-					.collect(Collectors.toList());
-			McpSchema.ListResourcesResult result = new McpSchema.ListResourcesResult();
-			result.setResources(resourceList);
-			return Mono.just(result);
-		};
+	private McpServerSession.RequestHandler<McpEncodedResult> resourcesListRequestHandler() {
+		return (exchange, params) -> this.resourcesListCache.get(params);
 	}
 
-	private McpServerSession.RequestHandler<McpSchema.ListResourceTemplatesResult> resourceTemplateListRequestHandler() {
-		return (exchange, params) -> Mono
-				.just(new McpSchema.ListResourceTemplatesResult(this.getResourceTemplates(), null));
+	private List<McpSchema.Resource> listResources() {
+		return this.resources.values()
+				.stream()
+				.map(McpServerFeatures.AsyncResourceSpecification::resource)
+				.collect(Collectors.toList());
+	}
 
+	private McpServerSession.RequestHandler<McpEncodedResult> resourceTemplateListRequestHandler() {
+		return (exchange, params) -> this.resourceTemplatesListCache.get(params);
 	}
 
 	private List<McpSchema.ResourceTemplate> getResourceTemplates() {
@@ -500,11 +632,20 @@ public class McpAsyncServer {
 
 	private McpServerSession.RequestHandler<McpSchema.ReadResourceResult> resourcesReadRequestHandler() {
 		return (exchange, params) -> {
-			McpSchema.ReadResourceRequest resourceRequest = objectMapper.convertValue(params,
-					new TypeReference<McpSchema.ReadResourceRequest>() {
-					});
+			McpSchema.ReadResourceRequest resourceRequest = this.jsonCodec.convert(params,
+					McpSchema.ReadResourceRequest.class);
 			String resourceUri = resourceRequest.uri();
 
+			if (this.resourceRouter != null) {
+				McpUriTemplateRouter.Match<McpServerFeatures.AsyncResourceSpecification> match = this.resourceRouter
+						.resolve(resourceUri);
+				if (match == null) {
+					return Mono.error(new McpError("Resource not found: " + resourceUri));
+				}
+				resourceRequest.setUriVariables(match.variables());
+				return match.value().readHandler().apply(exchange, resourceRequest);
+			}
+
 			McpServerFeatures.AsyncResourceSpecification specification = this.resources.values()
 					.stream()
 					.filter(resourceSpecification -> this.uriTemplateManagerFactory
@@ -543,6 +684,7 @@ public class McpAsyncServer {
 						new McpError("Prompt with name '" + promptSpecification.prompt().name() + "' already exists"));
 			}
 
+			this.promptsListCache.invalidate();
 			logger.debug("Added prompt handler: {}", promptSpecification.prompt().name());
 
 			// Servers that declared the listChanged capability SHOULD send a
@@ -573,6 +715,7 @@ public class McpAsyncServer {
 			McpServerFeatures.AsyncPromptSpecification removed = this.prompts.remove(promptName);
 
 			if (removed != null) {
+				this.promptsListCache.invalidate();
 				logger.debug("Removed prompt handler: {}", promptName);
 				// Servers that declared the listChanged capability SHOULD send a
 				// notification, when the list of available prompts changes
@@ -594,23 +737,20 @@ public class McpAsyncServer {
 		return this.mcpTransportProvider.notifyClients(McpSchema.METHOD_NOTIFICATION_PROMPTS_LIST_CHANGED, null);
 	}
 
-	private McpServerSession.RequestHandler<McpSchema.ListPromptsResult> promptsListRequestHandler() {
-		return (exchange, params) -> {
-			List<McpSchema.Prompt> promptList = this.prompts.values()
-					.stream()
-					.map(McpServerFeatures.AsyncPromptSpecification::prompt)
-					.collect(Collectors.toList());
-			McpSchema.ListPromptsResult result = new McpSchema.ListPromptsResult();
-			result.setPrompts(promptList);
-			return Mono.just(result);
-		};
+	private McpServerSession.RequestHandler<McpEncodedResult> promptsListRequestHandler() {
+		return (exchange, params) -> this.promptsListCache.get(params);
+	}
+
+	private List<McpSchema.Prompt> listPrompts() {
+		return this.prompts.values()
+				.stream()
+				.map(McpServerFeatures.AsyncPromptSpecification::prompt)
+				.collect(Collectors.toList());
 	}
 
 	private McpServerSession.RequestHandler<McpSchema.GetPromptResult> promptsGetRequestHandler() {
 		return (exchange, params) -> {
-			McpSchema.GetPromptRequest promptRequest = objectMapper.convertValue(params,
-					new TypeReference<McpSchema.GetPromptRequest>() {
-					});
+			McpSchema.GetPromptRequest promptRequest = this.jsonCodec.convert(params, McpSchema.GetPromptRequest.class);
 
 			// Implement prompt retrieval logic here
 			McpServerFeatures.AsyncPromptSpecification specification = this.prompts.get(promptRequest.name());
@@ -658,9 +798,7 @@ public class McpAsyncServer {
 	private McpServerSession.RequestHandler<Object> setLoggerRequestHandler() {
 		return (exchange, params) -> {
 			return Mono.fromCallable(() -> {
-				SetLevelRequest newMinLoggingLevel = objectMapper.convertValue(params,
-						new TypeReference<SetLevelRequest>() {
-						});
+				SetLevelRequest newMinLoggingLevel = this.jsonCodec.convert(params, SetLevelRequest.class);
 
 				exchange.setMinLoggingLevel(newMinLoggingLevel.level());
 				this.minLoggingLevel = newMinLoggingLevel.level();
@@ -749,7 +887,7 @@ public class McpAsyncServer {
 	 */
 	@SuppressWarnings("unchecked")
 	private McpSchema.CompleteRequest parseCompletionParams(Object object) {
-		Map<String, Object> params = (Map<String, Object>) object;
+		Map<String, Object> params = this.jsonCodec.convert(object, Map.class);
 		Map<String, Object> refMap = (Map<String, Object>) params.get("ref");
 		Map<String, Object> argMap = (Map<String, Object>) params.get("argument");
 
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpEncodedResult;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Versioned snapshot of a list result, such as the response to {@code tools/list},
+ * served in pages.
+ *
+ * <p>
+ * The lists a server offers change rarely, but every new session asks for them. The
+ * items are collected on the first request after a change and then served to every
+ * following request as is, until the server invalidates the snapshot. A snapshot is
+ * stored together with the version it was built from: a snapshot whose build raced with
+ * a change carries the old version and is rebuilt on the next request, so a stale list is
+ * never served once the change has been made.
+ *
+ * <p>
+ * With a page size, a result holds at most that many items and a {@code nextCursor}
+ * pointing to the next page. Cursors are opaque to clients and name the snapshot they
+ * were issued for, so a client paging through a list sees one consistent list even if it
+ * changes meanwhile: the current and the previous snapshot are kept for this. A cursor
+ * of an older snapshot, or of another server, is rejected as invalid params. Each page is
+ * encoded once per snapshot, on first request.
+ *
+ * @param <T> The type of the listed items
+ */
+final class McpListResultCache<T> {
+
+	private final AtomicLong version = new AtomicLong();
+
+	/** Distinguishes the cursors of this cache from those of other caches and servers */
+	private final long epoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+
+	private final McpJsonCodec jsonCodec;
+
+	private final Supplier<List<T>> itemsSupplier;
+
+	private final BiFunction<List<T>, String, Object> resultFactory;
+
+	private final int pageSize;
+
+	private volatile Snapshot<T> snapshot;
+
+	private volatile Snapshot<T> previous;
+
+	/**
+	 * @param jsonCodec The codec encoding the results
+	 * @param itemsSupplier Collects the items from the current state of the server
+	 * @param resultFactory Creates the result of a page of items and the cursor of the
+	 * next page, null for the last page
+	 * @param pageSize The maximum number of items per result, 0 for a single result with
+	 * every item
+	 */
+	McpListResultCache(McpJsonCodec jsonCodec, Supplier<List<T>> itemsSupplier,
+			BiFunction<List<T>, String, Object> resultFactory, int pageSize) {
+		this.jsonCodec = jsonCodec;
+		this.itemsSupplier = itemsSupplier;
+		this.resultFactory = resultFactory;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Discards the current snapshot. Call after the list has been changed.
+	 */
+	void invalidate() {
+		this.version.incrementAndGet();
+	}
+
+	/**
+	 * @param params The params of the list request, with an optional cursor
+	 * @return the page of the current list, or of the snapshot the cursor belongs to
+	 */
+	Mono<McpEncodedResult> get(Object params) {
+		return Mono.fromCallable(() -> {
+			String cursor = null;
+			if (params != null) {
+				cursor = this.jsonCodec.convert(params, McpSchema.PaginatedRequest.class).getCursor();
+			}
+			if (cursor == null) {
+				return page(currentSnapshot(), 0);
+			}
+			long[] position = decodeCursor(cursor);
+			Snapshot<T> snapshot = snapshotOf(position[0]);
+			if (snapshot == null || position[1] >= snapshot.pages.length()) {
+				throw invalidCursor(cursor);
+			}
+			return page(snapshot, (int) position[1]);
+		});
+	}
+
+	private Snapshot<T> currentSnapshot() {
+		long current = this.version.get();
+		Snapshot<T> cached = this.snapshot;
+		if (cached != null && cached.version == current) {
+			return cached;
+		}
+		List<T> items = this.itemsSupplier.get();
+		int pages = this.pageSize > 0 ? Math.max(1, (items.size() + this.pageSize - 1) / this.pageSize) : 1;
+		Snapshot<T> built = new Snapshot<>(current, items, pages);
+		if (cached != null && cached.version < current) {
+			this.previous = cached;
+		}
+		this.snapshot = built;
+		return built;
+	}
+
+	private Snapshot<T> snapshotOf(long version) {
+		Snapshot<T> cached = this.snapshot;
+		if (cached != null && cached.version == version) {
+			return cached;
+		}
+		cached = this.previous;
+		return cached != null && cached.version == version ? cached : null;
+	}
+
+	private McpEncodedResult page(Snapshot<T> snapshot, int index) throws IOException {
+		McpEncodedResult page = snapshot.pages.get(index);
+		if (page != null) {
+			return page;
+		}
+		List<T> items = snapshot.items;
+		String nextCursor = null;
+		if (this.pageSize > 0) {
+			int from = index * this.pageSize;
+			int to = Math.min(from + this.pageSize, items.size());
+			items = items.subList(from, to);
+			if (index + 1 < snapshot.pages.length()) {
+				nextCursor = encodeCursor(snapshot.version, index + 1);
+			}
+		}
+		page = McpEncodedResult.encode(this.jsonCodec, this.resultFactory.apply(items, nextCursor));
+		snapshot.pages.set(index, page);
+		return page;
+	}
+
+	private String encodeCursor(long version, int page) {
+		String cursor = Long.toString(this.epoch, 36) + "." + Long.toString(version, 36) + "." + page;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private long[] decodeCursor(String cursor) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.");
+			if (parts.length != 3 || Long.parseLong(parts[0], 36) != this.epoch) {
+				throw invalidCursor(cursor);
+			}
+			long page = Integer.parseInt(parts[2]);
+			if (page < 0) {
+				throw invalidCursor(cursor);
+			}
+			return new long[] { Long.parseLong(parts[1], 36), page };
+		}
+		catch (IllegalArgumentException e) {
+			throw invalidCursor(cursor);
+		}
+	}
+
+	private static McpError invalidCursor(String cursor) {
+		return new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS,
+				"Invalid cursor: " + cursor, null));
+	}
+
+	private static final class Snapshot<T> {
+
+		private final long version;
+
+		private final List<T> items;
+
+		/** Encoded pages, filled in on first request */
+		private final AtomicReferenceArray<McpEncodedResult> pages;
+
+		private Snapshot(long version, List<T> items, int pages) {
+			this.version = version;
+			this.items = items;
+			this.pages = new AtomicReferenceArray<>(pages);
+		}
+
+	}
+
+}
@@ -5,6 +5,10 @@
 package io.modelcontextprotocol.server;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.JacksonMcpJsonCodec;
+import io.modelcontextprotocol.spec.McpCodecRegistry;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpRateLimiter;
 import io.modelcontextprotocol.spec.McpSchema;
 import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
 import io.modelcontextprotocol.spec.McpSchema.ResourceTemplate;
@@ -160,6 +164,8 @@ public interface McpServer {
 
 		private ObjectMapper objectMapper;
 
+		private McpJsonCodec jsonCodec;
+
 		private McpSchema.Implementation serverInfo = DEFAULT_SERVER_INFO;
 
 		private McpSchema.ServerCapabilities serverCapabilities;
@@ -182,7 +188,7 @@ public interface McpServer {
 		 * application-specific information. Each resource is uniquely identified by a
 		 * URI.
 		 */
-		private final Map<String, McpServerFeatures.AsyncResourceSpecification> resources = new HashMap<>();
+		private final Map<String, McpServerFeatures.AsyncResourceSpecification> resources = new LinkedHashMap<>();
 
 		private final List<ResourceTemplate> resourceTemplates = new ArrayList<>();
 
@@ -201,6 +207,12 @@ public interface McpServer {
 
 		private Duration requestTimeout = Duration.ofSeconds(10); // Default timeout
 
+		private McpRateLimiter rateLimiter;
+
+		private int pageSize;
+
+		private boolean afterburner;
+
 		private AsyncSpecification(McpServerTransportProvider transportProvider) {
 			Assert.notNull(transportProvider, "Transport provider must not be null");
 			this.transportProvider = transportProvider;
@@ -234,6 +246,49 @@ public interface McpServer {
 			return this;
 		}
 
+		/**
+		 * Throttles the requests clients send with the given rate limiter. Each session
+		 * gets its own token buckets; the limits themselves are read from the limiter on
+		 * every request, so they can be changed while the server is running.
+		 * @param rateLimiter The rate limiter. Must not be null.
+		 * @return This builder instance for method chaining
+		 * @throws IllegalArgumentException if rateLimiter is null
+		 */
+		public AsyncSpecification rateLimiter(McpRateLimiter rateLimiter) {
+			Assert.notNull(rateLimiter, "Rate limiter must not be null");
+			this.rateLimiter = rateLimiter;
+			return this;
+		}
+
+		/**
+		 * Splits the results of tools/list, resources/list, resources/templates/list
+		 * and prompts/list into pages of at most the given number of items, linked by
+		 * opaque cursors. A client paging through a list keeps seeing the list as it was
+		 * when it requested the first page. By default every item is returned at once.
+		 * @param pageSize The maximum number of items per page, or 0 for no paging
+		 * @return This builder instance for method chaining
+		 * @throws IllegalArgumentException if pageSize is negative
+		 */
+		public AsyncSpecification pageSize(int pageSize) {
+			Assert.isTrue(pageSize >= 0, "Page size must not be negative");
+			this.pageSize = pageSize;
+			return this;
+		}
+
+		/**
+		 * Registers Jackson's Afterburner module, if it is on the classpath, on the
+		 * object mapper of the server's codec. The module is registered on the mapper
+		 * given to {@link #objectMapper(ObjectMapper)} itself, so transports sharing
+		 * that mapper encode the same way. Has no effect when a codec is set with
+		 * {@link #jsonCodec(McpJsonCodec)}. Off by default.
+		 * @param afterburner Whether to register Afterburner
+		 * @return This builder instance for method chaining
+		 */
+		public AsyncSpecification afterburner(boolean afterburner) {
+			this.afterburner = afterburner;
+			return this;
+		}
+
 		/**
 		 * Sets the server implementation information that will be shared with clients
 		 * during connection initialization. This helps with version compatibility,
@@ -625,6 +680,27 @@ public interface McpServer {
 			return this;
 		}
 
+		/**
+		 * Sets the codec to use for serializing and deserializing JSON messages, taking
+		 * precedence over {@link #objectMapper(ObjectMapper)}.
+		 * @param jsonCodec the instance to use. Must not be null.
+		 * @return This builder instance for method chaining.
+		 * @throws IllegalArgumentException if jsonCodec is null
+		 */
+		public AsyncSpecification jsonCodec(McpJsonCodec jsonCodec) {
+			Assert.notNull(jsonCodec, "JSON codec must not be null");
+			this.jsonCodec = jsonCodec;
+			return this;
+		}
+
+		private McpJsonCodec resolveJsonCodec() {
+			if (this.jsonCodec != null) {
+				return this.jsonCodec;
+			}
+			ObjectMapper mapper = this.objectMapper != null ? this.objectMapper : new ObjectMapper();
+			return new JacksonMcpJsonCodec(new McpCodecRegistry(mapper, this.afterburner));
+		}
+
 		/**
 		 * Builds an asynchronous MCP server that provides non-blocking operations.
 		 * @return A new instance of {@link McpAsyncServer} configured with this builder's
@@ -634,9 +710,8 @@ public interface McpServer {
 			McpServerFeatures.Async features = new McpServerFeatures.Async(this.serverInfo, this.serverCapabilities, this.tools,
 					this.resources, this.resourceTemplates, this.prompts, this.completions, this.rootsChangeHandlers,
 					this.instructions);
-			ObjectMapper mapper = this.objectMapper != null ? this.objectMapper : new ObjectMapper();
-			return new McpAsyncServer(this.transportProvider, mapper, features, this.requestTimeout,
-					this.uriTemplateManagerFactory);
+			return new McpAsyncServer(this.transportProvider, resolveJsonCodec(), features, this.requestTimeout,
+					this.uriTemplateManagerFactory, this.rateLimiter, this.pageSize);
 		}
 
 	}
@@ -657,6 +732,8 @@ public interface McpServer {
 
 		private ObjectMapper objectMapper;
 
+		private McpJsonCodec jsonCodec;
+
 		private McpSchema.Implementation serverInfo = DEFAULT_SERVER_INFO;
 
 		private McpSchema.ServerCapabilities serverCapabilities;
@@ -679,7 +756,7 @@ public interface McpServer {
 		 * application-specific information. Each resource is uniquely identified by a
 		 * URI.
 		 */
-		private final Map<String, McpServerFeatures.SyncResourceSpecification> resources = new HashMap<>();
+		private final Map<String, McpServerFeatures.SyncResourceSpecification> resources = new LinkedHashMap<>();
 
 		private final List<ResourceTemplate> resourceTemplates = new ArrayList<>();
 
@@ -698,6 +775,12 @@ public interface McpServer {
 
 		private Duration requestTimeout = Duration.ofSeconds(10); // Default timeout
 
+		private McpRateLimiter rateLimiter;
+
+		private int pageSize;
+
+		private boolean afterburner;
+
 		private SyncSpecification(McpServerTransportProvider transportProvider) {
 			Assert.notNull(transportProvider, "Transport provider must not be null");
 			this.transportProvider = transportProvider;
@@ -731,6 +814,49 @@ public interface McpServer {
 			return this;
 		}
 
+		/**
+		 * Throttles the requests clients send with the given rate limiter. Each session
+		 * gets its own token buckets; the limits themselves are read from the limiter on
+		 * every request, so they can be changed while the server is running.
+		 * @param rateLimiter The rate limiter. Must not be null.
+		 * @return This builder instance for method chaining
+		 * @throws IllegalArgumentException if rateLimiter is null
+		 */
+		public SyncSpecification rateLimiter(McpRateLimiter rateLimiter) {
+			Assert.notNull(rateLimiter, "Rate limiter must not be null");
+			this.rateLimiter = rateLimiter;
+			return this;
+		}
+
+		/**
+		 * Splits the results of tools/list, resources/list, resources/templates/list
+		 * and prompts/list into pages of at most the given number of items, linked by
+		 * opaque cursors. A client paging through a list keeps seeing the list as it was
+		 * when it requested the first page. By default every item is returned at once.
+		 * @param pageSize The maximum number of items per page, or 0 for no paging
+		 * @return This builder instance for method chaining
+		 * @throws IllegalArgumentException if pageSize is negative
+		 */
+		public SyncSpecification pageSize(int pageSize) {
+			Assert.isTrue(pageSize >= 0, "Page size must not be negative");
+			this.pageSize = pageSize;
+			return this;
+		}
+
+		/**
+		 * Registers Jackson's Afterburner module, if it is on the classpath, on the
+		 * object mapper of the server's codec. The module is registered on the mapper
+		 * given to {@link #objectMapper(ObjectMapper)} itself, so transports sharing
+		 * that mapper encode the same way. Has no effect when a codec is set with
+		 * {@link #jsonCodec(McpJsonCodec)}. Off by default.
+		 * @param afterburner Whether to register Afterburner
+		 * @return This builder instance for method chaining
+		 */
+		public SyncSpecification afterburner(boolean afterburner) {
+			this.afterburner = afterburner;
+			return this;
+		}
+
 		/**
 		 * Sets the server implementation information that will be shared with clients
 		 * during connection initialization. This helps with version compatibility,
@@ -1122,6 +1248,27 @@ public interface McpServer {
 			return this;
 		}
 
+		/**
+		 * Sets the codec to use for serializing and deserializing JSON messages, taking
+		 * precedence over {@link #objectMapper(ObjectMapper)}.
+		 * @param jsonCodec the instance to use. Must not be null.
+		 * @return This builder instance for method chaining.
+		 * @throws IllegalArgumentException if jsonCodec is null
+		 */
+		public SyncSpecification jsonCodec(McpJsonCodec jsonCodec) {
+			Assert.notNull(jsonCodec, "JSON codec must not be null");
+			this.jsonCodec = jsonCodec;
+			return this;
+		}
+
+		private McpJsonCodec resolveJsonCodec() {
+			if (this.jsonCodec != null) {
+				return this.jsonCodec;
+			}
+			ObjectMapper mapper = this.objectMapper != null ? this.objectMapper : new ObjectMapper();
+			return new JacksonMcpJsonCodec(new McpCodecRegistry(mapper, this.afterburner));
+		}
+
 		/**
 		 * Builds a synchronous MCP server that provides blocking operations.
 		 * @return A new instance of {@link McpSyncServer} configured with this builder's
@@ -1132,9 +1279,8 @@ public interface McpServer {
 					this.tools, this.resources, this.resourceTemplates, this.prompts, this.completions,
 					this.rootsChangeHandlers, this.instructions);
 			McpServerFeatures.Async asyncFeatures = McpServerFeatures.Async.fromSync(syncFeatures);
-			ObjectMapper mapper = this.objectMapper != null ? this.objectMapper : new ObjectMapper();
-			McpAsyncServer asyncServer = new McpAsyncServer(this.transportProvider, mapper, asyncFeatures, this.requestTimeout,
-					this.uriTemplateManagerFactory);
+			McpAsyncServer asyncServer = new McpAsyncServer(this.transportProvider, resolveJsonCodec(), asyncFeatures,
+					this.requestTimeout, this.uriTemplateManagerFactory, this.rateLimiter, this.pageSize);
 
 			return new McpSyncServer(asyncServer);
 		}
@@ -73,7 +73,7 @@ public class McpServerFeatures {
 				tools.add(AsyncToolSpecification.fromSync(tool));
 			}
 
-			Map<String, AsyncResourceSpecification> resources = new HashMap<>();
+			Map<String, AsyncResourceSpecification> resources = new LinkedHashMap<>();
 			syncSpec.getResources().forEach((key, resource) -> {
 				resources.put(key, AsyncResourceSpecification.fromSync(resource));
 			});
@@ -151,6 +151,26 @@ public class McpServerFeatures {
 	public static class AsyncToolSpecification {
 		private final McpSchema.Tool tool;
 		private final BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> call;
+		private final McpToolResultCache resultCache;
+
+		public AsyncToolSpecification(McpSchema.Tool tool,
+				BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> call) {
+			this(tool, call, null);
+		}
+
+		/**
+		 * @param tool The tool
+		 * @param call The tool implementation
+		 * @param resultCache Memoizes the results of the tool, or null to call it every
+		 * time; only for tools whose result depends on nothing but their arguments
+		 */
+		public AsyncToolSpecification(McpSchema.Tool tool,
+				BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> call,
+				McpToolResultCache resultCache) {
+			this.tool = tool;
+			this.call = call;
+			this.resultCache = resultCache;
+		}
 
 		public McpSchema.Tool tool() {
 			return this.tool;
@@ -160,6 +180,10 @@ public class McpServerFeatures {
 			return this.call;
 		}
 
+		public McpToolResultCache resultCache() {
+			return this.resultCache;
+		}
+
 		public static AsyncToolSpecification fromSync(SyncToolSpecification tool) {
 			if (tool == null) {
 				return null;
@@ -167,7 +191,8 @@ public class McpServerFeatures {
 			return new AsyncToolSpecification(tool.getTool(),
 					(exchange, map) -> Mono
 						.fromCallable(() -> tool.getCall().apply(new McpSyncServerExchange(exchange), map))
-						.subscribeOn(Schedulers.boundedElastic()));
+						.subscribeOn(Schedulers.boundedElastic()),
+					tool.getResultCache());
 		}
 	}
 
@@ -247,6 +272,26 @@ public class McpServerFeatures {
 	public static class SyncToolSpecification {
 		private final McpSchema.Tool tool;
 		private final BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult> call;
+		private final McpToolResultCache resultCache;
+
+		public SyncToolSpecification(McpSchema.Tool tool,
+				BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult> call) {
+			this(tool, call, null);
+		}
+
+		/**
+		 * @param tool The tool
+		 * @param call The tool implementation
+		 * @param resultCache Memoizes the results of the tool, or null to call it every
+		 * time; only for tools whose result depends on nothing but their arguments
+		 */
+		public SyncToolSpecification(McpSchema.Tool tool,
+				BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult> call,
+				McpToolResultCache resultCache) {
+			this.tool = tool;
+			this.call = call;
+			this.resultCache = resultCache;
+		}
 	}
 
 	@Data
@@ -8,6 +8,9 @@ import io.modelcontextprotocol.spec.McpSchema;
 import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
 import io.modelcontextprotocol.util.Assert;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * A synchronous implementation of the Model Context Protocol (MCP) server that wraps
  * {@link McpAsyncServer} to provide blocking operations. This class delegates all
@@ -71,6 +74,17 @@ public class McpSyncServer {
 		this.asyncServer.addTool(McpServerFeatures.AsyncToolSpecification.fromSync(toolHandler)).block();
 	}
 
+	/**
+	 * Add several tool handlers, either all of them or none.
+	 * @param toolHandlers The tool handlers to add
+	 */
+	public void addTools(List<McpServerFeatures.SyncToolSpecification> toolHandlers) {
+		Assert.notNull(toolHandlers, "Tool handlers must not be null");
+		this.asyncServer.addTools(toolHandlers.stream()
+			.map(McpServerFeatures.AsyncToolSpecification::fromSync)
+			.collect(Collectors.toList())).block();
+	}
+
 	/**
 	 * Remove a tool handler.
 	 * @param toolName The name of the tool handler to remove
@@ -79,6 +93,14 @@ public class McpSyncServer {
 		this.asyncServer.removeTool(toolName).block();
 	}
 
+	/**
+	 * Remove several tool handlers. Names that are not registered are ignored.
+	 * @param toolNames The names of the tool handlers to remove
+	 */
+	public void removeTools(List<String> toolNames) {
+		this.asyncServer.removeTools(toolNames).block();
+	}
+
 	/**
 	 * Add a new resource handler.
 	 * @param resourceHandler The resource handler to add
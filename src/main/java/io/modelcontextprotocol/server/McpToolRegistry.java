@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The tools of a server, indexed by name.
+ *
+ * <p>
+ * The registry is an immutable, versioned snapshot swapped atomically on every change.
+ * Looking a tool up on the {@code tools/call} path is a single hash lookup on the current
+ * snapshot, without locking and independent of the number of tools. Listing returns the
+ * tools in the order they were added. A change copies the index once, however many tools
+ * it adds, so registering a large generated catalog in one call costs a single copy
+ * rather than one per tool.
+ */
+final class McpToolRegistry {
+
+	private final AtomicReference<Snapshot> snapshot;
+
+	/**
+	 * @param specifications The initial tools; of several with the same name the first
+	 * one is kept
+	 */
+	McpToolRegistry(Collection<McpServerFeatures.AsyncToolSpecification> specifications) {
+		Map<String, McpServerFeatures.AsyncToolSpecification> byName = new LinkedHashMap<>();
+		for (McpServerFeatures.AsyncToolSpecification specification : specifications) {
+			byName.putIfAbsent(specification.tool().name(), specification);
+		}
+		this.snapshot = new AtomicReference<>(new Snapshot(0, byName));
+	}
+
+	/**
+	 * @param name The tool name
+	 * @return the tool with that name, or null
+	 */
+	McpServerFeatures.AsyncToolSpecification get(String name) {
+		return this.snapshot.get().byName.get(name);
+	}
+
+	/**
+	 * @return the tools in the order they were added
+	 */
+	Collection<McpServerFeatures.AsyncToolSpecification> specifications() {
+		return this.snapshot.get().byName.values();
+	}
+
+	/**
+	 * @return the version of the registry, incremented by every change
+	 */
+	long version() {
+		return this.snapshot.get().version;
+	}
+
+	/**
+	 * Adds tools, either all of them or none.
+	 * @param specifications The tools to add
+	 * @return the name of a tool that is already registered or given twice, in which
+	 * case nothing was added, or null once all tools have been added
+	 */
+	String addAll(Collection<McpServerFeatures.AsyncToolSpecification> specifications) {
+		while (true) {
+			Snapshot current = this.snapshot.get();
+			Map<String, McpServerFeatures.AsyncToolSpecification> byName = new LinkedHashMap<>(current.byName);
+			for (McpServerFeatures.AsyncToolSpecification specification : specifications) {
+				String name = specification.tool().name();
+				if (byName.putIfAbsent(name, specification) != null) {
+					return name;
+				}
+			}
+			if (this.snapshot.compareAndSet(current, new Snapshot(current.version + 1, byName))) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Removes a tool.
+	 * @param name The tool name
+	 * @return the removed tool, or null if it was not registered
+	 */
+	McpServerFeatures.AsyncToolSpecification remove(String name) {
+		while (true) {
+			Snapshot current = this.snapshot.get();
+			if (!current.byName.containsKey(name)) {
+				return null;
+			}
+			Map<String, McpServerFeatures.AsyncToolSpecification> byName = new LinkedHashMap<>(current.byName);
+			McpServerFeatures.AsyncToolSpecification removed = byName.remove(name);
+			if (this.snapshot.compareAndSet(current, new Snapshot(current.version + 1, byName))) {
+				return removed;
+			}
+		}
+	}
+
+	/**
+	 * Removes tools.
+	 * @param names The tool names
+	 * @return the tools that were registered and have been removed
+	 */
+	List<McpServerFeatures.AsyncToolSpecification> removeAll(Collection<String> names) {
+		while (true) {
+			Snapshot current = this.snapshot.get();
+			Map<String, McpServerFeatures.AsyncToolSpecification> byName = new LinkedHashMap<>(current.byName);
+			List<McpServerFeatures.AsyncToolSpecification> removed = new ArrayList<>();
+			for (String name : names) {
+				McpServerFeatures.AsyncToolSpecification specification = byName.remove(name);
+				if (specification != null) {
+					removed.add(specification);
+				}
+			}
+			if (removed.isEmpty()
+					|| this.snapshot.compareAndSet(current, new Snapshot(current.version + 1, byName))) {
+				return removed;
+			}
+		}
+	}
+
+	private static final class Snapshot {
+
+		private final long version;
+
+		private final Map<String, McpServerFeatures.AsyncToolSpecification> byName;
+
+		private Snapshot(long version, Map<String, McpServerFeatures.AsyncToolSpecification> byName) {
+			this.version = version;
+			this.byName = Collections.unmodifiableMap(byName);
+		}
+
+	}
+
+}
@@ -0,0 +1,554 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.util.Assert;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the results of idempotent tools, so a call repeating the arguments of an
+ * earlier one is answered without running the tool again.
+ *
+ * <p>
+ * Caching is opt-in per tool, by giving the tool specification a cache; one cache can be
+ * shared by several tools. Entries are keyed by the tool name and a canonical form of the
+ * arguments, in which map keys are sorted, so arguments that only differ in key order
+ * hit the same entry. Results flagged as errors are not cached. A hit is served
+ * directly on the calling thread, without scheduling the tool, in particular without
+ * moving a synchronous tool onto the bounded elastic scheduler.
+ *
+ * <p>
+ * The cache holds at most {@link Builder#maximumSize(int)} entries, each for at most
+ * {@link Builder#expireAfterWrite(Duration)}. Eviction follows W-TinyLFU: new entries
+ * enter a small LRU window; an entry leaving the window is admitted to the main segmented
+ * LRU only if it has been asked for more often than the entry the main area would evict
+ * for it. Access frequencies are estimated by a count-min sketch of 4-bit counters that
+ * is halved periodically, so one-off calls cannot flush results that are asked for again
+ * and again, while popularity still fades over time.
+ */
+public final class McpToolResultCache {
+
+	private static final int WINDOW = 0;
+
+	private static final int PROBATION = 1;
+
+	private static final int PROTECTED = 2;
+
+	private final int maximumSize;
+
+	private final long expireAfterWriteNanos;
+
+	private final int windowMaximum;
+
+	private final int protectedMaximum;
+
+	private final Map<Key, Node> entries = new HashMap<>();
+
+	private final LruList window = new LruList();
+
+	private final LruList probation = new LruList();
+
+	private final LruList protectedQueue = new LruList();
+
+	private final FrequencySketch sketch;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private McpToolResultCache(Builder builder) {
+		this.maximumSize = builder.maximumSize;
+		this.expireAfterWriteNanos = builder.expireAfterWrite != null ? builder.expireAfterWrite.toNanos() : 0;
+		this.windowMaximum = Math.max(1, this.maximumSize / 100);
+		this.protectedMaximum = (int) ((this.maximumSize - this.windowMaximum) * 0.8);
+		this.sketch = new FrequencySketch(this.maximumSize);
+	}
+
+	/**
+	 * @return a builder of a tool result cache
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Looks up the result of an earlier call with the same arguments.
+	 * @param toolName The tool name
+	 * @param arguments The call arguments
+	 * @return The cached result, or null
+	 */
+	public McpSchema.CallToolResult get(String toolName, Map<String, Object> arguments) {
+		Key key = new Key(toolName, arguments);
+		synchronized (this) {
+			this.sketch.increment(key.hash);
+			Node node = this.entries.get(key);
+			if (node != null && isExpired(node)) {
+				remove(node);
+				node = null;
+			}
+			if (node == null) {
+				this.misses.increment();
+				return null;
+			}
+			onHit(node);
+			this.hits.increment();
+			return node.result;
+		}
+	}
+
+	/**
+	 * Caches the result of a call, unless it is an error.
+	 * @param toolName The tool name
+	 * @param arguments The call arguments
+	 * @param result The result
+	 */
+	public void put(String toolName, Map<String, Object> arguments, McpSchema.CallToolResult result) {
+		if (result == null || Boolean.TRUE.equals(result.getIsError())) {
+			return;
+		}
+		Key key = new Key(toolName, arguments);
+		long expiresAt = this.expireAfterWriteNanos > 0 ? System.nanoTime() + this.expireAfterWriteNanos : 0;
+		synchronized (this) {
+			Node node = this.entries.get(key);
+			if (node != null) {
+				node.result = result;
+				node.expiresAt = expiresAt;
+				onHit(node);
+				return;
+			}
+			node = new Node(key, result, expiresAt);
+			this.entries.put(key, node);
+			this.window.addFirst(node, WINDOW);
+			if (this.window.size > this.windowMaximum) {
+				admit(this.window.removeLast());
+			}
+		}
+	}
+
+	/**
+	 * Drops the cached results of a tool, for instance after the data it looks up has
+	 * changed.
+	 * @param toolName The tool name
+	 */
+	public synchronized void invalidate(String toolName) {
+		for (Node node : this.entries.values().toArray(new Node[0])) {
+			if (node.key.toolName.equals(toolName)) {
+				remove(node);
+			}
+		}
+	}
+
+	/**
+	 * Drops every cached result.
+	 */
+	public synchronized void invalidateAll() {
+		this.entries.clear();
+		this.window.clear();
+		this.probation.clear();
+		this.protectedQueue.clear();
+	}
+
+	/**
+	 * @return the number of cached results, including expired ones not yet dropped
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public long hitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that found no result
+	 */
+	public long missCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return the number of results dropped to stay within the maximum size
+	 */
+	public long evictionCount() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * @return the share of lookups answered from the cache, 1 if there were none
+	 */
+	public double hitRate() {
+		long hits = hitCount();
+		long requests = hits + missCount();
+		return requests == 0 ? 1.0 : (double) hits / requests;
+	}
+
+	@Override
+	public String toString() {
+		return "McpToolResultCache[hits=" + hitCount() + ", misses=" + missCount() + ", evictions="
+				+ evictionCount() + "]";
+	}
+
+	private boolean isExpired(Node node) {
+		return node.expiresAt != 0 && node.expiresAt - System.nanoTime() <= 0;
+	}
+
+	private void onHit(Node node) {
+		switch (node.queue) {
+			case WINDOW:
+				this.window.moveToFirst(node);
+				break;
+			case PROBATION:
+				this.probation.remove(node);
+				this.protectedQueue.addFirst(node, PROTECTED);
+				if (this.protectedQueue.size > this.protectedMaximum) {
+					this.probation.addFirst(this.protectedQueue.removeLast(), PROBATION);
+				}
+				break;
+			default:
+				this.protectedQueue.moveToFirst(node);
+				break;
+		}
+	}
+
+	/**
+	 * Moves an entry leaving the window to the main area, if it is more popular than the
+	 * entry it would displace.
+	 */
+	private void admit(Node candidate) {
+		if (isExpired(candidate)) {
+			this.entries.remove(candidate.key);
+			return;
+		}
+		int mainSize = this.probation.size + this.protectedQueue.size;
+		if (mainSize < this.maximumSize - this.windowMaximum) {
+			this.probation.addFirst(candidate, PROBATION);
+			return;
+		}
+		Node victim = this.probation.last != null ? this.probation.last : this.protectedQueue.last;
+		if (victim == null) {
+			evict(candidate);
+			return;
+		}
+		if (isExpired(victim) || this.sketch.frequency(candidate.key.hash) > this.sketch.frequency(victim.key.hash)) {
+			remove(victim);
+			if (!isExpired(victim)) {
+				this.evictions.increment();
+			}
+			this.probation.addFirst(candidate, PROBATION);
+		}
+		else {
+			evict(candidate);
+		}
+	}
+
+	private void evict(Node node) {
+		this.entries.remove(node.key);
+		this.evictions.increment();
+	}
+
+	private void remove(Node node) {
+		this.entries.remove(node.key);
+		switch (node.queue) {
+			case WINDOW:
+				this.window.remove(node);
+				break;
+			case PROBATION:
+				this.probation.remove(node);
+				break;
+			default:
+				this.protectedQueue.remove(node);
+				break;
+		}
+	}
+
+	/**
+	 * Builder of {@link McpToolResultCache}.
+	 */
+	public static final class Builder {
+
+		private int maximumSize = 1000;
+
+		private Duration expireAfterWrite;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param maximumSize The maximum number of cached results, 1000 by default
+		 * @return this builder
+		 */
+		public Builder maximumSize(int maximumSize) {
+			Assert.isTrue(maximumSize > 0, "Maximum size must be positive");
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * @param expireAfterWrite How long a result is served after the call that
+		 * produced it; by default results do not expire
+		 * @return this builder
+		 */
+		public Builder expireAfterWrite(Duration expireAfterWrite) {
+			Assert.notNull(expireAfterWrite, "Expiry must not be null");
+			Assert.isTrue(!expireAfterWrite.isNegative() && !expireAfterWrite.isZero(), "Expiry must be positive");
+			this.expireAfterWrite = expireAfterWrite;
+			return this;
+		}
+
+		/**
+		 * @return the cache
+		 */
+		public McpToolResultCache build() {
+			return new McpToolResultCache(this);
+		}
+
+	}
+
+	/**
+	 * Tool name and canonical arguments.
+	 */
+	private static final class Key {
+
+		private final String toolName;
+
+		private final String arguments;
+
+		private final int hash;
+
+		private Key(String toolName, Map<String, Object> arguments) {
+			this.toolName = toolName;
+			StringBuilder canonical = new StringBuilder();
+			appendCanonical(canonical, arguments);
+			this.arguments = canonical.toString();
+			this.hash = 31 * toolName.hashCode() + this.arguments.hashCode();
+		}
+
+		private static void appendCanonical(StringBuilder out, Object value) {
+			if (value instanceof Map) {
+				out.append('{');
+				boolean first = true;
+				for (Map.Entry<?, ?> entry : new TreeMap<>(stringKeys((Map<?, ?>) value)).entrySet()) {
+					if (!first) {
+						out.append(',');
+					}
+					first = false;
+					appendString(out, (String) entry.getKey());
+					out.append(':');
+					appendCanonical(out, entry.getValue());
+				}
+				out.append('}');
+			}
+			else if (value instanceof List) {
+				out.append('[');
+				boolean first = true;
+				for (Object item : (List<?>) value) {
+					if (!first) {
+						out.append(',');
+					}
+					first = false;
+					appendCanonical(out, item);
+				}
+				out.append(']');
+			}
+			else if (value instanceof String) {
+				appendString(out, (String) value);
+			}
+			else {
+				// Numbers, booleans and null
+				out.append(value);
+			}
+		}
+
+		private static Map<String, Object> stringKeys(Map<?, ?> map) {
+			Map<String, Object> result = new HashMap<>();
+			map.forEach((key, value) -> result.put(String.valueOf(key), value));
+			return result;
+		}
+
+		private static void appendString(StringBuilder out, String value) {
+			out.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					out.append('\\');
+				}
+				out.append(c);
+			}
+			out.append('"');
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return this.hash == other.hash && this.toolName.equals(other.toolName)
+					&& this.arguments.equals(other.arguments);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+	private static final class Node {
+
+		private final Key key;
+
+		private McpSchema.CallToolResult result;
+
+		/** System.nanoTime() deadline, 0 for never */
+		private long expiresAt;
+
+		private int queue;
+
+		private Node prev;
+
+		private Node next;
+
+		private Node(Key key, McpSchema.CallToolResult result, long expiresAt) {
+			this.key = key;
+			this.result = result;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+	/**
+	 * Doubly linked LRU list, most recently used first.
+	 */
+	private static final class LruList {
+
+		private Node first;
+
+		private Node last;
+
+		private int size;
+
+		private void addFirst(Node node, int queue) {
+			node.queue = queue;
+			node.prev = null;
+			node.next = this.first;
+			if (this.first != null) {
+				this.first.prev = node;
+			}
+			else {
+				this.last = node;
+			}
+			this.first = node;
+			this.size++;
+		}
+
+		private void remove(Node node) {
+			if (node.prev != null) {
+				node.prev.next = node.next;
+			}
+			else {
+				this.first = node.next;
+			}
+			if (node.next != null) {
+				node.next.prev = node.prev;
+			}
+			else {
+				this.last = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+			this.size--;
+		}
+
+		private Node removeLast() {
+			Node node = this.last;
+			remove(node);
+			return node;
+		}
+
+		private void moveToFirst(Node node) {
+			if (node != this.first) {
+				remove(node);
+				addFirst(node, node.queue);
+			}
+		}
+
+		private void clear() {
+			this.first = null;
+			this.last = null;
+			this.size = 0;
+		}
+
+	}
+
+	/**
+	 * Count-min sketch of 4-bit counters, four rows, halved every ten times the maximum
+	 * size increments so old popularity fades.
+	 */
+	private static final class FrequencySketch {
+
+		private static final int[] SEEDS = { 0x97cb3127, 0xb1a5ee3d, 0x6d3b1a5f, 0x2f9e1b3d };
+
+		private final byte[] counters;
+
+		private final int mask;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		private FrequencySketch(int maximumSize) {
+			int width = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+			this.counters = new byte[width * SEEDS.length];
+			this.mask = width - 1;
+			this.sampleSize = 10 * Math.max(maximumSize, 16);
+		}
+
+		private int index(int hash, int row) {
+			int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+			h ^= h >>> 16;
+			return row * (this.mask + 1) + (h & this.mask);
+		}
+
+		private int frequency(int hash) {
+			int frequency = Integer.MAX_VALUE;
+			for (int row = 0; row < SEEDS.length; row++) {
+				frequency = Math.min(frequency, this.counters[index(hash, row)]);
+			}
+			return frequency;
+		}
+
+		private void increment(int hash) {
+			boolean added = false;
+			for (int row = 0; row < SEEDS.length; row++) {
+				int i = index(hash, row);
+				if (this.counters[i] < 15) {
+					this.counters[i]++;
+					added = true;
+				}
+			}
+			if (added && ++this.additions >= this.sampleSize) {
+				for (int i = 0; i < this.counters.length; i++) {
+					this.counters[i] >>= 1;
+				}
+				this.additions /= 2;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for HTTP transports: limits the number of concurrent sessions and the
+ * number of messages being handled, per session and in total, and sheds everything above
+ * those limits straight away instead of letting work pile up.
+ *
+ * <p>
+ * A transport asks for a session slot before creating a session and for a
+ * {@link Permit} before handling a POSTed message. A refused request should be answered
+ * with 503 and a {@code Retry-After} of {@link #retryAfterSeconds()}. Accepted and shed
+ * counts are kept for both so that load balancers can steer traffic away from a saturated
+ * instance.
+ *
+ * <p>
+ * A message holding a permit is <em>queued</em> until {@link Permit#started()} is called
+ * and <em>in flight</em> until the permit is released; queued messages count towards both
+ * the queue and the in-flight limits.
+ */
+public class AdmissionController {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+	/** Default delay suggested to rejected clients */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+	private final int maxSessions;
+
+	private final int maxInFlightPerSession;
+
+	private final int maxInFlight;
+
+	private final int maxQueued;
+
+	private final Duration retryAfter;
+
+	private final AtomicInteger sessions = new AtomicInteger();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	/** In-flight message counts, keyed by session ID */
+	private final Map<String, AtomicInteger> inFlightBySession = new ConcurrentHashMap<>();
+
+	private final AtomicLong acceptedSessions = new AtomicLong();
+
+	private final AtomicLong shedSessions = new AtomicLong();
+
+	private final AtomicLong acceptedMessages = new AtomicLong();
+
+	private final AtomicLong shedMessages = new AtomicLong();
+
+	private AdmissionController(Builder builder) {
+		this.maxSessions = builder.maxSessions;
+		this.maxInFlightPerSession = builder.maxInFlightPerSession;
+		this.maxInFlight = builder.maxInFlight;
+		this.maxQueued = builder.maxQueued;
+		this.retryAfter = builder.retryAfter;
+	}
+
+	/**
+	 * @return a controller without limits, which only keeps the counters
+	 */
+	public static AdmissionController unlimited() {
+		return builder().build();
+	}
+
+	/**
+	 * Reserves a slot for a new session.
+	 * @return {@code true} if the session may be created; the slot must then be given
+	 * back with {@link #sessionClosed()}
+	 */
+	public boolean tryOpenSession() {
+		if (!tryIncrement(this.sessions, this.maxSessions)) {
+			this.shedSessions.incrementAndGet();
+			logger.debug("Session limit of {} reached, shedding new session", this.maxSessions);
+			return false;
+		}
+		this.acceptedSessions.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Gives back the slot of a session that has ended.
+	 */
+	public void sessionClosed() {
+		this.sessions.decrementAndGet();
+	}
+
+	/**
+	 * Drops the bookkeeping of a session that has ended.
+	 * @param sessionId The ID of the session
+	 */
+	public void forget(String sessionId) {
+		this.inFlightBySession.remove(sessionId);
+	}
+
+	/**
+	 * Admits a message of the given session, if every limit allows it.
+	 * @param sessionId The ID of the session the message belongs to
+	 * @return A permit to release once the message has been handled, or {@code null} if
+	 * the message has to be shed
+	 */
+	public Permit tryAcquire(String sessionId) {
+		if (!tryIncrement(this.queued, this.maxQueued)) {
+			return shed(sessionId, "queue");
+		}
+		if (!tryIncrement(this.inFlight, this.maxInFlight)) {
+			this.queued.decrementAndGet();
+			return shed(sessionId, "global in-flight");
+		}
+		AtomicInteger sessionInFlight = this.inFlightBySession.computeIfAbsent(sessionId, id -> new AtomicInteger());
+		if (!tryIncrement(sessionInFlight, this.maxInFlightPerSession)) {
+			this.inFlight.decrementAndGet();
+			this.queued.decrementAndGet();
+			return shed(sessionId, "session in-flight");
+		}
+		this.acceptedMessages.incrementAndGet();
+		return new Permit(sessionInFlight);
+	}
+
+	private Permit shed(String sessionId, String limit) {
+		this.shedMessages.incrementAndGet();
+		logger.debug("Shedding message for session {}: {} limit reached", sessionId, limit);
+		return null;
+	}
+
+	private static boolean tryIncrement(AtomicInteger counter, int limit) {
+		for (;;) {
+			int current = counter.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (counter.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the delay suggested to rejected clients, in whole seconds as used by the
+	 * {@code Retry-After} header
+	 */
+	public long retryAfterSeconds() {
+		return Math.max(1L, this.retryAfter.getSeconds());
+	}
+
+	/**
+	 * @return the number of sessions currently holding a slot
+	 */
+	public int activeSessions() {
+		return this.sessions.get();
+	}
+
+	/**
+	 * @return the number of admitted messages not yet released
+	 */
+	public int inFlight() {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * @return the number of admitted messages that have not started yet
+	 */
+	public int queued() {
+		return this.queued.get();
+	}
+
+	/**
+	 * @return the number of sessions admitted so far
+	 */
+	public long acceptedSessions() {
+		return this.acceptedSessions.get();
+	}
+
+	/**
+	 * @return the number of sessions refused so far
+	 */
+	public long shedSessions() {
+		return this.shedSessions.get();
+	}
+
+	/**
+	 * @return the number of messages admitted so far
+	 */
+	public long acceptedMessages() {
+		return this.acceptedMessages.get();
+	}
+
+	/**
+	 * @return the number of messages refused so far
+	 */
+	public long shedMessages() {
+		return this.shedMessages.get();
+	}
+
+	/**
+	 * Admission of a single message. Releasing it more than once has no effect.
+	 */
+	public final class Permit {
+
+		private final AtomicInteger sessionInFlight;
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(AtomicInteger sessionInFlight) {
+			this.sessionInFlight = sessionInFlight;
+		}
+
+		/**
+		 * Marks the message as no longer queued because its handling has begun.
+		 */
+		public void started() {
+			if (this.started.compareAndSet(false, true)) {
+				queued.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Marks the message as handled.
+		 */
+		public void release() {
+			if (this.released.compareAndSet(false, true)) {
+				started();
+				this.sessionInFlight.decrementAndGet();
+				inFlight.decrementAndGet();
+			}
+		}
+
+	}
+
+	/**
+	 * @return a new builder; every limit defaults to unlimited
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builder for {@link AdmissionController}.
+	 */
+	public static class Builder {
+
+		private int maxSessions = Integer.MAX_VALUE;
+
+		private int maxInFlightPerSession = Integer.MAX_VALUE;
+
+		private int maxInFlight = Integer.MAX_VALUE;
+
+		private int maxQueued = Integer.MAX_VALUE;
+
+		private Duration retryAfter = DEFAULT_RETRY_AFTER;
+
+		/**
+		 * @param maxSessions The maximum number of concurrent sessions
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxSessions(int maxSessions) {
+			Assert.isTrue(maxSessions > 0, "Max sessions must be positive");
+			this.maxSessions = maxSessions;
+			return this;
+		}
+
+		/**
+		 * @param maxInFlightPerSession The maximum number of messages of one session
+		 * being handled at once
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxInFlightPerSession(int maxInFlightPerSession) {
+			Assert.isTrue(maxInFlightPerSession > 0, "Max in-flight per session must be positive");
+			this.maxInFlightPerSession = maxInFlightPerSession;
+			return this;
+		}
+
+		/**
+		 * @param maxInFlight The maximum number of messages being handled at once
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxInFlight(int maxInFlight) {
+			Assert.isTrue(maxInFlight > 0, "Max in-flight must be positive");
+			this.maxInFlight = maxInFlight;
+			return this;
+		}
+
+		/**
+		 * @param maxQueued The maximum number of admitted messages waiting to start
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxQueued(int maxQueued) {
+			Assert.isTrue(maxQueued > 0, "Max queued must be positive");
+			this.maxQueued = maxQueued;
+			return this;
+		}
+
+		/**
+		 * @param retryAfter The delay suggested to rejected clients
+		 * @return This builder instance for method chaining
+		 */
+		public Builder retryAfter(Duration retryAfter) {
+			Assert.notNull(retryAfter, "Retry after must not be null");
+			this.retryAfter = retryAfter;
+			return this;
+		}
+
+		public AdmissionController build() {
+			return new AdmissionController(this);
+		}
+
+	}
+
+}
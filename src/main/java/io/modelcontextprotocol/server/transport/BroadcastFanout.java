@@ -0,0 +1,288 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Delivers one message to many sessions with bounded parallelism and a per-session write
+ * deadline.
+ *
+ * <p>
+ * Each session write is subscribed on the configured scheduler so that a peer whose TCP
+ * window is full only holds up its own write, never the whole broadcast. At most
+ * {@code concurrency} writes are in flight at any time. A write that does not complete
+ * within the deadline is abandoned and counted as timed out; sessions that time out on
+ * {@code maxConsecutiveTimeouts} broadcasts in a row are handed to the eviction callback.
+ * A write that fails with an error means the peer is gone, so its session is evicted
+ * straight away. Every broadcast yields a {@link DeliveryReport}. For failures to be
+ * seen here, the send function must signal them as an error rather than log and
+ * swallow them.
+ *
+ * <p>
+ * Abandoning a write cancels its subscription, which cannot interrupt a write that
+ * blocks its thread: such a write keeps its scheduler thread until the peer takes the
+ * data or the connection is closed, and only its broadcast slot is freed. Transports
+ * should therefore make the send itself non-blocking, as the WebMvc transports do by
+ * handing the message to the session's {@link OutboundMessageQueue}, where a blocked
+ * enqueue is itself bounded by the block timeout. Evicting a session closes its
+ * connection, which also ends a write that is still blocked on it.
+ *
+ * @see McpServerSession
+ */
+public class BroadcastFanout {
+
+	private static final Logger logger = LoggerFactory.getLogger(BroadcastFanout.class);
+
+	/** Default number of session writes in flight at once */
+	public static final int DEFAULT_CONCURRENCY = 256;
+
+	/** Default time a single session write may take */
+	public static final Duration DEFAULT_WRITE_DEADLINE = Duration.ofSeconds(5);
+
+	/** Default number of consecutive timeouts after which a session is evicted */
+	public static final int DEFAULT_MAX_CONSECUTIVE_TIMEOUTS = 3;
+
+	private final int concurrency;
+
+	private final Duration writeDeadline;
+
+	private final int maxConsecutiveTimeouts;
+
+	private final Scheduler scheduler;
+
+	/** Consecutive timeout counts, keyed by session ID. Cleared on a successful write */
+	private final Map<String, AtomicInteger> consecutiveTimeouts = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a fan-out engine with the default settings.
+	 */
+	public BroadcastFanout() {
+		this(DEFAULT_CONCURRENCY, DEFAULT_WRITE_DEADLINE, DEFAULT_MAX_CONSECUTIVE_TIMEOUTS);
+	}
+
+	/**
+	 * Creates a fan-out engine writing on {@link Schedulers#boundedElastic()}.
+	 * @param concurrency The maximum number of session writes in flight at once
+	 * @param writeDeadline The time a single session write may take
+	 * @param maxConsecutiveTimeouts The number of consecutive timeouts after which a
+	 * session is evicted
+	 */
+	public BroadcastFanout(int concurrency, Duration writeDeadline, int maxConsecutiveTimeouts) {
+		this(concurrency, writeDeadline, maxConsecutiveTimeouts, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Creates a fan-out engine.
+	 * @param concurrency The maximum number of session writes in flight at once
+	 * @param writeDeadline The time a single session write may take
+	 * @param maxConsecutiveTimeouts The number of consecutive timeouts after which a
+	 * session is evicted
+	 * @param scheduler The scheduler session writes are subscribed on
+	 */
+	public BroadcastFanout(int concurrency, Duration writeDeadline, int maxConsecutiveTimeouts,
+			Scheduler scheduler) {
+		Assert.isTrue(concurrency > 0, "Concurrency must be positive");
+		Assert.notNull(writeDeadline, "Write deadline must not be null");
+		Assert.isTrue(!writeDeadline.isNegative() && !writeDeadline.isZero(), "Write deadline must be positive");
+		Assert.isTrue(maxConsecutiveTimeouts > 0, "Max consecutive timeouts must be positive");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.concurrency = concurrency;
+		this.writeDeadline = writeDeadline;
+		this.maxConsecutiveTimeouts = maxConsecutiveTimeouts;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Sends to every session and reports the outcome.
+	 * @param sessions The sessions to deliver to. The collection is iterated once and may
+	 * be a live view
+	 * @param send The write to perform for one session
+	 * @param evictor Called with sessions whose write failed or that exceeded the
+	 * consecutive timeout limit
+	 * @return A Mono emitting the delivery report once every write has completed, failed
+	 * or timed out
+	 */
+	public Mono<DeliveryReport> broadcast(Collection<McpServerSession> sessions,
+			Function<McpServerSession, Mono<Void>> send, Consumer<McpServerSession> evictor) {
+		return Flux.fromIterable(sessions)
+			.flatMap(session -> deliver(session, send, evictor), this.concurrency)
+			.collect(Counts::new, Counts::add)
+			.map(Counts::toReport);
+	}
+
+	/**
+	 * Drops the timeout bookkeeping of a session that has gone away.
+	 * @param sessionId The ID of the removed session
+	 */
+	public void forget(String sessionId) {
+		this.consecutiveTimeouts.remove(sessionId);
+	}
+
+	private Mono<Outcome> deliver(McpServerSession session, Function<McpServerSession, Mono<Void>> send,
+			Consumer<McpServerSession> evictor) {
+		return Mono.defer(() -> send.apply(session))
+			.subscribeOn(this.scheduler)
+			.timeout(this.writeDeadline)
+			.then(Mono.fromCallable(() -> {
+				this.consecutiveTimeouts.remove(session.getId());
+				return Outcome.DELIVERED;
+			}))
+			.onErrorResume(TimeoutException.class, e -> Mono.fromCallable(() -> onTimeout(session, evictor)))
+			.onErrorResume(e -> Mono.fromCallable(() -> onFailure(session, evictor, e)));
+	}
+
+	private Outcome onFailure(McpServerSession session, Consumer<McpServerSession> evictor, Throwable error) {
+		logger.error("Failed to deliver to session {}, evicting it: {}", session.getId(), error.getMessage());
+		this.consecutiveTimeouts.remove(session.getId());
+		evict(session, evictor);
+		return Outcome.FAILED;
+	}
+
+	private Outcome onTimeout(McpServerSession session, Consumer<McpServerSession> evictor) {
+		int timeouts = this.consecutiveTimeouts.computeIfAbsent(session.getId(), id -> new AtomicInteger())
+			.incrementAndGet();
+		logger.warn("Write to session {} timed out after {} ({} in a row)", session.getId(), this.writeDeadline,
+				timeouts);
+		if (timeouts < this.maxConsecutiveTimeouts) {
+			return Outcome.TIMED_OUT;
+		}
+		this.consecutiveTimeouts.remove(session.getId());
+		logger.warn("Evicting session {} after {} consecutive write timeouts", session.getId(), timeouts);
+		evict(session, evictor);
+		return Outcome.EVICTED;
+	}
+
+	private void evict(McpServerSession session, Consumer<McpServerSession> evictor) {
+		try {
+			evictor.accept(session);
+		}
+		catch (Exception e) {
+			logger.error("Failed to evict session {}: {}", session.getId(), e.getMessage());
+		}
+	}
+
+	private enum Outcome {
+
+		DELIVERED, TIMED_OUT, EVICTED, FAILED
+
+	}
+
+	private static final class Counts {
+
+		private int delivered;
+
+		private int timedOut;
+
+		private int evicted;
+
+		private int failed;
+
+		private void add(Outcome outcome) {
+			switch (outcome) {
+				case DELIVERED:
+					this.delivered++;
+					break;
+				case EVICTED:
+					this.evicted++;
+					this.timedOut++;
+					break;
+				case TIMED_OUT:
+					this.timedOut++;
+					break;
+				default:
+					this.evicted++;
+					this.failed++;
+			}
+		}
+
+		private DeliveryReport toReport() {
+			return new DeliveryReport(this.delivered, this.timedOut, this.failed, this.evicted);
+		}
+
+	}
+
+	/**
+	 * Outcome of a single broadcast.
+	 */
+	public static final class DeliveryReport {
+
+		private final int delivered;
+
+		private final int timedOut;
+
+		private final int failed;
+
+		private final int evicted;
+
+		public DeliveryReport(int delivered, int timedOut, int failed, int evicted) {
+			this.delivered = delivered;
+			this.timedOut = timedOut;
+			this.failed = failed;
+			this.evicted = evicted;
+		}
+
+		/**
+		 * @return the number of sessions the message was written to
+		 */
+		public int delivered() {
+			return this.delivered;
+		}
+
+		/**
+		 * @return the number of sessions whose write missed the deadline, including
+		 * evicted ones
+		 */
+		public int timedOut() {
+			return this.timedOut;
+		}
+
+		/**
+		 * @return the number of sessions whose write failed with an error, all of them
+		 * evicted
+		 */
+		public int failed() {
+			return this.failed;
+		}
+
+		/**
+		 * @return the number of sessions evicted as a result of this broadcast
+		 */
+		public int evicted() {
+			return this.evicted;
+		}
+
+		/**
+		 * @return the number of sessions the broadcast was attempted on
+		 */
+		public int total() {
+			return this.delivered + this.timedOut + this.failed;
+		}
+
+		@Override
+		public String toString() {
+			return "DeliveryReport[delivered=" + this.delivered + ", timedOut=" + this.timedOut + ", failed="
+					+ this.failed + ", evicted=" + this.evicted + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.spec.McpEncodedMessage;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idle-aware heartbeat engine based on a hashed timing wheel.
+ *
+ * <p>
+ * Every registered session is hashed into one of the wheel's buckets. The wheel advances
+ * one bucket per tick and completes a revolution once per heartbeat interval, so each
+ * session is visited exactly once per interval and the pings of many sessions are spread
+ * evenly over the interval instead of being sent in one burst. A visited session is only
+ * pinged if nothing was exchanged with it for (about) the interval; sessions that keep
+ * talking never see a heartbeat.
+ *
+ * <p>
+ * A heartbeat counts as missed when the session is still idle on the next visit, i.e. the
+ * previous heartbeat was never written to the client. After {@code maxMissed} missed
+ * heartbeats in a row the session is reaped through {@link Target#reap()}. One encoded
+ * heartbeat message is shared by all sessions pinged during the same tick.
+ */
+public class HeartbeatWheel {
+
+	private static final Logger logger = LoggerFactory.getLogger(HeartbeatWheel.class);
+
+	/** Method name of the heartbeat notification */
+	public static final String HEARTBEAT_METHOD = "heartbeat";
+
+	/** Default number of buckets on the wheel */
+	public static final int DEFAULT_WHEEL_SIZE = 64;
+
+	/** Default number of missed heartbeats after which a session is reaped */
+	public static final int DEFAULT_MAX_MISSED = 3;
+
+	/**
+	 * The session side of a registration.
+	 */
+	public interface Target {
+
+		/**
+		 * Sends (or queues) a heartbeat to the client.
+		 * @param heartbeat the encoded heartbeat notification
+		 * @return A Mono that completes once the heartbeat has been handed to the
+		 * transport
+		 */
+		Mono<Void> sendHeartbeat(McpEncodedMessage heartbeat);
+
+		/**
+		 * Removes the session after too many missed heartbeats.
+		 */
+		void reap();
+
+	}
+
+	private final McpJsonCodec jsonCodec;
+
+	private final Duration interval;
+
+	private final long idleThresholdNanos;
+
+	private final long tickNanos;
+
+	private final int maxMissed;
+
+	private final List<Set<Registration>> buckets;
+
+	private final Scheduler scheduler;
+
+	private final boolean ownsScheduler;
+
+	private Disposable ticker;
+
+	/** Index of the next bucket to visit; only touched by the ticker */
+	private int cursor;
+
+	/**
+	 * Creates a wheel with the default size, ticking on its own daemon thread.
+	 * @param jsonCodec The codec used to encode heartbeats
+	 * @param interval The idle time after which a session is pinged
+	 * @param maxMissed The number of missed heartbeats after which a session is reaped
+	 */
+	public HeartbeatWheel(McpJsonCodec jsonCodec, Duration interval, int maxMissed) {
+		this(jsonCodec, interval, maxMissed, DEFAULT_WHEEL_SIZE, Schedulers.newSingle("mcp-heartbeat", true),
+				true);
+	}
+
+	/**
+	 * Creates a wheel.
+	 * @param jsonCodec The codec used to encode heartbeats
+	 * @param interval The idle time after which a session is pinged
+	 * @param maxMissed The number of missed heartbeats after which a session is reaped
+	 * @param wheelSize The number of buckets the interval is divided into
+	 * @param scheduler The scheduler driving the ticks
+	 */
+	public HeartbeatWheel(McpJsonCodec jsonCodec, Duration interval, int maxMissed, int wheelSize,
+			Scheduler scheduler) {
+		this(jsonCodec, interval, maxMissed, wheelSize, scheduler, false);
+	}
+
+	private HeartbeatWheel(McpJsonCodec jsonCodec, Duration interval, int maxMissed, int wheelSize,
+			Scheduler scheduler, boolean ownsScheduler) {
+		Assert.notNull(jsonCodec, "JSON codec must not be null");
+		Assert.notNull(interval, "Heartbeat interval must not be null");
+		Assert.isTrue(!interval.isNegative() && !interval.isZero(), "Heartbeat interval must be positive");
+		Assert.isTrue(maxMissed > 0, "Max missed heartbeats must be positive");
+		Assert.isTrue(wheelSize > 0, "Wheel size must be positive");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.jsonCodec = jsonCodec;
+		this.interval = interval;
+		this.maxMissed = maxMissed;
+		this.tickNanos = Math.max(1L, interval.toNanos() / wheelSize);
+		this.idleThresholdNanos = interval.toNanos() - this.tickNanos;
+		this.buckets = new ArrayList<>(wheelSize);
+		for (int i = 0; i < wheelSize; i++) {
+			this.buckets.add(ConcurrentHashMap.newKeySet());
+		}
+		this.scheduler = scheduler;
+		this.ownsScheduler = ownsScheduler;
+	}
+
+	/**
+	 * Starts ticking. Calling this on a running wheel has no effect.
+	 */
+	public synchronized void start() {
+		if (this.ticker == null) {
+			this.ticker = this.scheduler.schedulePeriodically(this::tick, this.tickNanos, this.tickNanos,
+					TimeUnit.NANOSECONDS);
+			logger.debug("Heartbeat wheel started: interval {}, {} buckets", this.interval, this.buckets.size());
+		}
+	}
+
+	/**
+	 * Stops ticking and releases the scheduler if the wheel created it.
+	 */
+	public synchronized void stop() {
+		if (this.ticker != null) {
+			this.ticker.dispose();
+			this.ticker = null;
+		}
+		if (this.ownsScheduler) {
+			this.scheduler.dispose();
+		}
+	}
+
+	/**
+	 * Puts a session on the wheel.
+	 * @param sessionId The ID of the session, used to pick its bucket
+	 * @param target Sends heartbeats to and reaps the session
+	 * @return The registration, to be touched on activity and cancelled on close
+	 */
+	public Registration register(String sessionId, Target target) {
+		Assert.notNull(sessionId, "Session ID must not be null");
+		Assert.notNull(target, "Target must not be null");
+		Set<Registration> bucket = this.buckets.get(Math.floorMod(sessionId.hashCode(), this.buckets.size()));
+		Registration registration = new Registration(sessionId, target, bucket);
+		bucket.add(registration);
+		return registration;
+	}
+
+	/**
+	 * @return the number of sessions on the wheel
+	 */
+	public int size() {
+		int size = 0;
+		for (Set<Registration> bucket : this.buckets) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	private void tick() {
+		Set<Registration> bucket = this.buckets.get(this.cursor);
+		this.cursor = (this.cursor + 1) % this.buckets.size();
+		if (bucket.isEmpty()) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		McpEncodedMessage heartbeat = null;
+		for (Registration registration : bucket) {
+			if (now - registration.lastActivity < this.idleThresholdNanos) {
+				continue;
+			}
+			if (registration.pending && ++registration.missed >= this.maxMissed) {
+				logger.warn("Reaping session {} after {} missed heartbeats", registration.sessionId,
+						registration.missed);
+				registration.cancel();
+				try {
+					registration.target.reap();
+				}
+				catch (Exception e) {
+					logger.error("Failed to reap session {}: {}", registration.sessionId, e.getMessage());
+				}
+				continue;
+			}
+			if (heartbeat == null) {
+				try {
+					heartbeat = McpEncodedMessage.encode(this.jsonCodec, new McpSchema.JSONRPCNotification(
+							McpSchema.JSONRPC_VERSION, HEARTBEAT_METHOD, "pong @" + System.currentTimeMillis()));
+				}
+				catch (IOException e) {
+					logger.error("Failed to serialize heartbeat: {}", e.getMessage());
+					return;
+				}
+			}
+			registration.pending = true;
+			registration.target.sendHeartbeat(heartbeat)
+				.subscribeOn(Schedulers.boundedElastic())
+				.subscribe(null, e -> logger.debug("Failed to send heartbeat to session {}: {}",
+						registration.sessionId, e.getMessage()));
+		}
+	}
+
+	/**
+	 * A session's place on the wheel.
+	 */
+	public static final class Registration {
+
+		private final String sessionId;
+
+		private final Target target;
+
+		private final Set<Registration> bucket;
+
+		private volatile long lastActivity = System.nanoTime();
+
+		/** Whether a heartbeat was sent and nothing has been exchanged since */
+		private volatile boolean pending;
+
+		private volatile int missed;
+
+		private volatile boolean cancelled;
+
+		private Registration(String sessionId, Target target, Set<Registration> bucket) {
+			this.sessionId = sessionId;
+			this.target = target;
+			this.bucket = bucket;
+		}
+
+		/**
+		 * Records traffic with the session, in either direction. Resets the missed
+		 * heartbeat count.
+		 */
+		public void touch() {
+			this.lastActivity = System.nanoTime();
+			this.pending = false;
+			this.missed = 0;
+		}
+
+		/**
+		 * Takes the session off the wheel for good.
+		 */
+		public void cancel() {
+			this.cancelled = true;
+			this.bucket.remove(this);
+		}
+
+		/**
+		 * Takes the session off the wheel until {@link #resume()}, e.g. while it has no
+		 * connection to write heartbeats to.
+		 */
+		public void suspend() {
+			this.bucket.remove(this);
+		}
+
+		/**
+		 * Puts a suspended session back on the wheel with a clean slate. Has no effect
+		 * once the registration was cancelled.
+		 */
+		public void resume() {
+			if (this.cancelled) {
+				return;
+			}
+			touch();
+			this.bucket.add(this);
+			if (this.cancelled) {
+				this.bucket.remove(this);
+			}
+		}
+
+	}
+
+}
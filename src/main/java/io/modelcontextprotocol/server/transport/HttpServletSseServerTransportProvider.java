@@ -7,8 +7,13 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.*;
 import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.BoundedInputStream;
 import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,14 +22,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 /**
  * A Servlet-based implementation of the MCP HTTP with Server-Sent Events (SSE) transport
@@ -44,6 +57,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Features:
  * <ul>
  * <li>Asynchronous message handling using Servlet 6.0 async support</li>
+ * <li>Optional non-blocking I/O with {@link ReadListener} and {@link WriteListener}</li>
  * <li>Session management for multiple client connections</li>
  * <li>Graceful shutdown support</li>
  * <li>Error handling and response formatting</li>
@@ -73,13 +87,19 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 	/** Event type for regular messages */
 	public static final String MESSAGE_EVENT_TYPE = "message";
 
+	/** Event type for heartbeats sent to idle sessions */
+	public static final String HEARTBEAT_EVENT_TYPE = "heartbeat";
+
 	/** Event type for endpoint information */
 	public static final String ENDPOINT_EVENT_TYPE = "endpoint";
 
 	public static final String DEFAULT_BASE_URL = "";
 
-	/** JSON object mapper for serialization/deserialization */
-	private final ObjectMapper objectMapper;
+	/** Default limit on the size of a POSTed message, in bytes */
+	public static final long DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+	/** JSON codec for serialization/deserialization */
+	private final McpJsonCodec jsonCodec;
 
 	/** Base URL for the server transport */
 	private final String baseUrl;
@@ -90,9 +110,30 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 	/** The endpoint path for handling SSE connections */
 	private final String sseEndpoint;
 
+	/** Capacity and overflow policy of the per-session outbound queues */
+	private final OutboundMessageQueue.Settings outboundQueueSettings;
+
+	/** Heartbeat engine pinging idle sessions, or null if heartbeats are disabled */
+	private final HeartbeatWheel heartbeatWheel;
+
+	/** Limits on sessions and in-flight messages */
+	private final AdmissionController admissionController;
+
+	/** Whether request bodies and SSE streams use Servlet non-blocking I/O */
+	private final boolean nonBlockingIo;
+
+	/** Maximum size of a POSTed message, in bytes */
+	private final long maxBodySize;
+
+	/** Codecs of the binary wire formats clients may negotiate */
+	private final Map<McpWireFormat, McpJsonCodec> wireCodecs;
+
 	/** Map of active client sessions, keyed by session ID */
 	private final Map<String, McpServerSession> sessions = new ConcurrentHashMap<>();
 
+	/** Transports of the active sessions, keyed by session ID */
+	private final Map<String, HttpServletMcpSessionTransport> transports = new ConcurrentHashMap<>();
+
 	/** Flag indicating if the transport is in the process of shutting down */
 	private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
@@ -123,10 +164,34 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 	 */
 	public HttpServletSseServerTransportProvider(ObjectMapper objectMapper, String baseUrl, String messageEndpoint,
 			String sseEndpoint) {
-		this.objectMapper = objectMapper;
-		this.baseUrl = baseUrl;
-		this.messageEndpoint = messageEndpoint;
-		this.sseEndpoint = sseEndpoint;
+		this(new Builder().objectMapper(objectMapper)
+			.baseUrl(baseUrl)
+			.messageEndpoint(messageEndpoint)
+			.sseEndpoint(sseEndpoint));
+	}
+
+	private HttpServletSseServerTransportProvider(Builder builder) {
+		this.jsonCodec = builder.jsonCodec != null ? builder.jsonCodec : McpJsonCodec.jackson(builder.objectMapper);
+		this.baseUrl = builder.baseUrl;
+		this.messageEndpoint = builder.messageEndpoint;
+		this.sseEndpoint = builder.sseEndpoint;
+		this.outboundQueueSettings = new OutboundMessageQueue.Settings(builder.outboundQueueCapacity,
+				builder.overflowPolicy, builder.outboundBlockTimeout);
+		this.admissionController = builder.admissionController;
+		this.nonBlockingIo = builder.nonBlockingIo;
+		this.maxBodySize = builder.maxBodySize;
+		this.wireCodecs = new EnumMap<>(McpWireFormat.class);
+		for (McpWireFormat format : builder.wireFormats) {
+			this.wireCodecs.put(format, format.codec(builder.objectMapper));
+		}
+		if (builder.heartbeatInterval != null) {
+			this.heartbeatWheel = new HeartbeatWheel(this.jsonCodec, builder.heartbeatInterval,
+					builder.maxMissedHeartbeats);
+			this.heartbeatWheel.start();
+		}
+		else {
+			this.heartbeatWheel = null;
+		}
 	}
 
 	/**
@@ -150,7 +215,8 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 	}
 
 	/**
-	 * Broadcasts a notification to all connected clients.
+	 * Broadcasts a notification to all connected clients. The notification is serialized
+	 * once and the resulting SSE frame is written to every session.
 	 * @param method The method name for the notification
 	 * @param params The parameters for the notification
 	 * @return A Mono that completes when the broadcast attempt is finished
@@ -164,13 +230,139 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 
 		logger.debug("Attempting to broadcast message to {} active sessions", sessions.size());
 
+		McpEncodedMessage notification;
+		try {
+			notification = McpEncodedMessage.encode(jsonCodec,
+					new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, params));
+		}
+		catch (IOException e) {
+			logger.error("Failed to serialize notification {}: {}", method, e.getMessage());
+			return Mono.error(e);
+		}
+
 		return Flux.fromIterable(sessions.values())
-			.flatMap(session -> session.sendNotification(method, params)
+			.flatMap(session -> session.sendEncodedMessage(notification)
 				.doOnError(e -> logger.error("Failed to send message to session {}: {}", session.getId(), e.getMessage()))
 				.onErrorResume(error -> Mono.empty()))
 			.then();
 	}
 
+	/**
+	 * Returns the number of messages waiting to be written to a session.
+	 * @param sessionId The ID of the session
+	 * @return The outbound queue depth, or 0 if the session is unknown
+	 */
+	public int getOutboundQueueDepth(String sessionId) {
+		HttpServletMcpSessionTransport transport = transports.get(sessionId);
+		return transport != null ? transport.outboundQueue.depth() : 0;
+	}
+
+	/**
+	 * Returns the number of messages waiting to be written across all sessions.
+	 * @return The total outbound queue depth
+	 */
+	public int getTotalOutboundQueueDepth() {
+		int depth = 0;
+		for (HttpServletMcpSessionTransport transport : transports.values()) {
+			depth += transport.outboundQueue.depth();
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the number of notifications dropped across all sessions because their
+	 * outbound queue was full.
+	 * @return The number of dropped notifications of the active sessions
+	 */
+	public long getDroppedNotificationCount() {
+		long dropped = 0;
+		for (HttpServletMcpSessionTransport transport : transports.values()) {
+			dropped += transport.outboundQueue.dropped();
+		}
+		return dropped;
+	}
+
+	/**
+	 * Drops every record of a session whose connection has gone away.
+	 * @param sessionId The ID of the session
+	 */
+	private void removeSession(String sessionId) {
+		McpServerSession session = sessions.remove(sessionId);
+		if (session != null) {
+			session.release();
+		}
+		admissionController.forget(sessionId);
+		HttpServletMcpSessionTransport transport = transports.remove(sessionId);
+		if (transport != null) {
+			transport.release();
+			admissionController.sessionClosed();
+		}
+	}
+
+	/**
+	 * Returns the admission controller, whose accepted and shed counters tell how close
+	 * this instance is to its limits.
+	 * @return The admission controller
+	 */
+	public AdmissionController getAdmissionController() {
+		return this.admissionController;
+	}
+
+	/**
+	 * Refuses a request over the admission limits with 503 and a Retry-After header.
+	 * @param response The HTTP servlet response
+	 * @param reason The error message
+	 * @throws IOException If an I/O error occurs
+	 */
+	private void sendOverloaded(HttpServletResponse response, String reason) throws IOException {
+		response.setContentType(APPLICATION_JSON);
+		response.setCharacterEncoding(UTF_8);
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader("Retry-After", String.valueOf(admissionController.retryAfterSeconds()));
+		PrintWriter writer = response.getWriter();
+		writer.write(jsonCodec.encodeToString(new McpError(reason)));
+		writer.flush();
+	}
+
+	/**
+	 * Refuses a message larger than the configured limit with 413.
+	 * @param response The HTTP servlet response
+	 * @throws IOException If an I/O error occurs
+	 */
+	private void sendPayloadTooLarge(HttpServletResponse response) throws IOException {
+		response.setContentType(APPLICATION_JSON);
+		response.setCharacterEncoding(UTF_8);
+		response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+		PrintWriter writer = response.getWriter();
+		writer.write(
+				jsonCodec.encodeToString(new McpError("Message exceeds the limit of " + maxBodySize + " bytes")));
+		writer.flush();
+	}
+
+	/**
+	 * Refuses a message in a wire format this server has not enabled with 415.
+	 * @param response The HTTP servlet response
+	 * @param contentType The content type of the message
+	 * @throws IOException If an I/O error occurs
+	 */
+	private void sendUnsupportedMediaType(HttpServletResponse response, String contentType) throws IOException {
+		response.setContentType(APPLICATION_JSON);
+		response.setCharacterEncoding(UTF_8);
+		response.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+		PrintWriter writer = response.getWriter();
+		writer.write(jsonCodec.encodeToString(new McpError("Unsupported message format: " + contentType)));
+		writer.flush();
+	}
+
+	/**
+	 * Returns the codec of a wire format.
+	 * @param wireFormat The wire format
+	 * @return The codec, or null if the format is binary and not enabled
+	 */
+	private McpJsonCodec codecFor(McpWireFormat wireFormat) {
+		return wireFormat.isBinary() ? this.wireCodecs.get(wireFormat) : this.jsonCodec;
+	}
+
 	/**
 	 * Handles GET requests to establish SSE connections.
 	 * <p>
@@ -197,6 +389,11 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			return;
 		}
 
+		if (!admissionController.tryOpenSession()) {
+			sendOverloaded(response, "Too many sessions");
+			return;
+		}
+
 		response.setContentType("text/event-stream");
 		response.setCharacterEncoding(UTF_8);
 		response.setHeader("Cache-Control", "no-cache");
@@ -206,19 +403,37 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 		String sessionId = UUID.randomUUID().toString();
 		AsyncContext asyncContext = request.startAsync();
 		asyncContext.setTimeout(0);
+		McpWireFormat wireFormat = McpWireFormat.negotiate(request.getHeader(McpWireFormat.HEADER),
+				this.wireCodecs.keySet());
+		String endpoint = this.baseUrl + this.messageEndpoint + "?sessionId=" + sessionId;
+		if (wireFormat.isBinary()) {
+			endpoint += "&" + McpWireFormat.ENDPOINT_PARAM + "=" + wireFormat.id();
+		}
 
-		PrintWriter writer = response.getWriter();
+		if (nonBlockingIo) {
+			// The endpoint event is written once the container reports the stream
+			// writable, before any queued message
+			NonBlockingSseOutput output = new NonBlockingSseOutput(response.getOutputStream(),
+					sseEvent(ENDPOINT_EVENT_TYPE, endpoint));
+			output.transport = new HttpServletMcpSessionTransport(sessionId, asyncContext, output, output::isReady,
+					wireFormat);
+			this.sessions.put(sessionId, sessionFactory.create(output.transport));
+			output.out.setWriteListener(output);
+			return;
+		}
+
+		BlockingSseOutput output = new BlockingSseOutput(response.getWriter());
 
 		// Create a new session transport
 		HttpServletMcpSessionTransport sessionTransport = new HttpServletMcpSessionTransport(sessionId, asyncContext,
-				writer);
+				output, null, wireFormat);
 
 		// Create a new session using the session factory
 		McpServerSession session = sessionFactory.create(sessionTransport);
 		this.sessions.put(sessionId, session);
 
 		// Send initial endpoint event
-		this.sendEvent(writer, ENDPOINT_EVENT_TYPE, this.baseUrl + this.messageEndpoint + "?sessionId=" + sessionId);
+		output.write(sseEvent(ENDPOINT_EVENT_TYPE, endpoint));
 	}
 
 	/**
@@ -253,7 +468,7 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			response.setContentType(APPLICATION_JSON);
 			response.setCharacterEncoding(UTF_8);
 			response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-			String jsonError = objectMapper.writeValueAsString(new McpError("Session ID missing in message endpoint"));
+			String jsonError = jsonCodec.encodeToString(new McpError("Session ID missing in message endpoint"));
 			PrintWriter writer = response.getWriter();
 			writer.write(jsonError);
 			writer.flush();
@@ -266,28 +481,59 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			response.setContentType(APPLICATION_JSON);
 			response.setCharacterEncoding(UTF_8);
 			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-			String jsonError = objectMapper.writeValueAsString(new McpError("Session not found: " + sessionId));
+			String jsonError = jsonCodec.encodeToString(new McpError("Session not found: " + sessionId));
 			PrintWriter writer = response.getWriter();
 			writer.write(jsonError);
 			writer.flush();
 			return;
 		}
 
-		try {
-			BufferedReader reader = request.getReader();
-			StringBuilder body = new StringBuilder();
-			String line;
-			while ((line = reader.readLine()) != null) {
-				body.append(line);
+		if (request.getContentLengthLong() > maxBodySize) {
+			sendPayloadTooLarge(response);
+			return;
+		}
+
+		McpJsonCodec bodyCodec = codecFor(McpWireFormat.fromContentType(request.getContentType()));
+		if (bodyCodec == null) {
+			sendUnsupportedMediaType(response, request.getContentType());
+			return;
+		}
+
+		HttpServletMcpSessionTransport transport = transports.get(sessionId);
+		if (transport != null) {
+			transport.markActive();
+		}
+
+		AdmissionController.Permit permit = admissionController.tryAcquire(sessionId);
+		if (permit == null) {
+			sendOverloaded(response, "Server is busy");
+			return;
+		}
+
+		if (nonBlockingIo) {
+			try {
+				readMessageAsync(request, response, session, bodyCodec, permit);
+			}
+			catch (IOException | RuntimeException e) {
+				permit.release();
+				throw e;
 			}
+			return;
+		}
 
-			McpSchema.JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, body.toString());
+		try {
+			McpSchema.JSONRPCMessage message = bodyCodec.decodeMessage(request.getInputStream(), maxBodySize);
 
 			// Process the message through the session's handle method
+			permit.started();
 			session.handle(message).block(); // Block for Servlet compatibility
 
 			response.setStatus(HttpServletResponse.SC_OK);
 		}
+		catch (BoundedInputStream.LimitExceededException e) {
+			logger.warn("Rejecting message for session {}: {}", sessionId, e.getMessage());
+			sendPayloadTooLarge(response);
+		}
 		catch (Exception e) {
 			logger.error("Error processing message: {}", e.getMessage());
 			try {
@@ -295,7 +541,7 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 				response.setContentType(APPLICATION_JSON);
 				response.setCharacterEncoding(UTF_8);
 				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-				String jsonError = objectMapper.writeValueAsString(mcpError);
+				String jsonError = jsonCodec.encodeToString(mcpError);
 				PrintWriter writer = response.getWriter();
 				writer.write(jsonError);
 				writer.flush();
@@ -305,6 +551,108 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error processing message");
 			}
 		}
+		finally {
+			permit.release();
+		}
+	}
+
+	/**
+	 * Reads the body of a POST request with a {@link ReadListener} and handles the
+	 * message once it is complete, so that no container thread waits for a slow client.
+	 * The response is completed when the session has handled the message.
+	 * @param request The HTTP servlet request
+	 * @param response The HTTP servlet response
+	 * @param session The session the message belongs to
+	 * @param bodyCodec The codec of the body's wire format
+	 * @param permit The admission permit, released once the message is handled
+	 * @throws IOException If the request body cannot be opened
+	 */
+	private void readMessageAsync(HttpServletRequest request, HttpServletResponse response,
+			McpServerSession session, McpJsonCodec bodyCodec, AdmissionController.Permit permit) throws IOException {
+		AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(0);
+		ServletInputStream in = request.getInputStream();
+		in.setReadListener(new ReadListener() {
+
+			private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+			private final byte[] buffer = new byte[8192];
+
+			@Override
+			public void onDataAvailable() throws IOException {
+				int read;
+				while (in.isReady() && (read = in.read(this.buffer)) != -1) {
+					if (this.body.size() + read > maxBodySize) {
+						// Reported through onError
+						throw new BoundedInputStream.LimitExceededException(maxBodySize);
+					}
+					this.body.write(this.buffer, 0, read);
+				}
+			}
+
+			@Override
+			public void onAllDataRead() {
+				McpSchema.JSONRPCMessage message;
+				try {
+					message = bodyCodec.decodeMessage(new ByteArrayInputStream(this.body.toByteArray()), maxBodySize);
+				}
+				catch (Exception e) {
+					permit.release();
+					completeWithError(asyncContext, response, e);
+					return;
+				}
+				permit.started();
+				session.handle(message)
+					.subscribeOn(Schedulers.boundedElastic())
+					.doFinally(signal -> permit.release())
+					.subscribe(null, error -> completeWithError(asyncContext, response, error), () -> {
+						response.setStatus(HttpServletResponse.SC_OK);
+						asyncContext.complete();
+					});
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				permit.release();
+				completeWithError(asyncContext, response, t);
+			}
+
+		});
+	}
+
+	/**
+	 * Answers an asynchronously processed POST request with a JSON error: 413 for an
+	 * oversized message, 500 otherwise.
+	 * @param asyncContext The async context of the request
+	 * @param response The HTTP servlet response
+	 * @param error The failure
+	 */
+	private void completeWithError(AsyncContext asyncContext, HttpServletResponse response, Throwable error) {
+		boolean tooLarge = BoundedInputStream.isLimitExceeded(error);
+		if (tooLarge) {
+			logger.warn("Rejecting message: {}", error.getMessage());
+		}
+		else {
+			logger.error("Error processing message: {}", error.getMessage());
+		}
+		try {
+			response.setContentType(APPLICATION_JSON);
+			response.setCharacterEncoding(UTF_8);
+			response.setStatus(tooLarge ? HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE
+					: HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			// Small enough for the response buffer, written out on completion
+			response.getOutputStream()
+				.write(jsonCodec.encode(new McpError(error.getMessage())));
+		}
+		catch (IOException | IllegalStateException ex) {
+			logger.error(FAILED_TO_SEND_ERROR_RESPONSE, ex.getMessage());
+		}
+		try {
+			asyncContext.complete();
+		}
+		catch (IllegalStateException ex) {
+			logger.debug("Async context already completed: {}", ex.getMessage());
+		}
 	}
 
 	/**
@@ -325,24 +673,142 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 					logger.error("Error closing session: {}", error.getMessage());
 					return Mono.empty();
 				}))
-			.then();
+			.then()
+			.doFinally(signal -> {
+				if (heartbeatWheel != null) {
+					heartbeatWheel.stop();
+				}
+			});
 	}
 
 	/**
-	 * Sends an SSE event to a client.
-	 * @param writer The writer to send the event through
-	 * @param eventType The type of event (message or endpoint)
+	 * Formats an SSE event.
+	 * @param eventType The type of event
 	 * @param data The event data
-	 * @throws IOException If an error occurs while writing the event
+	 * @return The SSE frame, including the terminating blank line
 	 */
-	private void sendEvent(PrintWriter writer, String eventType, String data) throws IOException {
-		writer.write("event: " + eventType + "\n");
-		writer.write("data: " + data + "\n\n");
-		writer.flush();
+	private static String sseEvent(String eventType, String data) {
+		return "event: " + eventType + "\n" + "data: " + data + "\n\n";
+	}
+
+	/**
+	 * Destination of the SSE frames of a session.
+	 */
+	@FunctionalInterface
+	private interface SseOutput {
+
+		/**
+		 * Writes a complete SSE frame.
+		 * @param frame The SSE frame, including the terminating blank line
+		 * @throws IOException If the frame cannot be written
+		 */
+		void write(String frame) throws IOException;
+
+		/**
+		 * Writes a message event. The default implementation serializes the message to a
+		 * String and writes the resulting frame.
+		 * @param eventType The SSE event type
+		 * @param codec The codec serializing the message
+		 * @param message The message
+		 * @throws IOException If the message cannot be serialized or written
+		 */
+		default void writeMessage(String eventType, McpJsonCodec codec, McpSchema.JSONRPCMessage message)
+				throws IOException {
+			write(sseEvent(eventType, codec.encodeToString(message)));
+		}
+
+	}
+
+	/**
+	 * Blocking SSE output writing to the response writer. Messages are streamed into the
+	 * writer as they are serialized, so a large tool result or resource is never held as
+	 * one String; memory use is bounded by the generator and response buffers.
+	 */
+	private static class BlockingSseOutput implements SseOutput {
+
+		private final PrintWriter writer;
+
+		BlockingSseOutput(PrintWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(String frame) throws IOException {
+			this.writer.write(frame);
+			flush();
+		}
+
+		@Override
+		public void writeMessage(String eventType, McpJsonCodec codec, McpSchema.JSONRPCMessage message)
+				throws IOException {
+			this.writer.write("event: " + eventType + "\ndata: ");
+			try {
+				codec.encode(message, this.writer);
+			}
+			finally {
+				// End the event even after a failure so the stream stays well-formed
+				this.writer.write("\n\n");
+				flush();
+			}
+		}
 
-		if (writer.checkError()) {
-			throw new IOException("Client disconnected");
+		private void flush() throws IOException {
+			this.writer.flush();
+			if (this.writer.checkError()) {
+				throw new IOException("Client disconnected");
+			}
 		}
+
+	}
+
+	/**
+	 * SSE output using Servlet non-blocking I/O. Frames are only written while the
+	 * container reports the stream ready; otherwise they stay on the session's outbound
+	 * queue until {@link #onWritePossible()} resumes it, so a slow client never holds a
+	 * thread.
+	 */
+	private class NonBlockingSseOutput implements SseOutput, WriteListener {
+
+		private final ServletOutputStream out;
+
+		private final String endpointFrame;
+
+		private volatile boolean endpointSent;
+
+		private HttpServletMcpSessionTransport transport;
+
+		NonBlockingSseOutput(ServletOutputStream out, String endpointFrame) {
+			this.out = out;
+			this.endpointFrame = endpointFrame;
+		}
+
+		boolean isReady() {
+			return this.endpointSent && this.out.isReady();
+		}
+
+		@Override
+		public void write(String frame) throws IOException {
+			this.out.write(frame.getBytes(StandardCharsets.UTF_8));
+			if (this.out.isReady()) {
+				this.out.flush();
+			}
+		}
+
+		@Override
+		public void onWritePossible() throws IOException {
+			if (!this.endpointSent) {
+				write(this.endpointFrame);
+				this.endpointSent = true;
+			}
+			this.transport.outboundQueue.resume();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			logger.warn("SSE stream of session {} failed: {}", this.transport.sessionId, t.getMessage());
+			this.transport.disconnect();
+		}
+
 	}
 
 	/**
@@ -359,52 +825,142 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 
 	/**
 	 * Implementation of McpServerTransport for HttpServlet SSE sessions. This class
-	 * handles the transport-level communication for a specific client session.
+	 * handles the transport-level communication for a specific client session. Messages
+	 * are put on a bounded outbound queue and written to the response by a writer task.
 	 */
-	private class HttpServletMcpSessionTransport implements McpServerTransport {
+	private class HttpServletMcpSessionTransport implements McpServerTransport, HeartbeatWheel.Target {
 
 		private final String sessionId;
 
 		private final AsyncContext asyncContext;
 
-		private final PrintWriter writer;
+		private final SseOutput output;
+
+		private final OutboundMessageQueue outboundQueue;
+
+		private final HeartbeatWheel.Registration heartbeat;
+
+		/** Wire format negotiated for the session's SSE message events */
+		private final McpWireFormat wireFormat;
 
 		/**
-		 * Creates a new session transport with the specified ID and SSE writer.
+		 * Creates a new session transport with the specified ID and SSE output.
 		 * @param sessionId The unique identifier for this session
 		 * @param asyncContext The async context for the session
-		 * @param writer The writer for sending server events to the client
+		 * @param output The output for sending server events to the client
+		 * @param writable Tells whether a non-blocking output can take another frame, or
+		 * null for a blocking output
+		 * @param wireFormat The wire format of the message events
 		 */
-		HttpServletMcpSessionTransport(String sessionId, AsyncContext asyncContext, PrintWriter writer) {
+		HttpServletMcpSessionTransport(String sessionId, AsyncContext asyncContext, SseOutput output,
+				BooleanSupplier writable, McpWireFormat wireFormat) {
 			this.sessionId = sessionId;
+			this.wireFormat = wireFormat;
 			this.asyncContext = asyncContext;
-			this.writer = writer;
+			this.output = output;
+			// Non-blocking writes never wait for the client, so a small shared pool
+			// can drain every session
+			this.outboundQueue = writable != null
+					? new OutboundMessageQueue(outboundQueueSettings, runnable -> Schedulers.parallel().schedule(runnable),
+							this::writeFrame, writable, this::disconnect)
+					: new OutboundMessageQueue(outboundQueueSettings, this::writeFrame, this::disconnect);
+			this.heartbeat = heartbeatWheel != null ? heartbeatWheel.register(sessionId, this) : null;
+			transports.put(sessionId, this);
 			logger.debug("Session transport {} initialized with SSE writer", sessionId);
 		}
 
 		/**
-		 * Sends a JSON-RPC message to the client through the SSE connection.
+		 * Queues a JSON-RPC message for the client's SSE connection.
 		 * @param message The JSON-RPC message to send
-		 * @return A Mono that completes when the message has been sent
+		 * @return A Mono that completes when the message has been queued
 		 */
 		@Override
 		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
-			return Mono.fromRunnable(() -> {
-				try {
-					String jsonText = objectMapper.writeValueAsString(message);
-					sendEvent(writer, MESSAGE_EVENT_TYPE, jsonText);
-					logger.debug("Message sent to session {}", sessionId);
-				}
-				catch (Exception e) {
-					logger.error("Failed to send message to session {}: {}", sessionId, e.getMessage());
-					sessions.remove(sessionId);
-					asyncContext.complete();
-				}
-			});
+			return this.outboundQueue.enqueue(OutboundMessageQueue.Frame.of(message));
 		}
 
 		/**
-		 * Converts data from one type to another using the configured ObjectMapper.
+		 * Queues a pre-encoded message; the writer task sends its shared SSE frame.
+		 * @param message The encoded message to send
+		 * @return A Mono that completes when the message has been queued
+		 */
+		@Override
+		public Mono<Void> sendEncodedMessage(McpEncodedMessage message) {
+			return this.outboundQueue.enqueue(OutboundMessageQueue.Frame.of(message));
+		}
+
+		private void writeFrame(OutboundMessageQueue.Frame frame) throws IOException {
+			McpEncodedMessage encoded = frame.encoded();
+			if (isHeartbeat(frame.message())) {
+				output.write(sseEvent(HEARTBEAT_EVENT_TYPE,
+						String.valueOf(((McpSchema.JSONRPCNotification) frame.message()).getParams())));
+			}
+			else if (wireFormat.isBinary()) {
+				// Shared JSON frames do not apply; each binary session encodes its own
+				output.write(sseEvent(MESSAGE_EVENT_TYPE,
+						wireFormat.encodeEventData(wireCodecs.get(wireFormat), frame.message())));
+			}
+			else if (encoded != null) {
+				output.write(encoded.sseFrame(MESSAGE_EVENT_TYPE));
+			}
+			else {
+				output.writeMessage(MESSAGE_EVENT_TYPE, jsonCodec, frame.message());
+			}
+			markActive();
+			logger.debug("Message sent to session {}", sessionId);
+		}
+
+		private boolean isHeartbeat(McpSchema.JSONRPCMessage message) {
+			return message instanceof McpSchema.JSONRPCNotification
+					&& HeartbeatWheel.HEARTBEAT_METHOD.equals(((McpSchema.JSONRPCNotification) message).getMethod());
+		}
+
+		/**
+		 * Records traffic with the client so the heartbeat engine leaves the session
+		 * alone.
+		 */
+		void markActive() {
+			if (this.heartbeat != null) {
+				this.heartbeat.touch();
+			}
+		}
+
+		@Override
+		public Mono<Void> sendHeartbeat(McpEncodedMessage heartbeat) {
+			return sendEncodedMessage(heartbeat);
+		}
+
+		@Override
+		public void reap() {
+			disconnect();
+		}
+
+		/**
+		 * Releases the outbound queue and takes the session off the heartbeat wheel.
+		 */
+		void release() {
+			this.outboundQueue.close();
+			if (this.heartbeat != null) {
+				this.heartbeat.cancel();
+			}
+		}
+
+		/**
+		 * Gives up on a client that cannot keep up or whose connection failed.
+		 */
+		private void disconnect() {
+			logger.warn("Disconnecting session {}", sessionId);
+			removeSession(sessionId);
+			try {
+				asyncContext.complete();
+			}
+			catch (Exception e) {
+				logger.warn("Failed to complete async context for session {}: {}", sessionId, e.getMessage());
+			}
+		}
+
+		/**
+		 * Converts data from one type to another using the configured JSON codec.
 		 * @param data The source data object to convert
 		 * @param typeRef The target type reference
 		 * @return The converted object of type T
@@ -412,7 +968,7 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 		 */
 		@Override
 		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-			return objectMapper.convertValue(data, typeRef);
+			return jsonCodec.convert(data, typeRef);
 		}
 
 		/**
@@ -421,17 +977,17 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 		 */
 		@Override
 		public Mono<Void> closeGracefully() {
-			return Mono.fromRunnable(() -> {
+			return this.outboundQueue.closeGracefully().then(Mono.fromRunnable(() -> {
 				logger.debug("Closing session transport: {}", sessionId);
 				try {
-					sessions.remove(sessionId);
+					removeSession(sessionId);
 					asyncContext.complete();
 					logger.debug("Successfully completed async context for session {}", sessionId);
 				}
 				catch (Exception e) {
 					logger.warn("Failed to complete async context for session {}: {}", sessionId, e.getMessage());
 				}
-			});
+			}));
 		}
 
 		/**
@@ -440,7 +996,7 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 		@Override
 		public void close() {
 			try {
-				sessions.remove(sessionId);
+				removeSession(sessionId);
 				asyncContext.complete();
 				logger.debug("Successfully completed async context for session {}", sessionId);
 			}
@@ -470,12 +1026,32 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 
 		private ObjectMapper objectMapper = new ObjectMapper();
 
+		private McpJsonCodec jsonCodec;
+
 		private String baseUrl = DEFAULT_BASE_URL;
 
 		private String messageEndpoint;
 
 		private String sseEndpoint = DEFAULT_SSE_ENDPOINT;
 
+		private int outboundQueueCapacity = OutboundMessageQueue.Settings.DEFAULT_CAPACITY;
+
+		private OutboundMessageQueue.OverflowPolicy overflowPolicy = OutboundMessageQueue.OverflowPolicy.BLOCK;
+
+		private Duration outboundBlockTimeout = OutboundMessageQueue.Settings.DEFAULT_BLOCK_TIMEOUT;
+
+		private Duration heartbeatInterval;
+
+		private int maxMissedHeartbeats = HeartbeatWheel.DEFAULT_MAX_MISSED;
+
+		private AdmissionController admissionController = AdmissionController.unlimited();
+
+		private boolean nonBlockingIo;
+
+		private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+		private Set<McpWireFormat> wireFormats = EnumSet.noneOf(McpWireFormat.class);
+
 		/**
 		 * Sets the JSON object mapper to use for message serialization/deserialization.
 		 * @param objectMapper The object mapper to use
@@ -487,6 +1063,18 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			return this;
 		}
 
+		/**
+		 * Sets the JSON codec to use for message serialization/deserialization, taking
+		 * precedence over {@link #objectMapper(ObjectMapper)}.
+		 * @param jsonCodec The codec to use
+		 * @return This builder instance for method chaining
+		 */
+		public Builder jsonCodec(McpJsonCodec jsonCodec) {
+			Assert.notNull(jsonCodec, "JSON codec must not be null");
+			this.jsonCodec = jsonCodec;
+			return this;
+		}
+
 		/**
 		 * Sets the base URL for the server transport.
 		 * @param baseUrl The base URL to use
@@ -523,6 +1111,115 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			return this;
 		}
 
+		/**
+		 * Sets the size of each session's outbound queue and what happens when a slow
+		 * client lets it fill up.
+		 * @param capacity The number of messages a session may have waiting
+		 * @param overflowPolicy The policy applied when the queue is full
+		 * @return This builder instance for method chaining
+		 */
+		public Builder outboundQueue(int capacity, OutboundMessageQueue.OverflowPolicy overflowPolicy) {
+			Assert.isTrue(capacity > 0, "Outbound queue capacity must be positive");
+			Assert.notNull(overflowPolicy, "Overflow policy must not be null");
+			this.outboundQueueCapacity = capacity;
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		/**
+		 * Sets how long a producer waits for room in a full outbound queue under
+		 * {@link OutboundMessageQueue.OverflowPolicy#BLOCK}.
+		 * @param outboundBlockTimeout The maximum wait
+		 * @return This builder instance for method chaining
+		 */
+		public Builder outboundBlockTimeout(Duration outboundBlockTimeout) {
+			Assert.notNull(outboundBlockTimeout, "Outbound block timeout must not be null");
+			this.outboundBlockTimeout = outboundBlockTimeout;
+			return this;
+		}
+
+		/**
+		 * Enables the built-in heartbeat. Sessions that exchanged nothing with the server
+		 * for the given interval receive a heartbeat event; the pings are spread over the
+		 * interval rather than sent all at once.
+		 * @param heartbeatInterval The idle time after which a session is pinged
+		 * @return This builder instance for method chaining
+		 */
+		public Builder heartbeatInterval(Duration heartbeatInterval) {
+			Assert.notNull(heartbeatInterval, "Heartbeat interval must not be null");
+			this.heartbeatInterval = heartbeatInterval;
+			return this;
+		}
+
+		/**
+		 * Sets after how many missed heartbeats in a row a session is removed. Only used
+		 * together with {@link #heartbeatInterval(Duration)}.
+		 * @param maxMissedHeartbeats The missed heartbeat limit
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxMissedHeartbeats(int maxMissedHeartbeats) {
+			Assert.isTrue(maxMissedHeartbeats > 0, "Max missed heartbeats must be positive");
+			this.maxMissedHeartbeats = maxMissedHeartbeats;
+			return this;
+		}
+
+		/**
+		 * Sets the limits on concurrent sessions and in-flight messages. Connections and
+		 * messages over the limits are refused with 503 and a Retry-After header.
+		 * @param admissionController The admission controller to use
+		 * @return This builder instance for method chaining
+		 */
+		public Builder admissionController(AdmissionController admissionController) {
+			Assert.notNull(admissionController, "Admission controller must not be null");
+			this.admissionController = admissionController;
+			return this;
+		}
+
+		/**
+		 * Enables Servlet non-blocking I/O. POST bodies are then read with a
+		 * {@link ReadListener} and SSE streams written with a {@link WriteListener}, so
+		 * container threads never wait for slow clients and many streams can share a
+		 * small pool. Disabled by default.
+		 * @param nonBlockingIo Whether to use non-blocking I/O
+		 * @return This builder instance for method chaining
+		 */
+		public Builder nonBlockingIo(boolean nonBlockingIo) {
+			this.nonBlockingIo = nonBlockingIo;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum size of a POSTed message. Larger messages are refused with 413
+		 * as soon as the limit is crossed while reading, without buffering the rest.
+		 * @param maxBodySize The limit in bytes
+		 * @return This builder instance for method chaining
+		 */
+		public Builder maxBodySize(long maxBodySize) {
+			Assert.isTrue(maxBodySize > 0, "Max body size must be positive");
+			this.maxBodySize = maxBodySize;
+			return this;
+		}
+
+		/**
+		 * Enables binary wire formats that clients may negotiate instead of JSON. Clients
+		 * that do not ask for one keep using JSON.
+		 * @param wireFormats The binary formats to accept
+		 * @return This builder instance for method chaining
+		 * @throws IllegalArgumentException if a format is JSON or its Jackson module is
+		 * not on the classpath
+		 */
+		public Builder wireFormats(McpWireFormat... wireFormats) {
+			Assert.notNull(wireFormats, "Wire formats must not be null");
+			Set<McpWireFormat> formats = EnumSet.noneOf(McpWireFormat.class);
+			for (McpWireFormat format : wireFormats) {
+				Assert.isTrue(format != null && format.isBinary(), "Wire formats must be binary formats");
+				Assert.isTrue(format.isAvailable(), "The Jackson " + format.id() + " module is not on the classpath");
+				formats.add(format);
+			}
+			this.wireFormats = formats;
+			return this;
+		}
+
 		/**
 		 * Builds a new instance of HttpServletSseServerTransportProvider with the
 		 * configured settings.
@@ -536,7 +1233,7 @@ public class HttpServletSseServerTransportProvider extends HttpServlet implement
 			if (messageEndpoint == null) {
 				throw new IllegalStateException("MessageEndpoint must be set");
 			}
-			return new HttpServletSseServerTransportProvider(objectMapper, baseUrl, messageEndpoint, sseEndpoint);
+			return new HttpServletSseServerTransportProvider(this);
 		}
 
 	}
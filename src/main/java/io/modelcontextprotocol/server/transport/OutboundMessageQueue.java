@@ -0,0 +1,469 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.spec.McpEncodedMessage;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound queue of a single session, drained by a writer task.
+ *
+ * <p>
+ * Producers (tool handlers, broadcasts, heartbeats) only enqueue; the actual write to the
+ * client happens on the drain executor, one frame at a time and in order. A slow client
+ * therefore fills its own queue instead of blocking whoever produced the message. What
+ * happens when the queue is full is decided by the {@link OverflowPolicy}.
+ *
+ * <p>
+ * At most one drain task per queue runs at any time, so the {@link FrameWriter} never
+ * needs to be thread-safe with respect to itself.
+ */
+public class OutboundMessageQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(OutboundMessageQueue.class);
+
+	/**
+	 * What to do when a frame is offered to a full queue.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Discard the oldest queued notification to make room. Responses and server
+		 * requests are never discarded; if the queue holds none of those to drop, a new
+		 * notification is discarded instead and anything else disconnects the session.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Block the producer until there is room, up to the configured block timeout.
+		 */
+		BLOCK,
+
+		/**
+		 * Treat the client as dead and disconnect the session.
+		 */
+		DISCONNECT
+
+	}
+
+	/**
+	 * Writes a single frame to the client.
+	 */
+	@FunctionalInterface
+	public interface FrameWriter {
+
+		/**
+		 * Writes the frame. Any exception closes the queue and disconnects the session.
+		 * @param frame the frame to write
+		 * @throws Exception if the frame cannot be written
+		 */
+		void write(Frame frame) throws Exception;
+
+	}
+
+	private final Settings settings;
+
+	private final Executor drainExecutor;
+
+	private final FrameWriter writer;
+
+	private final Runnable onDisconnect;
+
+	/** Whether the client connection can take another frame without blocking */
+	private final BooleanSupplier writable;
+
+	private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notFull = this.lock.newCondition();
+
+	/** Work-in-progress counter guaranteeing a single drain task at a time */
+	private final AtomicInteger wip = new AtomicInteger();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** Completes once the queue has been drained after a graceful close, or closed */
+	private final Sinks.One<Void> drained = Sinks.one();
+
+	private volatile boolean closing;
+
+	private volatile boolean closed;
+
+	/**
+	 * Creates a queue drained on {@link Schedulers#boundedElastic()}.
+	 * @param settings The capacity and overflow behaviour
+	 * @param writer Writes a frame to the client
+	 * @param onDisconnect Called once when the queue gives up on the client
+	 */
+	public OutboundMessageQueue(Settings settings, FrameWriter writer, Runnable onDisconnect) {
+		this(settings, runnable -> Schedulers.boundedElastic().schedule(runnable), writer, onDisconnect);
+	}
+
+	/**
+	 * Creates a queue.
+	 * @param settings The capacity and overflow behaviour
+	 * @param drainExecutor Runs the drain task
+	 * @param writer Writes a frame to the client
+	 * @param onDisconnect Called once when the queue gives up on the client
+	 */
+	public OutboundMessageQueue(Settings settings, Executor drainExecutor, FrameWriter writer,
+			Runnable onDisconnect) {
+		this(settings, drainExecutor, writer, () -> true, onDisconnect);
+	}
+
+	/**
+	 * Creates a queue for a non-blocking connection. The writer task only writes while
+	 * {@code writable} says the connection is ready and otherwise leaves the frames
+	 * queued; whoever is notified that the connection became writable again must call
+	 * {@link #resume()}.
+	 * @param settings The capacity and overflow behaviour
+	 * @param drainExecutor Runs the drain task
+	 * @param writer Writes a frame to the client
+	 * @param writable Tells whether the connection can take another frame
+	 * @param onDisconnect Called once when the queue gives up on the client
+	 */
+	public OutboundMessageQueue(Settings settings, Executor drainExecutor, FrameWriter writer,
+			BooleanSupplier writable, Runnable onDisconnect) {
+		Assert.notNull(settings, "Settings must not be null");
+		Assert.notNull(drainExecutor, "Drain executor must not be null");
+		Assert.notNull(writer, "Frame writer must not be null");
+		Assert.notNull(writable, "Writable check must not be null");
+		Assert.notNull(onDisconnect, "Disconnect callback must not be null");
+		this.settings = settings;
+		this.drainExecutor = drainExecutor;
+		this.writer = writer;
+		this.writable = writable;
+		this.onDisconnect = onDisconnect;
+	}
+
+	/**
+	 * Enqueues a frame for writing.
+	 * @param frame The frame to send
+	 * @return A Mono that completes once the frame is queued (not yet written), or errors
+	 * if the queue overflowed or is closed
+	 */
+	public Mono<Void> enqueue(Frame frame) {
+		return Mono.defer(() -> {
+			try {
+				offer(frame);
+				return Mono.empty();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return Mono.error(new McpError("Interrupted while waiting for outbound queue capacity"));
+			}
+			catch (McpError e) {
+				return Mono.error(e);
+			}
+		});
+	}
+
+	/**
+	 * @return the number of frames waiting to be written
+	 */
+	public int depth() {
+		this.lock.lock();
+		try {
+			return this.queue.size();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of notifications discarded because the queue was full
+	 */
+	public long dropped() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Restarts the writer task after the connection became writable again.
+	 */
+	public void resume() {
+		scheduleDrain();
+	}
+
+	/**
+	 * Stops accepting frames and lets the writer task finish the ones already queued.
+	 * @return A Mono that completes once every queued frame has been written, or the
+	 * queue has been closed
+	 */
+	public Mono<Void> closeGracefully() {
+		this.closing = true;
+		scheduleDrain();
+		return this.drained.asMono();
+	}
+
+	/**
+	 * Closes the queue, discarding pending frames. Producers blocked on a full queue are
+	 * released with an error.
+	 */
+	public void close() {
+		this.lock.lock();
+		try {
+			this.closed = true;
+			this.queue.clear();
+			this.notFull.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+		this.drained.tryEmitEmpty();
+	}
+
+	private void offer(Frame frame) throws InterruptedException {
+		boolean disconnect = false;
+		this.lock.lock();
+		try {
+			long remainingNanos = this.settings.blockTimeout.toNanos();
+			while (!this.closed && this.queue.size() >= this.settings.capacity) {
+				if (this.settings.policy == OverflowPolicy.DROP_OLDEST) {
+					if (dropOldestNotification()) {
+						break;
+					}
+					if (frame.isNotification()) {
+						this.dropped.incrementAndGet();
+						logger.debug("Outbound queue full, dropping notification");
+						return;
+					}
+					disconnect = true;
+				}
+				else if (this.settings.policy == OverflowPolicy.BLOCK) {
+					if (remainingNanos <= 0L) {
+						throw new McpError("Timed out waiting for outbound queue capacity");
+					}
+					remainingNanos = this.notFull.awaitNanos(remainingNanos);
+					continue;
+				}
+				else {
+					disconnect = true;
+				}
+				this.closed = true;
+				this.queue.clear();
+				this.notFull.signalAll();
+				break;
+			}
+			if (!disconnect) {
+				if (this.closed || this.closing) {
+					throw new McpError("Outbound queue is closed");
+				}
+				this.queue.addLast(frame);
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		if (disconnect) {
+			logger.warn("Outbound queue overflowed ({} frames), disconnecting slow client", this.settings.capacity);
+			this.drained.tryEmitEmpty();
+			this.onDisconnect.run();
+			throw new McpError("Outbound queue overflowed");
+		}
+		scheduleDrain();
+	}
+
+	private boolean dropOldestNotification() {
+		Iterator<Frame> iterator = this.queue.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isNotification()) {
+				iterator.remove();
+				this.dropped.incrementAndGet();
+				logger.debug("Outbound queue full, dropped oldest notification");
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Frame poll() {
+		this.lock.lock();
+		try {
+			Frame frame = this.queue.pollFirst();
+			if (frame != null) {
+				this.notFull.signal();
+			}
+			return frame;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void scheduleDrain() {
+		if (this.wip.getAndIncrement() == 0) {
+			try {
+				this.drainExecutor.execute(this::drain);
+			}
+			catch (RejectedExecutionException e) {
+				logger.error("Failed to schedule outbound drain: {}", e.getMessage());
+				this.wip.set(0);
+				close();
+				this.onDisconnect.run();
+			}
+		}
+	}
+
+	private void drain() {
+		int missed = 1;
+		for (;;) {
+			Frame frame;
+			boolean stalled = false;
+			while (!this.closed) {
+				try {
+					if (!this.writable.getAsBoolean()) {
+						stalled = true;
+						break;
+					}
+					if ((frame = poll()) == null) {
+						break;
+					}
+					this.writer.write(frame);
+				}
+				catch (Exception e) {
+					logger.error("Failed to write outbound frame: {}", e.getMessage());
+					close();
+					this.onDisconnect.run();
+					return;
+				}
+			}
+			if (this.closed || (this.closing && !stalled)) {
+				this.drained.tryEmitEmpty();
+			}
+			missed = this.wip.addAndGet(-missed);
+			if (missed == 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A queued outbound message, optionally already encoded.
+	 */
+	public static final class Frame {
+
+		private final McpSchema.JSONRPCMessage message;
+
+		private final McpEncodedMessage encoded;
+
+		private Frame(McpSchema.JSONRPCMessage message, McpEncodedMessage encoded) {
+			this.message = message;
+			this.encoded = encoded;
+		}
+
+		/**
+		 * @param message a message still to be serialized by the writer
+		 * @return a new frame
+		 */
+		public static Frame of(McpSchema.JSONRPCMessage message) {
+			Assert.notNull(message, "Message must not be null");
+			return new Frame(message, null);
+		}
+
+		/**
+		 * @param encoded a message that has already been serialized
+		 * @return a new frame
+		 */
+		public static Frame of(McpEncodedMessage encoded) {
+			Assert.notNull(encoded, "Encoded message must not be null");
+			return new Frame(encoded.message(), encoded);
+		}
+
+		/**
+		 * @return the JSON-RPC message
+		 */
+		public McpSchema.JSONRPCMessage message() {
+			return this.message;
+		}
+
+		/**
+		 * @return the pre-encoded message, or {@code null} if the writer has to serialize
+		 * {@link #message()}
+		 */
+		public McpEncodedMessage encoded() {
+			return this.encoded;
+		}
+
+		boolean isNotification() {
+			return this.message instanceof McpSchema.JSONRPCNotification;
+		}
+
+	}
+
+	/**
+	 * Capacity and overflow behaviour shared by the queues of a transport.
+	 */
+	public static final class Settings {
+
+		/** Default number of frames a session may have waiting */
+		public static final int DEFAULT_CAPACITY = 1024;
+
+		/** Default time a producer waits for room under {@link OverflowPolicy#BLOCK} */
+		public static final Duration DEFAULT_BLOCK_TIMEOUT = Duration.ofSeconds(10);
+
+		private final int capacity;
+
+		private final OverflowPolicy policy;
+
+		private final Duration blockTimeout;
+
+		/**
+		 * @param capacity The number of frames a session may have waiting
+		 * @param policy What to do when the queue is full
+		 * @param blockTimeout How long producers wait under {@link OverflowPolicy#BLOCK}
+		 */
+		public Settings(int capacity, OverflowPolicy policy, Duration blockTimeout) {
+			Assert.isTrue(capacity > 0, "Capacity must be positive");
+			Assert.notNull(policy, "Overflow policy must not be null");
+			Assert.notNull(blockTimeout, "Block timeout must not be null");
+			this.capacity = capacity;
+			this.policy = policy;
+			this.blockTimeout = blockTimeout;
+		}
+
+		/**
+		 * @return settings with the default capacity, blocking producers for at most the
+		 * default block timeout
+		 */
+		public static Settings defaults() {
+			return new Settings(DEFAULT_CAPACITY, OverflowPolicy.BLOCK, DEFAULT_BLOCK_TIMEOUT);
+		}
+
+		public int capacity() {
+			return this.capacity;
+		}
+
+		public OverflowPolicy policy() {
+			return this.policy;
+		}
+
+		public Duration blockTimeout() {
+			return this.blockTimeout;
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the most recent SSE events of a session, kept so that a client
+ * reconnecting with a {@code Last-Event-ID} header can be sent what it missed.
+ *
+ * <p>
+ * Events are stored under the monotonically increasing sequence number the transport
+ * assigned to them. Once the buffer is full the oldest event is overwritten; a client
+ * whose last seen event has already been overwritten can no longer be resumed without a
+ * gap, which {@link #since(long)} reports by returning {@code null}.
+ */
+public class SseReplayBuffer {
+
+	private final Event[] ring;
+
+	/** Sequence number of the newest event, 0 before the first one */
+	private long newest;
+
+	/**
+	 * @param capacity The number of events to keep
+	 */
+	public SseReplayBuffer(int capacity) {
+		Assert.isTrue(capacity > 0, "Replay buffer capacity must be positive");
+		this.ring = new Event[capacity];
+	}
+
+	/**
+	 * Stores an event, overwriting the oldest one if the buffer is full.
+	 * @param sequence The event's sequence number; must be greater than any stored before
+	 * @param eventType The SSE event type
+	 * @param data The SSE event data
+	 */
+	public synchronized void add(long sequence, String eventType, String data) {
+		Assert.isTrue(sequence > this.newest, "Sequence numbers must increase");
+		this.ring[(int) (sequence % this.ring.length)] = new Event(sequence, eventType, data);
+		this.newest = sequence;
+	}
+
+	/**
+	 * Returns the events stored after the given one.
+	 * @param lastSequence The sequence number of the last event the client received
+	 * @return The missed events in order, or {@code null} if some of them have already
+	 * been overwritten or {@code lastSequence} lies in the future
+	 */
+	public synchronized List<Event> since(long lastSequence) {
+		if (lastSequence > this.newest || lastSequence < 0) {
+			return null;
+		}
+		if (lastSequence == this.newest) {
+			return Collections.emptyList();
+		}
+		long oldest = Math.max(1L, this.newest - this.ring.length + 1);
+		if (lastSequence + 1 < oldest) {
+			return null;
+		}
+		List<Event> missed = new ArrayList<>((int) (this.newest - lastSequence));
+		for (long sequence = lastSequence + 1; sequence <= this.newest; sequence++) {
+			Event event = this.ring[(int) (sequence % this.ring.length)];
+			if (event == null || event.sequence != sequence) {
+				return null;
+			}
+			missed.add(event);
+		}
+		return missed;
+	}
+
+	/**
+	 * A buffered SSE event.
+	 */
+	public static final class Event {
+
+		private final long sequence;
+
+		private final String eventType;
+
+		private final String data;
+
+		private Event(long sequence, String eventType, String data) {
+			this.sequence = sequence;
+			this.eventType = eventType;
+			this.data = data;
+		}
+
+		public long sequence() {
+			return this.sequence;
+		}
+
+		public String eventType() {
+			return this.eventType;
+		}
+
+		public String data() {
+			return this.data;
+		}
+
+	}
+
+}
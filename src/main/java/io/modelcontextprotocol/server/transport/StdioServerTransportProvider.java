@@ -10,6 +10,7 @@ import io.modelcontextprotocol.spec.*;
 import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
 import io.modelcontextprotocol.spec.McpServerSession.Factory;
 import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.SingleLineOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -19,7 +20,6 @@ import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
@@ -35,12 +35,18 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
 	private static final Logger logger = LoggerFactory.getLogger(StdioServerTransportProvider.class);
 
-	private final ObjectMapper objectMapper;
+	private final McpJsonCodec jsonCodec;
 
 	private final InputStream inputStream;
 
 	private final OutputStream outputStream;
 
+	/** Serialized messages larger than this do not keep their buffer for the next one */
+	private static final int MAX_RETAINED_LINE_BUFFER = 1024 * 1024;
+
+	/** Buffer a message is serialized into before it goes out; guarded by the output stream */
+	private ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+
 	private McpServerSession session;
 
 	private final AtomicBoolean isClosing = new AtomicBoolean(false);
@@ -72,11 +78,22 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 	 * @param outputStream The output stream to write to
 	 */
 	public StdioServerTransportProvider(ObjectMapper objectMapper, InputStream inputStream, OutputStream outputStream) {
-		Assert.notNull(objectMapper, "The ObjectMapper can not be null");
+		this(McpJsonCodec.jackson(objectMapper), inputStream, outputStream);
+	}
+
+	/**
+	 * Creates a new StdioServerTransportProvider with the specified JSON codec and
+	 * streams.
+	 * @param jsonCodec The codec to use for JSON serialization/deserialization
+	 * @param inputStream The input stream to read from
+	 * @param outputStream The output stream to write to
+	 */
+	public StdioServerTransportProvider(McpJsonCodec jsonCodec, InputStream inputStream, OutputStream outputStream) {
+		Assert.notNull(jsonCodec, "The JSON codec can not be null");
 		Assert.notNull(inputStream, "The InputStream can not be null");
 		Assert.notNull(outputStream, "The OutputStream can not be null");
 
-		this.objectMapper = objectMapper;
+		this.jsonCodec = jsonCodec;
 		this.inputStream = inputStream;
 		this.outputStream = outputStream;
 	}
@@ -152,7 +169,7 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
 		@Override
 		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-			return objectMapper.convertValue(data, typeRef);
+			return jsonCodec.convert(data, typeRef);
 		}
 
 		@Override
@@ -205,8 +222,7 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 								logger.debug("Received JSON message: {}", line);
 
 								try {
-									McpSchema.JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper,
-											line);
+									McpSchema.JSONRPCMessage message = jsonCodec.decodeMessage(line);
 									if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
 										// logIfNotClosing("Failed to enqueue message");
 										break;
@@ -249,13 +265,18 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 				 .handle((message, sink) -> {
 					 if (message != null && !isClosing.get()) {
 						 try {
-							 String jsonMessage = objectMapper.writeValueAsString(message);
-							 // Escape any embedded newlines in the JSON message as per spec
-							 jsonMessage = jsonMessage.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
-	
 							 synchronized (outputStream) {
-								 outputStream.write(jsonMessage.getBytes(StandardCharsets.UTF_8));
-								 outputStream.write("\n".getBytes(StandardCharsets.UTF_8));
+								 ByteArrayOutputStream line;
+								 try {
+									 line = serializeLine(message);
+								 }
+								 catch (IOException e) {
+									 // Nothing was written, so the stream stays framed and
+									 // only this message is lost
+									 logger.error("Failed to serialize message, dropping it", e);
+									 return;
+								 }
+								 line.writeTo(outputStream);
 								 outputStream.flush();
 							 }
 							 sink.next(message);
@@ -290,6 +311,29 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 				 outboundConsumer.apply(outboundSink.asFlux()).subscribe();
 		 } // @formatter:on
 
+		/**
+		 * Serializes a message completely before any of it is written, so that a failure
+		 * cannot leave a truncated line on stdout. Line breaks are blanked out so the
+		 * message stays on one line as per spec.
+		 * @param message The message to serialize
+		 * @return A buffer holding the message followed by the line terminator
+		 * @throws IOException If the message cannot be serialized
+		 */
+		private ByteArrayOutputStream serializeLine(JSONRPCMessage message) throws IOException {
+			ByteArrayOutputStream buffer = lineBuffer;
+			buffer.reset();
+			try {
+				jsonCodec.encode(message, new SingleLineOutputStream(buffer));
+				buffer.write('\n');
+				return buffer;
+			}
+			finally {
+				if (buffer.size() > MAX_RETAINED_LINE_BUFFER) {
+					lineBuffer = new ByteArrayOutputStream();
+				}
+			}
+		}
+
 		private void logIfNotClosing(String message, Exception e) {
 			if (!isClosing.get()) {
 				logger.error(message, e);
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Writes {@link McpSchema.BlobResourceContents}, streaming the blob from its
+ * {@link McpBlobSource} when it has one. {@link JsonGenerator#writeBinary} reads the
+ * source in small chunks and base64 encodes each into the generator's buffer, or writes
+ * the raw bytes in binary formats, so the content is never held in memory as a whole.
+ */
+class BlobResourceContentsSerializer extends StdSerializer<McpSchema.BlobResourceContents> {
+
+	BlobResourceContentsSerializer() {
+		super(McpSchema.BlobResourceContents.class);
+	}
+
+	@Override
+	public void serialize(McpSchema.BlobResourceContents value, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		gen.writeStartObject(value);
+		writeFields(value, gen);
+		gen.writeEndObject();
+	}
+
+	@Override
+	public void serializeWithType(McpSchema.BlobResourceContents value, JsonGenerator gen,
+			SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+		WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, JsonToken.START_OBJECT));
+		writeFields(value, gen);
+		typeSer.writeTypeSuffix(gen, typeId);
+	}
+
+	private void writeFields(McpSchema.BlobResourceContents value, JsonGenerator gen) throws IOException {
+		if (value.getUri() != null) {
+			gen.writeStringField("uri", value.getUri());
+		}
+		if (value.getMimeType() != null) {
+			gen.writeStringField("mimeType", value.getMimeType());
+		}
+		McpBlobSource source = value.getBlobSource();
+		if (source != null) {
+			long size = source.size();
+			gen.writeFieldName("blob");
+			try (InputStream in = source.openStream()) {
+				gen.writeBinary(Base64Variants.getDefaultVariant(), in,
+						size >= 0 && size <= Integer.MAX_VALUE ? (int) size : -1);
+			}
+		}
+		else if (value.getBlob() != null) {
+			gen.writeStringField("blob", value.getBlob());
+		}
+	}
+
+}
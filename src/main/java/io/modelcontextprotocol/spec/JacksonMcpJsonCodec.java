@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * {@link McpJsonCodec} built on a Jackson {@link ObjectMapper}, using the cached readers
+ * and writers of a {@link McpCodecRegistry} and binding {@link McpRawJson} params
+ * straight from their tokens.
+ */
+public class JacksonMcpJsonCodec implements McpJsonCodec {
+
+	private final McpCodecRegistry codecs;
+
+	/**
+	 * @param objectMapper The mapper to use
+	 */
+	public JacksonMcpJsonCodec(ObjectMapper objectMapper) {
+		this(new McpCodecRegistry(objectMapper));
+	}
+
+	/**
+	 * @param codecs The reader and writer cache to use
+	 */
+	public JacksonMcpJsonCodec(McpCodecRegistry codecs) {
+		Assert.notNull(codecs, "Codec registry must not be null");
+		this.codecs = codecs;
+	}
+
+	/**
+	 * @return the underlying mapper
+	 */
+	public ObjectMapper objectMapper() {
+		return this.codecs.objectMapper();
+	}
+
+	@Override
+	public byte[] encode(Object value) throws IOException {
+		return value == null ? objectMapper().writeValueAsBytes(null)
+				: this.codecs.writer(value.getClass()).writeValueAsBytes(value);
+	}
+
+	/**
+	 * Streams the value through a generator whose buffers come from Jackson's buffer
+	 * recycler, so the memory used does not grow with the size of the value.
+	 */
+	@Override
+	public void encode(Object value, OutputStream out) throws IOException {
+		try (JsonGenerator generator = objectMapper().getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			encode(value, generator);
+		}
+	}
+
+	/**
+	 * Streams the value through a generator whose buffers come from Jackson's buffer
+	 * recycler, so the memory used does not grow with the size of the value.
+	 */
+	@Override
+	public void encode(Object value, Writer out) throws IOException {
+		try (JsonGenerator generator = objectMapper().getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			encode(value, generator);
+		}
+	}
+
+	private void encode(Object value, JsonGenerator generator) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		}
+		else {
+			this.codecs.writer(value.getClass()).writeValue(generator, value);
+		}
+	}
+
+	@Override
+	public String encodeToString(Object value) throws IOException {
+		return this.codecs.writeValueAsString(value);
+	}
+
+	@Override
+	public <T> T decode(byte[] json, Class<T> type) throws IOException {
+		return this.codecs.reader(type).readValue(json);
+	}
+
+	@Override
+	public <T> T decode(InputStream in, Class<T> type) throws IOException {
+		try (InputStream stream = in) {
+			return this.codecs.reader(type).readValue(stream);
+		}
+	}
+
+	@Override
+	public <T> T decode(String json, Class<T> type) throws IOException {
+		return this.codecs.reader(type).readValue(json);
+	}
+
+	@Override
+	public <T> T decode(String json, TypeReference<T> typeRef) throws IOException {
+		return objectMapper().readValue(json, typeRef);
+	}
+
+	@Override
+	public McpSchema.JSONRPCMessage decodeMessage(String json) throws IOException {
+		return McpSchema.deserializeJsonRpcMessage(objectMapper(), json);
+	}
+
+	@Override
+	public McpSchema.JSONRPCMessage decodeMessage(InputStream in, long maxBytes) throws IOException {
+		return McpSchema.deserializeJsonRpcMessage(objectMapper(), in, maxBytes);
+	}
+
+	@Override
+	public <T> T convert(Object data, Class<T> type) {
+		return this.codecs.convert(data, type);
+	}
+
+	@Override
+	public <T> T convert(Object data, TypeReference<T> typeRef) {
+		return McpRawJson.convert(objectMapper(), data, typeRef);
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass decoder of JSON-RPC messages.
+ *
+ * <p>
+ * The envelope fields are read straight off the token stream and the message kind is
+ * decided from the members seen once the object ends, so each message is bound in one go
+ * instead of being parsed into a map first and converted to its type afterwards. The
+ * {@code error} member is bound field by field as well; only the free-form payload
+ * members ({@code params}, {@code result}, the error's {@code data}) go through the
+ * {@link ObjectMapper}, and members the protocol does not define are skipped without
+ * being materialized. Structured params are kept as {@link McpRawJson} for the handler to
+ * bind.
+ *
+ * <p>
+ * Batch elements are decoded one by one: an element that is well-formed JSON but not a
+ * valid message becomes a {@link McpSchema.JSONRPCInvalidMessage} in its place instead of
+ * failing the whole batch. Malformed JSON still fails the batch, as it cannot be split
+ * into elements reliably.
+ */
+final class JsonRpcMessageDecoder {
+
+	/** Stands for an error member that was read to its end but is not a valid error */
+	private static final McpSchema.JSONRPCResponse.JSONRPCError INVALID_ERROR = new McpSchema.JSONRPCResponse.JSONRPCError();
+
+	private JsonRpcMessageDecoder() {
+	}
+
+	/**
+	 * Decodes the message, or batch of messages, the parser is positioned before.
+	 * @param objectMapper The mapper binding the payload members
+	 * @param parser A parser that has not consumed any token yet
+	 * @return The decoded message
+	 * @throws IOException If the JSON is malformed
+	 * @throws IllegalArgumentException If the JSON is not a JSON-RPC message, is an empty
+	 * batch, or is followed by further JSON values
+	 */
+	static McpSchema.JSONRPCMessage decode(ObjectMapper objectMapper, JsonParser parser) throws IOException {
+		McpSchema.JSONRPCMessage message;
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			message = decodeMessage(objectMapper, parser);
+		}
+		else {
+			List<McpSchema.JSONRPCMessage> messages = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				messages.add(decodeBatchElement(objectMapper, parser));
+			}
+			if (messages.isEmpty()) {
+				throw new IllegalArgumentException("Cannot deserialize empty JSONRPCBatch");
+			}
+			message = new McpSchema.JSONRPCBatch(messages);
+		}
+		if (parser.nextToken() != null) {
+			throw new IllegalArgumentException(
+					"Cannot deserialize JSONRPCMessage: unexpected " + parser.currentToken() + " after the message");
+		}
+		return message;
+	}
+
+	private static McpSchema.JSONRPCMessage decodeBatchElement(ObjectMapper objectMapper, JsonParser parser)
+			throws IOException {
+		try {
+			return decodeMessage(objectMapper, parser);
+		}
+		catch (IllegalArgumentException e) {
+			// Invalid elements are rejected either before they are read or once they have
+			// been read to the end, so at most a nested array or object is left to skip
+			parser.skipChildren();
+			return new McpSchema.JSONRPCInvalidMessage(e.getMessage());
+		}
+	}
+
+	private static McpSchema.JSONRPCMessage decodeMessage(ObjectMapper objectMapper, JsonParser parser)
+			throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new IllegalArgumentException(
+					"Cannot deserialize JSONRPCMessage: expected an object but found " + parser.currentToken());
+		}
+
+		String jsonrpc = null;
+		String method = null;
+		Object id = null;
+		Object params = null;
+		Object result = null;
+		McpSchema.JSONRPCResponse.JSONRPCError error = null;
+		boolean hasMethod = false;
+		boolean hasId = false;
+		boolean hasResult = false;
+		boolean hasError = false;
+
+		String field;
+		while ((field = parser.nextFieldName()) != null) {
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "jsonrpc":
+					jsonrpc = readText(parser, value);
+					break;
+				case "method":
+					hasMethod = true;
+					method = readText(parser, value);
+					break;
+				case "id":
+					hasId = true;
+					id = objectMapper.readValue(parser, Object.class);
+					break;
+				case "params":
+					// Bound lazily by whoever handles the message
+					params = value.isStructStart() ? McpRawJson.capture(parser)
+							: objectMapper.readValue(parser, Object.class);
+					break;
+				case "result":
+					hasResult = true;
+					result = objectMapper.readValue(parser, Object.class);
+					break;
+				case "error":
+					hasError = true;
+					error = readError(objectMapper, parser, value);
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		if (parser.currentToken() != JsonToken.END_OBJECT) {
+			throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: unexpected " + parser.currentToken());
+		}
+
+		if (id instanceof Map || id instanceof List) {
+			throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: id must be a string or a number");
+		}
+		if (error == INVALID_ERROR) {
+			throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: invalid error object");
+		}
+
+		// Determine message type based on specific JSON structure
+		if (hasMethod && hasId) {
+			return new McpSchema.JSONRPCRequest(jsonrpc, method, id, params);
+		}
+		else if (hasMethod) {
+			return new McpSchema.JSONRPCNotification(jsonrpc, method, params);
+		}
+		else if (hasResult || hasError) {
+			return new McpSchema.JSONRPCResponse(jsonrpc, id, result, error);
+		}
+
+		throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: no method, result or error");
+	}
+
+	/**
+	 * Binds the error member straight off the token stream. An invalid error is still
+	 * read to its end, so that the message can be rejected once it has been read
+	 * completely, and reported as {@link #INVALID_ERROR}.
+	 */
+	private static McpSchema.JSONRPCResponse.JSONRPCError readError(ObjectMapper objectMapper, JsonParser parser,
+			JsonToken value) throws IOException {
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (value != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return INVALID_ERROR;
+		}
+
+		McpSchema.JSONRPCResponse.JSONRPCError error = new McpSchema.JSONRPCResponse.JSONRPCError();
+		boolean valid = true;
+		String field;
+		while ((field = parser.nextFieldName()) != null) {
+			JsonToken token = parser.nextToken();
+			switch (field) {
+				case "code":
+					if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+						error.setCode(parser.getIntValue());
+					}
+					else if (token != JsonToken.VALUE_NULL) {
+						valid = false;
+						parser.skipChildren();
+					}
+					break;
+				case "message":
+					if (token == JsonToken.VALUE_STRING) {
+						error.setMessage(parser.getText());
+					}
+					else if (token != JsonToken.VALUE_NULL) {
+						valid = false;
+						parser.skipChildren();
+					}
+					break;
+				case "data":
+					error.setData(objectMapper.readValue(parser, Object.class));
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return valid ? error : INVALID_ERROR;
+	}
+
+	private static String readText(JsonParser parser, JsonToken value) throws IOException {
+		if (value.isStructStart()) {
+			parser.skipChildren();
+			return null;
+		}
+		return value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import io.modelcontextprotocol.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary content of a blob resource, read only when it is serialized.
+ *
+ * <p>
+ * A {@link McpSchema.BlobResourceContents#of blob resource backed by a source} holds no
+ * base64 String: the serializer opens the source and base64 encodes it straight into the
+ * output as it reads, so serving a large file needs neither its bytes nor their encoding in memory.
+ * With binary wire formats the bytes are written as they are, without base64. A source
+ * is opened again for every serialization, so one instance can be served to any number
+ * of clients, concurrently.
+ */
+public interface McpBlobSource {
+
+	/**
+	 * @return the number of bytes, or -1 if it is not known up front
+	 */
+	long size();
+
+	/**
+	 * Opens the content for reading. The caller closes the stream.
+	 * @return a stream of the content
+	 * @throws IOException If the content cannot be opened
+	 */
+	InputStream openStream() throws IOException;
+
+	/**
+	 * A source reading a file each time it is serialized.
+	 * @param path The file
+	 * @return The source
+	 */
+	static McpBlobSource ofPath(Path path) {
+		Assert.notNull(path, "Path must not be null");
+		return new McpBlobSource() {
+
+			@Override
+			public long size() {
+				try {
+					return Files.size(path);
+				}
+				catch (IOException e) {
+					return -1;
+				}
+			}
+
+			@Override
+			public InputStream openStream() throws IOException {
+				return Files.newInputStream(path, StandardOpenOption.READ);
+			}
+
+		};
+	}
+
+	/**
+	 * A source reading a region of an open file channel with positional reads, which
+	 * leave the channel's own position alone. The channel stays owned by the caller,
+	 * who closes it once the source is no longer served.
+	 * @param channel The file channel
+	 * @param position The offset of the content in the file
+	 * @param size The number of bytes of the content
+	 * @return The source
+	 */
+	static McpBlobSource ofChannel(FileChannel channel, long position, long size) {
+		Assert.notNull(channel, "Channel must not be null");
+		Assert.isTrue(position >= 0 && size >= 0, "Position and size must not be negative");
+		return new McpBlobSource() {
+
+			@Override
+			public long size() {
+				return size;
+			}
+
+			@Override
+			public InputStream openStream() {
+				return Channels.newInputStream(new ReadableByteChannel() {
+
+					private long offset = position;
+
+					@Override
+					public int read(ByteBuffer dst) throws IOException {
+						long left = position + size - this.offset;
+						if (left <= 0) {
+							return -1;
+						}
+						if (dst.remaining() > left) {
+							dst.limit(dst.position() + (int) left);
+						}
+						int read = channel.read(dst, this.offset);
+						if (read > 0) {
+							this.offset += read;
+						}
+						return read;
+					}
+
+					@Override
+					public boolean isOpen() {
+						return channel.isOpen();
+					}
+
+					@Override
+					public void close() {
+						// The channel belongs to the caller
+					}
+
+				});
+			}
+
+		};
+	}
+
+	/**
+	 * A source reading the remaining bytes of a buffer, for instance a
+	 * {@link java.nio.MappedByteBuffer} of a memory-mapped file. Each read works on a
+	 * duplicate, so the buffer's position is never changed.
+	 * @param buffer The buffer
+	 * @return The source
+	 */
+	static McpBlobSource ofBuffer(ByteBuffer buffer) {
+		Assert.notNull(buffer, "Buffer must not be null");
+		ByteBuffer content = buffer.asReadOnlyBuffer();
+		return new McpBlobSource() {
+
+			@Override
+			public long size() {
+				return content.remaining();
+			}
+
+			@Override
+			public InputStream openStream() {
+				ByteBuffer view = content.duplicate();
+				return new InputStream() {
+
+					@Override
+					public int read() {
+						return view.hasRemaining() ? view.get() & 0xFF : -1;
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) {
+						if (!view.hasRemaining()) {
+							return -1;
+						}
+						int count = Math.min(len, view.remaining());
+						view.get(b, off, count);
+						return count;
+					}
+
+					@Override
+					public int available() {
+						return view.remaining();
+					}
+
+				};
+			}
+
+		};
+	}
+
+	/**
+	 * A source memory-mapping a file read-only. The mapping is made once and shared by
+	 * every read; the file must be smaller than 2 GB.
+	 * @param path The file
+	 * @return The source
+	 * @throws IOException If the file cannot be mapped
+	 */
+	static McpBlobSource mapped(Path path) throws IOException {
+		Assert.notNull(path, "Path must not be null");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return ofBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * A source of bytes already in memory.
+	 * @param bytes The content
+	 * @return The source
+	 */
+	static McpBlobSource ofBytes(byte[] bytes) {
+		Assert.notNull(bytes, "Bytes must not be null");
+		return new McpBlobSource() {
+
+			@Override
+			public long size() {
+				return bytes.length;
+			}
+
+			@Override
+			public InputStream openStream() {
+				return new ByteArrayInputStream(bytes);
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of {@link ObjectReader}s and {@link ObjectWriter}s per type.
+ *
+ * <p>
+ * Readers and writers are immutable and thread-safe, and resolve their root
+ * (de)serializer when they are created. Keeping one per type avoids building a new
+ * {@code TypeReference} and looking the (de)serializer up again on every message. The
+ * hot MCP types are built, and thereby warmed, when the registry is created so the first
+ * requests do not pay for the introspection.
+ *
+ * <p>
+ * If Jackson's Afterburner module is on the classpath it can be registered on the given
+ * mapper itself, so the registry and every transport sharing that mapper keep encoding
+ * alike. Configure the mapper before the registry is created: (de)serializers already
+ * cached by the mapper, including the warmed ones, do not pick up later changes.
+ */
+public class McpCodecRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpCodecRegistry.class);
+
+	private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+	/** Types read on every request of the standard MCP methods */
+	static final List<Class<?>> HOT_READ_TYPES = Arrays.asList(McpSchema.InitializeRequest.class,
+			McpSchema.CallToolRequest.class, McpSchema.ReadResourceRequest.class, McpSchema.GetPromptRequest.class,
+			McpSchema.SetLevelRequest.class);
+
+	/** Types written on every response of the standard MCP methods */
+	static final List<Class<?>> HOT_WRITE_TYPES = Arrays.asList(McpSchema.JSONRPCResponse.class,
+			McpSchema.JSONRPCNotification.class, McpSchema.JSONRPCRequest.class, McpSchema.InitializeResult.class,
+			McpSchema.CallToolResult.class, McpSchema.ListToolsResult.class, McpSchema.ReadResourceResult.class,
+			McpSchema.ListResourcesResult.class, McpSchema.ListResourceTemplatesResult.class,
+			McpSchema.GetPromptResult.class, McpSchema.ListPromptsResult.class, McpSchema.CompleteResult.class);
+
+	private final ObjectMapper objectMapper;
+
+	private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a registry on the given mapper, without Afterburner.
+	 * @param objectMapper The mapper to derive readers and writers from
+	 */
+	public McpCodecRegistry(ObjectMapper objectMapper) {
+		this(objectMapper, false);
+	}
+
+	/**
+	 * Creates a registry and warms the readers and writers of the hot MCP types.
+	 * @param objectMapper The mapper to derive readers and writers from
+	 * @param afterburner Whether to register Afterburner on the mapper, if it is on the
+	 * classpath
+	 */
+	public McpCodecRegistry(ObjectMapper objectMapper, boolean afterburner) {
+		Assert.notNull(objectMapper, "ObjectMapper must not be null");
+		this.objectMapper = objectMapper;
+		if (afterburner) {
+			registerAfterburner(objectMapper);
+		}
+		for (Class<?> type : HOT_READ_TYPES) {
+			reader(type);
+		}
+		for (Class<?> type : HOT_WRITE_TYPES) {
+			writer(type);
+		}
+	}
+
+	private static void registerAfterburner(ObjectMapper objectMapper) {
+		try {
+			Class<?> moduleClass = Class.forName(AFTERBURNER_MODULE, true, McpCodecRegistry.class.getClassLoader());
+			objectMapper.registerModule((Module) moduleClass.getDeclaredConstructor().newInstance());
+			logger.debug("Registered Jackson Afterburner");
+		}
+		catch (ClassNotFoundException e) {
+			logger.debug("Jackson Afterburner not on the classpath");
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			logger.warn("Failed to register Jackson Afterburner: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the mapper the readers and writers derive from
+	 */
+	public ObjectMapper objectMapper() {
+		return this.objectMapper;
+	}
+
+	/**
+	 * @param type The type to read
+	 * @return The cached reader of the type
+	 */
+	public ObjectReader reader(Class<?> type) {
+		return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+	}
+
+	/**
+	 * @param type The type to write
+	 * @return The cached writer of the type
+	 */
+	public ObjectWriter writer(Class<?> type) {
+		return this.writers.computeIfAbsent(type, this.objectMapper::writerFor);
+	}
+
+	/**
+	 * Serializes a value with the cached writer of its runtime type.
+	 * @param value The value to serialize
+	 * @return The JSON text
+	 * @throws JsonProcessingException If the value cannot be serialized
+	 */
+	public String writeValueAsString(Object value) throws JsonProcessingException {
+		return value == null ? "null" : writer(value.getClass()).writeValueAsString(value);
+	}
+
+	/**
+	 * Converts data received in a message, binding {@link McpRawJson} values straight
+	 * from their tokens.
+	 * @param data The data, possibly a {@link McpRawJson}
+	 * @param type The target type
+	 * @param <T> The target type
+	 * @return The converted data
+	 * @throws IllegalArgumentException If the data does not fit the type
+	 */
+	public <T> T convert(Object data, Class<T> type) {
+		if (data instanceof McpRawJson) {
+			try {
+				return ((McpRawJson) data).bind(reader(type));
+			}
+			catch (IOException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
+			}
+		}
+		return this.objectMapper.convertValue(data, type);
+	}
+
+}
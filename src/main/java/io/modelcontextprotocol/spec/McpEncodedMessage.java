@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.util.Assert;
+
+import java.io.IOException;
+
+/**
+ * A JSON-RPC message together with its JSON text, encoded exactly once.
+ *
+ * <p>
+ * Broadcasting a notification to every connected client used to serialize the same
+ * message once per session. An encoded message is immutable and can be shared by any
+ * number of session transports, which write the pre-encoded text (or the SSE frame built
+ * from it) instead of serializing the message again. Transports that cannot make use of
+ * the encoded form fall back to {@link McpTransport#sendMessage} with
+ * {@link #message()}.
+ *
+ * @see McpServerTransport#sendEncodedMessage(McpEncodedMessage)
+ */
+public final class McpEncodedMessage {
+
+	private final McpSchema.JSONRPCMessage message;
+
+	private final String json;
+
+	/** Lazily built SSE frame, shared by every transport writing this message */
+	private volatile SseFrame sseFrame;
+
+	private McpEncodedMessage(McpSchema.JSONRPCMessage message, String json) {
+		this.message = message;
+		this.json = json;
+	}
+
+	/**
+	 * Serializes the given message once.
+	 * @param objectMapper the mapper used to serialize the message
+	 * @param message the message to encode
+	 * @return the encoded message
+	 * @throws IOException if the message cannot be serialized
+	 */
+	public static McpEncodedMessage encode(ObjectMapper objectMapper, McpSchema.JSONRPCMessage message)
+			throws IOException {
+		Assert.notNull(objectMapper, "ObjectMapper must not be null");
+		Assert.notNull(message, "Message must not be null");
+		return new McpEncodedMessage(message, objectMapper.writeValueAsString(message));
+	}
+
+	/**
+	 * Serializes the given message once.
+	 * @param jsonCodec the codec used to serialize the message
+	 * @param message the message to encode
+	 * @return the encoded message
+	 * @throws IOException if the message cannot be serialized
+	 */
+	public static McpEncodedMessage encode(McpJsonCodec jsonCodec, McpSchema.JSONRPCMessage message)
+			throws IOException {
+		Assert.notNull(jsonCodec, "JSON codec must not be null");
+		Assert.notNull(message, "Message must not be null");
+		return new McpEncodedMessage(message, jsonCodec.encodeToString(message));
+	}
+
+	/**
+	 * The original message, for transports that need to inspect it.
+	 * @return the JSON-RPC message
+	 */
+	public McpSchema.JSONRPCMessage message() {
+		return this.message;
+	}
+
+	/**
+	 * The JSON text of the message.
+	 * @return the encoded JSON
+	 */
+	public String json() {
+		return this.json;
+	}
+
+	/**
+	 * Returns the complete SSE frame ({@code event:} and {@code data:} lines followed by
+	 * the blank line) for this message. The frame is built on first use and reused by
+	 * every subsequent caller asking for the same event type.
+	 * @param eventType the SSE event type
+	 * @return the SSE frame text
+	 */
+	public String sseFrame(String eventType) {
+		SseFrame frame = this.sseFrame;
+		if (frame == null || !frame.eventType.equals(eventType)) {
+			frame = new SseFrame(eventType, "event: " + eventType + "\ndata: " + this.json + "\n\n");
+			this.sseFrame = frame;
+		}
+		return frame.text;
+	}
+
+	private static final class SseFrame {
+
+		private final String eventType;
+
+		private final String text;
+
+		private SseFrame(String eventType, String text) {
+			this.eventType = eventType;
+			this.text = text;
+		}
+
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import io.modelcontextprotocol.util.Assert;
+
+import java.io.IOException;
+
+/**
+ * The result of a request together with its JSON text, encoded exactly once.
+ *
+ * <p>
+ * Unlike an {@link McpEncodedMessage}, which carries the id of one particular message, an
+ * encoded result can be placed in the response to any number of requests. Writing it to
+ * a JSON generator copies the pre-encoded text, whose UTF-8 bytes are kept after first
+ * use, instead of serializing the result again. Generators that write binary natively
+ * (the binary wire formats, or the token buffers of {@code convertValue}) cannot take
+ * raw JSON and get the result serialized as usual.
+ *
+ * <p>
+ * Only Jackson picks this up by itself, through {@link JsonSerializable}. A
+ * {@link McpJsonCodec} built on another library must write {@link #json()} wherever it
+ * meets an encoded result, as the codec contract requires.
+ */
+public final class McpEncodedResult implements JsonSerializable {
+
+	private final Object result;
+
+	private final SerializedString json;
+
+	private McpEncodedResult(Object result, String json) {
+		this.result = result;
+		this.json = new SerializedString(json);
+	}
+
+	/**
+	 * Serializes the given result once.
+	 * @param jsonCodec the codec used to serialize the result
+	 * @param result the result to encode
+	 * @return the encoded result
+	 * @throws IOException if the result cannot be serialized
+	 */
+	public static McpEncodedResult encode(McpJsonCodec jsonCodec, Object result) throws IOException {
+		Assert.notNull(jsonCodec, "JSON codec must not be null");
+		Assert.notNull(result, "Result must not be null");
+		return new McpEncodedResult(result, jsonCodec.encodeToString(result));
+	}
+
+	/**
+	 * The original result, for code that needs to inspect it.
+	 * @return the result
+	 */
+	public Object result() {
+		return this.result;
+	}
+
+	/**
+	 * The JSON text of the result.
+	 * @return the encoded JSON
+	 */
+	public String json() {
+		return this.json.getValue();
+	}
+
+	@Override
+	public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+		if (!gen.canWriteBinaryNatively()) {
+			gen.writeRawValue(this.json);
+		}
+		else {
+			serializers.defaultSerializeValue(this.result, gen);
+		}
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+			throws IOException {
+		serialize(gen, serializers);
+	}
+
+	@Override
+	public String toString() {
+		return json();
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * The JSON handling used by transports and sessions: encoding messages, decoding them and
+ * converting loosely typed payloads to the types handlers expect.
+ *
+ * <p>
+ * Transports and servers accept an implementation in their builders, so a faster codec
+ * or a pre-tuned mapper can be plugged in without changing any transport. The default,
+ * {@link #jackson(ObjectMapper)}, is built on Jackson. Implementations must be
+ * thread-safe.
+ *
+ * <p>
+ * Values passed to the encode methods may contain {@link McpEncodedResult}s, results that
+ * were serialized once with this codec and are answered to many requests. A codec must
+ * write such a value as its {@link McpEncodedResult#json()} text, verbatim. The Jackson
+ * codec does so through Jackson's {@code JsonSerializable}; codecs built on another
+ * library have to recognize the type themselves.
+ */
+public interface McpJsonCodec {
+
+	/**
+	 * Serializes a value to UTF-8 JSON.
+	 * @param value The value to serialize
+	 * @return The JSON bytes
+	 * @throws IOException If the value cannot be serialized
+	 */
+	byte[] encode(Object value) throws IOException;
+
+	/**
+	 * Serializes a value as UTF-8 JSON to a stream, which is left open. Implementations
+	 * should write as they serialize, so that large values are never held in memory as a
+	 * whole.
+	 * @param value The value to serialize
+	 * @param out The stream to write to
+	 * @throws IOException If the value cannot be serialized or written
+	 */
+	void encode(Object value, OutputStream out) throws IOException;
+
+	/**
+	 * Serializes a value as JSON text to a writer, which is left open. The default
+	 * implementation writes the result of {@link #encodeToString(Object)}.
+	 * @param value The value to serialize
+	 * @param out The writer to write to
+	 * @throws IOException If the value cannot be serialized or written
+	 */
+	default void encode(Object value, Writer out) throws IOException {
+		out.write(encodeToString(value));
+	}
+
+	/**
+	 * Serializes a value to a JSON string.
+	 * @param value The value to serialize
+	 * @return The JSON text
+	 * @throws IOException If the value cannot be serialized
+	 */
+	String encodeToString(Object value) throws IOException;
+
+	/**
+	 * Deserializes UTF-8 JSON.
+	 * @param json The JSON bytes
+	 * @param type The target type
+	 * @param <T> The target type
+	 * @return The deserialized value
+	 * @throws IOException If the JSON is malformed or does not fit the type
+	 */
+	<T> T decode(byte[] json, Class<T> type) throws IOException;
+
+	/**
+	 * Deserializes JSON from a stream.
+	 * @param in The stream to read; it is closed afterwards
+	 * @param type The target type
+	 * @param <T> The target type
+	 * @return The deserialized value
+	 * @throws IOException If the JSON is malformed or does not fit the type
+	 */
+	<T> T decode(InputStream in, Class<T> type) throws IOException;
+
+	/**
+	 * Deserializes a JSON string.
+	 * @param json The JSON text
+	 * @param type The target type
+	 * @param <T> The target type
+	 * @return The deserialized value
+	 * @throws IOException If the JSON is malformed or does not fit the type
+	 */
+	<T> T decode(String json, Class<T> type) throws IOException;
+
+	/**
+	 * Deserializes a JSON string to a generic type.
+	 * @param json The JSON text
+	 * @param typeRef The target type
+	 * @param <T> The target type
+	 * @return The deserialized value
+	 * @throws IOException If the JSON is malformed or does not fit the type
+	 */
+	<T> T decode(String json, TypeReference<T> typeRef) throws IOException;
+
+	/**
+	 * Decodes a JSON-RPC message, or a batch of them.
+	 * @param json The JSON text
+	 * @return The decoded message
+	 * @throws IOException If the JSON is malformed
+	 * @throws IllegalArgumentException If the JSON is not a JSON-RPC message or batch
+	 */
+	McpSchema.JSONRPCMessage decodeMessage(String json) throws IOException;
+
+	/**
+	 * Decodes a JSON-RPC message, or a batch of them, from a stream.
+	 * @param in The stream to read; it is closed afterwards
+	 * @param maxBytes The maximum size of the payload
+	 * @return The decoded message
+	 * @throws io.modelcontextprotocol.util.BoundedInputStream.LimitExceededException if
+	 * the payload is larger than {@code maxBytes}
+	 * @throws IOException If the JSON is malformed
+	 * @throws IllegalArgumentException If the JSON is not a JSON-RPC message or batch
+	 */
+	McpSchema.JSONRPCMessage decodeMessage(InputStream in, long maxBytes) throws IOException;
+
+	/**
+	 * Converts data received in a message, such as request params, to a type.
+	 * @param data The data
+	 * @param type The target type
+	 * @param <T> The target type
+	 * @return The converted data
+	 * @throws IllegalArgumentException If the data does not fit the type
+	 */
+	<T> T convert(Object data, Class<T> type);
+
+	/**
+	 * Converts data received in a message, such as request params, to a generic type.
+	 * @param data The data
+	 * @param typeRef The target type
+	 * @param <T> The target type
+	 * @return The converted data
+	 * @throws IllegalArgumentException If the data does not fit the type
+	 */
+	<T> T convert(Object data, TypeReference<T> typeRef);
+
+	/**
+	 * Creates the default codec.
+	 * @param objectMapper The mapper to use
+	 * @return A Jackson based codec
+	 */
+	static McpJsonCodec jackson(ObjectMapper objectMapper) {
+		return new JacksonMcpJsonCodec(objectMapper);
+	}
+
+}
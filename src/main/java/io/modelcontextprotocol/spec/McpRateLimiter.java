@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import io.modelcontextprotocol.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limits for the requests a client sends over a session.
+ *
+ * <p>
+ * Every session gets its own bucket per method, so one client flooding
+ * {@code tools/call} only exhausts its own tokens. The limit of a bucket is looked up on
+ * every request, most specific first: a limit set for the session and method, a limit
+ * set for the method, and finally the default limit. Methods without any limit are not
+ * throttled. Limits may be changed at any time; existing buckets pick up the new rate
+ * and burst on their next request. The {@code initialize} request is never throttled.
+ *
+ * <p>
+ * Buckets are lock-free: each one keeps the theoretical arrival time of its next request
+ * (GCRA) in a single {@link AtomicLong}, which behaves exactly like a token bucket
+ * refilled continuously at the limit's rate.
+ */
+public class McpRateLimiter {
+
+	private volatile Limit defaultLimit;
+
+	private final Map<String, Limit> methodLimits = new ConcurrentHashMap<>();
+
+	private final Map<String, Map<String, Limit>> sessionLimits = new ConcurrentHashMap<>();
+
+	/**
+	 * Sets the limit of every method without a more specific one.
+	 * @param limit The limit, or {@code null} to leave such methods unthrottled
+	 * @return This limiter
+	 */
+	public McpRateLimiter defaultLimit(Limit limit) {
+		this.defaultLimit = limit;
+		return this;
+	}
+
+	/**
+	 * Sets the limit of a method for all sessions.
+	 * @param method The JSON-RPC method, e.g. {@code tools/call}
+	 * @param limit The limit, or {@code null} to remove it
+	 * @return This limiter
+	 */
+	public McpRateLimiter methodLimit(String method, Limit limit) {
+		Assert.hasText(method, "Method must not be empty");
+		if (limit == null) {
+			this.methodLimits.remove(method);
+		}
+		else {
+			this.methodLimits.put(method, limit);
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the limit of a method for a single session, overriding the method and default
+	 * limits.
+	 * @param sessionId The ID of the session
+	 * @param method The JSON-RPC method
+	 * @param limit The limit, or {@code null} to remove it
+	 * @return This limiter
+	 */
+	public McpRateLimiter sessionLimit(String sessionId, String method, Limit limit) {
+		Assert.hasText(sessionId, "Session ID must not be empty");
+		Assert.hasText(method, "Method must not be empty");
+		if (limit == null) {
+			this.sessionLimits.computeIfPresent(sessionId, (id, limits) -> {
+				limits.remove(method);
+				return limits.isEmpty() ? null : limits;
+			});
+		}
+		else {
+			this.sessionLimits.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(method, limit);
+		}
+		return this;
+	}
+
+	/**
+	 * Removes every limit set for a session.
+	 * @param sessionId The ID of the session
+	 */
+	public void clearSessionLimits(String sessionId) {
+		this.sessionLimits.remove(sessionId);
+	}
+
+	/**
+	 * Looks up the limit that applies to a request.
+	 * @param sessionId The ID of the session
+	 * @param method The JSON-RPC method
+	 * @return The limit, or {@code null} if the request is not throttled
+	 */
+	public Limit limitFor(String sessionId, String method) {
+		if (McpSchema.METHOD_INITIALIZE.equals(method)) {
+			return null;
+		}
+		Map<String, Limit> limits = this.sessionLimits.get(sessionId);
+		if (limits != null) {
+			Limit limit = limits.get(method);
+			if (limit != null) {
+				return limit;
+			}
+		}
+		Limit limit = this.methodLimits.get(method);
+		return limit != null ? limit : this.defaultLimit;
+	}
+
+	/**
+	 * Creates the buckets of a new session. They are owned by the session and go away
+	 * with it; the limits set for the session go away when the session releases its
+	 * buckets.
+	 * @param sessionId The ID of the session
+	 * @return The session's buckets
+	 */
+	Buckets newSession(String sessionId) {
+		return new Buckets(sessionId);
+	}
+
+	/**
+	 * The buckets of one session, created lazily per method.
+	 */
+	final class Buckets {
+
+		private final String sessionId;
+
+		/** Theoretical arrival time of the next request, keyed by method */
+		private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+		private Buckets(String sessionId) {
+			this.sessionId = sessionId;
+		}
+
+		/**
+		 * Drops the buckets and the limits set for the session once it is gone.
+		 */
+		void release() {
+			this.buckets.clear();
+			clearSessionLimits(this.sessionId);
+		}
+
+		/**
+		 * Takes a token for a request.
+		 * @param method The JSON-RPC method of the request
+		 * @return 0 if the request may proceed, otherwise the number of nanoseconds
+		 * until a token becomes available
+		 */
+		long tryAcquire(String method) {
+			Limit limit = limitFor(this.sessionId, method);
+			if (limit == null) {
+				return 0L;
+			}
+			AtomicLong bucket = this.buckets.computeIfAbsent(method, m -> new AtomicLong(Long.MIN_VALUE));
+			for (;;) {
+				long now = System.nanoTime();
+				long tat = bucket.get();
+				long next = (tat == Long.MIN_VALUE || tat - now < 0 ? now : tat) + limit.emissionNanos;
+				long excess = next - now - limit.toleranceNanos;
+				if (excess > 0) {
+					return excess;
+				}
+				if (bucket.compareAndSet(tat, next)) {
+					return 0L;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A sustained rate of requests plus the burst allowed on top of it.
+	 */
+	public static final class Limit {
+
+		private final int burst;
+
+		private final double permitsPerSecond;
+
+		private final long emissionNanos;
+
+		private final long toleranceNanos;
+
+		private Limit(int burst, double permitsPerSecond) {
+			Assert.isTrue(burst > 0, "Burst must be positive");
+			Assert.isTrue(permitsPerSecond > 0, "Permits per second must be positive");
+			this.burst = burst;
+			this.permitsPerSecond = permitsPerSecond;
+			this.emissionNanos = Math.max(1L, (long) (Duration.ofSeconds(1).toNanos() / permitsPerSecond));
+			this.toleranceNanos = this.emissionNanos * burst;
+		}
+
+		/**
+		 * @param permitsPerSecond The rate at which tokens are refilled
+		 * @param burst The capacity of the bucket
+		 * @return A new limit
+		 */
+		public static Limit of(double permitsPerSecond, int burst) {
+			return new Limit(burst, permitsPerSecond);
+		}
+
+		/**
+		 * @param permits The number of requests allowed per period, also used as burst
+		 * @param period The period
+		 * @return A new limit
+		 */
+		public static Limit of(int permits, Duration period) {
+			Assert.notNull(period, "Period must not be null");
+			Assert.isTrue(!period.isNegative() && !period.isZero(), "Period must be positive");
+			return new Limit(permits, permits * (double) Duration.ofSeconds(1).toNanos() / period.toNanos());
+		}
+
+		public int burst() {
+			return this.burst;
+		}
+
+		public double permitsPerSecond() {
+			return this.permitsPerSecond;
+		}
+
+		@Override
+		public String toString() {
+			return "Limit[" + this.permitsPerSecond + "/s, burst " + this.burst + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A JSON value kept as the tokens it was parsed from, bound to a Java type only when
+ * somebody asks for it.
+ *
+ * <p>
+ * Incoming request and notification params are captured this way, so a handler binds
+ * them once, straight to the type it needs, instead of the params first being turned
+ * into a generic {@code Map} and then converted again. Params that are never looked at,
+ * or only passed on, are never materialized at all. Writing a raw value replays its
+ * tokens, so forwarding it produces the original JSON.
+ *
+ * <p>
+ * Code that expects params to be a {@code Map} should go through
+ * {@link #convert(ObjectMapper, Object, TypeReference)}, which accepts raw values as well
+ * as already bound ones.
+ */
+public final class McpRawJson implements JsonSerializable {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final TokenBuffer tokens;
+
+	private McpRawJson(TokenBuffer tokens) {
+		this.tokens = tokens;
+	}
+
+	/**
+	 * Captures the value the parser is positioned on, leaving the parser on its last
+	 * token.
+	 * @param parser The parser, positioned on the first token of the value
+	 * @return The captured value
+	 * @throws IOException If the value cannot be read
+	 */
+	static McpRawJson capture(JsonParser parser) throws IOException {
+		TokenBuffer tokens = new TokenBuffer(parser);
+		tokens.copyCurrentStructure(parser);
+		return new McpRawJson(tokens);
+	}
+
+	/**
+	 * Binds the value to a type.
+	 * @param objectMapper The mapper to bind with
+	 * @param typeRef The target type
+	 * @param <T> The target type
+	 * @return A new instance of the target type
+	 * @throws IOException If the value does not fit the type
+	 */
+	public <T> T bind(ObjectMapper objectMapper, TypeReference<T> typeRef) throws IOException {
+		try (JsonParser parser = this.tokens.asParser(objectMapper)) {
+			return objectMapper.readValue(parser, typeRef);
+		}
+	}
+
+	/**
+	 * Binds the value to a class.
+	 * @param objectMapper The mapper to bind with
+	 * @param type The target class
+	 * @param <T> The target type
+	 * @return A new instance of the target class
+	 * @throws IOException If the value does not fit the class
+	 */
+	public <T> T bind(ObjectMapper objectMapper, Class<T> type) throws IOException {
+		try (JsonParser parser = this.tokens.asParser(objectMapper)) {
+			return objectMapper.readValue(parser, type);
+		}
+	}
+
+	/**
+	 * Binds the value with a prepared reader.
+	 * @param reader The reader of the target type
+	 * @param <T> The target type
+	 * @return A new instance of the reader's type
+	 * @throws IOException If the value does not fit the type
+	 */
+	public <T> T bind(ObjectReader reader) throws IOException {
+		try (JsonParser parser = this.tokens.asParser(reader)) {
+			return reader.readValue(parser);
+		}
+	}
+
+	/**
+	 * Converts data received in a message to a type, binding raw values directly and
+	 * falling back to {@link ObjectMapper#convertValue(Object, TypeReference)} for
+	 * anything else.
+	 * @param objectMapper The mapper to convert with
+	 * @param data The data, possibly a {@link McpRawJson}
+	 * @param typeRef The target type
+	 * @param <T> The target type
+	 * @return The converted data
+	 * @throws IllegalArgumentException If the data does not fit the type
+	 */
+	public static <T> T convert(ObjectMapper objectMapper, Object data, TypeReference<T> typeRef) {
+		if (data instanceof McpRawJson) {
+			try {
+				return ((McpRawJson) data).bind(objectMapper, typeRef);
+			}
+			catch (IOException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
+			}
+		}
+		return objectMapper.convertValue(data, typeRef);
+	}
+
+	@Override
+	public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+		this.tokens.serialize(gen);
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+			throws IOException {
+		serialize(gen, serializers);
+	}
+
+	@Override
+	public String toString() {
+		StringWriter json = new StringWriter();
+		try (JsonGenerator gen = JSON_FACTORY.createGenerator(json)) {
+			this.tokens.serialize(gen);
+		}
+		catch (IOException e) {
+			return "McpRawJson[" + e.getMessage() + "]";
+		}
+		return json.toString();
+	}
+
+}
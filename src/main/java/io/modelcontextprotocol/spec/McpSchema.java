@@ -6,9 +6,12 @@ package io.modelcontextprotocol.spec;
 
 import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.modelcontextprotocol.util.Assert;
+import io.modelcontextprotocol.util.BoundedInputStream;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 /**
@@ -91,7 +95,16 @@ public final class McpSchema {
 	// Sampling Methods
 	public static final String METHOD_SAMPLING_CREATE_MESSAGE = "sampling/createMessage";
 
-	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	/**
+	 * Codec used by the convenience constructors that accept JSON text. Held lazily so
+	 * building it, which warms readers of the nested types, does not run while this class
+	 * is still being initialized.
+	 */
+	private static final class DefaultJsonCodec {
+
+		private static final McpJsonCodec INSTANCE = McpJsonCodec.jackson(new ObjectMapper());
+
+	}
 
 	// ---------------------------
 	// JSON-RPC Error Codes
@@ -126,6 +139,12 @@ public final class McpSchema {
 		 */
 		public static final int INTERNAL_ERROR = -32603;
 
+		/**
+		 * The request exceeded the session's rate limit (implementation-defined server
+		 * error).
+		 */
+		public static final int RATE_LIMITED = -32029;
+
 	}
 
 	public interface Request {
@@ -135,11 +154,13 @@ public final class McpSchema {
 	};
 
 	/**
-	 * Deserializes a JSON string into a JSONRPCMessage object.
+	 * Deserializes a JSON string into a JSONRPCMessage object. A JSON array is read as a
+	 * {@link JSONRPCBatch} of the messages it contains.
 	 * @param objectMapper The ObjectMapper instance to use for deserialization
 	 * @param jsonText The JSON string to deserialize
 	 * @return A JSONRPCMessage instance using either the {@link JSONRPCRequest},
-	 * {@link JSONRPCNotification}, or {@link JSONRPCResponse} classes.
+	 * {@link JSONRPCNotification}, {@link JSONRPCResponse} or {@link JSONRPCBatch}
+	 * classes.
 	 * @throws IOException If there's an error during deserialization
 	 * @throws IllegalArgumentException If the JSON structure doesn't match any known
 	 * message type
@@ -149,20 +170,29 @@ public final class McpSchema {
 
 		logger.debug("Received JSON message: {}", jsonText);
 
-		HashMap<String, Object> map = objectMapper.readValue(jsonText, MAP_TYPE_REF);
-
-		// Determine message type based on specific JSON structure
-		if (map.containsKey("method") && map.containsKey("id")) {
-			return objectMapper.convertValue(map, JSONRPCRequest.class);
-		}
-		else if (map.containsKey("method") && !map.containsKey("id")) {
-			return objectMapper.convertValue(map, JSONRPCNotification.class);
-		}
-		else if (map.containsKey("result") || map.containsKey("error")) {
-			return objectMapper.convertValue(map, JSONRPCResponse.class);
+		try (JsonParser parser = objectMapper.getFactory().createParser(jsonText)) {
+			return JsonRpcMessageDecoder.decode(objectMapper, parser);
 		}
+	}
 
-		throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + jsonText);
+	/**
+	 * Deserializes a JSON-RPC message, or a batch of them, straight from a stream with a
+	 * streaming parser, without first reading the whole payload into a String.
+	 * @param objectMapper The ObjectMapper instance to use for deserialization
+	 * @param in The stream holding the JSON payload; it is closed afterwards
+	 * @param maxBytes The maximum size of the payload
+	 * @return The deserialized JSONRPCMessage object
+	 * @throws BoundedInputStream.LimitExceededException if the payload is larger than
+	 * {@code maxBytes}, as soon as the limit is crossed
+	 * @throws IOException If there's an error during deserialization
+	 * @throws IllegalArgumentException If the JSON structure doesn't match any known
+	 * message type
+	 */
+	public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, InputStream in, long maxBytes)
+			throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(new BoundedInputStream(in, maxBytes))) {
+			return JsonRpcMessageDecoder.decode(objectMapper, parser);
+		}
 	}
 
 	// ---------------------------
@@ -248,7 +278,9 @@ public final class McpSchema {
 		@JsonProperty("jsonrpc")
 		private String jsonrpc;
 		
+		// Null for errors about a request whose id could not be read
 		@JsonProperty("id")
+		@JsonInclude(JsonInclude.Include.ALWAYS)
 		private Object id;
 		
 		@JsonProperty("result")
@@ -291,6 +323,48 @@ public final class McpSchema {
 		}
 	}
 
+	/**
+	 * A JSON-RPC batch: several requests, notifications or responses sent as one JSON
+	 * array. Serialized as the bare array of its messages.
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class JSONRPCBatch implements JSONRPCMessage {
+		@JsonValue
+		private List<JSONRPCMessage> messages;
+
+		@Override
+		public String jsonrpc() {
+			return JSONRPC_VERSION;
+		}
+
+		public List<JSONRPCMessage> messages() {
+			return messages;
+		}
+	}
+
+	/**
+	 * An element of a received batch that is not a valid JSON-RPC message. It keeps its
+	 * place in the batch so that it can be answered with an Invalid Request error while
+	 * the valid elements are handled. Never sent.
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class JSONRPCInvalidMessage implements JSONRPCMessage {
+		private String reason;
+
+		@Override
+		public String jsonrpc() {
+			return JSONRPC_VERSION;
+		}
+
+		public String reason() {
+			return reason;
+		}
+	}
+
 	// ---------------------------
 	// Initialization
 	// ---------------------------
@@ -721,9 +795,20 @@ public final class McpSchema {
 		@JsonProperty("uri")
 		private String uri;
 
+		/**
+		 * Values of the variables of the resource template the URI matched, set by the
+		 * server before the read handler is called. Not part of the protocol.
+		 */
+		@JsonIgnore
+		private Map<String, String> uriVariables;
+
 		public String uri() {
 			return this.uri;
 		}
+
+		public Map<String, String> uriVariables() {
+			return this.uriVariables != null ? this.uriVariables : Collections.emptyMap();
+		}
 	}
 
 	@Data
@@ -825,11 +910,13 @@ public final class McpSchema {
 	 * @param mimeType the MIME type of this resource.
 	 * @param blob a base64-encoded string representing the binary data of the resource.
 	 * This must only be set if the resource can actually be represented as binary data
-	 * (not text).
+	 * (not text). Null when the contents are backed by a {@link McpBlobSource}, which is
+	 * base64 encoded into the output as it is serialized.
 	 */
 	@Data
 	@JsonInclude(JsonInclude.Include.NON_ABSENT)
 	@JsonIgnoreProperties(ignoreUnknown = true)
+	@JsonSerialize(using = BlobResourceContentsSerializer.class)
 	public static class BlobResourceContents implements ResourceContents {
 		@JsonProperty("uri")
 		private String uri;
@@ -840,6 +927,34 @@ public final class McpSchema {
 		@JsonProperty("blob")
 		private String blob;
 
+		@JsonIgnore
+		private McpBlobSource blobSource;
+
+		public BlobResourceContents() {
+		}
+
+		public BlobResourceContents(String uri, String mimeType, String blob) {
+			this.uri = uri;
+			this.mimeType = mimeType;
+			this.blob = blob;
+		}
+
+		/**
+		 * Contents read from the source only when they are serialized.
+		 * @param uri the URI of this resource.
+		 * @param mimeType the MIME type of this resource.
+		 * @param blobSource the binary data of the resource.
+		 * @return the contents
+		 */
+		public static BlobResourceContents of(String uri, String mimeType, McpBlobSource blobSource) {
+			Assert.notNull(blobSource, "Blob source must not be null");
+			BlobResourceContents contents = new BlobResourceContents();
+			contents.uri = uri;
+			contents.mimeType = mimeType;
+			contents.blobSource = blobSource;
+			return contents;
+		}
+
 		@Override
 		public String uri() {
 			return uri;
@@ -1089,7 +1204,7 @@ public final class McpSchema {
 
 	private static JsonSchema parseSchema(String schema) {
 		try {
-			return OBJECT_MAPPER.readValue(schema, JsonSchema.class);
+			return DefaultJsonCodec.INSTANCE.decode(schema, JsonSchema.class);
 		}
 		catch (IOException e) {
 			throw new IllegalArgumentException("Invalid schema: " + schema, e);
@@ -1136,7 +1251,7 @@ public final class McpSchema {
 
 		private static Map<String, Object> parseJsonArguments(String jsonArguments) {
 			try {
-				return OBJECT_MAPPER.readValue(jsonArguments, MAP_TYPE_REF);
+				return DefaultJsonCodec.INSTANCE.decode(jsonArguments, MAP_TYPE_REF);
 			}
 			catch (IOException e) {
 				throw new IllegalArgumentException("Invalid arguments: " + jsonArguments, e);
@@ -4,13 +4,16 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.Sinks;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -23,6 +26,9 @@ public class McpServerSession implements McpSession {
 
 	private static final Logger logger = LoggerFactory.getLogger(McpServerSession.class);
 
+	private static final TypeReference<McpSchema.InitializeRequest> INITIALIZE_REQUEST_TYPE_REF = new TypeReference<McpSchema.InitializeRequest>() {
+	};
+
 	private final ConcurrentHashMap<Object, MonoSink<McpSchema.JSONRPCResponse>> pendingResponses = new ConcurrentHashMap<>();
 
 	private final String id;
@@ -42,6 +48,9 @@ public class McpServerSession implements McpSession {
 
 	private final McpServerTransport transport;
 
+	/** Rate limit buckets of this session, or {@code null} if requests are not throttled */
+	private final McpRateLimiter.Buckets rateLimits;
+
 	private final Sinks.One<McpAsyncServerExchange> exchangeSink = Sinks.one();
 
 	private final AtomicReference<McpSchema.ClientCapabilities> clientCapabilities = new AtomicReference<>();
@@ -72,6 +81,30 @@ public class McpServerSession implements McpSession {
 	public McpServerSession(String id, Duration requestTimeout, McpServerTransport transport,
 			InitRequestHandler initHandler, InitNotificationHandler initNotificationHandler,
 			Map<String, RequestHandler<?>> requestHandlers, Map<String, NotificationHandler> notificationHandlers) {
+		this(id, requestTimeout, transport, initHandler, initNotificationHandler, requestHandlers,
+				notificationHandlers, null);
+	}
+
+	/**
+	 * Creates a new server session whose incoming requests are throttled by the given
+	 * rate limiter.
+	 * @param id session id
+	 * @param transport the transport to use
+	 * @param initHandler called when a
+	 * {@link io.modelcontextprotocol.spec.McpSchema.InitializeRequest} is received by the
+	 * server
+	 * @param initNotificationHandler called when a
+	 * {@link io.modelcontextprotocol.spec.McpSchema#METHOD_NOTIFICATION_INITIALIZED} is
+	 * received.
+	 * @param requestHandlers map of request handlers to use
+	 * @param notificationHandlers map of notification handlers to use
+	 * @param rateLimiter the rate limits to apply to incoming requests, or {@code null}
+	 * not to throttle them
+	 */
+	public McpServerSession(String id, Duration requestTimeout, McpServerTransport transport,
+			InitRequestHandler initHandler, InitNotificationHandler initNotificationHandler,
+			Map<String, RequestHandler<?>> requestHandlers, Map<String, NotificationHandler> notificationHandlers,
+			McpRateLimiter rateLimiter) {
 		this.id = id;
 		this.requestTimeout = requestTimeout;
 		this.transport = transport;
@@ -79,6 +112,7 @@ public class McpServerSession implements McpSession {
 		this.initNotificationHandler = initNotificationHandler;
 		this.requestHandlers = requestHandlers;
 		this.notificationHandlers = notificationHandlers;
+		this.rateLimits = rateLimiter != null ? rateLimiter.newSession(id) : null;
 	}
 
 	/**
@@ -143,6 +177,16 @@ public class McpServerSession implements McpSession {
 		return this.transport.sendMessage(jsonrpcNotification);
 	}
 
+	/**
+	 * Sends a message that was serialized once for many sessions, such as a broadcast
+	 * notification, without encoding it again.
+	 * @param message the pre-encoded message
+	 * @return a Mono that completes when the message has been sent
+	 */
+	public Mono<Void> sendEncodedMessage(McpEncodedMessage message) {
+		return this.transport.sendEncodedMessage(message);
+	}
+
 	/**
 	 * Called by the {@link McpServerTransportProvider} once the session is determined.
 	 * The purpose of this method is to dispatch the message to an appropriate handler as
@@ -157,7 +201,10 @@ public class McpServerSession implements McpSession {
 		return Mono.defer(() -> {
 			// TODO handle errors for communication to without initialization happening
 			// first
-			if (message instanceof McpSchema.JSONRPCResponse) {
+			if (message instanceof McpSchema.JSONRPCBatch) {
+				return handleBatch((McpSchema.JSONRPCBatch) message);
+			}
+			else if (message instanceof McpSchema.JSONRPCResponse) {
 				McpSchema.JSONRPCResponse response = (McpSchema.JSONRPCResponse) message;
 				logger.debug("Received Response: {}", response);
 				MonoSink<McpSchema.JSONRPCResponse> sink = pendingResponses.remove(response.id());
@@ -174,8 +221,7 @@ public class McpServerSession implements McpSession {
 				logger.debug("Received request: {}", request);
 				return handleIncomingRequest(request).onErrorResume(error -> {
 					McpSchema.JSONRPCResponse errorResponse = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
-							new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR,
-									error.getMessage(), null));
+							toJsonRpcError(error));
 					// TODO: Should the error go to SSE or back as POST return?
 					return this.transport.sendMessage(errorResponse).then(Mono.empty());
 				}).flatMap(this.transport::sendMessage);
@@ -196,6 +242,41 @@ public class McpServerSession implements McpSession {
 		});
 	}
 
+	/**
+	 * Handles the messages of a batch concurrently and sends the responses to its
+	 * requests back as a single batch, in request order. Invalid elements are answered
+	 * with an Invalid Request error in their place. Nothing is sent if the batch held no
+	 * requests or invalid elements.
+	 * @param batch The incoming JSON-RPC batch
+	 * @return A Mono that completes when every message is processed and the response
+	 * batch has been sent
+	 */
+	private Mono<Void> handleBatch(McpSchema.JSONRPCBatch batch) {
+		logger.debug("Received batch of {} messages", batch.messages().size());
+		return Flux.fromIterable(batch.messages())
+			.flatMapSequential(this::handleBatchElement)
+			.cast(McpSchema.JSONRPCMessage.class)
+			.collectList()
+			.flatMap(responses -> responses.isEmpty() ? Mono.empty()
+					: this.transport.sendMessage(new McpSchema.JSONRPCBatch(responses)));
+	}
+
+	private Mono<McpSchema.JSONRPCResponse> handleBatchElement(McpSchema.JSONRPCMessage message) {
+		if (message instanceof McpSchema.JSONRPCRequest) {
+			McpSchema.JSONRPCRequest request = (McpSchema.JSONRPCRequest) message;
+			return handleIncomingRequest(request)
+				.onErrorResume(error -> Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION,
+						request.id(), null, toJsonRpcError(error))));
+		}
+		if (message instanceof McpSchema.JSONRPCInvalidMessage) {
+			logger.debug("Received invalid batch element: {}", ((McpSchema.JSONRPCInvalidMessage) message).reason());
+			return Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, null, null,
+					new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_REQUEST,
+							((McpSchema.JSONRPCInvalidMessage) message).reason(), null)));
+		}
+		return handle(message).onErrorResume(error -> Mono.empty()).then(Mono.empty());
+	}
+
 	/**
 	 * Handles an incoming JSON-RPC request by routing it to the appropriate handler.
 	 * @param request The incoming JSON-RPC request
@@ -203,12 +284,23 @@ public class McpServerSession implements McpSession {
 	 */
 	private Mono<McpSchema.JSONRPCResponse> handleIncomingRequest(McpSchema.JSONRPCRequest request) {
 		return Mono.defer(() -> {
+			if (this.rateLimits != null) {
+				long waitNanos = this.rateLimits.tryAcquire(request.method());
+				if (waitNanos > 0) {
+					logger.debug("Rate limit exceeded for {} in session {}", request.method(), this.id);
+					Map<String, Object> data = new HashMap<>();
+					data.put("method", request.method());
+					data.put("retryAfterMillis", Math.max(1L, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+					return Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+							new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.RATE_LIMITED,
+									"Rate limit exceeded: " + request.method(), data)));
+				}
+			}
 			Mono<?> resultMono;
 			if (McpSchema.METHOD_INITIALIZE.equals(request.method())) {
 				// TODO handle situation where already initialized!
 				McpSchema.InitializeRequest initializeRequest = transport.unmarshalFrom(request.params(),
-						new TypeReference<McpSchema.InitializeRequest>() {
-						});
+						INITIALIZE_REQUEST_TYPE_REF);
 
 				this.state.lazySet(STATE_INITIALIZING);
 				this.init(initializeRequest.capabilities(), initializeRequest.clientInfo());
@@ -230,9 +322,8 @@ public class McpServerSession implements McpSession {
 			return resultMono
 				.map(result -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null))
 				.onErrorResume(error -> Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(),
-						null, new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR,
-								error.getMessage(), null)))); // TODO: add error message
-																// through the data field
+						null, toJsonRpcError(error)))); // TODO: add error message through the
+														// data field
 		});
 	}
 
@@ -283,18 +374,43 @@ public class McpServerSession implements McpSession {
 		}
 	}
 
+	/**
+	 * Handlers signal errors with a specific code, such as invalid params, by throwing an
+	 * {@link McpError} carrying it; anything else is an internal error.
+	 */
+	private static McpSchema.JSONRPCResponse.JSONRPCError toJsonRpcError(Throwable error) {
+		if (error instanceof McpError && ((McpError) error).getJsonRpcError() != null) {
+			return ((McpError) error).getJsonRpcError();
+		}
+		return new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR, error.getMessage(),
+				null);
+	}
+
 	private MethodNotFoundError getMethodNotFoundError(String method) {
 		return new MethodNotFoundError(method, "Method not found: " + method, null);
 	}
 
 	@Override
 	public Mono<Void> closeGracefully() {
-		return this.transport.closeGracefully();
+		return this.transport.closeGracefully().doFinally(signal -> release());
 	}
 
 	@Override
 	public void close() {
 		this.transport.close();
+		release();
+	}
+
+	/**
+	 * Releases what is kept for this session outside of it, such as the rate limits set
+	 * for it. Closing the session does so; transports that drop a session without closing
+	 * it, e.g. after its connection went away, call this themselves. Calling it more than
+	 * once has no effect.
+	 */
+	public void release() {
+		if (this.rateLimits != null) {
+			this.rateLimits.release();
+		}
 	}
 
 	/**
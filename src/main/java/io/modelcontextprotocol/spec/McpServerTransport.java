@@ -1,5 +1,7 @@
 package io.modelcontextprotocol.spec;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Marker interface for the server-side MCP transport.
  *
@@ -8,4 +10,17 @@ package io.modelcontextprotocol.spec;
  */
 public interface McpServerTransport extends McpTransport {
 
+	/**
+	 * Sends a message that has already been serialized, typically because the same
+	 * message is being broadcast to many sessions. Transports that can write the
+	 * pre-encoded text directly should override this method; the default implementation
+	 * serializes {@link McpEncodedMessage#message()} again through
+	 * {@link #sendMessage(McpSchema.JSONRPCMessage)}.
+	 * @param message the pre-encoded message to send
+	 * @return a {@link Mono<Void>} that completes when the message has been sent
+	 */
+	default Mono<Void> sendEncodedMessage(McpEncodedMessage message) {
+		return sendMessage(message.message());
+	}
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Encodings of JSON-RPC messages on the HTTP SSE transports.
+ *
+ * <p>
+ * Text JSON is always supported. When both peers are this library they can negotiate a
+ * binary Jackson format instead, which is cheaper to produce and parse and smaller on the
+ * wire:
+ * <ol>
+ * <li>the client lists the formats it accepts, in order of preference, in the
+ * {@value #HEADER} header of the SSE request;</li>
+ * <li>the server picks the first one it has enabled and adds it to the message endpoint
+ * it announces as the {@value #ENDPOINT_PARAM} query parameter;</li>
+ * <li>from then on the client POSTs messages in that format, with its
+ * {@link #mediaType()} as the content type, and the server sends SSE message events
+ * whose data is the base64 encoded message.</li>
+ * </ol>
+ * Peers that do not send or recognize the header keep using JSON.
+ *
+ * <p>
+ * The binary formats need the matching {@code jackson-dataformat-smile} or
+ * {@code jackson-dataformat-cbor} module on the classpath; a format whose module is
+ * missing is never negotiated.
+ */
+public enum McpWireFormat {
+
+	JSON("json", "application/json", null),
+
+	SMILE("smile", "application/x-jackson-smile", "com.fasterxml.jackson.dataformat.smile.SmileFactory"),
+
+	CBOR("cbor", "application/cbor", "com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+
+	/** Request header listing the formats a client accepts */
+	public static final String HEADER = "MCP-Wire-Format";
+
+	/** Query parameter of the message endpoint naming the negotiated format */
+	public static final String ENDPOINT_PARAM = "wireFormat";
+
+	private final String id;
+
+	private final String mediaType;
+
+	private final Class<?> factoryClass;
+
+	McpWireFormat(String id, String mediaType, String factoryClassName) {
+		this.id = id;
+		this.mediaType = mediaType;
+		this.factoryClass = factoryClassName != null ? loadClass(factoryClassName) : null;
+	}
+
+	private static Class<?> loadClass(String className) {
+		try {
+			return Class.forName(className, false, McpWireFormat.class.getClassLoader());
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the name of the format in the {@value #HEADER} header and the endpoint
+	 */
+	public String id() {
+		return this.id;
+	}
+
+	/**
+	 * @return the content type of message bodies in this format
+	 */
+	public String mediaType() {
+		return this.mediaType;
+	}
+
+	/**
+	 * @return whether this is a binary format, base64 encoded in SSE events
+	 */
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * @return whether the Jackson module of this format is on the classpath
+	 */
+	public boolean isAvailable() {
+		return !isBinary() || this.factoryClass != null;
+	}
+
+	/**
+	 * Creates a codec for this format. JSON uses the given mapper; a binary format uses a
+	 * mapper of its own on the format's factory, configured by the annotations of the
+	 * MCP types.
+	 * @param objectMapper The mapper used for JSON
+	 * @return A codec reading and writing this format
+	 * @throws IllegalStateException If the format's module is not on the classpath
+	 */
+	public McpJsonCodec codec(ObjectMapper objectMapper) {
+		if (!isBinary()) {
+			return McpJsonCodec.jackson(objectMapper);
+		}
+		if (this.factoryClass == null) {
+			throw new IllegalStateException("The Jackson " + this.id + " module is not on the classpath");
+		}
+		try {
+			JsonFactory factory = (JsonFactory) this.factoryClass.getDeclaredConstructor().newInstance();
+			return McpJsonCodec.jackson(new ObjectMapper(factory));
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to create the Jackson " + this.id + " factory", e);
+		}
+	}
+
+	/**
+	 * Encodes a message as the data of an SSE event.
+	 * @param codec The codec of this format
+	 * @param message The message to encode
+	 * @return The JSON text, or the base64 encoded binary message
+	 * @throws IOException If the message cannot be serialized
+	 */
+	public String encodeEventData(McpJsonCodec codec, McpSchema.JSONRPCMessage message) throws IOException {
+		return isBinary() ? Base64.getEncoder().encodeToString(codec.encode(message)) : codec.encodeToString(message);
+	}
+
+	/**
+	 * Decodes the data of an SSE message event.
+	 * @param codec The codec of this format
+	 * @param data The JSON text, or the base64 encoded binary message
+	 * @return The decoded message
+	 * @throws IOException If the message is malformed
+	 */
+	public McpSchema.JSONRPCMessage decodeEventData(McpJsonCodec codec, String data) throws IOException {
+		if (!isBinary()) {
+			return codec.decodeMessage(data);
+		}
+		byte[] bytes;
+		try {
+			bytes = Base64.getMimeDecoder().decode(data);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("Invalid base64 " + this.id + " event data", e);
+		}
+		return codec.decodeMessage(new ByteArrayInputStream(bytes), bytes.length);
+	}
+
+	/**
+	 * Looks a format up by its id.
+	 * @param id The id, case-insensitive
+	 * @return The format, or null if the id is unknown
+	 */
+	public static McpWireFormat fromId(String id) {
+		if (id == null) {
+			return null;
+		}
+		String normalized = id.trim().toLowerCase(Locale.ROOT);
+		for (McpWireFormat format : values()) {
+			if (format.id.equals(normalized)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves the format of a request body from its content type.
+	 * @param contentType The content type, possibly with parameters, or null
+	 * @return The binary format with that media type, or JSON for any other content type
+	 */
+	public static McpWireFormat fromContentType(String contentType) {
+		if (contentType == null) {
+			return JSON;
+		}
+		int semicolon = contentType.indexOf(';');
+		String mediaType = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim()
+			.toLowerCase(Locale.ROOT);
+		for (McpWireFormat format : values()) {
+			if (format.mediaType.equals(mediaType)) {
+				return format;
+			}
+		}
+		return JSON;
+	}
+
+	/**
+	 * Picks the format for a session from the client's offer.
+	 * @param offer The value of the {@value #HEADER} header, comma separated ids in order
+	 * of preference, or null
+	 * @param enabled The binary formats the server accepts
+	 * @return The first offered format that is enabled and available, or JSON
+	 */
+	public static McpWireFormat negotiate(String offer, Collection<McpWireFormat> enabled) {
+		if (offer == null || enabled.isEmpty()) {
+			return JSON;
+		}
+		for (String id : offer.split(",")) {
+			McpWireFormat format = fromId(id);
+			if (format != null && format.isBinary() && enabled.contains(format) && format.isAvailable()) {
+				return format;
+			}
+		}
+		return JSON;
+	}
+
+	/**
+	 * Reads the negotiated format from the message endpoint a server announced.
+	 * @param endpoint The endpoint URL
+	 * @return The format named by its {@value #ENDPOINT_PARAM} parameter, or JSON
+	 */
+	public static McpWireFormat fromEndpoint(String endpoint) {
+		int query = endpoint.indexOf('?');
+		if (query < 0) {
+			return JSON;
+		}
+		for (String param : endpoint.substring(query + 1).split("&")) {
+			if (param.startsWith(ENDPOINT_PARAM + "=")) {
+				McpWireFormat format = fromId(param.substring(ENDPOINT_PARAM.length() + 1));
+				return format != null ? format : JSON;
+			}
+		}
+		return JSON;
+	}
+
+}
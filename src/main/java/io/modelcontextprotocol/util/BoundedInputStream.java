@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that fails as soon as more than a given number of bytes has been read
+ * from it. Used to cap request bodies while they are being parsed, so an oversized
+ * payload is rejected before it has been buffered in full.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+	private final long maxBytes;
+
+	private long count;
+
+	/**
+	 * @param in The stream to read from
+	 * @param maxBytes The maximum number of bytes that may be read
+	 */
+	public BoundedInputStream(InputStream in, long maxBytes) {
+		super(in);
+		Assert.notNull(in, "Input stream must not be null");
+		Assert.isTrue(maxBytes > 0, "Max bytes must be positive");
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = super.read(b, off, len);
+		if (read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		count(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void count(long read) throws LimitExceededException {
+		this.count += read;
+		if (this.count > this.maxBytes) {
+			throw new LimitExceededException(this.maxBytes);
+		}
+	}
+
+	/**
+	 * Tells whether a failure was caused by a stream exceeding its limit.
+	 * @param error The failure, possibly wrapping the cause
+	 * @return {@code true} if a {@link LimitExceededException} is in the cause chain
+	 */
+	public static boolean isLimitExceeded(Throwable error) {
+		for (Throwable t = error; t != null; t = t.getCause()) {
+			if (t instanceof LimitExceededException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Thrown when more bytes are read than allowed.
+	 */
+	public static class LimitExceededException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public LimitExceededException(long maxBytes) {
+			super("Payload exceeds the limit of " + maxBytes + " bytes");
+		}
+
+	}
+
+}
@@ -3,21 +3,65 @@
 */
 package io.modelcontextprotocol.util;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
+ * Creates {@link DefaultMcpUriTemplateManager}s, keeping the most recently used ones in a
+ * bounded cache so a template is parsed and compiled once rather than on every request
+ * that needs it.
+ *
  * @author Christian Tzolov
  */
 public class DefaultMcpUriTemplateManagerFactory implements McpUriTemplateManagerFactory {
 
+	/** Default number of compiled templates kept */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	private final Map<String, McpUriTemplateManager> cache;
+
+	public DefaultMcpUriTemplateManagerFactory() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param cacheSize The maximum number of compiled templates kept, least recently used
+	 * ones are evicted first; 0 disables the cache
+	 */
+	public DefaultMcpUriTemplateManagerFactory(int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "Cache size must not be negative");
+		this.cache = new LinkedHashMap<String, McpUriTemplateManager>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, McpUriTemplateManager> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
 	/**
 	 * Creates a new instance of {@link McpUriTemplateManager} with the specified URI
-	 * template.
+	 * template, or returns the cached one.
 	 * @param uriTemplate The URI template to be used for variable extraction
 	 * @return A new instance of {@link McpUriTemplateManager}
 	 * @throws IllegalArgumentException if the URI template is null or empty
 	 */
 	@Override
 	public McpUriTemplateManager create(String uriTemplate) {
-		return new DefaultMcpUriTemplateManager(uriTemplate);
+		if (uriTemplate == null || uriTemplate.isEmpty()) {
+			throw new IllegalArgumentException("URI template must not be null or empty");
+		}
+		synchronized (this.cache) {
+			McpUriTemplateManager manager = this.cache.get(uriTemplate);
+			if (manager != null) {
+				return manager;
+			}
+		}
+		// Compiled outside the lock; a template compiled twice concurrently is harmless
+		McpUriTemplateManager manager = new DefaultMcpUriTemplateManager(uriTemplate);
+		synchronized (this.cache) {
+			this.cache.put(uriTemplate, manager);
+		}
+		return manager;
 	}
 
 }
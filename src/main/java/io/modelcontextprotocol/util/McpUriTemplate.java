@@ -0,0 +1,323 @@
+/*
+ * Copyright 2025-2025 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A URI template parsed and compiled once, for matching URIs and extracting the values
+ * of its variables.
+ *
+ * <p>
+ * Instances are immutable and can be shared freely. Besides simple {@code {var}}
+ * expressions, which match one or more characters other than {@code /}, the RFC 6570
+ * operators are understood:
+ * <ul>
+ * <li>{@code {+var}} reserved expansion, matching any characters including {@code /};</li>
+ * <li>{@code {#var}} fragment expansion, the same after a {@code #};</li>
+ * <li>{@code {.var}} label expansion, a value after a {@code .};</li>
+ * <li>{@code {/var}} path segments, a segment after a {@code /}, or several with
+ * {@code {/var*}};</li>
+ * <li>{@code {;var}} path-style parameters, {@code ;var=value};</li>
+ * <li>{@code {?var}} and {@code {&var}} form-style query parameters, which are optional
+ * and may appear in any order.</li>
+ * </ul>
+ * An expression may list several variables separated by commas. Prefix modifiers such as
+ * {@code {var:3}} are accepted and do not restrict matching. Values are returned as they
+ * appear in the URI, without percent-decoding.
+ */
+public final class McpUriTemplate {
+
+	/**
+	 * An expression: an optional operator followed by a comma separated variable list.
+	 */
+	private static final Pattern EXPRESSION_PATTERN = Pattern.compile("\\{([+#./;?&]?)([^{}/]+?)\\}");
+
+	private final String template;
+
+	private final List<String> variableNames;
+
+	/** Null for a template without expressions, which matches itself only */
+	private final Pattern pattern;
+
+	/** Per capturing group of the pattern, how its text maps to variables */
+	private final List<Capture> captures;
+
+	private final boolean simple;
+
+	private McpUriTemplate(String template, List<String> variableNames, Pattern pattern, List<Capture> captures,
+			boolean simple) {
+		this.template = template;
+		this.variableNames = variableNames;
+		this.pattern = pattern;
+		this.captures = captures;
+		this.simple = simple;
+	}
+
+	/**
+	 * Parses and compiles a URI template.
+	 * @param template The URI template
+	 * @return The compiled template
+	 * @throws IllegalArgumentException if the template is empty or repeats a variable
+	 * name
+	 */
+	public static McpUriTemplate compile(String template) {
+		if (template == null || template.isEmpty()) {
+			throw new IllegalArgumentException("URI template must not be null or empty");
+		}
+		List<String> variableNames = new ArrayList<>();
+		List<Capture> captures = new ArrayList<>();
+		StringBuilder regex = new StringBuilder();
+		boolean simple = true;
+		int lastEnd = 0;
+		Matcher matcher = EXPRESSION_PATTERN.matcher(template);
+		while (matcher.find()) {
+			if (matcher.start() > lastEnd) {
+				regex.append(Pattern.quote(template.substring(lastEnd, matcher.start())));
+			}
+			String operator = matcher.group(1);
+			List<String> names = new ArrayList<>();
+			List<Boolean> exploded = new ArrayList<>();
+			for (String varspec : matcher.group(2).split(",")) {
+				String name = varspec.trim();
+				boolean explode = name.endsWith("*");
+				if (explode) {
+					name = name.substring(0, name.length() - 1);
+				}
+				int prefix = name.indexOf(':');
+				if (prefix >= 0) {
+					name = name.substring(0, prefix);
+				}
+				if (explode || prefix >= 0) {
+					simple = false;
+				}
+				if (name.isEmpty()) {
+					throw new IllegalArgumentException("Empty URI variable name in template: " + template);
+				}
+				if (variableNames.contains(name)) {
+					throw new IllegalArgumentException("Duplicate URI variable name in template: " + name);
+				}
+				variableNames.add(name);
+				names.add(name);
+				exploded.add(explode);
+			}
+			if (!operator.isEmpty() || names.size() > 1) {
+				simple = false;
+			}
+			appendExpression(regex, captures, operator, names, exploded);
+			lastEnd = matcher.end();
+		}
+		if (variableNames.isEmpty()) {
+			return new McpUriTemplate(template, Collections.emptyList(), null, Collections.emptyList(), true);
+		}
+		if (lastEnd < template.length()) {
+			regex.append(Pattern.quote(template.substring(lastEnd)));
+		}
+		return new McpUriTemplate(template, Collections.unmodifiableList(variableNames),
+				Pattern.compile(regex.toString()), Collections.unmodifiableList(captures), simple);
+	}
+
+	private static void appendExpression(StringBuilder regex, List<Capture> captures, String operator,
+			List<String> names, List<Boolean> exploded) {
+		switch (operator) {
+			case "?":
+			case "&":
+				// Query parameters are optional and unordered: capture the whole query
+				// and pick the variables out of it
+				regex.append("(?:").append(Pattern.quote(operator)).append("([^#]*))?");
+				captures.add(Capture.query(names));
+				return;
+			case ";":
+				for (String name : names) {
+					regex.append(";").append(Pattern.quote(name)).append("(?:=([^;/?#]*))?");
+					captures.add(Capture.value(name));
+				}
+				return;
+			default:
+				break;
+		}
+		String prefix;
+		String value;
+		String separator;
+		switch (operator) {
+			case "+":
+				prefix = "";
+				value = ".+?";
+				separator = ",";
+				break;
+			case "#":
+				prefix = "#";
+				value = ".+?";
+				separator = ",";
+				break;
+			case ".":
+				prefix = "\\.";
+				value = "[^/.?#]+?";
+				separator = "\\.";
+				break;
+			case "/":
+				prefix = "/";
+				value = "[^/?#]+?";
+				separator = "/";
+				break;
+			default:
+				prefix = "";
+				value = "[^/]+?";
+				separator = ",";
+				break;
+		}
+		regex.append(prefix);
+		for (int i = 0; i < names.size(); i++) {
+			if (i > 0) {
+				regex.append(separator);
+			}
+			regex.append('(').append(value);
+			if (exploded.get(i)) {
+				// Further items, each after the separator
+				regex.append("(?:").append(separator).append(value).append(")*");
+			}
+			regex.append(')');
+			captures.add(Capture.value(names.get(i)));
+		}
+	}
+
+	/**
+	 * Checks whether a URI contains any template expressions, without compiling it.
+	 * @param uri The URI or URI template
+	 * @return whether it is a URI template
+	 */
+	public static boolean containsExpression(String uri) {
+		return uri != null && EXPRESSION_PATTERN.matcher(uri).find();
+	}
+
+	/**
+	 * @return the template text
+	 */
+	public String template() {
+		return this.template;
+	}
+
+	/**
+	 * @return the names of the variables, in the order they appear
+	 */
+	public List<String> variableNames() {
+		return this.variableNames;
+	}
+
+	/**
+	 * @return whether the template has any expressions
+	 */
+	public boolean isTemplate() {
+		return this.pattern != null;
+	}
+
+	/**
+	 * @return whether every expression is a single plain {@code {var}}, without an
+	 * operator or modifier
+	 */
+	public boolean isSimple() {
+		return this.simple;
+	}
+
+	/**
+	 * Checks whether a URI matches this template.
+	 * @param uri The URI
+	 * @return whether it matches
+	 */
+	public boolean matches(String uri) {
+		if (uri == null) {
+			return false;
+		}
+		return this.pattern == null ? this.template.equals(uri) : this.pattern.matcher(uri).matches();
+	}
+
+	/**
+	 * Matches a URI and extracts the variable values.
+	 * @param uri The URI
+	 * @return The values by variable name, without the variables that are absent from
+	 * the URI, or null if the URI does not match
+	 */
+	public Map<String, String> match(String uri) {
+		if (uri == null) {
+			return null;
+		}
+		if (this.pattern == null) {
+			return this.template.equals(uri) ? Collections.emptyMap() : null;
+		}
+		Matcher matcher = this.pattern.matcher(uri);
+		if (!matcher.matches()) {
+			return null;
+		}
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < this.captures.size(); i++) {
+			String text = matcher.group(i + 1);
+			if (text != null) {
+				this.captures.get(i).extract(text, values);
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof McpUriTemplate && this.template.equals(((McpUriTemplate) o).template);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.template.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.template;
+	}
+
+	/**
+	 * How the text of one capturing group maps to variables.
+	 */
+	private static final class Capture {
+
+		private final String name;
+
+		/** The variables of a query expression, null for a single value */
+		private final List<String> queryNames;
+
+		private Capture(String name, List<String> queryNames) {
+			this.name = name;
+			this.queryNames = queryNames;
+		}
+
+		private static Capture value(String name) {
+			return new Capture(name, null);
+		}
+
+		private static Capture query(List<String> names) {
+			return new Capture(null, names);
+		}
+
+		private void extract(String text, Map<String, String> values) {
+			if (this.queryNames == null) {
+				values.put(this.name, text);
+				return;
+			}
+			for (String pair : text.split("&")) {
+				int equals = pair.indexOf('=');
+				String key = equals >= 0 ? pair.substring(0, equals) : pair;
+				if (this.queryNames.contains(key) && !values.containsKey(key)) {
+					values.put(key, equals >= 0 ? pair.substring(equals + 1) : "");
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2025-2025 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routes URIs to the values registered for matching URIs and URI templates.
+ *
+ * <p>
+ * Templates are compiled once, when they are added, into a trie of {@code /} separated
+ * segments. A segment without variables is a hash lookup on its node; a segment that is
+ * a single {@code {variable}} takes any non-empty segment; any other segment, such as
+ * {@code {name}.txt}, is matched by a pattern compiled at registration. Resolving a URI
+ * walks the trie once and yields the value together with the extracted variables. Plain
+ * URIs are found by a single hash lookup before the trie is consulted. Templates using
+ * RFC 6570 operators or modifiers are compiled into a {@link McpUriTemplate} and tried
+ * after the trie, in the order they were added.
+ *
+ * <p>
+ * The semantics follow {@link DefaultMcpUriTemplateManager}: a variable matches one or
+ * more characters other than {@code /}. Where several templates match, literal segments
+ * take precedence over variables, then templates added earlier over later ones.
+ *
+ * <p>
+ * Templates can be added and removed at any time, changing only their own branch of the
+ * trie; a branch is removed together with its last template. Resolving is lock-free and
+ * may run concurrently with changes.
+ *
+ * @param <T> The type of the routed values
+ */
+public class McpUriTemplateRouter<T> {
+
+	private static final Pattern URI_VARIABLE_PATTERN = Pattern.compile("\\{([^/]+?)\\}");
+
+	private final Map<String, T> exact = new ConcurrentHashMap<>();
+
+	private final Map<String, Route<T>> routes = new ConcurrentHashMap<>();
+
+	private final Node<T> root = new Node<>(null, null, null);
+
+	/** Routes of templates that do not fit the trie */
+	private final List<Route<T>> compiled = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Adds or replaces the value of a URI or URI template.
+	 * @param uriTemplate The URI or URI template
+	 * @param value The value
+	 * @throws IllegalArgumentException if the template is invalid or repeats a variable
+	 * name
+	 */
+	public synchronized void add(String uriTemplate, T value) {
+		Assert.hasText(uriTemplate, "URI template must not be empty");
+		Assert.notNull(value, "Value must not be null");
+		McpUriTemplate template = McpUriTemplate.compile(uriTemplate);
+		remove(uriTemplate);
+		if (!template.isTemplate()) {
+			this.exact.put(uriTemplate, value);
+			return;
+		}
+		if (!template.isSimple()) {
+			Route<T> route = new Route<>(template, template.variableNames(), value, null);
+			this.compiled.add(route);
+			this.routes.put(uriTemplate, route);
+			return;
+		}
+		List<String> variableNames = new ArrayList<>();
+		Node<T> node = this.root;
+		for (String segment : split(uriTemplate)) {
+			node = node.child(segment, variableNames);
+		}
+		Route<T> route = new Route<>(template, variableNames, value, node);
+		node.routes.add(route);
+		this.routes.put(uriTemplate, route);
+	}
+
+	/**
+	 * Removes the value of a URI or URI template.
+	 * @param uriTemplate The URI or URI template
+	 * @return whether a value was registered
+	 */
+	public synchronized boolean remove(String uriTemplate) {
+		if (this.exact.remove(uriTemplate) != null) {
+			return true;
+		}
+		Route<T> route = this.routes.remove(uriTemplate);
+		if (route == null) {
+			return false;
+		}
+		if (route.node != null) {
+			route.node.routes.remove(route);
+			route.node.prune();
+		}
+		else {
+			this.compiled.remove(route);
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the value for a URI.
+	 * @param uri The URI
+	 * @return The match, or null if no URI or template matches
+	 */
+	public Match<T> resolve(String uri) {
+		if (uri == null) {
+			return null;
+		}
+		T value = this.exact.get(uri);
+		if (value != null) {
+			return new Match<>(value, Collections.emptyMap());
+		}
+		if (this.routes.isEmpty()) {
+			return null;
+		}
+		List<String> segments = split(uri);
+		List<String> values = new ArrayList<>();
+		Route<T> route = this.root.resolve(segments, 0, values);
+		if (route == null) {
+			for (Route<T> candidate : this.compiled) {
+				Map<String, String> variables = candidate.template.match(uri);
+				if (variables != null) {
+					return new Match<>(candidate.value, Collections.unmodifiableMap(variables));
+				}
+			}
+			return null;
+		}
+		Map<String, String> variables = new LinkedHashMap<>();
+		for (int i = 0; i < route.variableNames.size(); i++) {
+			variables.put(route.variableNames.get(i), values.get(i));
+		}
+		return new Match<>(route.value, Collections.unmodifiableMap(variables));
+	}
+
+	/**
+	 * @return the number of trie nodes below the root, for checking that removed
+	 * templates leave no branches behind
+	 */
+	int nodeCount() {
+		return this.root.count() - 1;
+	}
+
+	/**
+	 * Splits on every {@code /}, keeping empty segments.
+	 */
+	private static List<String> split(String uri) {
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		int slash;
+		while ((slash = uri.indexOf('/', start)) >= 0) {
+			segments.add(uri.substring(start, slash));
+			start = slash + 1;
+		}
+		segments.add(uri.substring(start));
+		return segments;
+	}
+
+	/**
+	 * The value found for a URI and the values of the template's variables.
+	 *
+	 * @param <T> The type of the routed values
+	 */
+	public static final class Match<T> {
+
+		private final T value;
+
+		private final Map<String, String> variables;
+
+		private Match(T value, Map<String, String> variables) {
+			this.value = value;
+			this.variables = variables;
+		}
+
+		/**
+		 * @return the registered value
+		 */
+		public T value() {
+			return this.value;
+		}
+
+		/**
+		 * @return the variable values by name, empty for a plain URI
+		 */
+		public Map<String, String> variables() {
+			return this.variables;
+		}
+
+	}
+
+	private static final class Route<T> {
+
+		private final McpUriTemplate template;
+
+		private final List<String> variableNames;
+
+		private final T value;
+
+		/** The trie node the route ends at, null for a compiled route */
+		private final Node<T> node;
+
+		private Route(McpUriTemplate template, List<String> variableNames, T value, Node<T> node) {
+			this.template = template;
+			this.variableNames = variableNames;
+			this.value = value;
+			this.node = node;
+		}
+
+	}
+
+	private static final class Node<T> {
+
+		/** Null for the root */
+		private final Node<T> parent;
+
+		/** The segment leading here from the parent, if it is a literal */
+		private final String literal;
+
+		/** The pattern leading here from the parent, if the segment has variables */
+		private final SegmentPattern<T> pattern;
+
+		private final Map<String, Node<T>> literals = new ConcurrentHashMap<>();
+
+		/** Children of segments with variables, in the order they were first added */
+		private final List<SegmentPattern<T>> patterns = new CopyOnWriteArrayList<>();
+
+		/** Templates ending at this node, in the order they were added */
+		private final List<Route<T>> routes = new CopyOnWriteArrayList<>();
+
+		private Node(Node<T> parent, String literal, SegmentPattern<T> pattern) {
+			this.parent = parent;
+			this.literal = literal;
+			this.pattern = pattern;
+		}
+
+		private Node<T> child(String segment, List<String> variableNames) {
+			Matcher matcher = URI_VARIABLE_PATTERN.matcher(segment);
+			if (!matcher.find()) {
+				return this.literals.computeIfAbsent(segment, key -> new Node<>(this, key, null));
+			}
+			StringBuilder regex = new StringBuilder();
+			int lastEnd = 0;
+			int count = 0;
+			do {
+				String name = matcher.group(1);
+				if (variableNames.contains(name)) {
+					throw new IllegalArgumentException("Duplicate URI variable name in template: " + name);
+				}
+				variableNames.add(name);
+				if (matcher.start() > lastEnd) {
+					regex.append(Pattern.quote(segment.substring(lastEnd, matcher.start())));
+				}
+				regex.append("(.+?)");
+				lastEnd = matcher.end();
+				count++;
+			}
+			while (matcher.find());
+			if (lastEnd < segment.length()) {
+				regex.append(Pattern.quote(segment.substring(lastEnd)));
+			}
+			// Variables are anonymous in the trie, so templates differing only in
+			// variable names share their branch
+			String key = count == 1 && regex.toString().equals("(.+?)") ? null : regex.toString();
+			for (SegmentPattern<T> pattern : this.patterns) {
+				if (key == null ? pattern.pattern == null
+						: pattern.pattern != null && pattern.pattern.pattern().equals(key)) {
+					return pattern.node;
+				}
+			}
+			SegmentPattern<T> pattern = new SegmentPattern<>(this, key != null ? Pattern.compile(key) : null, count);
+			this.patterns.add(pattern);
+			return pattern.node;
+		}
+
+		/**
+		 * Unlinks this node, and then its ancestors, for as long as they lead to no
+		 * template.
+		 */
+		private void prune() {
+			Node<T> node = this;
+			while (node.parent != null && node.routes.isEmpty() && node.literals.isEmpty()
+					&& node.patterns.isEmpty()) {
+				if (node.pattern != null) {
+					node.parent.patterns.remove(node.pattern);
+				}
+				else {
+					node.parent.literals.remove(node.literal, node);
+				}
+				node = node.parent;
+			}
+		}
+
+		private int count() {
+			int count = 1;
+			for (Node<T> child : this.literals.values()) {
+				count += child.count();
+			}
+			for (SegmentPattern<T> pattern : this.patterns) {
+				count += pattern.node.count();
+			}
+			return count;
+		}
+
+		private Route<T> resolve(List<String> segments, int index, List<String> values) {
+			if (index == segments.size()) {
+				Iterator<Route<T>> routes = this.routes.iterator();
+				return routes.hasNext() ? routes.next() : null;
+			}
+			String segment = segments.get(index);
+			Node<T> literal = this.literals.get(segment);
+			if (literal != null) {
+				Route<T> route = literal.resolve(segments, index + 1, values);
+				if (route != null) {
+					return route;
+				}
+			}
+			for (SegmentPattern<T> pattern : this.patterns) {
+				int mark = values.size();
+				if (pattern.match(segment, values)) {
+					Route<T> route = pattern.node.resolve(segments, index + 1, values);
+					if (route != null) {
+						return route;
+					}
+					values.subList(mark, values.size()).clear();
+				}
+			}
+			return null;
+		}
+
+	}
+
+	private static final class SegmentPattern<T> {
+
+		/** Null for a segment that is a single variable */
+		private final Pattern pattern;
+
+		private final int variableCount;
+
+		private final Node<T> node;
+
+		private SegmentPattern(Node<T> parent, Pattern pattern, int variableCount) {
+			this.pattern = pattern;
+			this.variableCount = variableCount;
+			this.node = new Node<>(parent, null, this);
+		}
+
+		private boolean match(String segment, List<String> values) {
+			if (this.pattern == null) {
+				if (segment.isEmpty()) {
+					return false;
+				}
+				values.add(segment);
+				return true;
+			}
+			Matcher matcher = this.pattern.matcher(segment);
+			if (!matcher.matches()) {
+				return false;
+			}
+			for (int i = 1; i <= this.variableCount; i++) {
+				values.add(matcher.group(i));
+			}
+			return true;
+		}
+
+	}
+
+}
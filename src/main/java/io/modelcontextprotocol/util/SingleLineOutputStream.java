@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that turns CR and LF bytes into spaces, so a JSON document streamed
+ * through it occupies a single line. Used by newline-delimited transports to write
+ * messages as they are serialized instead of post-processing the complete text.
+ *
+ * <p>
+ * Valid JSON can only contain raw line breaks as whitespace between tokens (they are
+ * escaped inside strings), so replacing them does not change the document. CR and LF
+ * never occur inside multi-byte UTF-8 sequences. Closing this stream does not close the
+ * underlying one.
+ */
+public class SingleLineOutputStream extends FilterOutputStream {
+
+	/**
+	 * @param out The stream to write to
+	 */
+	public SingleLineOutputStream(OutputStream out) {
+		super(out);
+		Assert.notNull(out, "Output stream must not be null");
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.out.write(b == '\n' || b == '\r' ? ' ' : b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		int start = off;
+		int end = off + len;
+		for (int i = off; i < end; i++) {
+			if (b[i] == '\n' || b[i] == '\r') {
+				this.out.write(b, start, i - start);
+				this.out.write(' ');
+				start = i + 1;
+			}
+		}
+		this.out.write(b, start, end - start);
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+}
@@ -0,0 +1,405 @@
+package com.mcp.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.server.transport.AdmissionController;
+import io.modelcontextprotocol.spec.McpRateLimiter;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebMvcSseServerTransportProviderTest {
+
+    private static final Pattern ENDPOINT = Pattern.compile("data:(/message\\?sessionId=([^\\s]+))");
+
+    /** Converters of an application whose own mapper pretty-prints */
+    private static final List<HttpMessageConverter<?>> CONVERTERS = Arrays.asList(
+            new StringHttpMessageConverter(StandardCharsets.UTF_8), new MappingJackson2HttpMessageConverter(
+                    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)));
+
+    private static final ServerResponse.Context CONTEXT = () -> CONVERTERS;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final McpRateLimiter rateLimiter = new McpRateLimiter();
+
+    private WebMvcSseServerTransportProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        if (this.provider != null) {
+            this.provider.closeGracefully().block(Duration.ofSeconds(5));
+        }
+    }
+
+    private WebMvcSseServerTransportProvider start(WebMvcSseServerTransportProvider.Builder builder) {
+        this.provider = builder.objectMapper(this.objectMapper).messageEndpoint("/message").build();
+        Map<String, McpServerSession.RequestHandler<?>> requestHandlers = new HashMap<>();
+        requestHandlers.put("echo", (exchange, params) -> Mono.just(params));
+        this.provider.setSessionFactory(transport -> new McpServerSession("session", Duration.ofSeconds(5),
+                transport, request -> Mono.empty(), Mono::empty, requestHandlers,
+                Collections.singletonMap("note", (exchange, params) -> Mono.empty()), this.rateLimiter));
+        return this.provider;
+    }
+
+    private MockHttpServletResponse connect() throws Exception {
+        return connect(new MockHttpServletResponse(), null);
+    }
+
+    private <R extends HttpServletResponse> R connect(R servletResponse, String lastEventId) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/sse");
+        servletRequest.setAsyncSupported(true);
+        if (lastEventId != null) {
+            servletRequest.addHeader(WebMvcSseServerTransportProvider.LAST_EVENT_ID_HEADER, lastEventId);
+        }
+        handle(servletRequest, servletResponse);
+        return servletResponse;
+    }
+
+    private MockHttpServletResponse post(String sessionId, String json) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", "/message");
+        servletRequest.setParameter("sessionId", sessionId);
+        servletRequest.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletRequest.setContent(json.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        handle(servletRequest, servletResponse);
+        return servletResponse;
+    }
+
+    private void handle(MockHttpServletRequest servletRequest, HttpServletResponse servletResponse)
+            throws Exception {
+        ServerRequest request = ServerRequest.create(servletRequest, CONVERTERS);
+        ServerResponse response = this.provider.getRouterFunction().route(request).get().handle(request);
+        response.writeTo(servletRequest, servletResponse, CONTEXT);
+    }
+
+    private static String sessionId(MockHttpServletResponse stream) throws Exception {
+        return sessionId(stream.getContentAsString());
+    }
+
+    private static String sessionId(String content) {
+        Matcher matcher = ENDPOINT.matcher(content);
+        assertThat(matcher.find()).as("endpoint event").isTrue();
+        return matcher.group(2);
+    }
+
+    private void initialize(String sessionId) throws Exception {
+        post(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"" + McpSchema.METHOD_NOTIFICATION_INITIALIZED + "\"}");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void echo(String sessionId, int id) throws Exception {
+        post(sessionId, "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"echo\",\"params\":" + id + "}");
+    }
+
+    private static String echoed(String sessionId, int id) {
+        return "id:" + sessionId + ":" + id + "\nevent:message\ndata:{\"jsonrpc\":\"2.0\",\"id\":" + id
+                + ",\"result\":" + id + "}\n\n";
+    }
+
+    private static String content(MockHttpServletResponse stream) {
+        try {
+            return stream.getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void reconnectWithLastEventIdReplaysTheMissedEvents() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder().resumability(16, Duration.ofSeconds(10)));
+        BreakableResponse stream = connect(new BreakableResponse(), null);
+        String sessionId = sessionId(stream.content());
+        initialize(sessionId);
+        echo(sessionId, 1);
+        await(() -> stream.content().contains(echoed(sessionId, 1)));
+
+        stream.breakConnection();
+        echo(sessionId, 2);
+        echo(sessionId, 3);
+        await(() -> stream.failedWrites() > 0);
+
+        MockHttpServletResponse resumed = connect(new MockHttpServletResponse(), sessionId + ":1");
+        await(() -> content(resumed).contains(echoed(sessionId, 3)));
+        assertThat(sessionId(resumed)).isEqualTo(sessionId);
+        assertThat(content(resumed)).contains(echoed(sessionId, 2)).doesNotContain(echoed(sessionId, 1));
+        assertThat(content(resumed).indexOf(echoed(sessionId, 2)))
+                .isLessThan(content(resumed).indexOf(echoed(sessionId, 3)));
+        assertThat(stream.content()).doesNotContain("\"id\":2");
+
+        // The reattached stream carries the session's traffic from now on
+        echo(sessionId, 4);
+        await(() -> content(resumed).contains(echoed(sessionId, 4)));
+    }
+
+    @Test
+    void sessionNotResumedWithinTheWindowIsRemoved() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder().resumability(16, Duration.ofMillis(100)));
+        BreakableResponse stream = connect(new BreakableResponse(), null);
+        String sessionId = sessionId(stream.content());
+        initialize(sessionId);
+
+        stream.breakConnection();
+        echo(sessionId, 1);
+        await(() -> stream.failedWrites() > 0);
+        await(() -> {
+            try {
+                return post(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"note\"}").getStatus() == 404;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        MockHttpServletResponse fresh = connect(new MockHttpServletResponse(), sessionId + ":0");
+        assertThat(sessionId(fresh)).isNotEqualTo(sessionId);
+    }
+
+    @Test
+    void heartbeatsPauseWhileDetachedAndResumeOnReattach() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder()
+                .heartbeatInterval(Duration.ofMillis(100))
+                .maxMissedHeartbeats(3)
+                .resumability(16, Duration.ofSeconds(10)));
+        BreakableResponse stream = connect(new BreakableResponse(), null);
+        String sessionId = sessionId(stream.content());
+        initialize(sessionId);
+        await(() -> stream.content().contains("event:heartbeat"));
+
+        stream.breakConnection();
+        await(() -> stream.failedWrites() > 0);
+        int failedWrites = stream.failedWrites();
+        // Longer than the missed heartbeat limit; a detached session gets no heartbeats
+        // and is not reaped
+        Thread.sleep(600);
+        assertThat(stream.failedWrites()).isEqualTo(failedWrites);
+
+        MockHttpServletResponse resumed = connect(new MockHttpServletResponse(), sessionId + ":0");
+        assertThat(sessionId(resumed)).isEqualTo(sessionId);
+        await(() -> content(resumed).contains("event:heartbeat"));
+    }
+
+    @Test
+    void broadcastReachesEveryConnectedSessionAndDropsTheBrokenOnes() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder().broadcastConcurrency(1)
+                .broadcastWriteDeadline(Duration.ofSeconds(1)));
+        MockHttpServletResponse first = connect();
+        MockHttpServletResponse second = connect();
+        BreakableResponse broken = connect(new BreakableResponse(), null);
+        String brokenSessionId = sessionId(broken.content());
+        initialize(brokenSessionId);
+        broken.breakConnection();
+
+        this.provider.notifyClients("notifications/tools/list_changed", null).block(Duration.ofSeconds(5));
+
+        String event = "event:message\ndata:{\"jsonrpc\":\"2.0\",\"method\":\"notifications/tools/list_changed\"}";
+        await(() -> content(first).contains(event) && content(second).contains(event));
+        await(() -> {
+            try {
+                return post(brokenSessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"note\"}").getStatus() == 404;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void endpointEventPrecedesBroadcastsRacingTheConnection() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder());
+        AtomicBoolean broadcasting = new AtomicBoolean(true);
+        Thread broadcaster = new Thread(() -> {
+            while (broadcasting.get()) {
+                this.provider.notifyClients("notifications/tools/list_changed", null).block(Duration.ofSeconds(5));
+            }
+        });
+        broadcaster.start();
+        List<MockHttpServletResponse> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                streams.add(connect());
+            }
+            await(() -> streams.stream().allMatch(stream -> content(stream).contains("event:message")));
+        } finally {
+            broadcasting.set(false);
+            broadcaster.join();
+        }
+
+        for (MockHttpServletResponse stream : streams) {
+            String sessionId = sessionId(stream);
+            assertThat(content(stream)).startsWith("id:" + sessionId + ":0\nevent:endpoint\n");
+        }
+    }
+
+    @Test
+    void droppedSessionReleasesItsRateLimits() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder());
+        BreakableResponse stream = connect(new BreakableResponse(), null);
+        String sessionId = sessionId(stream.content());
+        initialize(sessionId);
+        // Limits are keyed by the ID of the McpServerSession, which the test factory names "session"
+        this.rateLimiter.sessionLimit("session", "echo", McpRateLimiter.Limit.of(1.0, 1));
+
+        stream.breakConnection();
+        echo(sessionId, 1);
+
+        await(() -> this.rateLimiter.limitFor("session", "echo") == null);
+    }
+
+    @Test
+    void messageDeclaredLargerThanTheLimitIsRefusedWith413() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder().maxBodySize(64));
+        String sessionId = sessionId(connect());
+
+        MockHttpServletResponse response = post(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"note\",\"params\":\""
+                + String.join("", Collections.nCopies(64, "x")) + "\"}");
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains("64 bytes");
+    }
+
+    @Test
+    void messageOfUnknownLengthIsRefusedWith413OnceItCrossesTheLimit() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder().maxBodySize(64));
+        String sessionId = sessionId(connect());
+        MockHttpServletRequest servletRequest = new ChunkedRequest("/message");
+        servletRequest.setParameter("sessionId", sessionId);
+        servletRequest.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletRequest.setContent(("{\"jsonrpc\":\"2.0\",\"method\":\"note\",\"params\":\""
+                + String.join("", Collections.nCopies(64, "x")) + "\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handle(servletRequest, response);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(this.provider.getAdmissionController().inFlight()).isZero();
+    }
+
+    @Test
+    void sessionsAboveTheAdmissionLimitAreShedWithRetryAfter() throws Exception {
+        AdmissionController admissionController = AdmissionController.builder().maxSessions(1)
+                .retryAfter(Duration.ofSeconds(7)).build();
+        start(WebMvcSseServerTransportProvider.builder().admissionController(admissionController));
+        connect();
+
+        MockHttpServletResponse shed = connect();
+
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader("Retry-After")).isEqualTo("7");
+        assertThat(admissionController.shedSessions()).isEqualTo(1);
+    }
+
+    @Test
+    void messageEventsAreEncodedByTheTransportCodecNotTheApplicationConverter() throws Exception {
+        start(WebMvcSseServerTransportProvider.builder());
+        MockHttpServletResponse stream = connect();
+        String sessionId = sessionId(stream);
+        initialize(sessionId);
+
+        post(sessionId, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":{\"a\":[1,2]}}");
+
+        await(() -> content(stream).contains("event:message"));
+        assertThat(content(stream)).contains(
+                "event:message\ndata:{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"a\":[1,2]}}\n\n");
+    }
+
+    /**
+     * POST request sent without a Content-Length, so only reading the body tells its size.
+     */
+    private static class ChunkedRequest extends MockHttpServletRequest {
+
+        ChunkedRequest(String uri) {
+            super("POST", uri);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+    }
+
+    /**
+     * Response whose connection can be broken: every write after that fails.
+     */
+    static class BreakableResponse extends HttpServletResponseWrapper {
+
+        private final MockHttpServletResponse delegate;
+
+        private final AtomicInteger failedWrites = new AtomicInteger();
+
+        private volatile boolean broken;
+
+        BreakableResponse() {
+            this(new MockHttpServletResponse());
+        }
+
+        private BreakableResponse(MockHttpServletResponse delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        void breakConnection() {
+            this.broken = true;
+        }
+
+        int failedWrites() {
+            return this.failedWrites.get();
+        }
+
+        String content() {
+            return WebMvcSseServerTransportProviderTest.content(this.delegate);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (this.broken) {
+                this.failedWrites.incrementAndGet();
+                throw new IOException("Connection reset by peer");
+            }
+            return super.getOutputStream();
+        }
+
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.mcp.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebMvcStreamableServerTransportProviderTest {
+
+    private static final List<HttpMessageConverter<?>> CONVERTERS = Arrays.asList(
+            new StringHttpMessageConverter(StandardCharsets.UTF_8), new MappingJackson2HttpMessageConverter());
+
+    private static final ServerResponse.Context CONTEXT = () -> CONVERTERS;
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\""
+            + McpSchema.METHOD_INITIALIZE + "\",\"params\":{\"protocolVersion\":\"2024-11-05\","
+            + "\"capabilities\":{},\"clientInfo\":{\"name\":\"client\",\"version\":\"1.0\"}}}";
+
+    private static final String NOTE = "{\"jsonrpc\":\"2.0\",\"method\":\"note\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private WebMvcStreamableServerTransportProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        if (this.provider != null) {
+            this.provider.closeGracefully().block(Duration.ofSeconds(5));
+        }
+    }
+
+    private void start(WebMvcStreamableServerTransportProvider.Builder builder) {
+        this.provider = builder.objectMapper(this.objectMapper).build();
+        Map<String, McpServerSession.RequestHandler<?>> requestHandlers = new HashMap<>();
+        requestHandlers.put("never", (exchange, params) -> Mono.never());
+        this.provider.setSessionFactory(transport -> new McpServerSession("session", Duration.ofSeconds(30),
+                transport,
+                request -> Mono.just(new McpSchema.InitializeResult(request.getProtocolVersion(), null,
+                        new McpSchema.Implementation("server", "1.0"), null)),
+                Mono::empty, requestHandlers,
+                Collections.singletonMap("note", (exchange, params) -> Mono.empty())));
+    }
+
+    private MockHttpServletResponse post(String sessionId, String json) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST",
+                WebMvcStreamableServerTransportProvider.DEFAULT_MCP_ENDPOINT);
+        if (sessionId != null) {
+            servletRequest.addHeader(WebMvcStreamableServerTransportProvider.SESSION_ID_HEADER, sessionId);
+        }
+        servletRequest.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletRequest.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return exchange(servletRequest);
+    }
+
+    private MockHttpServletResponse get(String sessionId) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET",
+                WebMvcStreamableServerTransportProvider.DEFAULT_MCP_ENDPOINT);
+        servletRequest.addHeader(WebMvcStreamableServerTransportProvider.SESSION_ID_HEADER, sessionId);
+        return exchange(servletRequest);
+    }
+
+    /**
+     * Handles the request and, if it went asynchronous, waits for the deferred response and
+     * writes it as the async dispatch would.
+     */
+    private MockHttpServletResponse exchange(MockHttpServletRequest servletRequest) throws Exception {
+        servletRequest.setAsyncSupported(true);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServerRequest request = ServerRequest.create(servletRequest, CONVERTERS);
+        ServerResponse response = this.provider.getRouterFunction().route(request).get().handle(request);
+        response.writeTo(servletRequest, servletResponse, CONTEXT);
+        if (servletRequest.isAsyncStarted()) {
+            WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(servletRequest);
+            await(asyncManager::hasConcurrentResult);
+            Object result = asyncManager.getConcurrentResult();
+            assertThat(result).isInstanceOf(ServerResponse.class);
+            ((ServerResponse) result).writeTo(servletRequest, servletResponse, CONTEXT);
+        }
+        return servletResponse;
+    }
+
+    private String initialize() throws Exception {
+        MockHttpServletResponse response = post(null, INITIALIZE);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        String sessionId = response.getHeader(WebMvcStreamableServerTransportProvider.SESSION_ID_HEADER);
+        assertThat(sessionId).isNotBlank();
+        post(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"" + McpSchema.METHOD_NOTIFICATION_INITIALIZED + "\"}");
+        return sessionId;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void overdueRequestIsAnsweredWithServiceUnavailable() throws Exception {
+        start(WebMvcStreamableServerTransportProvider.builder().requestTimeout(Duration.ofMillis(200)));
+        String sessionId = initialize();
+
+        long started = System.nanoTime();
+        MockHttpServletResponse response = post(sessionId, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"never\"}");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        JsonNode body = this.objectMapper.readTree(response.getContentAsString());
+        assertThat(body.toString()).contains("Request not answered within");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        // The expired request no longer blocks its ID
+        MockHttpServletResponse again = post(sessionId, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"never\"}");
+        assertThat(again.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    @Test
+    void idleSessionIsEvicted() throws Exception {
+        start(WebMvcStreamableServerTransportProvider.builder().sessionIdleTimeout(Duration.ofMillis(100)));
+        String sessionId = initialize();
+
+        // Any request would count as activity, so look only once the session had time to expire
+        Thread.sleep(500);
+
+        assertThat(post(sessionId, NOTE).getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+    }
+
+    @Test
+    void activeSessionIsKept() throws Exception {
+        start(WebMvcStreamableServerTransportProvider.builder().sessionIdleTimeout(Duration.ofMillis(300)));
+        String sessionId = initialize();
+
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(50);
+            assertThat(post(sessionId, NOTE).getStatus()).isEqualTo(HttpStatus.ACCEPTED.value());
+        }
+    }
+
+    @Test
+    void messageOfUnknownLengthIsRefusedWith413OnceItCrossesTheLimit() throws Exception {
+        start(WebMvcStreamableServerTransportProvider.builder().maxBodySize(256));
+        String sessionId = initialize();
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST",
+                WebMvcStreamableServerTransportProvider.DEFAULT_MCP_ENDPOINT) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        servletRequest.addHeader(WebMvcStreamableServerTransportProvider.SESSION_ID_HEADER, sessionId);
+        servletRequest.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletRequest.setContent(("{\"jsonrpc\":\"2.0\",\"method\":\"note\",\"params\":\""
+                + String.join("", Collections.nCopies(256, "x")) + "\"}").getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse response = exchange(servletRequest);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(post(sessionId, NOTE).getStatus()).isEqualTo(HttpStatus.ACCEPTED.value());
+    }
+
+    @Test
+    void blankSessionIdIsRejected() throws Exception {
+        start(WebMvcStreamableServerTransportProvider.builder());
+
+        assertThat(post(" ", NOTE).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(get(" ").getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+
+}
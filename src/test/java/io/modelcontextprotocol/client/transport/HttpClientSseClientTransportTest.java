@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.client.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpWireFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class HttpClientSseClientTransportTest {
+
+	private static final McpSchema.JSONRPCMessage NOTE = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+			"note", null);
+
+	/** Requests the transport made, with their bodies written out */
+	private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+
+	/** Messages the transport received from the server */
+	private final List<McpSchema.JSONRPCMessage> received = new CopyOnWriteArrayList<>();
+
+	private HttpClientSseClientTransport transport;
+
+	@AfterEach
+	void tearDown() {
+		if (this.transport != null) {
+			this.transport.closeGracefully().block(Duration.ofSeconds(5));
+		}
+	}
+
+	/**
+	 * Connects a transport whose server answers the SSE request with the given events and
+	 * every POST with 200.
+	 */
+	private void connect(HttpClientSseClientTransport.Builder builder, String events) {
+		// The exchange function answers every request; the connector is never used
+		WebClient webClient = WebClient.builder()
+			.clientConnector((method, uri, callback) -> Mono.error(new UnsupportedOperationException()))
+			.exchangeFunction(request -> {
+			this.requests.add(RecordedRequest.of(request));
+			if (request.method() == HttpMethod.GET) {
+				// Plain text so the stream reaches the transport line by line, as it does
+				// from a real server
+				return Mono.just(ClientResponse.create(HttpStatus.OK)
+					.header(HttpHeaders.CONTENT_TYPE, "text/plain")
+					.body(events)
+					.build());
+			}
+			return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+		})
+			.build();
+		this.transport = builder.webClient(webClient).build();
+		this.transport.connect(message -> message.doOnNext(this.received::add)).block(Duration.ofSeconds(5));
+	}
+
+	private RecordedRequest lastPost() {
+		RecordedRequest last = null;
+		for (RecordedRequest request : this.requests) {
+			if (request.method == HttpMethod.POST) {
+				last = request;
+			}
+		}
+		assertThat(last).as("POST request").isNotNull();
+		return last;
+	}
+
+	@Test
+	void transportWithoutFormatsMakesNoOfferAndTalksJson() {
+		connect(HttpClientSseClientTransport.builder("http://localhost"),
+				"event: endpoint\ndata: /message?sessionId=1\n\n"
+						+ "event: message\ndata: {\"jsonrpc\":\"2.0\",\"method\":\"hello\"}\n\n");
+
+		this.transport.sendMessage(NOTE).block(Duration.ofSeconds(5));
+
+		assertThat(this.requests.get(0).headers.containsKey(McpWireFormat.HEADER)).isFalse();
+		RecordedRequest post = lastPost();
+		assertThat(post.headers.getContentType().toString()).isEqualTo("application/json");
+		assertThat(post.body).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"note\"}");
+		assertThat(this.received).containsExactly(
+				new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "hello", null));
+	}
+
+	@Test
+	void formatTheClientDidNotOfferIsNotUsed() {
+		connect(HttpClientSseClientTransport.builder("http://localhost"),
+				"event: endpoint\ndata: /message?sessionId=1&wireFormat=smile\n\n"
+						+ "event: message\ndata: {\"jsonrpc\":\"2.0\",\"method\":\"hello\"}\n\n");
+
+		this.transport.sendMessage(NOTE).block(Duration.ofSeconds(5));
+
+		assertThat(lastPost().headers.getContentType().toString()).isEqualTo("application/json");
+		assertThat(this.received).hasSize(1);
+	}
+
+	@Test
+	void offeredFormatsAreSentInOrderOfPreferenceAndUsedOnceChosen() {
+		assumeTrue(McpWireFormat.SMILE.isAvailable() && McpWireFormat.CBOR.isAvailable());
+		connect(HttpClientSseClientTransport.builder("http://localhost")
+			.wireFormats(McpWireFormat.CBOR, McpWireFormat.SMILE, McpWireFormat.CBOR),
+				"event: endpoint\ndata: /message?sessionId=1&wireFormat=smile\n\n");
+
+		this.transport.sendMessage(NOTE).block(Duration.ofSeconds(5));
+
+		assertThat(this.requests.get(0).headers.getFirst(McpWireFormat.HEADER)).isEqualTo("cbor,smile");
+		assertThat(lastPost().headers.getContentType().toString()).isEqualTo(McpWireFormat.SMILE.mediaType());
+	}
+
+	@Test
+	void onlyAvailableBinaryFormatsCanBeOffered() {
+		HttpClientSseClientTransport.Builder builder = HttpClientSseClientTransport.builder("http://localhost");
+
+		assertThatThrownBy(() -> builder.wireFormats(McpWireFormat.JSON))
+			.isInstanceOf(IllegalArgumentException.class);
+		for (McpWireFormat format : new McpWireFormat[] { McpWireFormat.SMILE, McpWireFormat.CBOR }) {
+			if (!format.isAvailable()) {
+				assertThatThrownBy(() -> builder.wireFormats(format)).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining(format.id());
+			}
+		}
+	}
+
+	private static class RecordedRequest {
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers;
+
+		private final String body;
+
+		private RecordedRequest(HttpMethod method, HttpHeaders headers, String body) {
+			this.method = method;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		static RecordedRequest of(ClientRequest request) {
+			MockClientHttpRequest written = new MockClientHttpRequest(request.method(), request.url());
+			written.getHeaders().putAll(request.headers());
+			request.body().insert(written, new BodyInserter.Context() {
+				@Override
+				public List<HttpMessageWriter<?>> messageWriters() {
+					return ExchangeStrategies.withDefaults().messageWriters();
+				}
+
+				@Override
+				public Optional<ServerHttpRequest> serverRequest() {
+					return Optional.empty();
+				}
+
+				@Override
+				public Map<String, Object> hints() {
+					return Collections.emptyMap();
+				}
+			}).block(Duration.ofSeconds(5));
+			return new RecordedRequest(request.method(), written.getHeaders(),
+					written.getBodyAsString().defaultIfEmpty("").block(Duration.ofSeconds(5)));
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpEncodedResult;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class McpListResultCacheTest {
+
+	private final McpJsonCodec jsonCodec = McpJsonCodec.jackson(new ObjectMapper());
+
+	private final List<String> items = new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e"));
+
+	private final AtomicInteger collected = new AtomicInteger();
+
+	private McpListResultCache<String> cache(int pageSize) {
+		return new McpListResultCache<>(this.jsonCodec, () -> {
+			this.collected.incrementAndGet();
+			return new ArrayList<>(this.items);
+		}, (page, nextCursor) -> {
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("items", page);
+			result.put("nextCursor", nextCursor);
+			return result;
+		}, pageSize);
+	}
+
+	private Map<String, Object> get(McpListResultCache<String> cache, String cursor) {
+		Map<String, Object> params = cursor != null ? Collections.singletonMap("cursor", cursor) : null;
+		McpEncodedResult result = cache.get(params).block();
+		return this.jsonCodec.convert(result.result(), new TypeReference<Map<String, Object>>() {
+		});
+	}
+
+	private static void assertInvalidParams(McpListResultCache<String> cache, String cursor) {
+		assertThatThrownBy(() -> cache.get(Collections.singletonMap("cursor", cursor)).block())
+			.isInstanceOf(McpError.class)
+			.satisfies(error -> assertThat(((McpError) error).getJsonRpcError().getCode())
+				.isEqualTo(McpSchema.ErrorCodes.INVALID_PARAMS));
+	}
+
+	@Test
+	void withoutPageSizeServesEveryItemInOneResult() {
+		McpListResultCache<String> cache = cache(0);
+
+		Map<String, Object> result = get(cache, null);
+
+		assertThat(result.get("items")).isEqualTo(Arrays.asList("a", "b", "c", "d", "e"));
+		assertThat(result.get("nextCursor")).isNull();
+	}
+
+	@Test
+	void pagesEndAtPageSizeAndTheLastPageHasNoCursor() {
+		McpListResultCache<String> cache = cache(2);
+
+		Map<String, Object> first = get(cache, null);
+		Map<String, Object> second = get(cache, (String) first.get("nextCursor"));
+		Map<String, Object> third = get(cache, (String) second.get("nextCursor"));
+
+		assertThat(first.get("items")).isEqualTo(Arrays.asList("a", "b"));
+		assertThat(second.get("items")).isEqualTo(Arrays.asList("c", "d"));
+		assertThat(third.get("items")).isEqualTo(Collections.singletonList("e"));
+		assertThat(third.get("nextCursor")).isNull();
+	}
+
+	@Test
+	void exactMultipleOfPageSizeHasNoTrailingEmptyPage() {
+		this.items.remove("e");
+		McpListResultCache<String> cache = cache(2);
+
+		Map<String, Object> second = get(cache, (String) get(cache, null).get("nextCursor"));
+
+		assertThat(second.get("items")).isEqualTo(Arrays.asList("c", "d"));
+		assertThat(second.get("nextCursor")).isNull();
+	}
+
+	@Test
+	void emptyListIsOneEmptyPage() {
+		this.items.clear();
+		McpListResultCache<String> cache = cache(2);
+
+		Map<String, Object> result = get(cache, null);
+
+		assertThat(result.get("items")).isEqualTo(Collections.emptyList());
+		assertThat(result.get("nextCursor")).isNull();
+	}
+
+	@Test
+	void cursorIsOpaqueUrlSafeText() {
+		McpListResultCache<String> cache = cache(2);
+
+		String cursor = (String) get(cache, null).get("nextCursor");
+
+		assertThat(cursor).matches("[A-Za-z0-9_-]+");
+		assertThat(get(cache, cursor).get("items")).isEqualTo(Arrays.asList("c", "d"));
+	}
+
+	@Test
+	void resultIsEncodedOncePerSnapshot() {
+		McpListResultCache<String> cache = cache(0);
+
+		McpEncodedResult first = cache.get(null).block();
+		McpEncodedResult second = cache.get(null).block();
+		cache.invalidate();
+		McpEncodedResult third = cache.get(null).block();
+
+		assertThat(second).isSameAs(first);
+		assertThat(third).isNotSameAs(first);
+		assertThat(this.collected).hasValue(2);
+	}
+
+	@Test
+	void cursorOfPreviousSnapshotStillPagesThroughIt() {
+		McpListResultCache<String> cache = cache(2);
+		String cursor = (String) get(cache, null).get("nextCursor");
+
+		this.items.add(0, "z");
+		cache.invalidate();
+
+		assertThat(get(cache, null).get("items")).isEqualTo(Arrays.asList("z", "a"));
+		assertThat(get(cache, cursor).get("items")).isEqualTo(Arrays.asList("c", "d"));
+	}
+
+	@Test
+	void cursorOfOlderSnapshotIsInvalidParams() {
+		McpListResultCache<String> cache = cache(2);
+		String cursor = (String) get(cache, null).get("nextCursor");
+
+		cache.invalidate();
+		get(cache, null);
+		cache.invalidate();
+		get(cache, null);
+
+		assertInvalidParams(cache, cursor);
+	}
+
+	@Test
+	void cursorOfAnotherCacheIsInvalidParams() {
+		String cursor = (String) get(cache(2), null).get("nextCursor");
+
+		assertInvalidParams(cache(2), cursor);
+	}
+
+	@Test
+	void malformedCursorsAreInvalidParams() {
+		McpListResultCache<String> cache = cache(2);
+		String cursor = (String) get(cache, null).get("nextCursor");
+		String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.");
+
+		assertInvalidParams(cache, "not base64!");
+		assertInvalidParams(cache, encode("garbage"));
+		assertInvalidParams(cache, encode(parts[0] + "." + parts[1] + ".-1"));
+		assertInvalidParams(cache, encode(parts[0] + "." + parts[1] + ".3"));
+	}
+
+	private static String encode(String cursor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
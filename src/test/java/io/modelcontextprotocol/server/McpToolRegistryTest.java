@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpToolRegistryTest {
+
+	private static McpServerFeatures.AsyncToolSpecification tool(String name) {
+		return new McpServerFeatures.AsyncToolSpecification(
+				new McpSchema.Tool(name, null, (McpSchema.JsonSchema) null),
+				(exchange, args) -> Mono.just(new McpSchema.CallToolResult(name, false)));
+	}
+
+	private static List<String> names(Collection<McpServerFeatures.AsyncToolSpecification> specifications) {
+		return specifications.stream().map(specification -> specification.tool().name()).collect(Collectors.toList());
+	}
+
+	@Test
+	void firstOfSeveralInitialToolsWithTheSameNameIsKept() {
+		McpServerFeatures.AsyncToolSpecification first = tool("a");
+
+		McpToolRegistry registry = new McpToolRegistry(Arrays.asList(first, tool("b"), tool("a")));
+
+		assertThat(registry.get("a")).isSameAs(first);
+		assertThat(names(registry.specifications())).containsExactly("a", "b");
+		assertThat(registry.version()).isZero();
+	}
+
+	@Test
+	void toolsAreListedInTheOrderTheyWereAdded() {
+		McpToolRegistry registry = new McpToolRegistry(Collections.singletonList(tool("c")));
+
+		registry.addAll(Arrays.asList(tool("a"), tool("b")));
+		registry.remove("c");
+		registry.addAll(Collections.singletonList(tool("c")));
+
+		assertThat(names(registry.specifications())).containsExactly("a", "b", "c");
+	}
+
+	@Test
+	void addingATakenNameAddsNothing() {
+		McpToolRegistry registry = new McpToolRegistry(Collections.singletonList(tool("a")));
+
+		assertThat(registry.addAll(Arrays.asList(tool("b"), tool("a")))).isEqualTo("a");
+		assertThat(registry.addAll(Arrays.asList(tool("c"), tool("c")))).isEqualTo("c");
+
+		assertThat(names(registry.specifications())).containsExactly("a");
+		assertThat(registry.version()).isZero();
+	}
+
+	@Test
+	void everyChangeIsOneVersion() {
+		McpToolRegistry registry = new McpToolRegistry(Collections.emptyList());
+
+		assertThat(registry.addAll(Arrays.asList(tool("a"), tool("b"), tool("c")))).isNull();
+		assertThat(registry.version()).isEqualTo(1);
+		assertThat(registry.remove("a")).isNotNull();
+		assertThat(registry.version()).isEqualTo(2);
+		assertThat(names(registry.removeAll(Arrays.asList("b", "x", "c")))).containsExactly("b", "c");
+		assertThat(registry.version()).isEqualTo(3);
+		assertThat(registry.specifications()).isEmpty();
+	}
+
+	@Test
+	void removingUnknownToolsChangesNothing() {
+		McpToolRegistry registry = new McpToolRegistry(Collections.singletonList(tool("a")));
+
+		assertThat(registry.remove("x")).isNull();
+		assertThat(registry.removeAll(Arrays.asList("x", "y"))).isEmpty();
+
+		assertThat(registry.version()).isZero();
+		assertThat(registry.get("a")).isNotNull();
+	}
+
+	@Test
+	void listedToolsAreASnapshot() {
+		McpToolRegistry registry = new McpToolRegistry(Collections.singletonList(tool("a")));
+		Collection<McpServerFeatures.AsyncToolSpecification> listed = registry.specifications();
+
+		registry.addAll(Collections.singletonList(tool("b")));
+		registry.remove("a");
+
+		assertThat(names(listed)).containsExactly("a");
+		assertThat(names(registry.specifications())).containsExactly("b");
+	}
+
+	@Test
+	void concurrentChangesAreNeitherLostNorTorn() throws Exception {
+		McpToolRegistry registry = new McpToolRegistry(Collections.emptyList());
+		int threads = 8;
+		int toolsPerThread = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < toolsPerThread; i++) {
+						// Each batch goes in whole: either both tools are visible or neither
+						String name = thread + "-" + i;
+						assertThat(registry.addAll(Arrays.asList(tool(name), tool(name + "-pair")))).isNull();
+						if (i % 2 == 0) {
+							assertThat(registry.removeAll(Arrays.asList(name, name + "-pair"))).hasSize(2);
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(registry.specifications()).hasSize(threads * toolsPerThread);
+		assertThat(registry.version()).isEqualTo(threads * toolsPerThread * 3 / 2);
+		for (McpServerFeatures.AsyncToolSpecification specification : registry.specifications()) {
+			String name = specification.tool().name();
+			assertThat(registry.get(name.endsWith("-pair") ? name.substring(0, name.length() - 5) : name + "-pair"))
+				.isNotNull();
+		}
+	}
+
+	@Test
+	void concurrentAddsOfTheSameNameHaveOneWinner() throws Exception {
+		McpToolRegistry registry = new McpToolRegistry(Collections.emptyList());
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return registry.addAll(Collections.singletonList(tool("shared")));
+				}));
+			}
+			start.countDown();
+			int added = 0;
+			for (Future<String> future : futures) {
+				if (future.get(10, TimeUnit.SECONDS) == null) {
+					added++;
+				}
+			}
+
+			assertThat(added).isEqualTo(1);
+			assertThat(registry.version()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
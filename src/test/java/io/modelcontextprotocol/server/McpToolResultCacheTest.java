@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class McpToolResultCacheTest {
+
+	private static McpSchema.CallToolResult result(String text) {
+		return new McpSchema.CallToolResult(text, false);
+	}
+
+	private static Map<String, Object> args(Object... namesAndValues) {
+		Map<String, Object> args = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			args.put((String) namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return args;
+	}
+
+	@Test
+	void argumentsDifferingInKeyOrderShareAnEntry() {
+		McpToolResultCache cache = McpToolResultCache.builder().build();
+		McpSchema.CallToolResult result = result("x");
+
+		cache.put("tool", args("a", 1, "b", args("c", 2, "d", Arrays.asList(3, args("e", 4, "f", 5)))), result);
+
+		assertThat(cache.get("tool", args("b", args("d", Arrays.asList(3, args("f", 5, "e", 4)), "c", 2), "a", 1)))
+			.isSameAs(result);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void entriesAreKeyedByToolNameAndArgumentValues() {
+		McpToolResultCache cache = McpToolResultCache.builder().build();
+		cache.put("tool", args("a", 1), result("x"));
+
+		assertThat(cache.get("other", args("a", 1))).isNull();
+		assertThat(cache.get("tool", args("a", 2))).isNull();
+		assertThat(cache.get("tool", args("a", "1"))).isNull();
+		assertThat(cache.get("tool", args("a", Arrays.asList(1)))).isNull();
+		assertThat(cache.get("tool", args("a", 1, "b", null))).isNull();
+	}
+
+	@Test
+	void errorResultsAreNotCached() {
+		McpToolResultCache cache = McpToolResultCache.builder().build();
+
+		cache.put("tool", args("a", 1), new McpSchema.CallToolResult("failed", true));
+
+		assertThat(cache.get("tool", args("a", 1))).isNull();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	void entriesExpireAfterWrite() throws InterruptedException {
+		McpToolResultCache cache = McpToolResultCache.builder().expireAfterWrite(Duration.ofMillis(50)).build();
+		cache.put("tool", args("a", 1), result("x"));
+
+		assertThat(cache.get("tool", args("a", 1))).isNotNull();
+		Thread.sleep(100);
+
+		assertThat(cache.get("tool", args("a", 1))).isNull();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	void frequentlyUsedResultsSurviveAScanOfOneOffCalls() {
+		McpToolResultCache cache = McpToolResultCache.builder().maximumSize(100).build();
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < 50; i++) {
+				if (cache.get("tool", args("hot", i)) == null) {
+					cache.put("tool", args("hot", i), result("hot"));
+				}
+			}
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			if (cache.get("tool", args("cold", i)) == null) {
+				cache.put("tool", args("cold", i), result("cold"));
+			}
+		}
+
+		int hot = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.get("tool", args("hot", i)) != null) {
+				hot++;
+			}
+		}
+		// Plain LRU would have flushed every hot entry
+		assertThat(hot).isGreaterThanOrEqualTo(45);
+		assertThat(cache.size()).isLessThanOrEqualTo(100);
+		assertThat(cache.evictionCount()).isGreaterThan(0);
+	}
+
+	@Test
+	void sizeNeverExceedsMaximum() {
+		McpToolResultCache cache = McpToolResultCache.builder().maximumSize(1).build();
+
+		cache.put("tool", args("a", 1), result("x"));
+		cache.put("tool", args("a", 2), result("y"));
+		cache.put("other", args("a", 1), result("z"));
+
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidateDropsOnlyTheNamedTool() {
+		McpToolResultCache cache = McpToolResultCache.builder().build();
+		cache.put("tool", args("a", 1), result("x"));
+		cache.put("tool", args("a", 2), result("y"));
+		cache.put("other", args("a", 1), result("z"));
+
+		cache.invalidate("tool");
+
+		assertThat(cache.get("tool", args("a", 1))).isNull();
+		assertThat(cache.get("tool", args("a", 2))).isNull();
+		assertThat(cache.get("other", args("a", 1))).isNotNull();
+
+		cache.invalidateAll();
+
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	void hitsAndMissesAreCounted() {
+		McpToolResultCache cache = McpToolResultCache.builder().build();
+		cache.get("tool", args("a", 1));
+		cache.put("tool", args("a", 1), result("x"));
+		cache.get("tool", args("a", 1));
+		cache.get("tool", args("a", 1));
+		cache.get("tool", args("a", 1));
+
+		assertThat(cache.hitCount()).isEqualTo(3L);
+		assertThat(cache.missCount()).isEqualTo(1L);
+		assertThat(cache.hitRate()).isEqualTo(0.75);
+	}
+
+	@Test
+	void invalidSettingsAreRejected() {
+		assertThatThrownBy(() -> McpToolResultCache.builder().maximumSize(0))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> McpToolResultCache.builder().expireAfterWrite(Duration.ZERO))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> McpToolResultCache.builder().expireAfterWrite(null))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+
+	@Test
+	void sessionsAboveTheLimitAreShedUntilASlotIsGivenBack() {
+		AdmissionController controller = AdmissionController.builder().maxSessions(2).build();
+
+		assertThat(controller.tryOpenSession()).isTrue();
+		assertThat(controller.tryOpenSession()).isTrue();
+		assertThat(controller.tryOpenSession()).isFalse();
+		assertThat(controller.activeSessions()).isEqualTo(2);
+
+		controller.sessionClosed();
+		assertThat(controller.tryOpenSession()).isTrue();
+
+		assertThat(controller.acceptedSessions()).isEqualTo(3);
+		assertThat(controller.shedSessions()).isEqualTo(1);
+	}
+
+	@Test
+	void perSessionLimitOnlyShedsTheBusySession() {
+		AdmissionController controller = AdmissionController.builder().maxInFlightPerSession(1).build();
+
+		AdmissionController.Permit permit = controller.tryAcquire("a");
+		assertThat(permit).isNotNull();
+		assertThat(controller.tryAcquire("a")).isNull();
+		assertThat(controller.tryAcquire("b")).isNotNull();
+
+		permit.release();
+		assertThat(controller.tryAcquire("a")).isNotNull();
+		assertThat(controller.shedMessages()).isEqualTo(1);
+		assertThat(controller.acceptedMessages()).isEqualTo(3);
+	}
+
+	@Test
+	void globalInFlightLimitShedsEverySession() {
+		AdmissionController controller = AdmissionController.builder().maxInFlight(2).build();
+
+		AdmissionController.Permit first = controller.tryAcquire("a");
+		AdmissionController.Permit second = controller.tryAcquire("b");
+		first.started();
+		second.started();
+		assertThat(controller.tryAcquire("c")).isNull();
+		assertThat(controller.inFlight()).isEqualTo(2);
+
+		first.release();
+		assertThat(controller.tryAcquire("c")).isNotNull();
+	}
+
+	@Test
+	void queuedMessagesCountUntilTheyStart() {
+		AdmissionController controller = AdmissionController.builder().maxQueued(1).build();
+
+		AdmissionController.Permit permit = controller.tryAcquire("a");
+		assertThat(controller.queued()).isEqualTo(1);
+		assertThat(controller.tryAcquire("b")).isNull();
+
+		permit.started();
+		assertThat(controller.queued()).isZero();
+		assertThat(controller.inFlight()).isEqualTo(1);
+		assertThat(controller.tryAcquire("b")).isNotNull();
+	}
+
+	@Test
+	void shedMessageLeavesNoCountsBehind() {
+		AdmissionController controller = AdmissionController.builder().maxInFlight(5).maxInFlightPerSession(1).build();
+		AdmissionController.Permit permit = controller.tryAcquire("a");
+
+		assertThat(controller.tryAcquire("a")).isNull();
+
+		assertThat(controller.inFlight()).isEqualTo(1);
+		assertThat(controller.queued()).isEqualTo(1);
+		permit.release();
+		assertThat(controller.inFlight()).isZero();
+		assertThat(controller.queued()).isZero();
+	}
+
+	@Test
+	void releasingTwiceHasNoEffect() {
+		AdmissionController controller = AdmissionController.builder().maxInFlight(1).build();
+		AdmissionController.Permit permit = controller.tryAcquire("a");
+		AdmissionController.Permit other;
+
+		permit.release();
+		other = controller.tryAcquire("b");
+		permit.release();
+		permit.started();
+
+		assertThat(other).isNotNull();
+		assertThat(controller.inFlight()).isEqualTo(1);
+		assertThat(controller.queued()).isEqualTo(1);
+		assertThat(controller.tryAcquire("c")).isNull();
+	}
+
+	@Test
+	void forgottenSessionStartsWithACleanCount() {
+		AdmissionController controller = AdmissionController.builder().maxInFlightPerSession(1).build();
+		controller.tryAcquire("a");
+
+		controller.forget("a");
+
+		assertThat(controller.tryAcquire("a")).isNotNull();
+	}
+
+	@Test
+	void limitHoldsUnderConcurrentAcquires() throws Exception {
+		AdmissionController controller = AdmissionController.builder().maxInFlight(10).build();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				String sessionId = "s" + t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					int admitted = 0;
+					for (int i = 0; i < 100; i++) {
+						if (controller.tryAcquire(sessionId) != null) {
+							admitted++;
+						}
+					}
+					return admitted;
+				}));
+			}
+			start.countDown();
+			int admitted = 0;
+			for (Future<Integer> future : futures) {
+				admitted += future.get(5, TimeUnit.SECONDS);
+			}
+
+			assertThat(admitted).isEqualTo(10);
+			assertThat(controller.inFlight()).isEqualTo(10);
+			assertThat(controller.shedMessages()).isEqualTo(790);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void retryAfterIsRoundedToWholeSeconds() {
+		assertThat(AdmissionController.unlimited().retryAfterSeconds()).isEqualTo(1);
+		assertThat(AdmissionController.builder().retryAfter(Duration.ofMillis(200)).build().retryAfterSeconds())
+			.isEqualTo(1);
+		assertThat(AdmissionController.builder().retryAfter(Duration.ofSeconds(30)).build().retryAfterSeconds())
+			.isEqualTo(30);
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastFanoutTest {
+
+	private final List<McpServerSession> evicted = new CopyOnWriteArrayList<>();
+
+	private static List<McpServerSession> sessions(int count) {
+		List<McpServerSession> sessions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			sessions.add(new McpServerSession("session-" + i, Duration.ofSeconds(5), new NoopTransport(),
+					request -> Mono.empty(), Mono::empty, Collections.emptyMap(), Collections.emptyMap()));
+		}
+		return sessions;
+	}
+
+	@Test
+	void noMoreWritesThanTheConcurrencyAreInFlight() {
+		BroadcastFanout fanout = new BroadcastFanout(3, Duration.ofSeconds(5), 3);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		BroadcastFanout.DeliveryReport report = fanout.broadcast(sessions(12),
+				session -> Mono.fromRunnable(() -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+					.then(Mono.delay(Duration.ofMillis(30)))
+					.doOnTerminate(inFlight::decrementAndGet)
+					.then(),
+				this.evicted::add)
+			.block();
+
+		assertThat(report.delivered()).isEqualTo(12);
+		assertThat(report.total()).isEqualTo(12);
+		assertThat(maxInFlight.get()).isEqualTo(3);
+		assertThat(this.evicted).isEmpty();
+	}
+
+	@Test
+	void writeBlockingItsThreadOnlyHoldsUpItsOwnSession() {
+		BroadcastFanout fanout = new BroadcastFanout(4, Duration.ofMillis(100), 3);
+		List<McpServerSession> sessions = sessions(4);
+		McpServerSession stuck = sessions.get(0);
+
+		long started = System.nanoTime();
+		BroadcastFanout.DeliveryReport report = fanout.broadcast(sessions, session -> session == stuck
+				? Mono.fromRunnable(() -> sleep(Duration.ofSeconds(1))) : Mono.empty(), this.evicted::add)
+			.block();
+
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(900));
+		assertThat(report.delivered()).isEqualTo(3);
+		assertThat(report.timedOut()).isEqualTo(1);
+	}
+
+	@Test
+	void sessionIsEvictedAfterTheConsecutiveTimeoutLimit() {
+		BroadcastFanout fanout = new BroadcastFanout(8, Duration.ofMillis(50), 2);
+		List<McpServerSession> sessions = sessions(2);
+		McpServerSession slow = sessions.get(0);
+
+		BroadcastFanout.DeliveryReport first = fanout
+			.broadcast(sessions, session -> session == slow ? Mono.never() : Mono.empty(), this.evicted::add)
+			.block();
+		assertThat(first.delivered()).isEqualTo(1);
+		assertThat(first.timedOut()).isEqualTo(1);
+		assertThat(first.evicted()).isZero();
+		assertThat(this.evicted).isEmpty();
+
+		BroadcastFanout.DeliveryReport second = fanout
+			.broadcast(sessions, session -> session == slow ? Mono.never() : Mono.empty(), this.evicted::add)
+			.block();
+		assertThat(second.timedOut()).isEqualTo(1);
+		assertThat(second.evicted()).isEqualTo(1);
+		assertThat(this.evicted).containsExactly(slow);
+	}
+
+	@Test
+	void deliveredWriteResetsTheTimeoutCount() {
+		BroadcastFanout fanout = new BroadcastFanout(8, Duration.ofMillis(50), 2);
+		List<McpServerSession> sessions = sessions(1);
+
+		fanout.broadcast(sessions, session -> Mono.never(), this.evicted::add).block();
+		fanout.broadcast(sessions, session -> Mono.empty(), this.evicted::add).block();
+		BroadcastFanout.DeliveryReport report = fanout.broadcast(sessions, session -> Mono.never(), this.evicted::add)
+			.block();
+
+		assertThat(report.timedOut()).isEqualTo(1);
+		assertThat(report.evicted()).isZero();
+		assertThat(this.evicted).isEmpty();
+	}
+
+	@Test
+	void forgottenSessionStartsWithACleanTimeoutCount() {
+		BroadcastFanout fanout = new BroadcastFanout(8, Duration.ofMillis(50), 2);
+		List<McpServerSession> sessions = sessions(1);
+
+		fanout.broadcast(sessions, session -> Mono.never(), this.evicted::add).block();
+		fanout.forget(sessions.get(0).getId());
+		fanout.broadcast(sessions, session -> Mono.never(), this.evicted::add).block();
+
+		assertThat(this.evicted).isEmpty();
+	}
+
+	@Test
+	void failedWriteEvictsTheSessionStraightAway() {
+		BroadcastFanout fanout = new BroadcastFanout(8, Duration.ofSeconds(5), 3);
+		List<McpServerSession> sessions = sessions(3);
+		McpServerSession gone = sessions.get(1);
+
+		BroadcastFanout.DeliveryReport report = fanout.broadcast(sessions,
+				session -> session == gone ? Mono.error(new IllegalStateException("Connection reset")) : Mono.empty(),
+				this.evicted::add)
+			.block();
+
+		assertThat(report.delivered()).isEqualTo(2);
+		assertThat(report.failed()).isEqualTo(1);
+		assertThat(report.evicted()).isEqualTo(1);
+		assertThat(this.evicted).containsExactly(gone);
+	}
+
+	@Test
+	void failingEvictorDoesNotFailTheBroadcast() {
+		BroadcastFanout fanout = new BroadcastFanout(8, Duration.ofSeconds(5), 3);
+
+		BroadcastFanout.DeliveryReport report = fanout.broadcast(sessions(2),
+				session -> Mono.error(new IllegalStateException("Connection reset")), session -> {
+					throw new IllegalStateException("Already closed");
+				})
+			.block();
+
+		assertThat(report.failed()).isEqualTo(2);
+	}
+
+	private static void sleep(Duration duration) {
+		try {
+			Thread.sleep(duration.toMillis());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static class NoopTransport implements McpServerTransport {
+
+		@Override
+		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+			return Mono.empty();
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpEncodedMessage;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeartbeatWheelTest {
+
+	/** A full revolution is two ticks of 20 ms; a session idle for 20 ms or more is pinged */
+	private static final Duration INTERVAL = Duration.ofMillis(40);
+
+	private static final long IDLE_MILLIS = 30;
+
+	private final ManualScheduler scheduler = new ManualScheduler();
+
+	private final HeartbeatWheel wheel = new HeartbeatWheel(McpJsonCodec.jackson(new ObjectMapper()), INTERVAL, 2,
+			2, this.scheduler);
+
+	@AfterEach
+	void tearDown() {
+		this.wheel.stop();
+	}
+
+	/** Visits every bucket once, after the sessions had time to become idle */
+	private void revolutionAfterIdle() throws InterruptedException {
+		Thread.sleep(IDLE_MILLIS);
+		this.scheduler.tick();
+		this.scheduler.tick();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	void idleSessionIsPinged() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget target = new RecordingTarget();
+		this.wheel.register("a", target);
+
+		revolutionAfterIdle();
+
+		await(() -> target.heartbeats.size() == 1);
+		McpSchema.JSONRPCMessage message = target.heartbeats.get(0).message();
+		assertThat(((McpSchema.JSONRPCNotification) message).getMethod()).isEqualTo(HeartbeatWheel.HEARTBEAT_METHOD);
+	}
+
+	@Test
+	void activeSessionIsNeverPinged() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget target = new RecordingTarget();
+		HeartbeatWheel.Registration registration = this.wheel.register("a", target);
+
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(IDLE_MILLIS);
+			registration.touch();
+			this.scheduler.tick();
+			this.scheduler.tick();
+		}
+
+		Thread.sleep(50);
+		assertThat(target.heartbeats).isEmpty();
+		assertThat(target.reaped).hasValue(0);
+	}
+
+	@Test
+	void sessionIsReapedAfterTheMissedHeartbeatLimit() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget target = new RecordingTarget();
+		this.wheel.register("a", target);
+
+		revolutionAfterIdle();
+		revolutionAfterIdle();
+		assertThat(target.reaped).hasValue(0);
+		revolutionAfterIdle();
+
+		assertThat(target.reaped).hasValue(1);
+		assertThat(this.wheel.size()).isZero();
+		revolutionAfterIdle();
+		assertThat(target.reaped).hasValue(1);
+	}
+
+	@Test
+	void heartbeatThatReachesTheClientResetsTheMissedCount() throws InterruptedException {
+		this.wheel.start();
+		List<HeartbeatWheel.Registration> registrations = new CopyOnWriteArrayList<>();
+		RecordingTarget target = new RecordingTarget() {
+			@Override
+			public Mono<Void> sendHeartbeat(McpEncodedMessage heartbeat) {
+				// Written to the client, which counts as traffic
+				return super.sendHeartbeat(heartbeat).doOnSuccess(v -> registrations.get(0).touch());
+			}
+		};
+		registrations.add(this.wheel.register("a", target));
+
+		for (int i = 0; i < 5; i++) {
+			int sent = target.heartbeats.size();
+			revolutionAfterIdle();
+			await(() -> target.heartbeats.size() > sent);
+		}
+
+		assertThat(target.reaped).hasValue(0);
+	}
+
+	@Test
+	void suspendedSessionIsNeitherPingedNorReaped() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget target = new RecordingTarget();
+		HeartbeatWheel.Registration registration = this.wheel.register("a", target);
+
+		registration.suspend();
+		for (int i = 0; i < 4; i++) {
+			revolutionAfterIdle();
+		}
+		Thread.sleep(50);
+		assertThat(target.heartbeats).isEmpty();
+		assertThat(target.reaped).hasValue(0);
+		assertThat(this.wheel.size()).isZero();
+
+		registration.resume();
+		assertThat(this.wheel.size()).isEqualTo(1);
+		revolutionAfterIdle();
+		await(() -> target.heartbeats.size() == 1);
+	}
+
+	@Test
+	void cancelledSessionCannotBeResumed() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget target = new RecordingTarget();
+		HeartbeatWheel.Registration registration = this.wheel.register("a", target);
+
+		registration.cancel();
+		registration.resume();
+		revolutionAfterIdle();
+
+		assertThat(this.wheel.size()).isZero();
+		Thread.sleep(50);
+		assertThat(target.heartbeats).isEmpty();
+	}
+
+	@Test
+	void sessionsAreSpreadOverTheWheelAndShareOneHeartbeatPerTick() throws InterruptedException {
+		this.wheel.start();
+		RecordingTarget first = new RecordingTarget();
+		RecordingTarget second = new RecordingTarget();
+		RecordingTarget other = new RecordingTarget();
+		// "a" and "c" hash to one bucket, "b" to the other
+		this.wheel.register("a", first);
+		this.wheel.register("c", second);
+		this.wheel.register("b", other);
+
+		Thread.sleep(IDLE_MILLIS);
+		this.scheduler.tick();
+		await(() -> other.heartbeats.size() == 1);
+		Thread.sleep(50);
+		assertThat(first.heartbeats).isEmpty();
+		assertThat(second.heartbeats).isEmpty();
+
+		this.scheduler.tick();
+		await(() -> first.heartbeats.size() == 1 && second.heartbeats.size() == 1);
+		assertThat(first.heartbeats.get(0)).isSameAs(second.heartbeats.get(0));
+		assertThat(first.heartbeats.get(0)).isNotSameAs(other.heartbeats.get(0));
+	}
+
+	@Test
+	void startingTwiceSchedulesOneTicker() {
+		this.wheel.start();
+		this.wheel.start();
+
+		assertThat(this.scheduler.scheduled).hasValue(1);
+	}
+
+	static class RecordingTarget implements HeartbeatWheel.Target {
+
+		final List<McpEncodedMessage> heartbeats = new CopyOnWriteArrayList<>();
+
+		final AtomicInteger reaped = new AtomicInteger();
+
+		@Override
+		public Mono<Void> sendHeartbeat(McpEncodedMessage heartbeat) {
+			return Mono.fromRunnable(() -> this.heartbeats.add(heartbeat));
+		}
+
+		@Override
+		public void reap() {
+			this.reaped.incrementAndGet();
+		}
+
+	}
+
+	/**
+	 * Scheduler whose periodic task only runs when the test ticks it.
+	 */
+	static class ManualScheduler implements Scheduler {
+
+		final AtomicInteger scheduled = new AtomicInteger();
+
+		private volatile Runnable periodicTask;
+
+		void tick() {
+			this.periodicTask.run();
+		}
+
+		@Override
+		public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			this.scheduled.incrementAndGet();
+			this.periodicTask = task;
+			return () -> this.periodicTask = () -> {
+			};
+		}
+
+		@Override
+		public Disposable schedule(Runnable task) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Worker createWorker() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
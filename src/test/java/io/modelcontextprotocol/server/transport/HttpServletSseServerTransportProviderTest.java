@@ -0,0 +1,483 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpServletSseServerTransportProviderTest {
+
+	private static final Pattern ENDPOINT = Pattern.compile("data: /message\\?sessionId=([^\\s&]+)");
+
+	private HttpServletSseServerTransportProvider provider;
+
+	@AfterEach
+	void tearDown() {
+		if (this.provider != null) {
+			this.provider.closeGracefully().block(Duration.ofSeconds(5));
+		}
+	}
+
+	private HttpServletSseServerTransportProvider start(HttpServletSseServerTransportProvider.Builder builder) {
+		this.provider = builder.objectMapper(new ObjectMapper()).messageEndpoint("/message").build();
+		Map<String, McpServerSession.RequestHandler<?>> requestHandlers = new HashMap<>();
+		requestHandlers.put("echo", (exchange, params) -> Mono.just(params));
+		this.provider.setSessionFactory(transport -> new McpServerSession("session", Duration.ofSeconds(5), transport,
+				request -> Mono.empty(), Mono::empty, requestHandlers,
+				Collections.singletonMap("note", (exchange, params) -> Mono.empty())));
+		return this.provider;
+	}
+
+	private FakeResponse connect() throws Exception {
+		FakeResponse response = new FakeResponse();
+		this.provider.doGet(new FakeRequest("/sse", null, response.completed), response);
+		return response;
+	}
+
+	/**
+	 * Opens a non-blocking SSE stream and lets the container report it writable, which
+	 * writes the endpoint event.
+	 */
+	private FakeResponse connectWritable() throws Exception {
+		FakeResponse stream = connect();
+		stream.out.becomeReady();
+		return stream;
+	}
+
+	private static String sessionId(FakeResponse stream) {
+		Matcher matcher = ENDPOINT.matcher(stream.content());
+		assertThat(matcher.find()).as("endpoint event").isTrue();
+		return matcher.group(1);
+	}
+
+	/**
+	 * Posts a message in two chunks through the request's read listener and waits for the
+	 * asynchronous response.
+	 */
+	private FakeResponse post(String sessionId, String json) throws Exception {
+		FakeRequest request = new FakeRequest("/message", sessionId);
+		FakeResponse response = new FakeResponse();
+		this.provider.doPost(request, response);
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		int half = body.length / 2;
+		request.in.offer(Arrays.copyOfRange(body, 0, half));
+		request.in.offer(Arrays.copyOfRange(body, half, body.length));
+		request.in.end();
+		await(request.completed::get);
+		return response;
+	}
+
+	private void initialize(String sessionId) throws Exception {
+		post(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"" + McpSchema.METHOD_NOTIFICATION_INITIALIZED + "\"}");
+	}
+
+	private static String echo(int id) {
+		return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"echo\",\"params\":" + id + "}";
+	}
+
+	private static String echoed(int id) {
+		return "event: message\ndata: {\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":" + id + "}\n\n";
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void nonBlockingPostIsReadAsItArrivesAndAnsweredAsynchronously() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder().nonBlockingIo(true));
+		FakeResponse stream = connectWritable();
+		String sessionId = sessionId(stream);
+		initialize(sessionId);
+
+		FakeRequest request = new FakeRequest("/message", sessionId);
+		FakeResponse response = new FakeResponse();
+		this.provider.doPost(request, response);
+		byte[] body = echo(1).getBytes(StandardCharsets.UTF_8);
+		request.in.offer(Arrays.copyOfRange(body, 0, 10));
+
+		// doPost returned without the rest of the body; nothing is answered yet
+		assertThat(request.completed).isFalse();
+		assertThat(response.getStatus()).isZero();
+
+		request.in.offer(Arrays.copyOfRange(body, 10, body.length));
+		request.in.end();
+		await(request.completed::get);
+		assertThat(response.getStatus()).isEqualTo(200);
+		await(() -> stream.content().contains(echoed(1)));
+		assertThat(this.provider.getAdmissionController().inFlight()).isZero();
+	}
+
+	@Test
+	void endpointEventWaitsUntilTheStreamIsWritable() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder().nonBlockingIo(true));
+
+		FakeResponse stream = connect();
+
+		assertThat(stream.content()).isEmpty();
+		assertThat(stream.out.listener).isNotNull();
+		stream.out.becomeReady();
+		assertThat(stream.content()).startsWith("event: endpoint\ndata: /message?sessionId=");
+	}
+
+	@Test
+	void framesStayQueuedWhileTheStreamIsNotReady() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder().nonBlockingIo(true));
+		FakeResponse stream = connectWritable();
+		String sessionId = sessionId(stream);
+		initialize(sessionId);
+
+		stream.out.ready.set(false);
+		post(sessionId, echo(1));
+		post(sessionId, echo(2));
+
+		assertThat(stream.content()).doesNotContain(echoed(1));
+		assertThat(this.provider.getOutboundQueueDepth(sessionId)).isEqualTo(2);
+
+		stream.out.becomeReady();
+		await(() -> stream.content().contains(echoed(2)));
+		assertThat(stream.content().indexOf(echoed(1))).isLessThan(stream.content().indexOf(echoed(2)));
+		assertThat(this.provider.getOutboundQueueDepth(sessionId)).isZero();
+	}
+
+	@Test
+	void failedStreamDisconnectsTheSession() throws Exception {
+		AdmissionController admissionController = AdmissionController.builder().maxSessions(1).build();
+		start(HttpServletSseServerTransportProvider.builder()
+			.nonBlockingIo(true)
+			.admissionController(admissionController));
+		FakeResponse stream = connectWritable();
+		String sessionId = sessionId(stream);
+
+		stream.out.listener.onError(new IOException("Broken pipe"));
+
+		assertThat(stream.completed).isTrue();
+		assertThat(admissionController.activeSessions()).isZero();
+		FakeResponse refused = new FakeResponse();
+		this.provider.doPost(new FakeRequest("/message", sessionId), refused);
+		assertThat(refused.getStatus()).isEqualTo(404);
+	}
+
+	@Test
+	void oversizedNonBlockingPostIsRefusedWith413() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder().nonBlockingIo(true).maxBodySize(64));
+		String sessionId = sessionId(connectWritable());
+
+		FakeRequest request = new FakeRequest("/message", sessionId);
+		FakeResponse response = new FakeResponse();
+		this.provider.doPost(request, response);
+		request.in.offer(new byte[40]);
+		request.in.offer(new byte[40]);
+
+		assertThat(request.completed).isTrue();
+		assertThat(response.getStatus()).isEqualTo(413);
+		assertThat(response.content()).contains("64 bytes");
+		assertThat(this.provider.getAdmissionController().inFlight()).isZero();
+		assertThat(this.provider.getAdmissionController().queued()).isZero();
+	}
+
+	@Test
+	void unreadableNonBlockingPostIsAnsweredWith500() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder().nonBlockingIo(true));
+		String sessionId = sessionId(connectWritable());
+
+		FakeResponse response = post(sessionId, "{not json");
+
+		assertThat(response.getStatus()).isEqualTo(500);
+		assertThat(this.provider.getAdmissionController().queued()).isZero();
+	}
+
+	@Test
+	void blockingModeStaysTheDefault() throws Exception {
+		start(HttpServletSseServerTransportProvider.builder());
+
+		FakeResponse stream = connect();
+
+		// The endpoint event is written right away, without waiting for a write listener
+		assertThat(stream.out.listener).isNull();
+		assertThat(stream.content()).startsWith("event: endpoint\ndata: /message?sessionId=");
+	}
+
+	/**
+	 * Returns an implementation of a Servlet API interface whose methods do nothing, for
+	 * the wrappers below to override.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			Class<?> returnType = method.getReturnType();
+			if (returnType == boolean.class) {
+				return false;
+			}
+			if (returnType == int.class) {
+				return 0;
+			}
+			if (returnType == long.class) {
+				return 0L;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Request of unknown length whose body is handed over chunk by chunk, the way a
+	 * container calls a {@link ReadListener}.
+	 */
+	private static class FakeRequest extends HttpServletRequestWrapper {
+
+		private final String uri;
+
+		private final String sessionId;
+
+		private final ChunkedInputStream in = new ChunkedInputStream();
+
+		private final AtomicBoolean completed;
+
+		FakeRequest(String uri, String sessionId) {
+			this(uri, sessionId, new AtomicBoolean());
+		}
+
+		FakeRequest(String uri, String sessionId, AtomicBoolean completed) {
+			super(stub(HttpServletRequest.class));
+			this.uri = uri;
+			this.sessionId = sessionId;
+			this.completed = completed;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return this.uri;
+		}
+
+		@Override
+		public String getParameter(String name) {
+			return "sessionId".equals(name) ? this.sessionId : null;
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/json";
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			return this.in;
+		}
+
+		@Override
+		public AsyncContext startAsync() {
+			return asyncContext(this.completed);
+		}
+
+	}
+
+	private static class ChunkedInputStream extends ServletInputStream {
+
+		private final Queue<Byte> available = new ArrayDeque<>();
+
+		private boolean finished;
+
+		private ReadListener listener;
+
+		void offer(byte[] chunk) throws IOException {
+			for (byte b : chunk) {
+				this.available.add(b);
+			}
+			try {
+				this.listener.onDataAvailable();
+			}
+			catch (IOException | RuntimeException e) {
+				this.listener.onError(e);
+			}
+		}
+
+		void end() throws IOException {
+			this.finished = true;
+			this.listener.onAllDataRead();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return this.finished && this.available.isEmpty();
+		}
+
+		@Override
+		public boolean isReady() {
+			return !this.available.isEmpty();
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			this.listener = readListener;
+		}
+
+		@Override
+		public int read() {
+			Byte next = this.available.poll();
+			return next != null ? next & 0xFF : -1;
+		}
+
+	}
+
+	/**
+	 * Response collecting everything written to it. Its output stream is only ready once
+	 * the test says so, and then calls the write listener the way a container would.
+	 */
+	private static class FakeResponse extends HttpServletResponseWrapper {
+
+		private final ControllableOutputStream out = new ControllableOutputStream();
+
+		private final PrintWriter writer = new PrintWriter(new OutputStreamWriter(this.out, StandardCharsets.UTF_8));
+
+		private final Map<String, String> headers = new HashMap<>();
+
+		private volatile int status;
+
+		/** Completion of the async context of the stream this response belongs to */
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		FakeResponse() {
+			super(stub(HttpServletResponse.class));
+		}
+
+		String content() {
+			return new String(this.out.content.toByteArray(), StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void setStatus(int status) {
+			this.status = status;
+		}
+
+		@Override
+		public int getStatus() {
+			return this.status;
+		}
+
+		@Override
+		public void sendError(int status) {
+			this.status = status;
+		}
+
+		@Override
+		public void sendError(int status, String message) {
+			this.status = status;
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			this.headers.put(name, value);
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return this.headers.get(name);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.out;
+		}
+
+		@Override
+		public PrintWriter getWriter() {
+			return this.writer;
+		}
+
+	}
+
+	private static class ControllableOutputStream extends ServletOutputStream {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private final AtomicBoolean ready = new AtomicBoolean();
+
+		private volatile WriteListener listener;
+
+		void becomeReady() throws IOException {
+			this.ready.set(true);
+			this.listener.onWritePossible();
+		}
+
+		@Override
+		public boolean isReady() {
+			return this.listener == null || this.ready.get();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			this.listener = writeListener;
+		}
+
+		@Override
+		public synchronized void write(int b) {
+			this.content.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			this.content.write(b, off, len);
+		}
+
+	}
+
+	/**
+	 * Returns an async context that records its completion.
+	 */
+	private static AsyncContext asyncContext(AtomicBoolean completed) {
+		AsyncContext stub = stub(AsyncContext.class);
+		return (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+				new Class<?>[] { AsyncContext.class }, (proxy, method, args) -> {
+					if ("complete".equals(method.getName())) {
+						completed.set(true);
+						return null;
+					}
+					return method.invoke(stub, args);
+				});
+	}
+
+}
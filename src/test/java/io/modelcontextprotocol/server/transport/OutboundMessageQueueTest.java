@@ -0,0 +1,333 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboundMessageQueueTest {
+
+	private final List<McpSchema.JSONRPCMessage> written = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger disconnects = new AtomicInteger();
+
+	/** Drain executor that only runs the drain task when told to */
+	private final ManualExecutor manualExecutor = new ManualExecutor();
+
+	private OutboundMessageQueue manualQueue(int capacity, OutboundMessageQueue.OverflowPolicy policy,
+			Duration blockTimeout) {
+		return new OutboundMessageQueue(new OutboundMessageQueue.Settings(capacity, policy, blockTimeout),
+				this.manualExecutor, frame -> this.written.add(frame.message()), this.disconnects::incrementAndGet);
+	}
+
+	private static OutboundMessageQueue.Frame notification(String method) {
+		return OutboundMessageQueue.Frame
+			.of(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, null));
+	}
+
+	private static OutboundMessageQueue.Frame response(Object id) {
+		return OutboundMessageQueue.Frame.of(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, id, id, null));
+	}
+
+	private List<Object> writtenKeys() {
+		List<Object> keys = new ArrayList<>();
+		for (McpSchema.JSONRPCMessage message : this.written) {
+			keys.add(message instanceof McpSchema.JSONRPCNotification
+					? ((McpSchema.JSONRPCNotification) message).getMethod()
+					: ((McpSchema.JSONRPCResponse) message).getId());
+		}
+		return keys;
+	}
+
+	@Test
+	void dropOldestDiscardsTheOldestNotificationButNeverAResponse() {
+		OutboundMessageQueue queue = manualQueue(3, OutboundMessageQueue.OverflowPolicy.DROP_OLDEST,
+				Duration.ofSeconds(1));
+		queue.enqueue(response(1)).block();
+		queue.enqueue(notification("n1")).block();
+		queue.enqueue(notification("n2")).block();
+
+		queue.enqueue(notification("n3")).block();
+		queue.enqueue(response(2)).block();
+
+		assertThat(queue.depth()).isEqualTo(3);
+		assertThat(queue.dropped()).isEqualTo(2);
+		this.manualExecutor.runAll();
+		assertThat(writtenKeys()).containsExactly(1, "n3", 2);
+		assertThat(this.disconnects).hasValue(0);
+	}
+
+	@Test
+	void dropOldestDropsANewNotificationWhenOnlyResponsesAreQueued() {
+		OutboundMessageQueue queue = manualQueue(2, OutboundMessageQueue.OverflowPolicy.DROP_OLDEST,
+				Duration.ofSeconds(1));
+		queue.enqueue(response(1)).block();
+		queue.enqueue(response(2)).block();
+
+		queue.enqueue(notification("n1")).block();
+
+		assertThat(queue.dropped()).isEqualTo(1);
+		assertThat(this.disconnects).hasValue(0);
+
+		assertThatThrownBy(() -> queue.enqueue(response(3)).block()).isInstanceOf(McpError.class)
+			.hasMessageContaining("overflowed");
+		assertThat(this.disconnects).hasValue(1);
+		assertThat(queue.depth()).isZero();
+	}
+
+	@Test
+	void blockWaitsForRoomUpToTheBlockTimeout() {
+		OutboundMessageQueue queue = manualQueue(1, OutboundMessageQueue.OverflowPolicy.BLOCK,
+				Duration.ofMillis(100));
+		queue.enqueue(response(1)).block();
+
+		long started = System.nanoTime();
+		assertThatThrownBy(() -> queue.enqueue(response(2)).block()).isInstanceOf(McpError.class)
+			.hasMessageContaining("Timed out");
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+		assertThat(this.disconnects).hasValue(0);
+	}
+
+	@Test
+	void blockedProducerContinuesOnceTheWriterMakesRoom() throws Exception {
+		OutboundMessageQueue queue = manualQueue(1, OutboundMessageQueue.OverflowPolicy.BLOCK,
+				Duration.ofSeconds(5));
+		queue.enqueue(response(1)).block();
+		ExecutorService producer = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> blocked = producer.submit(() -> queue.enqueue(response(2)).block());
+			Thread.sleep(100);
+			assertThat(blocked).isNotDone();
+
+			this.manualExecutor.runAll();
+			blocked.get(5, TimeUnit.SECONDS);
+			this.manualExecutor.runAll();
+
+			assertThat(writtenKeys()).containsExactly(1, 2);
+		}
+		finally {
+			producer.shutdownNow();
+		}
+	}
+
+	@Test
+	void closeReleasesBlockedProducersWithAnError() throws Exception {
+		OutboundMessageQueue queue = manualQueue(1, OutboundMessageQueue.OverflowPolicy.BLOCK,
+				Duration.ofSeconds(5));
+		queue.enqueue(response(1)).block();
+		ExecutorService producer = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> blocked = producer.submit(() -> queue.enqueue(response(2)).block());
+			Thread.sleep(100);
+
+			queue.close();
+
+			assertThatThrownBy(() -> blocked.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(McpError.class);
+		}
+		finally {
+			producer.shutdownNow();
+		}
+	}
+
+	@Test
+	void disconnectPolicyGivesUpOnTheClientWhenFull() {
+		OutboundMessageQueue queue = manualQueue(1, OutboundMessageQueue.OverflowPolicy.DISCONNECT,
+				Duration.ofSeconds(1));
+		queue.enqueue(notification("n1")).block();
+
+		assertThatThrownBy(() -> queue.enqueue(notification("n2")).block()).isInstanceOf(McpError.class)
+			.hasMessageContaining("overflowed");
+
+		assertThat(this.disconnects).hasValue(1);
+		assertThat(queue.depth()).isZero();
+		assertThatThrownBy(() -> queue.enqueue(notification("n3")).block()).isInstanceOf(McpError.class)
+			.hasMessageContaining("closed");
+		this.manualExecutor.runAll();
+		assertThat(this.written).isEmpty();
+	}
+
+	@Test
+	void framesOfConcurrentProducersKeepEachProducersOrder() throws Exception {
+		int producers = 4;
+		int framesPerProducer = 500;
+		AtomicInteger writing = new AtomicInteger();
+		AtomicBoolean overlapped = new AtomicBoolean();
+		OutboundMessageQueue queue = new OutboundMessageQueue(
+				new OutboundMessageQueue.Settings(64, OutboundMessageQueue.OverflowPolicy.BLOCK, Duration.ofSeconds(5)),
+				frame -> {
+					if (writing.incrementAndGet() > 1) {
+						overlapped.set(true);
+					}
+					this.written.add(frame.message());
+					writing.decrementAndGet();
+				}, this.disconnects::incrementAndGet);
+
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int p = 0; p < producers; p++) {
+				String producer = "p" + p;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < framesPerProducer; i++) {
+						queue.enqueue(notification(producer + ":" + i)).block();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			queue.closeGracefully().block(Duration.ofSeconds(10));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(this.written).hasSize(producers * framesPerProducer);
+		assertThat(overlapped).isFalse();
+		int[] next = new int[producers];
+		for (Object key : writtenKeys()) {
+			String[] parts = ((String) key).split(":");
+			int producer = Integer.parseInt(parts[0].substring(1));
+			assertThat(Integer.parseInt(parts[1])).isEqualTo(next[producer]++);
+		}
+	}
+
+	@Test
+	void framesEnqueuedDuringAWriteAreDrainedByTheRunningTask() throws Exception {
+		CountDownLatch firstWriteStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+		AtomicInteger drainTasks = new AtomicInteger();
+		ExecutorService drainer = Executors.newCachedThreadPool();
+		try {
+			OutboundMessageQueue queue = new OutboundMessageQueue(
+					new OutboundMessageQueue.Settings(16, OutboundMessageQueue.OverflowPolicy.BLOCK,
+							Duration.ofSeconds(5)),
+					task -> {
+						drainTasks.incrementAndGet();
+						drainer.execute(task);
+					}, frame -> {
+						if (this.written.isEmpty()) {
+							firstWriteStarted.countDown();
+							releaseFirstWrite.await();
+						}
+						this.written.add(frame.message());
+					}, this.disconnects::incrementAndGet);
+
+			queue.enqueue(notification("n0")).block();
+			assertThat(firstWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+			for (int i = 1; i <= 10; i++) {
+				queue.enqueue(notification("n" + i)).block();
+			}
+			releaseFirstWrite.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (this.written.size() < 11 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+		}
+		finally {
+			drainer.shutdownNow();
+		}
+
+		assertThat(drainTasks).hasValue(1);
+		assertThat(writtenKeys()).containsExactly("n0", "n1", "n2", "n3", "n4", "n5", "n6", "n7", "n8", "n9", "n10");
+	}
+
+	@Test
+	void failedWriteClosesTheQueueAndDisconnects() {
+		OutboundMessageQueue queue = new OutboundMessageQueue(
+				new OutboundMessageQueue.Settings(16, OutboundMessageQueue.OverflowPolicy.BLOCK, Duration.ofSeconds(1)),
+				this.manualExecutor, frame -> {
+					throw new IllegalStateException("Connection reset");
+				}, this.disconnects::incrementAndGet);
+		queue.enqueue(notification("n1")).block();
+		queue.enqueue(notification("n2")).block();
+
+		this.manualExecutor.runAll();
+
+		assertThat(this.disconnects).hasValue(1);
+		assertThat(queue.depth()).isZero();
+		assertThatThrownBy(() -> queue.enqueue(notification("n3")).block()).isInstanceOf(McpError.class);
+	}
+
+	@Test
+	void framesWaitWhileTheConnectionIsNotWritable() {
+		AtomicBoolean writable = new AtomicBoolean(false);
+		OutboundMessageQueue queue = new OutboundMessageQueue(
+				new OutboundMessageQueue.Settings(16, OutboundMessageQueue.OverflowPolicy.BLOCK, Duration.ofSeconds(1)),
+				this.manualExecutor, frame -> this.written.add(frame.message()), writable::get,
+				this.disconnects::incrementAndGet);
+		queue.enqueue(notification("n1")).block();
+		queue.enqueue(notification("n2")).block();
+		this.manualExecutor.runAll();
+		assertThat(this.written).isEmpty();
+		assertThat(queue.depth()).isEqualTo(2);
+
+		writable.set(true);
+		queue.resume();
+		this.manualExecutor.runAll();
+
+		assertThat(writtenKeys()).containsExactly("n1", "n2");
+	}
+
+	@Test
+	void closeGracefullyCompletesOnceTheQueuedFramesAreWritten() {
+		OutboundMessageQueue queue = manualQueue(16, OutboundMessageQueue.OverflowPolicy.BLOCK,
+				Duration.ofSeconds(1));
+		queue.enqueue(notification("n1")).block();
+		queue.enqueue(notification("n2")).block();
+
+		AtomicBoolean drained = new AtomicBoolean();
+		queue.closeGracefully().subscribe(null, null, () -> drained.set(true));
+		assertThat(drained).isFalse();
+		assertThatThrownBy(() -> queue.enqueue(notification("n3")).block()).isInstanceOf(McpError.class);
+
+		this.manualExecutor.runAll();
+
+		assertThat(drained).isTrue();
+		assertThat(writtenKeys()).containsExactly("n1", "n2");
+	}
+
+	static class ManualExecutor implements Executor {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		@Override
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		void runAll() {
+			Runnable task;
+			while ((task = this.tasks.poll()) != null) {
+				task.run();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.server.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.spec.McpJsonCodec;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StdioServerTransportProviderTest {
+
+	private final PipedOutputStream stdin = new PipedOutputStream();
+
+	private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+	private StdioServerTransportProvider provider;
+
+	@AfterEach
+	void tearDown() throws IOException {
+		this.stdin.close();
+	}
+
+	private StdioServerTransportProvider start(McpJsonCodec jsonCodec) throws IOException {
+		this.provider = new StdioServerTransportProvider(jsonCodec, new PipedInputStream(this.stdin), this.stdout);
+		this.provider.setSessionFactory(transport -> new McpServerSession("stdio", Duration.ofSeconds(5), transport,
+				request -> Mono.empty(), Mono::empty, Collections.emptyMap(), Collections.emptyMap()));
+		return this.provider;
+	}
+
+	private String[] awaitLines(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (true) {
+			String output = new String(this.stdout.toByteArray(), StandardCharsets.UTF_8);
+			String[] lines = output.isEmpty() ? new String[0] : output.split("\n", -1);
+			if (lines.length > count || System.nanoTime() > deadline) {
+				return lines;
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void everyMessageIsOneLineEvenWhenTheCodecPrettyPrints() throws Exception {
+		start(McpJsonCodec.jackson(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)));
+
+		this.provider.notifyClients("first", Collections.singletonMap("text", "a\nb")).block();
+		this.provider.notifyClients("second", null).block();
+
+		String[] lines = awaitLines(2);
+		// Two terminated lines leave an empty remainder after the last terminator
+		assertThat(lines).hasSize(3);
+		assertThat(lines[2]).isEmpty();
+		ObjectMapper mapper = new ObjectMapper();
+		assertThat(mapper.readTree(lines[0]).get("method").asText()).isEqualTo("first");
+		assertThat(mapper.readTree(lines[0]).get("params").get("text").asText()).isEqualTo("a\nb");
+		assertThat(mapper.readTree(lines[1]).get("method").asText()).isEqualTo("second");
+	}
+
+	@Test
+	void messageThatFailsToSerializeLeavesNothingOnStdout() throws Exception {
+		start(new FailingCodec(McpJsonCodec.jackson(new ObjectMapper()), "boom"));
+
+		this.provider.notifyClients("boom", null).block();
+		this.provider.notifyClients("ok", null).block();
+
+		String[] lines = awaitLines(1);
+		assertThat(lines).hasSize(2);
+		assertThat(new ObjectMapper().readTree(lines[0]).get("method").asText()).isEqualTo("ok");
+	}
+
+	/**
+	 * Codec that writes part of a notification with the given method and then fails.
+	 */
+	static class FailingCodec implements McpJsonCodec {
+
+		private final McpJsonCodec delegate;
+
+		private final String failingMethod;
+
+		FailingCodec(McpJsonCodec delegate, String failingMethod) {
+			this.delegate = delegate;
+			this.failingMethod = failingMethod;
+		}
+
+		@Override
+		public void encode(Object value, OutputStream out) throws IOException {
+			if (value instanceof McpSchema.JSONRPCNotification
+					&& this.failingMethod.equals(((McpSchema.JSONRPCNotification) value).method())) {
+				out.write("{\"jsonrpc\":\"2.0\",\"meth".getBytes(StandardCharsets.UTF_8));
+				throw new IOException("Serialization failed halfway");
+			}
+			this.delegate.encode(value, out);
+		}
+
+		@Override
+		public byte[] encode(Object value) throws IOException {
+			return this.delegate.encode(value);
+		}
+
+		@Override
+		public String encodeToString(Object value) throws IOException {
+			return this.delegate.encodeToString(value);
+		}
+
+		@Override
+		public <T> T decode(byte[] json, Class<T> type) throws IOException {
+			return this.delegate.decode(json, type);
+		}
+
+		@Override
+		public <T> T decode(InputStream in, Class<T> type) throws IOException {
+			return this.delegate.decode(in, type);
+		}
+
+		@Override
+		public <T> T decode(String json, Class<T> type) throws IOException {
+			return this.delegate.decode(json, type);
+		}
+
+		@Override
+		public <T> T decode(String json, TypeReference<T> typeRef) throws IOException {
+			return this.delegate.decode(json, typeRef);
+		}
+
+		@Override
+		public McpSchema.JSONRPCMessage decodeMessage(String json) throws IOException {
+			return this.delegate.decodeMessage(json);
+		}
+
+		@Override
+		public McpSchema.JSONRPCMessage decodeMessage(InputStream in, long maxBytes) throws IOException {
+			return this.delegate.decodeMessage(in, maxBytes);
+		}
+
+		@Override
+		public <T> T convert(Object data, Class<T> type) {
+			return this.delegate.convert(data, type);
+		}
+
+		@Override
+		public <T> T convert(Object data, TypeReference<T> typeRef) {
+			return this.delegate.convert(data, typeRef);
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonRpcMessageDecoderTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private McpSchema.JSONRPCMessage decode(String json) throws IOException {
+		return McpSchema.deserializeJsonRpcMessage(this.objectMapper, json);
+	}
+
+	@Test
+	void decodesEachMessageKind() throws IOException {
+		McpSchema.JSONRPCMessage request = decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}");
+		McpSchema.JSONRPCMessage notification = decode("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+		McpSchema.JSONRPCMessage response = decode(
+				"{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"error\":{\"code\":-32601,\"message\":\"nope\"}}");
+
+		assertThat(request).isInstanceOf(McpSchema.JSONRPCRequest.class);
+		assertThat(((McpSchema.JSONRPCRequest) request).id()).isEqualTo(1);
+		assertThat(notification).isInstanceOf(McpSchema.JSONRPCNotification.class);
+		assertThat(response).isInstanceOf(McpSchema.JSONRPCResponse.class);
+		assertThat(((McpSchema.JSONRPCResponse) response).error().getCode()).isEqualTo(-32601);
+	}
+
+	@Test
+	void errorMemberIsBoundFieldByField() throws IOException {
+		McpSchema.JSONRPCResponse response = (McpSchema.JSONRPCResponse) decode("{\"jsonrpc\":\"2.0\",\"id\":1,"
+				+ "\"error\":{\"extra\":[1],\"data\":{\"retryAfterMillis\":5},\"message\":\"slow down\",\"code\":-32029}}");
+
+		assertThat(response.error().getCode()).isEqualTo(-32029);
+		assertThat(response.error().getMessage()).isEqualTo("slow down");
+		assertThat(response.error().getData()).isEqualTo(Collections.singletonMap("retryAfterMillis", 5));
+		assertThat(((McpSchema.JSONRPCResponse) decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{},\"error\":null}"))
+			.error()).isNull();
+	}
+
+	@Test
+	void invalidErrorMembersAreRejected() {
+		for (String error : Arrays.asList("\"oops\"", "[]", "{\"code\":\"x\"}", "{\"code\":1.5}",
+				"{\"code\":12345678901}", "{\"code\":1,\"message\":{}}")) {
+			assertThatThrownBy(() -> decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":" + error + "}"))
+				.as(error)
+				.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void invalidBatchElementsKeepTheirPlace() throws IOException {
+		McpSchema.JSONRPCMessage message = decode("[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}," + "1,"
+				+ "[{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}]," + "{\"jsonrpc\":\"2.0\",\"foo\":{\"id\":3}},"
+				+ "{\"jsonrpc\":\"2.0\",\"id\":{\"a\":1},\"method\":\"ping\"},"
+				+ "{\"jsonrpc\":\"2.0\",\"id\":4,\"error\":{\"code\":\"x\"}},"
+				+ "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}]");
+
+		List<McpSchema.JSONRPCMessage> messages = ((McpSchema.JSONRPCBatch) message).messages();
+		assertThat(messages).hasSize(7);
+		assertThat(messages.get(0)).isInstanceOf(McpSchema.JSONRPCRequest.class);
+		for (int i = 1; i < 6; i++) {
+			assertThat(messages.get(i)).isInstanceOf(McpSchema.JSONRPCInvalidMessage.class);
+		}
+		assertThat(messages.get(6)).isInstanceOf(McpSchema.JSONRPCNotification.class);
+	}
+
+	@Test
+	void trailingWhitespaceIsAccepted() throws IOException {
+		assertThat(decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}\n  "))
+			.isInstanceOf(McpSchema.JSONRPCRequest.class);
+	}
+
+	@Test
+	void trailingContentIsRejected() {
+		assertThatThrownBy(() -> decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"} {\"id\":2}"))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> decode("[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}] []"))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> decode("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"} 1"))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void invalidMessagesAndMalformedBatchesAreRejected() {
+		assertThatThrownBy(() -> decode("{\"jsonrpc\":\"2.0\"}")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> decode("1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> decode("[]")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> decode("[{\"jsonrpc\":\"2.0\",\"method\":\"ping\"")).isInstanceOf(IOException.class);
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class McpBlobSourceTest {
+
+	private static final byte[] CONTENT = "binary \u0000ÿ content".getBytes(StandardCharsets.ISO_8859_1);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path tempDir;
+
+	private Path file(byte[] content) throws IOException {
+		return Files.write(this.tempDir.resolve("blob.bin"), content);
+	}
+
+	private String serialize(McpBlobSource source) throws IOException {
+		return this.objectMapper
+			.writeValueAsString(McpSchema.BlobResourceContents.of("file:///blob.bin", "application/octet-stream", source));
+	}
+
+	private static String expected(byte[] content) {
+		return "{\"uri\":\"file:///blob.bin\",\"mimeType\":\"application/octet-stream\",\"blob\":\""
+				+ Base64.getEncoder().encodeToString(content) + "\"}";
+	}
+
+	@Test
+	void sourceIsBase64EncodedLikeAStringBlob() throws IOException {
+		String encoded = Base64.getEncoder().encodeToString(CONTENT);
+		String fromString = this.objectMapper.writeValueAsString(
+				new McpSchema.BlobResourceContents("file:///blob.bin", "application/octet-stream", encoded));
+
+		assertThat(serialize(McpBlobSource.ofBytes(CONTENT))).isEqualTo(fromString).isEqualTo(expected(CONTENT));
+	}
+
+	@Test
+	void pathIsReadAgainForEverySerialization() throws IOException {
+		Path path = file(CONTENT);
+		McpBlobSource source = McpBlobSource.ofPath(path);
+
+		assertThat(serialize(source)).isEqualTo(expected(CONTENT));
+		Files.write(path, "changed".getBytes(StandardCharsets.UTF_8));
+		assertThat(serialize(source)).isEqualTo(expected("changed".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void channelRegionIsReadWithoutMovingTheChannel() throws IOException {
+		Path path = file("headerPAYLOADtrailer".getBytes(StandardCharsets.UTF_8));
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			channel.position(3);
+			McpBlobSource source = McpBlobSource.ofChannel(channel, 6, 7);
+
+			assertThat(source.size()).isEqualTo(7);
+			assertThat(serialize(source)).isEqualTo(expected("PAYLOAD".getBytes(StandardCharsets.UTF_8)));
+			assertThat(serialize(source)).isEqualTo(expected("PAYLOAD".getBytes(StandardCharsets.UTF_8)));
+			assertThat(channel.position()).isEqualTo(3);
+			assertThat(channel.isOpen()).isTrue();
+		}
+	}
+
+	@Test
+	void bufferIsReadWithoutMovingIt() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap("xxPAYLOAD".getBytes(StandardCharsets.UTF_8));
+		buffer.position(2);
+		McpBlobSource source = McpBlobSource.ofBuffer(buffer);
+
+		assertThat(serialize(source)).isEqualTo(expected("PAYLOAD".getBytes(StandardCharsets.UTF_8)));
+		assertThat(serialize(source)).isEqualTo(expected("PAYLOAD".getBytes(StandardCharsets.UTF_8)));
+		assertThat(buffer.position()).isEqualTo(2);
+	}
+
+	@Test
+	void mappedFileIsServed() throws IOException {
+		McpBlobSource source = McpBlobSource.mapped(file(CONTENT));
+
+		assertThat(source.size()).isEqualTo(CONTENT.length);
+		assertThat(serialize(source)).isEqualTo(expected(CONTENT));
+	}
+
+	@Test
+	void blobInsideAResultIsWrittenWithoutATypeProperty() throws IOException {
+		McpSchema.ReadResourceResult result = new McpSchema.ReadResourceResult();
+		result.setContents(Collections.singletonList(
+				McpSchema.BlobResourceContents.of("file:///blob.bin", "application/octet-stream",
+						McpBlobSource.ofBytes(CONTENT))));
+
+		String json = this.objectMapper.writeValueAsString(result);
+
+		assertThat(json).isEqualTo("{\"contents\":[" + expected(CONTENT) + "]}");
+		McpSchema.ReadResourceResult read = this.objectMapper.readValue(json, McpSchema.ReadResourceResult.class);
+		assertThat(read.getContents()).singleElement()
+			.isInstanceOfSatisfying(McpSchema.BlobResourceContents.class,
+					contents -> assertThat(Base64.getDecoder().decode(contents.getBlob())).isEqualTo(CONTENT));
+	}
+
+	@Test
+	void sourceOfUnknownSizeIsStreamedIntoTheOutput() throws IOException {
+		int size = 8 * 1024 * 1024;
+		AtomicInteger opened = new AtomicInteger();
+		McpBlobSource source = new McpBlobSource() {
+
+			@Override
+			public long size() {
+				return -1;
+			}
+
+			@Override
+			public InputStream openStream() {
+				opened.incrementAndGet();
+				return new GeneratedInputStream(size);
+			}
+
+		};
+		CountingOutputStream out = new CountingOutputStream();
+
+		this.objectMapper.writeValue(out,
+				McpSchema.BlobResourceContents.of("file:///blob.bin", "application/octet-stream", source));
+
+		assertThat(opened).hasValue(1);
+		assertThat(out.count).isEqualTo(expected(new byte[0]).length() + (size + 2) / 3 * 4);
+	}
+
+	@Test
+	void failureToOpenTheSourceFailsTheSerialization() {
+		McpBlobSource missing = McpBlobSource.ofPath(this.tempDir.resolve("missing.bin"));
+
+		assertThat(missing.size()).isEqualTo(-1);
+		assertThatThrownBy(() -> serialize(missing)).isInstanceOf(IOException.class)
+			.hasMessageContaining("missing.bin");
+	}
+
+	/**
+	 * Stream of zeros produced as it is read, so the content is never in memory.
+	 */
+	private static class GeneratedInputStream extends InputStream {
+
+		private int remaining;
+
+		GeneratedInputStream(int size) {
+			this.remaining = size;
+		}
+
+		@Override
+		public int read() {
+			if (this.remaining == 0) {
+				return -1;
+			}
+			this.remaining--;
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (this.remaining == 0) {
+				return -1;
+			}
+			int count = Math.min(len, this.remaining);
+			Arrays.fill(b, off, off + count, (byte) 0);
+			this.remaining -= count;
+			return count;
+		}
+
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpCodecRegistryTest {
+
+	private static final Map<Class<?>, String> FIXTURES = new HashMap<>();
+
+	static {
+		FIXTURES.put(McpSchema.InitializeRequest.class,
+				"{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{\"roots\":{\"listChanged\":true}},"
+						+ "\"clientInfo\":{\"name\":\"client\",\"version\":\"1.0\"}}");
+		FIXTURES.put(McpSchema.CallToolRequest.class, "{\"name\":\"add\",\"arguments\":{\"a\":1,\"b\":2}}");
+		FIXTURES.put(McpSchema.ReadResourceRequest.class, "{\"uri\":\"file:///a.txt\"}");
+		FIXTURES.put(McpSchema.GetPromptRequest.class, "{\"name\":\"greet\",\"arguments\":{\"who\":\"world\"}}");
+		FIXTURES.put(McpSchema.SetLevelRequest.class, "{\"level\":\"warning\"}");
+		FIXTURES.put(McpSchema.JSONRPCResponse.class, "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"a\":[1,2]}}");
+		FIXTURES.put(McpSchema.JSONRPCNotification.class,
+				"{\"jsonrpc\":\"2.0\",\"method\":\"notifications/progress\",\"params\":{\"progress\":1}}");
+		FIXTURES.put(McpSchema.JSONRPCRequest.class,
+				"{\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"id\":\"x-1\",\"params\":{}}");
+		FIXTURES.put(McpSchema.InitializeResult.class,
+				"{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{\"tools\":{\"listChanged\":true}},"
+						+ "\"serverInfo\":{\"name\":\"server\",\"version\":\"1.0\"},\"instructions\":\"be nice\"}");
+		FIXTURES.put(McpSchema.CallToolResult.class,
+				"{\"content\":[{\"type\":\"text\",\"text\":\"3\"}],\"isError\":false}");
+		FIXTURES.put(McpSchema.ListToolsResult.class,
+				"{\"tools\":[{\"name\":\"add\",\"description\":\"Adds\",\"inputSchema\":{\"type\":\"object\","
+						+ "\"properties\":{\"a\":{\"type\":\"number\"}},\"required\":[\"a\"]}}],\"nextCursor\":\"c1\"}");
+		FIXTURES.put(McpSchema.ReadResourceResult.class,
+				"{\"contents\":[{\"uri\":\"file:///a.txt\",\"mimeType\":\"text/plain\",\"text\":\"hello\"}]}");
+		FIXTURES.put(McpSchema.ListResourcesResult.class,
+				"{\"resources\":[{\"uri\":\"file:///a.txt\",\"name\":\"a\"}],\"nextCursor\":\"c1\"}");
+		FIXTURES.put(McpSchema.ListResourceTemplatesResult.class,
+				"{\"resourceTemplates\":[{\"uriTemplate\":\"file:///{path}\",\"name\":\"files\"}]}");
+		FIXTURES.put(McpSchema.GetPromptResult.class,
+				"{\"description\":\"Greets\",\"messages\":[{\"role\":\"user\",\"content\":{\"type\":\"text\",\"text\":\"hi\"}}]}");
+		FIXTURES.put(McpSchema.ListPromptsResult.class,
+				"{\"prompts\":[{\"name\":\"greet\",\"arguments\":[{\"name\":\"who\",\"required\":true}]}]}");
+		FIXTURES.put(McpSchema.CompleteResult.class,
+				"{\"completion\":{\"values\":[\"a\",\"b\"],\"total\":2,\"hasMore\":false}}");
+	}
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void everyHotTypeHasAFixture() {
+		assertThat(FIXTURES.keySet()).containsAll(McpCodecRegistry.HOT_READ_TYPES)
+			.containsAll(McpCodecRegistry.HOT_WRITE_TYPES);
+	}
+
+	@Test
+	void warmedReadersAndWritersRoundTripEveryHotType() throws Exception {
+		assertRoundTrips(new McpCodecRegistry(this.objectMapper));
+	}
+
+	@Test
+	void afterburnerRoundTripsEveryHotTypeAndKeepsTheGivenMapper() throws Exception {
+		McpCodecRegistry registry = new McpCodecRegistry(this.objectMapper, true);
+
+		assertThat(registry.objectMapper()).isSameAs(this.objectMapper);
+		assertRoundTrips(registry);
+	}
+
+	private void assertRoundTrips(McpCodecRegistry registry) throws Exception {
+		for (Map.Entry<Class<?>, String> fixture : FIXTURES.entrySet()) {
+			Class<?> type = fixture.getKey();
+			Object value = registry.reader(type).readValue(fixture.getValue());
+			assertThat(value).as(type.getSimpleName()).isInstanceOf(type);
+
+			String json = registry.writer(type).writeValueAsString(value);
+			assertThat(this.objectMapper.readTree(json)).as(type.getSimpleName())
+				.isEqualTo(this.objectMapper.readTree(fixture.getValue()));
+			assertThat(registry.writeValueAsString(value)).as(type.getSimpleName()).isEqualTo(json);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpEncodedResultTest {
+
+	/** What the stub codec writes for any result; the real result has no "stub" member */
+	private static final String STUB_JSON = "{\"tools\":[],\"stub\":true}";
+
+	private final McpSchema.ListToolsResult result = new McpSchema.ListToolsResult(Collections.emptyList(), null);
+
+	@Test
+	void resultIsEncodedWithTheGivenCodec() throws IOException {
+		McpEncodedResult encoded = McpEncodedResult.encode(new StubCodec(), this.result);
+
+		assertThat(encoded.json()).isEqualTo(STUB_JSON);
+		assertThat(encoded.result()).isSameAs(this.result);
+	}
+
+	@Test
+	void jacksonWritesThePreEncodedTextVerbatim() throws IOException {
+		McpEncodedResult encoded = McpEncodedResult.encode(new StubCodec(), this.result);
+		McpSchema.JSONRPCResponse response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, encoded,
+				null);
+
+		McpJsonCodec jackson = McpJsonCodec.jackson(new ObjectMapper());
+		String expected = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":" + STUB_JSON + "}";
+		assertThat(jackson.encodeToString(response)).isEqualTo(expected);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		jackson.encode(response, out);
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+	}
+
+	@Test
+	void tokenBuffersGetTheResultSerializedAsUsual() throws IOException {
+		McpEncodedResult encoded = McpEncodedResult.encode(new StubCodec(), this.result);
+
+		Map<String, Object> converted = new ObjectMapper().convertValue(encoded,
+				new TypeReference<Map<String, Object>>() {
+				});
+
+		assertThat(converted).containsOnlyKeys("tools");
+	}
+
+	/**
+	 * Codec not built on Jackson, encoding every value as the same fixed text.
+	 */
+	static class StubCodec implements McpJsonCodec {
+
+		@Override
+		public byte[] encode(Object value) {
+			return encodeToString(value).getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void encode(Object value, OutputStream out) throws IOException {
+			out.write(encode(value));
+		}
+
+		@Override
+		public String encodeToString(Object value) {
+			return STUB_JSON;
+		}
+
+		@Override
+		public <T> T decode(byte[] json, Class<T> type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> T decode(InputStream in, Class<T> type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> T decode(String json, Class<T> type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> T decode(String json, TypeReference<T> typeRef) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public McpSchema.JSONRPCMessage decodeMessage(String json) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public McpSchema.JSONRPCMessage decodeMessage(InputStream in, long maxBytes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> T convert(Object data, Class<T> type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> T convert(Object data, TypeReference<T> typeRef) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
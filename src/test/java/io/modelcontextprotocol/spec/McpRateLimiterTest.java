@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpRateLimiterTest {
+
+	private static final String METHOD = McpSchema.METHOD_TOOLS_CALL;
+
+	private final McpRateLimiter limiter = new McpRateLimiter();
+
+	private final McpServerSessionTest.RecordingTransport transport = new McpServerSessionTest.RecordingTransport();
+
+	private McpServerSession session(String id) {
+		McpServerSession session = new McpServerSession(id, Duration.ofSeconds(5), this.transport,
+				request -> Mono.empty(), Mono::empty,
+				Collections.singletonMap(METHOD, (exchange, params) -> Mono.just(params)), Collections.emptyMap(),
+				this.limiter);
+		session.handle(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+				McpSchema.METHOD_NOTIFICATION_INITIALIZED, null))
+			.block();
+		return session;
+	}
+
+	private McpSchema.JSONRPCResponse call(McpServerSession session, int id) {
+		session.handle(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, METHOD, id, id)).block();
+		McpSchema.JSONRPCMessage last = this.transport.sent.get(this.transport.sent.size() - 1);
+		assertThat(last).isInstanceOf(McpSchema.JSONRPCResponse.class);
+		return (McpSchema.JSONRPCResponse) last;
+	}
+
+	@Test
+	void burstIsAllowedThenRequestsAreRejected() {
+		McpRateLimiter.Buckets buckets = this.limiter.defaultLimit(McpRateLimiter.Limit.of(1.0, 3))
+			.newSession("session");
+
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+		long waitNanos = buckets.tryAcquire(METHOD);
+
+		assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@Test
+	void tokensAreRefilledAtTheLimitRate() throws InterruptedException {
+		McpRateLimiter.Buckets buckets = this.limiter.defaultLimit(McpRateLimiter.Limit.of(20.0, 1))
+			.newSession("session");
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+		long waitNanos = buckets.tryAcquire(METHOD);
+		assertThat(waitNanos).isPositive();
+
+		Thread.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 10);
+
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+	}
+
+	@Test
+	void everyMethodHasItsOwnBucket() {
+		McpRateLimiter.Buckets buckets = this.limiter.defaultLimit(McpRateLimiter.Limit.of(1.0, 1))
+			.newSession("session");
+
+		assertThat(buckets.tryAcquire(METHOD)).isZero();
+		assertThat(buckets.tryAcquire(METHOD)).isPositive();
+		assertThat(buckets.tryAcquire(McpSchema.METHOD_RESOURCES_READ)).isZero();
+	}
+
+	@Test
+	void mostSpecificLimitApplies() {
+		McpRateLimiter.Limit byDefault = McpRateLimiter.Limit.of(1.0, 1);
+		McpRateLimiter.Limit byMethod = McpRateLimiter.Limit.of(2.0, 2);
+		McpRateLimiter.Limit bySession = McpRateLimiter.Limit.of(3.0, 3);
+		this.limiter.defaultLimit(byDefault).methodLimit(METHOD, byMethod).sessionLimit("a", METHOD, bySession);
+
+		assertThat(this.limiter.limitFor("a", METHOD)).isSameAs(bySession);
+		assertThat(this.limiter.limitFor("b", METHOD)).isSameAs(byMethod);
+		assertThat(this.limiter.limitFor("a", McpSchema.METHOD_PING)).isSameAs(byDefault);
+		assertThat(this.limiter.limitFor("a", McpSchema.METHOD_INITIALIZE)).isNull();
+
+		this.limiter.sessionLimit("a", METHOD, null).methodLimit(METHOD, null).defaultLimit(null);
+		assertThat(this.limiter.limitFor("a", METHOD)).isNull();
+	}
+
+	@Test
+	void rejectedRequestIsAnsweredWithRateLimitedAndRetryAfter() {
+		this.limiter.methodLimit(METHOD, McpRateLimiter.Limit.of(1, Duration.ofSeconds(10)));
+		McpServerSession session = session("session");
+
+		assertThat(call(session, 1).error()).isNull();
+		McpSchema.JSONRPCResponse rejected = call(session, 2);
+
+		assertThat(rejected.id()).isEqualTo(2);
+		assertThat(rejected.error().getCode()).isEqualTo(McpSchema.ErrorCodes.RATE_LIMITED).isEqualTo(-32029);
+		Map<?, ?> data = (Map<?, ?>) rejected.error().getData();
+		assertThat(data.get("method")).isEqualTo(METHOD);
+		assertThat(((Number) data.get("retryAfterMillis")).longValue()).isBetween(1L, 10_000L);
+	}
+
+	@Test
+	void closingTheSessionRemovesItsLimits() {
+		McpRateLimiter.Limit byMethod = McpRateLimiter.Limit.of(2.0, 2);
+		this.limiter.methodLimit(METHOD, byMethod)
+			.sessionLimit("session", METHOD, McpRateLimiter.Limit.of(1.0, 1));
+		McpServerSession session = session("session");
+
+		session.close();
+
+		assertThat(this.limiter.limitFor("session", METHOD)).isSameAs(byMethod);
+	}
+
+	@Test
+	void releasingTheSessionRemovesItsLimits() {
+		this.limiter.sessionLimit("session", METHOD, McpRateLimiter.Limit.of(1.0, 1));
+		McpServerSession session = session("session");
+
+		session.release();
+		session.release();
+
+		assertThat(this.limiter.limitFor("session", METHOD)).isNull();
+	}
+
+}
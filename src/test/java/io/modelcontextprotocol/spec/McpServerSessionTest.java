@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpServerSessionTest {
+
+	private final RecordingTransport transport = new RecordingTransport();
+
+	private final AtomicInteger notified = new AtomicInteger();
+
+	private McpServerSession session;
+
+	@BeforeEach
+	void setUp() {
+		Map<String, McpServerSession.RequestHandler<?>> requestHandlers = new HashMap<>();
+		// Answers with its params after the given number of milliseconds
+		requestHandlers.put("echo", (exchange, params) -> Mono.delay(Duration.ofMillis(((Number) params).longValue()))
+			.thenReturn(params));
+		requestHandlers.put("fail", (exchange, params) -> Mono
+			.error(new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS,
+					"bad params", null))));
+		Map<String, McpServerSession.NotificationHandler> notificationHandlers = new HashMap<>();
+		notificationHandlers.put("note", (exchange, params) -> Mono.fromRunnable(this.notified::incrementAndGet));
+
+		this.session = new McpServerSession("session", Duration.ofSeconds(5), this.transport,
+				request -> Mono.empty(), Mono::empty, requestHandlers, notificationHandlers);
+		this.session.handle(notification(McpSchema.METHOD_NOTIFICATION_INITIALIZED)).block();
+	}
+
+	private static McpSchema.JSONRPCRequest request(Object id, String method, Object params) {
+		return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, method, id, params);
+	}
+
+	private static McpSchema.JSONRPCNotification notification(String method) {
+		return new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, null);
+	}
+
+	private static McpSchema.JSONRPCBatch batch(McpSchema.JSONRPCMessage... messages) {
+		return new McpSchema.JSONRPCBatch(Arrays.asList(messages));
+	}
+
+	private List<McpSchema.JSONRPCMessage> sentBatch() {
+		assertThat(this.transport.sent).hasSize(1);
+		assertThat(this.transport.sent.get(0)).isInstanceOf(McpSchema.JSONRPCBatch.class);
+		return ((McpSchema.JSONRPCBatch) this.transport.sent.get(0)).messages();
+	}
+
+	private static McpSchema.JSONRPCResponse response(McpSchema.JSONRPCMessage message) {
+		assertThat(message).isInstanceOf(McpSchema.JSONRPCResponse.class);
+		return (McpSchema.JSONRPCResponse) message;
+	}
+
+	@Test
+	void mixedBatchAnswersEveryRequestAndRunsTheNotifications() {
+		this.session.handle(batch(request(1, "echo", 0), notification("note"), request(2, "echo", 0))).block();
+
+		List<McpSchema.JSONRPCMessage> responses = sentBatch();
+		assertThat(responses).hasSize(2);
+		assertThat(response(responses.get(0)).id()).isEqualTo(1);
+		assertThat(response(responses.get(1)).id()).isEqualTo(2);
+		assertThat(this.notified).hasValue(1);
+	}
+
+	@Test
+	void responsesKeepRequestOrderWhateverOrderTheyComplete() {
+		this.session.handle(batch(request(1, "echo", 100), request(2, "echo", 0), request(3, "echo", 50))).block();
+
+		List<McpSchema.JSONRPCMessage> responses = sentBatch();
+		assertThat(responses).extracting(message -> response(message).id()).containsExactly(1, 2, 3);
+		assertThat(responses).extracting(message -> ((Number) response(message).result()).intValue())
+			.containsExactly(100, 0, 50);
+	}
+
+	@Test
+	void notificationOnlyBatchGetsNoResponse() {
+		this.session.handle(batch(notification("note"), notification("note"))).block();
+
+		assertThat(this.transport.sent).isEmpty();
+		assertThat(this.notified).hasValue(2);
+	}
+
+	@Test
+	void invalidElementsAreAnsweredWithInvalidRequestInTheirPlace() {
+		this.session
+			.handle(batch(request(1, "echo", 0), new McpSchema.JSONRPCInvalidMessage("not an object"),
+					request(2, "echo", 0)))
+			.block();
+
+		List<McpSchema.JSONRPCMessage> responses = sentBatch();
+		assertThat(responses).hasSize(3);
+		assertThat(response(responses.get(0)).id()).isEqualTo(1);
+		McpSchema.JSONRPCResponse invalid = response(responses.get(1));
+		assertThat(invalid.id()).isNull();
+		assertThat(invalid.error().getCode()).isEqualTo(McpSchema.ErrorCodes.INVALID_REQUEST);
+		assertThat(invalid.error().getMessage()).isEqualTo("not an object");
+		assertThat(response(responses.get(2)).id()).isEqualTo(2);
+	}
+
+	@Test
+	void failedAndUnknownRequestsAreAnsweredWithTheirErrors() {
+		this.session.handle(batch(request(1, "fail", null), request(2, "missing", null))).block();
+
+		List<McpSchema.JSONRPCMessage> responses = sentBatch();
+		assertThat(response(responses.get(0)).error().getCode()).isEqualTo(McpSchema.ErrorCodes.INVALID_PARAMS);
+		assertThat(response(responses.get(1)).error().getCode()).isEqualTo(McpSchema.ErrorCodes.METHOD_NOT_FOUND);
+	}
+
+	static class RecordingTransport implements McpServerTransport {
+
+		final List<McpSchema.JSONRPCMessage> sent = new CopyOnWriteArrayList<>();
+
+		private final ObjectMapper objectMapper = new ObjectMapper();
+
+		@Override
+		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+			return Mono.fromRunnable(() -> this.sent.add(message));
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+			return this.objectMapper.convertValue(data, typeRef);
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class McpWireFormatTest {
+
+	private static final McpJsonCodec JSON_CODEC = McpJsonCodec.jackson(new ObjectMapper());
+
+	private static final McpSchema.JSONRPCMessage NOTE = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+			"note", Collections.singletonMap("text", "hello"));
+
+	/**
+	 * Decoded params stay raw JSON until converted, so messages are compared by their
+	 * encoding.
+	 */
+	private static String decoded(McpSchema.JSONRPCMessage message) throws IOException {
+		return JSON_CODEC.encodeToString(message);
+	}
+
+	@Test
+	void clientThatOffersNothingGetsJson() {
+		assertThat(McpWireFormat.negotiate(null, EnumSet.allOf(McpWireFormat.class))).isEqualTo(McpWireFormat.JSON);
+	}
+
+	@Test
+	void serverThatEnablesNothingAnswersJson() {
+		assertThat(McpWireFormat.negotiate("smile,cbor", Collections.emptySet())).isEqualTo(McpWireFormat.JSON);
+	}
+
+	@Test
+	void unknownAndTextOffersAreIgnored() {
+		assertThat(McpWireFormat.negotiate("msgpack, json", EnumSet.allOf(McpWireFormat.class)))
+			.isEqualTo(McpWireFormat.JSON);
+	}
+
+	@Test
+	void firstOfferedFormatTheServerEnabledWins() {
+		assumeTrue(McpWireFormat.SMILE.isAvailable() && McpWireFormat.CBOR.isAvailable());
+
+		assertThat(McpWireFormat.negotiate("smile, cbor", EnumSet.of(McpWireFormat.SMILE, McpWireFormat.CBOR)))
+			.isEqualTo(McpWireFormat.SMILE);
+		assertThat(McpWireFormat.negotiate("SMILE,cbor", EnumSet.of(McpWireFormat.CBOR)))
+			.isEqualTo(McpWireFormat.CBOR);
+	}
+
+	@Test
+	void formatWhoseModuleIsMissingIsNeverNegotiated() {
+		assumeFalse(McpWireFormat.SMILE.isAvailable());
+
+		assertThat(McpWireFormat.negotiate("smile", EnumSet.of(McpWireFormat.SMILE))).isEqualTo(McpWireFormat.JSON);
+		assertThatThrownBy(() -> McpWireFormat.SMILE.codec(new ObjectMapper()))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("smile");
+	}
+
+	@Test
+	void formatIsLookedUpByIdAndContentType() {
+		assertThat(McpWireFormat.fromId(" Smile ")).isEqualTo(McpWireFormat.SMILE);
+		assertThat(McpWireFormat.fromId("msgpack")).isNull();
+		assertThat(McpWireFormat.fromId(null)).isNull();
+
+		assertThat(McpWireFormat.fromContentType("application/cbor")).isEqualTo(McpWireFormat.CBOR);
+		assertThat(McpWireFormat.fromContentType("Application/X-Jackson-Smile; charset=binary"))
+			.isEqualTo(McpWireFormat.SMILE);
+		assertThat(McpWireFormat.fromContentType("application/json; charset=UTF-8")).isEqualTo(McpWireFormat.JSON);
+		assertThat(McpWireFormat.fromContentType(null)).isEqualTo(McpWireFormat.JSON);
+	}
+
+	@Test
+	void negotiatedFormatIsReadFromTheEndpoint() {
+		assertThat(McpWireFormat.fromEndpoint("/message?sessionId=1&wireFormat=cbor")).isEqualTo(McpWireFormat.CBOR);
+		assertThat(McpWireFormat.fromEndpoint("/message?wireFormat=smile&sessionId=1"))
+			.isEqualTo(McpWireFormat.SMILE);
+		assertThat(McpWireFormat.fromEndpoint("/message?sessionId=1")).isEqualTo(McpWireFormat.JSON);
+		assertThat(McpWireFormat.fromEndpoint("/message?sessionId=1&wireFormat=msgpack"))
+			.isEqualTo(McpWireFormat.JSON);
+		assertThat(McpWireFormat.fromEndpoint("/message")).isEqualTo(McpWireFormat.JSON);
+	}
+
+	@Test
+	void jsonEventDataIsThePlainMessage() throws IOException {
+		String data = McpWireFormat.JSON.encodeEventData(JSON_CODEC, NOTE);
+
+		assertThat(data).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"note\",\"params\":{\"text\":\"hello\"}}");
+		assertThat(decoded(McpWireFormat.JSON.decodeEventData(JSON_CODEC, data))).isEqualTo(decoded(NOTE));
+	}
+
+	@Test
+	void binaryEventDataIsTheBase64EncodedMessage() throws IOException {
+		// The framing does not depend on the codec, so the JSON codec stands in for the
+		// binary one
+		String data = McpWireFormat.SMILE.encodeEventData(JSON_CODEC, NOTE);
+
+		assertThat(Base64.getDecoder().decode(data)).isEqualTo(JSON_CODEC.encode(NOTE));
+		assertThat(decoded(McpWireFormat.SMILE.decodeEventData(JSON_CODEC, data))).isEqualTo(decoded(NOTE));
+	}
+
+	@Test
+	void base64SplitOverSeveralDataLinesIsDecoded() throws IOException {
+		String data = McpWireFormat.CBOR.encodeEventData(JSON_CODEC, NOTE);
+		String wrapped = data.substring(0, 10) + "\n" + data.substring(10);
+
+		assertThat(decoded(McpWireFormat.CBOR.decodeEventData(JSON_CODEC, wrapped))).isEqualTo(decoded(NOTE));
+	}
+
+	@Test
+	void malformedBase64IsAnIoError() {
+		assertThatThrownBy(() -> McpWireFormat.SMILE.decodeEventData(JSON_CODEC, "not base64!"))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("smile");
+	}
+
+	@Test
+	void jsonIsAlwaysAvailable() throws IOException {
+		assertThat(McpWireFormat.JSON.isAvailable()).isTrue();
+		assertThat(McpWireFormat.JSON.isBinary()).isFalse();
+		assertThat(Arrays.stream(McpWireFormat.values()).filter(McpWireFormat::isBinary))
+			.containsExactly(McpWireFormat.SMILE, McpWireFormat.CBOR);
+		assertThat(McpWireFormat.JSON.codec(new ObjectMapper()).encodeToString(NOTE).getBytes(StandardCharsets.UTF_8))
+			.isEqualTo(JSON_CODEC.encode(NOTE));
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedInputStreamTest {
+
+	private static InputStream bytes(int length) {
+		return new ByteArrayInputStream(new byte[length]);
+	}
+
+	@Test
+	void streamUpToTheLimitReadsInFull() throws IOException {
+		BoundedInputStream in = new BoundedInputStream(bytes(10), 10);
+
+		assertThat(in.read(new byte[16], 0, 16)).isEqualTo(10);
+		assertThat(in.read()).isEqualTo(-1);
+	}
+
+	@Test
+	void bulkReadPastTheLimitFails() {
+		BoundedInputStream in = new BoundedInputStream(bytes(11), 10);
+
+		assertThatThrownBy(() -> in.read(new byte[16], 0, 16))
+			.isInstanceOf(BoundedInputStream.LimitExceededException.class)
+			.hasMessageContaining("10 bytes");
+	}
+
+	@Test
+	void singleByteReadPastTheLimitFails() throws IOException {
+		BoundedInputStream in = new BoundedInputStream(bytes(3), 2);
+		in.read();
+		in.read();
+
+		assertThatThrownBy(in::read).isInstanceOf(BoundedInputStream.LimitExceededException.class);
+	}
+
+	@Test
+	void skippedBytesCountTowardsTheLimit() throws IOException {
+		BoundedInputStream in = new BoundedInputStream(bytes(10), 5);
+		in.skip(4);
+
+		assertThatThrownBy(() -> in.read(new byte[4], 0, 4))
+			.isInstanceOf(BoundedInputStream.LimitExceededException.class);
+	}
+
+	@Test
+	void limitExceededIsFoundInTheCauseChain() {
+		IOException exceeded = new BoundedInputStream.LimitExceededException(10);
+
+		assertThat(BoundedInputStream.isLimitExceeded(exceeded)).isTrue();
+		assertThat(BoundedInputStream.isLimitExceeded(new UncheckedIOException(new IOException(exceeded)))).isTrue();
+		assertThat(BoundedInputStream.isLimitExceeded(new IOException("Broken pipe"))).isFalse();
+		assertThat(BoundedInputStream.isLimitExceeded(null)).isFalse();
+	}
+
+	@Test
+	void oversizedMessageIsRejectedBeforeItIsReadInFull() throws IOException {
+		char[] padding = new char[1024 * 1024];
+		Arrays.fill(padding, 'x');
+		byte[] message = ("{\"jsonrpc\":\"2.0\",\"method\":\"note\",\"params\":{\"text\":\"" + new String(padding)
+				+ "\"}}")
+			.getBytes(StandardCharsets.UTF_8);
+		CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(message));
+
+		assertThatThrownBy(() -> McpSchema.deserializeJsonRpcMessage(new ObjectMapper(), in, 1024))
+			.isInstanceOf(BoundedInputStream.LimitExceededException.class);
+		assertThat(in.count).isLessThan(64 * 1024);
+	}
+
+	@Test
+	void messageWithinTheLimitIsDecoded() throws IOException {
+		byte[] message = "{\"jsonrpc\":\"2.0\",\"method\":\"note\"}".getBytes(StandardCharsets.UTF_8);
+
+		McpSchema.JSONRPCMessage decoded = McpSchema.deserializeJsonRpcMessage(new ObjectMapper(),
+				new ByteArrayInputStream(message), message.length);
+
+		assertThat(decoded).isInstanceOf(McpSchema.JSONRPCNotification.class);
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				this.count += read;
+			}
+			return read;
+		}
+
+	}
+
+}
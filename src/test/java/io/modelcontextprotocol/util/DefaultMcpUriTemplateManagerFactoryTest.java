@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025-2025 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DefaultMcpUriTemplateManagerFactoryTest {
+
+	@Test
+	void createReturnsTheCachedManager() {
+		DefaultMcpUriTemplateManagerFactory factory = new DefaultMcpUriTemplateManagerFactory();
+
+		McpUriTemplateManager manager = factory.create("users/{id}");
+
+		assertThat(factory.create("users/{id}")).isSameAs(manager);
+		assertThat(factory.create("users/{name}")).isNotSameAs(manager);
+		assertThat(manager.extractVariableValues("users/42")).isEqualTo(Collections.singletonMap("id", "42"));
+	}
+
+	@Test
+	void leastRecentlyUsedManagerIsEvicted() {
+		DefaultMcpUriTemplateManagerFactory factory = new DefaultMcpUriTemplateManagerFactory(2);
+		McpUriTemplateManager a = factory.create("a/{x}");
+		McpUriTemplateManager b = factory.create("b/{x}");
+
+		factory.create("a/{x}");
+		factory.create("c/{x}");
+
+		assertThat(factory.create("a/{x}")).isSameAs(a);
+		assertThat(factory.create("b/{x}")).isNotSameAs(b);
+	}
+
+	@Test
+	void zeroCacheSizeCreatesEveryTime() {
+		DefaultMcpUriTemplateManagerFactory factory = new DefaultMcpUriTemplateManagerFactory(0);
+
+		assertThat(factory.create("users/{id}")).isNotSameAs(factory.create("users/{id}"));
+	}
+
+	@Test
+	void invalidArgumentsAreRejected() {
+		DefaultMcpUriTemplateManagerFactory factory = new DefaultMcpUriTemplateManagerFactory();
+
+		assertThatThrownBy(() -> new DefaultMcpUriTemplateManagerFactory(-1))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> factory.create(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> factory.create("")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> factory.create("{a}/{a}")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void invalidTemplatesAreNotCached() {
+		DefaultMcpUriTemplateManagerFactory factory = new DefaultMcpUriTemplateManagerFactory(1);
+		McpUriTemplateManager manager = factory.create("users/{id}");
+
+		assertThatThrownBy(() -> factory.create("{a}/{a}")).isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(factory.create("users/{id}")).isSameAs(manager);
+	}
+
+}
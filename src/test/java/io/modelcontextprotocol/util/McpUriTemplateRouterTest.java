@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025-2025 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class McpUriTemplateRouterTest {
+
+	private final McpUriTemplateRouter<String> router = new McpUriTemplateRouter<>();
+
+	private String valueOf(String uri) {
+		McpUriTemplateRouter.Match<String> match = this.router.resolve(uri);
+		return match != null ? match.value() : null;
+	}
+
+	private Map<String, String> variablesOf(String uri) {
+		McpUriTemplateRouter.Match<String> match = this.router.resolve(uri);
+		assertThat(match).as("match for %s", uri).isNotNull();
+		return match.variables();
+	}
+
+	@Test
+	void plainUriIsFoundWithoutVariables() {
+		this.router.add("file:///readme.md", "readme");
+
+		assertThat(valueOf("file:///readme.md")).isEqualTo("readme");
+		assertThat(variablesOf("file:///readme.md")).isEmpty();
+		assertThat(valueOf("file:///other.md")).isNull();
+		assertThat(this.router.nodeCount()).isZero();
+	}
+
+	@Test
+	void variablesAreExtractedFromTheirSegments() {
+		this.router.add("db://{schema}/tables/{table}", "table");
+		this.router.add("file:///{name}.{ext}", "file");
+
+		assertThat(variablesOf("db://public/tables/users")).containsExactly(entry("schema", "public"),
+				entry("table", "users"));
+		assertThat(variablesOf("file:///notes.v2.txt")).containsExactly(entry("name", "notes"),
+				entry("ext", "v2.txt"));
+	}
+
+	@Test
+	void variableNeverMatchesAnEmptySegmentOrASlash() {
+		this.router.add("users/{id}", "user");
+
+		assertThat(valueOf("users/42")).isEqualTo("user");
+		assertThat(valueOf("users/")).isNull();
+		assertThat(valueOf("users/42/posts")).isNull();
+	}
+
+	@Test
+	void literalSegmentTakesPrecedenceOverAVariable() {
+		this.router.add("users/{id}", "user");
+		this.router.add("users/me", "me");
+
+		assertThat(valueOf("users/me")).isEqualTo("me");
+		assertThat(valueOf("users/42")).isEqualTo("user");
+	}
+
+	@Test
+	void deadEndLiteralBranchFallsBackToTheVariable() {
+		this.router.add("a/b/d", "literal");
+		this.router.add("a/{x}/c", "variable");
+
+		assertThat(valueOf("a/b/d")).isEqualTo("literal");
+		assertThat(variablesOf("a/b/c")).containsExactly(entry("x", "b"));
+	}
+
+	@Test
+	void valuesOfAFailedBranchDoNotLeakIntoTheMatch() {
+		this.router.add("{a}/{b}/x", "first");
+		this.router.add("{c}.txt/{d}/y", "second");
+
+		assertThat(variablesOf("n.txt/m/y")).containsExactly(entry("c", "n"), entry("d", "m"));
+	}
+
+	@Test
+	void earlierTemplateWinsOnTheSameBranch() {
+		this.router.add("files/{first}", "first");
+		this.router.add("files/{second}", "second");
+
+		assertThat(valueOf("files/a")).isEqualTo("first");
+		assertThat(variablesOf("files/a")).containsExactly(entry("first", "a"));
+
+		this.router.remove("files/{first}");
+		assertThat(variablesOf("files/a")).containsExactly(entry("second", "a"));
+	}
+
+	@Test
+	void addingATemplateAgainReplacesItsValue() {
+		this.router.add("users/{id}", "old");
+		this.router.add("users/{id}", "new");
+
+		assertThat(valueOf("users/1")).isEqualTo("new");
+		this.router.remove("users/{id}");
+		assertThat(valueOf("users/1")).isNull();
+	}
+
+	@Test
+	void templatesWithOperatorsAreMatchedAfterTheTrie() {
+		this.router.add("repo://{+path}", "reserved");
+		this.router.add("repo://{name}", "simple");
+
+		assertThat(valueOf("repo://a")).isEqualTo("simple");
+		assertThat(variablesOf("repo://a/b/c")).containsExactly(entry("path", "a/b/c"));
+
+		assertThat(this.router.remove("repo://{+path}")).isTrue();
+		assertThat(valueOf("repo://a/b/c")).isNull();
+	}
+
+	@Test
+	void repeatedVariableNameIsRejected() {
+		assertThatThrownBy(() -> this.router.add("{id}/{id}", "x")).isInstanceOf(IllegalArgumentException.class);
+		assertThat(this.router.nodeCount()).isZero();
+	}
+
+	@Test
+	void removingTheLastTemplateOfABranchPrunesIt() {
+		this.router.add("a/x", "short");
+		int nodes = this.router.nodeCount();
+		this.router.add("a/b/{c}/d", "long");
+		this.router.add("a/b/{c}.txt", "sibling");
+
+		assertThat(this.router.remove("a/b/{c}/d")).isTrue();
+		assertThat(valueOf("a/b/1/d")).isNull();
+		assertThat(valueOf("a/b/1.txt")).isEqualTo("sibling");
+
+		assertThat(this.router.remove("a/b/{c}.txt")).isTrue();
+		assertThat(this.router.nodeCount()).isEqualTo(nodes);
+		assertThat(valueOf("a/x")).isEqualTo("short");
+
+		assertThat(this.router.remove("a/x")).isTrue();
+		assertThat(this.router.nodeCount()).isZero();
+		assertThat(this.router.remove("a/x")).isFalse();
+	}
+
+	@Test
+	void nodeLeadingToAnotherTemplateIsKept() {
+		this.router.add("a/{b}", "parent");
+		this.router.add("a/{b}/c", "child");
+
+		this.router.remove("a/{b}/c");
+
+		assertThat(valueOf("a/1")).isEqualTo("parent");
+		assertThat(this.router.nodeCount()).isEqualTo(2);
+	}
+
+	@Test
+	void resolvingRunsConcurrentlyWithChanges() throws Exception {
+		this.router.add("stable/{id}", "stable");
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int t = 0; t < 3; t++) {
+				readers.add(executor.submit(() -> {
+					while (running.get()) {
+						assertThat(valueOf("stable/1")).isEqualTo("stable");
+					}
+					return null;
+				}));
+			}
+			for (int i = 0; i < 2000; i++) {
+				this.router.add("churn/" + (i % 10) + "/{id}", "churn");
+				this.router.remove("churn/" + (i % 10) + "/{id}");
+			}
+			running.set(false);
+			for (Future<?> reader : readers) {
+				reader.get(10, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(this.router.nodeCount()).isEqualTo(2);
+		assertThat(this.router.resolve("churn/1/x")).isNull();
+		assertThat(valueOf("stable/2")).isEqualTo("stable");
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025-2025 the original author or authors.
+ */
+
+package io.modelcontextprotocol.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class McpUriTemplateTest {
+
+	private static final Map<String, String> NO_MATCH = null;
+
+	static Stream<Arguments> matches() {
+		return Stream.of(
+				// {var}: one or more characters other than '/'
+				arguments("users/{id}", "users/42", vars("id", "42")),
+				arguments("users/{id}", "users/", NO_MATCH),
+				arguments("users/{id}", "users/4/2", NO_MATCH),
+				arguments("users/{id}/posts/{post}", "users/4/posts/2", vars("id", "4", "post", "2")),
+				arguments("{a}-{b:3}", "x-yz", vars("a", "x", "b", "yz")),
+				arguments("x/{a,b}", "x/1,2", vars("a", "1", "b", "2")),
+				// Literals are matched literally, regex characters included
+				arguments("file:///{name}.txt", "file:///abc.txt", vars("name", "abc")),
+				arguments("file:///{name}.txt", "file:///abcXtxt", NO_MATCH),
+				arguments("a+b/{x}", "a+b/1", vars("x", "1")),
+				arguments("a+b/{x}", "aab/1", NO_MATCH),
+				arguments("plain", "plain", vars()),
+				arguments("plain", "plain2", NO_MATCH),
+				// {+var}: reserved characters, '/' included
+				arguments("repo://{+path}", "repo://a/b/c", vars("path", "a/b/c")),
+				arguments("repo://{+path}", "repo://", NO_MATCH),
+				// {#var}: after a '#'
+				arguments("page{#section}", "page#top", vars("section", "top")),
+				arguments("page{#section}", "page", NO_MATCH),
+				// {.var}: labels after a '.'
+				arguments("file{.ext}", "file.json", vars("ext", "json")),
+				arguments("file{.a,b}", "file.x.y", vars("a", "x", "b", "y")),
+				arguments("file{.ext}", "file.a/b", NO_MATCH),
+				// {/var}: a path segment, several with {/var*}
+				arguments("docs{/path}", "docs/a", vars("path", "a")),
+				arguments("docs{/path}", "docs/a/b", NO_MATCH),
+				arguments("docs{/path*}", "docs/a/b/c", vars("path", "a/b/c")),
+				arguments("x{/a,b}", "x/1/2", vars("a", "1", "b", "2")),
+				// {;var}: path-style parameters
+				arguments("x{;a,b}", "x;a=1;b=2", vars("a", "1", "b", "2")),
+				arguments("x{;a,b}", "x;a;b=2", vars("b", "2")),
+				arguments("x{;a,b}", "x;b=2;a=1", NO_MATCH),
+				// {?var} and {&var}: optional query parameters, in any order
+				arguments("search{?q,lang}", "search?q=x&lang=en", vars("q", "x", "lang", "en")),
+				arguments("search{?q,lang}", "search?lang=en&q=x", vars("lang", "en", "q", "x")),
+				arguments("search{?q,lang}", "search?q=x&other=1", vars("q", "x")),
+				arguments("search{?q,lang}", "search", vars()),
+				arguments("search?q=x{&page}", "search?q=x&page=2", vars("page", "2")),
+				arguments("search?q=x{&page}", "search?q=y&page=2", NO_MATCH));
+	}
+
+	@ParameterizedTest(name = "{0} ~ {1}")
+	@MethodSource("matches")
+	void match(String template, String uri, Map<String, String> expected) {
+		McpUriTemplate compiled = McpUriTemplate.compile(template);
+
+		assertThat(compiled.match(uri)).isEqualTo(expected);
+		assertThat(compiled.matches(uri)).isEqualTo(expected != null);
+	}
+
+	@Test
+	void variableNamesInOrderOfAppearance() {
+		assertThat(McpUriTemplate.compile("{a}/{+b}{?c,d}{#e}").variableNames())
+			.isEqualTo(Arrays.asList("a", "b", "c", "d", "e"));
+		assertThat(McpUriTemplate.compile("{/path*}{.ext:3}").variableNames())
+			.isEqualTo(Arrays.asList("path", "ext"));
+		assertThat(McpUriTemplate.compile("plain").variableNames()).isEmpty();
+	}
+
+	@Test
+	void onlyPlainSingleVariablesAreSimple() {
+		assertThat(McpUriTemplate.compile("plain").isTemplate()).isFalse();
+		assertThat(McpUriTemplate.compile("users/{id}").isTemplate()).isTrue();
+		assertThat(McpUriTemplate.compile("users/{id}/{name}.txt").isSimple()).isTrue();
+		assertThat(McpUriTemplate.compile("x/{a,b}").isSimple()).isFalse();
+		assertThat(McpUriTemplate.compile("{+path}").isSimple()).isFalse();
+		assertThat(McpUriTemplate.compile("{a:3}").isSimple()).isFalse();
+		assertThat(McpUriTemplate.compile("{/a*}").isSimple()).isFalse();
+	}
+
+	@Test
+	void invalidTemplatesAreRejected() {
+		assertThatThrownBy(() -> McpUriTemplate.compile(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> McpUriTemplate.compile("")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> McpUriTemplate.compile("{a}/{a}")).isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("a");
+		assertThatThrownBy(() -> McpUriTemplate.compile("{?q}{&q}")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void containsExpression() {
+		assertThat(McpUriTemplate.containsExpression("users/{id}")).isTrue();
+		assertThat(McpUriTemplate.containsExpression("search{?q}")).isTrue();
+		assertThat(McpUriTemplate.containsExpression("users/42")).isFalse();
+		assertThat(McpUriTemplate.containsExpression(null)).isFalse();
+	}
+
+	@Test
+	void nullUriDoesNotMatch() {
+		McpUriTemplate template = McpUriTemplate.compile("users/{id}");
+
+		assertThat(template.match(null)).isNull();
+		assertThat(template.matches(null)).isFalse();
+	}
+
+	private static Map<String, String> vars(String... namesAndValues) {
+		if (namesAndValues.length == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> vars = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			vars.put(namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return vars;
+	}
+
+}